@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.benchmark;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatViewInflater;
+
+/**
+ * View inflater creating {@link RegisteredCustomView} through a registered factory.
+ */
+public class BenchmarkViewInflater extends AppCompatViewInflater {
+    public BenchmarkViewInflater() {
+        registerViewFactory(RegisteredCustomView.class.getName(), new ViewFactory() {
+            @NonNull
+            @Override
+            public View createView(@NonNull Context context, @NonNull AttributeSet attrs) {
+                return new RegisteredCustomView(context, attrs);
+            }
+        });
+    }
+}
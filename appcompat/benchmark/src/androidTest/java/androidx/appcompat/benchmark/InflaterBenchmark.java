@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.appcompat.benchmark.test.R;
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.rule.ActivityTestRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class InflaterBenchmark {
+    private static final int VIEW_COUNT = 20;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public ActivityTestRule<InflaterActivity> mActivityRule =
+            new ActivityTestRule<>(InflaterActivity.class);
+
+    @UiThreadTest
+    @Test
+    public void inflateCustomViewsWithReflection() {
+        inflate(R.layout.custom_views);
+    }
+
+    @UiThreadTest
+    @Test
+    public void inflateCustomViewsWithFactory() {
+        inflate(R.layout.registered_custom_views);
+    }
+
+    private void inflate(int layout) {
+        final LayoutInflater inflater = mActivityRule.getActivity().getLayoutInflater();
+        ViewGroup root = (ViewGroup) inflater.inflate(layout, null);
+        assertEquals(VIEW_COUNT, root.getChildCount());
+
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            inflater.inflate(layout, null);
+        }
+    }
+}
@@ -41,9 +41,7 @@ import androidx.annotation.RestrictTo;
 import androidx.appcompat.graphics.drawable.AnimatedStateListDrawableCompat;
 import androidx.appcompat.resources.R;
 import androidx.collection.ArrayMap;
-import androidx.collection.LongSparseArray;
 import androidx.collection.LruCache;
-import androidx.collection.SparseArrayCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
 import androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat;
@@ -52,10 +50,24 @@ import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Loads, tints and caches the drawables of AppCompat.
+ * <p>
+ * This class is thread safe, and its drawable and tint caches are read without locking nor
+ * allocating so that views inflated on several threads at once don't wait for each other. They
+ * are written under a single lock, which only happens the first time a given drawable or tint is
+ * loaded for a context. Drawables and tints missing from the caches are computed without holding
+ * any lock, and may be computed more than once when several threads need the same one at the same
+ * time.
+ *
  * @hide
  */
 @RestrictTo(LIBRARY_GROUP_PREFIX)
@@ -85,17 +97,24 @@ public final class ResourceManagerInternal {
 
     private static final String PLATFORM_VD_CLAZZ = "android.graphics.drawable.VectorDrawable";
 
-    private static ResourceManagerInternal INSTANCE;
+    private static volatile ResourceManagerInternal INSTANCE;
 
     /**
      * Returns the singleton instance of this class.
      */
-    public static synchronized ResourceManagerInternal get() {
-        if (INSTANCE == null) {
-            INSTANCE = new ResourceManagerInternal();
-            installDefaultInflateDelegates(INSTANCE);
+    public static ResourceManagerInternal get() {
+        ResourceManagerInternal instance = INSTANCE;
+        if (instance == null) {
+            synchronized (ResourceManagerInternal.class) {
+                instance = INSTANCE;
+                if (instance == null) {
+                    instance = new ResourceManagerInternal();
+                    installDefaultInflateDelegates(instance);
+                    INSTANCE = instance;
+                }
+            }
         }
-        return INSTANCE;
+        return instance;
     }
 
     private static void installDefaultInflateDelegates(@NonNull ResourceManagerInternal manager) {
@@ -111,28 +130,42 @@ public final class ResourceManagerInternal {
 
     private static final ColorFilterLruCache COLOR_FILTER_CACHE = new ColorFilterLruCache(6);
 
-    private WeakHashMap<Context, SparseArrayCompat<ColorStateList>> mTintLists;
+    // Reused by each thread to look up the caches of a context without allocating.
+    private static final ThreadLocal<ContextLookupKey> TL_CONTEXT_LOOKUP_KEY =
+            new ThreadLocal<>();
+    // Reused by each thread to look up the values of the drawables.
+    private static final ThreadLocal<TypedValue> TL_TYPED_VALUE = new ThreadLocal<>();
+
+    // Only modified while the instance is created, before it is published.
     private ArrayMap<String, InflateDelegate> mDelegates;
-    private SparseArrayCompat<String> mKnownDrawableIdTags;
 
-    private final WeakHashMap<Context, LongSparseArray<WeakReference<ConstantState>>>
-            mDrawableCaches = new WeakHashMap<>(0);
+    // The caches below are read without locking, and written while holding mWriteLock.
+    private final LongCache<String> mKnownDrawableIdTags = new LongCache<>();
+    private final ConcurrentHashMap<ContextKey, ContextCache> mContextCaches =
+            new ConcurrentHashMap<>();
+    private final ReferenceQueue<Context> mStaleContexts = new ReferenceQueue<>();
+    private final ReentrantLock mWriteLock = new ReentrantLock();
 
-    private TypedValue mTypedValue;
+    private final AtomicLong mDrawableHitCount = new AtomicLong();
+    private final AtomicLong mDrawableMissCount = new AtomicLong();
+    private final AtomicLong mTintListHitCount = new AtomicLong();
+    private final AtomicLong mTintListMissCount = new AtomicLong();
+    private final AtomicLong mContentionCount = new AtomicLong();
+    private final AtomicLong mDuplicateComputationCount = new AtomicLong();
 
-    private boolean mHasCheckedVectorDrawableSetup;
+    private volatile boolean mHasCheckedVectorDrawableSetup;
 
-    private ResourceManagerHooks mHooks;
+    private volatile ResourceManagerHooks mHooks;
 
-    public synchronized void setHooks(ResourceManagerHooks hooks) {
+    public void setHooks(ResourceManagerHooks hooks) {
         mHooks = hooks;
     }
 
-    public synchronized Drawable getDrawable(@NonNull Context context, @DrawableRes int resId) {
+    public Drawable getDrawable(@NonNull Context context, @DrawableRes int resId) {
         return getDrawable(context, resId, false);
     }
 
-    synchronized Drawable getDrawable(@NonNull Context context, @DrawableRes int resId,
+    Drawable getDrawable(@NonNull Context context, @DrawableRes int resId,
             boolean failIfNotKnown) {
         checkVectorDrawableSetup(context);
 
@@ -155,11 +188,16 @@ public final class ResourceManagerInternal {
         return drawable;
     }
 
-    public synchronized void onConfigurationChanged(@NonNull Context context) {
-        LongSparseArray<WeakReference<ConstantState>> cache = mDrawableCaches.get(context);
+    public void onConfigurationChanged(@NonNull Context context) {
+        final ContextCache cache = getContextCache(context, false);
         if (cache != null) {
-            // Crude, but we'll just clear the cache when the configuration changes
-            cache.clear();
+            lockForWrite();
+            try {
+                // Crude, but we'll just clear the cache when the configuration changes
+                cache.mDrawables.clear();
+            } finally {
+                mWriteLock.unlock();
+            }
         }
     }
 
@@ -169,12 +207,11 @@ public final class ResourceManagerInternal {
 
     private Drawable createDrawableIfNeeded(@NonNull Context context,
             @DrawableRes final int resId) {
-        if (mTypedValue == null) {
-            mTypedValue = new TypedValue();
-        }
-        final TypedValue tv = mTypedValue;
+        final TypedValue tv = getTypedValue();
         context.getResources().getValue(resId, tv, true);
         final long key = createCacheKey(tv);
+        // Read before creating the drawable, which may reuse the typed value
+        final int changingConfigurations = tv.changingConfigurations;
 
         Drawable dr = getCachedDrawable(context, key);
         if (dr != null) {
@@ -183,11 +220,11 @@ public final class ResourceManagerInternal {
         }
 
         // Else we need to try and create one...
-        dr = (this.mHooks == null) ? null
-            : this.mHooks.createDrawableFor(this, context, resId);
+        final ResourceManagerHooks hooks = mHooks;
+        dr = (hooks == null) ? null : hooks.createDrawableFor(this, context, resId);
 
         if (dr != null) {
-            dr.setChangingConfigurations(tv.changingConfigurations);
+            dr.setChangingConfigurations(changingConfigurations);
             // If we reached here then we created a new drawable, add it to the cache
             addDrawableToCache(context, key, dr);
         }
@@ -211,7 +248,7 @@ public final class ResourceManagerInternal {
             if (tintMode != null) {
                 DrawableCompat.setTintMode(drawable, tintMode);
             }
-        } else if ((mHooks != null) && mHooks.tintDrawable(context, resId, drawable)) {
+        } else if (tintDrawableUsingHooks(context, resId, drawable)) {
             // If we're here, the installed hooks reported successful tinting of the
             // specific drawable
         } else {
@@ -227,31 +264,25 @@ public final class ResourceManagerInternal {
 
     private Drawable loadDrawableFromDelegates(@NonNull Context context, @DrawableRes int resId) {
         if (mDelegates != null && !mDelegates.isEmpty()) {
-            if (mKnownDrawableIdTags != null) {
-                final String cachedTagName = mKnownDrawableIdTags.get(resId);
-                if (SKIP_DRAWABLE_TAG.equals(cachedTagName)
-                        || (cachedTagName != null && mDelegates.get(cachedTagName) == null)) {
-                    // If we don't have a delegate for the drawable tag, or we've been set to
-                    // skip it, fail fast and return null
-                    if (DEBUG) {
-                        Log.d(TAG, "[loadDrawableFromDelegates] Skipping drawable: "
-                                + context.getResources().getResourceName(resId));
-                    }
-                    return null;
+            final String cachedTagName = mKnownDrawableIdTags.get(resId);
+            if (SKIP_DRAWABLE_TAG.equals(cachedTagName)
+                    || (cachedTagName != null && mDelegates.get(cachedTagName) == null)) {
+                // If we don't have a delegate for the drawable tag, or we've been set to
+                // skip it, fail fast and return null
+                if (DEBUG) {
+                    Log.d(TAG, "[loadDrawableFromDelegates] Skipping drawable: "
+                            + context.getResources().getResourceName(resId));
                 }
-            } else {
-                // Create an id cache as we'll need one later
-                mKnownDrawableIdTags = new SparseArrayCompat<>();
+                return null;
             }
 
-            if (mTypedValue == null) {
-                mTypedValue = new TypedValue();
-            }
-            final TypedValue tv = mTypedValue;
+            final TypedValue tv = getTypedValue();
             final Resources res = context.getResources();
             res.getValue(resId, tv, true);
 
             final long key = createCacheKey(tv);
+            // Read before inflating the drawable, which may reuse the typed value
+            final int changingConfigurations = tv.changingConfigurations;
 
             Drawable dr = getCachedDrawable(context, key);
             if (dr != null) {
@@ -279,7 +310,7 @@ public final class ResourceManagerInternal {
 
                     final String tagName = parser.getName();
                     // Add the tag name to the cache
-                    mKnownDrawableIdTags.append(resId, tagName);
+                    addKnownDrawableIdTag(resId, tagName);
 
                     // Now try and find a delegate for the tag name and inflate if found
                     final InflateDelegate delegate = mDelegates.get(tagName);
@@ -289,7 +320,7 @@ public final class ResourceManagerInternal {
                     }
                     if (dr != null) {
                         // Add it to the drawable cache
-                        dr.setChangingConfigurations(tv.changingConfigurations);
+                        dr.setChangingConfigurations(changingConfigurations);
                         if (addDrawableToCache(context, key, dr) && DEBUG) {
                             Log.i(TAG, "[loadDrawableFromDelegates] Saved drawable to cache: " +
                                     context.getResources().getResourceName(resId));
@@ -302,7 +333,7 @@ public final class ResourceManagerInternal {
             if (dr == null) {
                 // If we reach here then the delegate inflation of the resource failed. Mark it as
                 // bad so we skip the id next time
-                mKnownDrawableIdTags.append(resId, SKIP_DRAWABLE_TAG);
+                addKnownDrawableIdTag(resId, SKIP_DRAWABLE_TAG);
             }
             return dr;
         }
@@ -310,43 +341,48 @@ public final class ResourceManagerInternal {
         return null;
     }
 
-    private synchronized Drawable getCachedDrawable(@NonNull final Context context,
-            final long key) {
-        final LongSparseArray<WeakReference<ConstantState>> cache = mDrawableCaches.get(context);
-        if (cache == null) {
-            return null;
+    private void addKnownDrawableIdTag(@DrawableRes int resId, @NonNull String tagName) {
+        lockForWrite();
+        try {
+            mKnownDrawableIdTags.put(resId, tagName);
+        } finally {
+            mWriteLock.unlock();
         }
+    }
 
-        final WeakReference<ConstantState> wr = cache.get(key);
-        if (wr != null) {
-            // We have the key, and the secret
-            ConstantState entry = wr.get();
+    private Drawable getCachedDrawable(@NonNull final Context context, final long key) {
+        final ContextCache cache = getContextCache(context, false);
+        if (cache != null) {
+            final WeakReference<ConstantState> wr = cache.mDrawables.get(key);
+            // We have the key, and the secret. If the entry has been purged, it will be
+            // replaced once the drawable is loaded again.
+            final ConstantState entry = wr != null ? wr.get() : null;
             if (entry != null) {
+                mDrawableHitCount.incrementAndGet();
                 return entry.newDrawable(context.getResources());
-            } else {
-                // Our entry has been purged
-                cache.delete(key);
             }
         }
+        mDrawableMissCount.incrementAndGet();
         return null;
     }
 
-    private synchronized boolean addDrawableToCache(@NonNull final Context context, final long key,
+    private boolean addDrawableToCache(@NonNull final Context context, final long key,
             @NonNull final Drawable drawable) {
         final ConstantState cs = drawable.getConstantState();
         if (cs != null) {
-            LongSparseArray<WeakReference<ConstantState>> cache = mDrawableCaches.get(context);
-            if (cache == null) {
-                cache = new LongSparseArray<>();
-                mDrawableCaches.put(context, cache);
+            final ContextCache cache = getContextCache(context, true);
+            lockForWrite();
+            try {
+                cache.mDrawables.put(key, new WeakReference<>(cs));
+            } finally {
+                mWriteLock.unlock();
             }
-            cache.put(key, new WeakReference<>(cs));
             return true;
         }
         return false;
     }
 
-    synchronized Drawable onDrawableLoadedFromResources(@NonNull Context context,
+    Drawable onDrawableLoadedFromResources(@NonNull Context context,
             @NonNull VectorEnabledTintResources resources, @DrawableRes final int resId) {
         Drawable drawable = loadDrawableFromDelegates(context, resId);
         if (drawable == null) {
@@ -360,7 +396,14 @@ public final class ResourceManagerInternal {
 
     boolean tintDrawableUsingColorFilter(@NonNull Context context,
             @DrawableRes final int resId, @NonNull Drawable drawable) {
-        return (mHooks != null) && mHooks.tintDrawableUsingColorFilter(context, resId, drawable);
+        final ResourceManagerHooks hooks = mHooks;
+        return (hooks != null) && hooks.tintDrawableUsingColorFilter(context, resId, drawable);
+    }
+
+    private boolean tintDrawableUsingHooks(@NonNull Context context,
+            @DrawableRes final int resId, @NonNull Drawable drawable) {
+        final ResourceManagerHooks hooks = mHooks;
+        return (hooks != null) && hooks.tintDrawable(context, resId, drawable);
     }
 
     private void addDelegate(@NonNull String tagName, @NonNull InflateDelegate delegate) {
@@ -386,43 +429,300 @@ public final class ResourceManagerInternal {
     }
 
     PorterDuff.Mode getTintMode(final int resId) {
-        return (mHooks == null) ? null : mHooks.getTintModeForDrawableRes(resId);
+        final ResourceManagerHooks hooks = mHooks;
+        return (hooks == null) ? null : hooks.getTintModeForDrawableRes(resId);
     }
 
-    synchronized ColorStateList getTintList(@NonNull Context context, @DrawableRes int resId) {
+    ColorStateList getTintList(@NonNull Context context, @DrawableRes int resId) {
         // Try the cache first (if it exists)
-        ColorStateList tint = getTintListFromCache(context, resId);
+        final ContextCache cache = getContextCache(context, false);
+        ColorStateList tint = cache != null ? cache.mTintLists.get(resId) : null;
+        if (tint != null) {
+            mTintListHitCount.incrementAndGet();
+            return tint;
+        }
+        mTintListMissCount.incrementAndGet();
 
-        if (tint == null) {
-            // ...if the cache did not contain a color state list, try and create one
-            tint = (mHooks == null) ? null : mHooks.getTintListForDrawableRes(context, resId);
+        // ...if the cache did not contain a color state list, try and create one
+        final ResourceManagerHooks hooks = mHooks;
+        tint = (hooks == null) ? null : hooks.getTintListForDrawableRes(context, resId);
+        if (tint != null) {
+            tint = addTintListToCache(context, resId, tint);
+        }
+        return tint;
+    }
 
-            if (tint != null) {
-                addTintListToCache(context, resId, tint);
+    /**
+     * Adds a tint list to the cache, unless another thread added one first, and returns the
+     * tint list in the cache.
+     */
+    private ColorStateList addTintListToCache(@NonNull Context context, @DrawableRes int resId,
+            @NonNull ColorStateList tintList) {
+        final ContextCache cache = getContextCache(context, true);
+        lockForWrite();
+        try {
+            final ColorStateList existing = cache.mTintLists.get(resId);
+            if (existing != null) {
+                mDuplicateComputationCount.incrementAndGet();
+                return existing;
             }
+            cache.mTintLists.put(resId, tintList);
+            return tintList;
+        } finally {
+            mWriteLock.unlock();
         }
-        return tint;
     }
 
-    private ColorStateList getTintListFromCache(@NonNull Context context, @DrawableRes int resId) {
-        if (mTintLists != null) {
-            final SparseArrayCompat<ColorStateList> tints = mTintLists.get(context);
-            return tints != null ? tints.get(resId) : null;
+    @NonNull
+    private static TypedValue getTypedValue() {
+        TypedValue tv = TL_TYPED_VALUE.get();
+        if (tv == null) {
+            tv = new TypedValue();
+            TL_TYPED_VALUE.set(tv);
+        }
+        return tv;
+    }
+
+    /**
+     * Returns the caches of the given context, creating them if asked to.
+     */
+    private ContextCache getContextCache(@NonNull Context context, boolean create) {
+        ContextLookupKey lookupKey = TL_CONTEXT_LOOKUP_KEY.get();
+        if (lookupKey == null) {
+            lookupKey = new ContextLookupKey();
+            TL_CONTEXT_LOOKUP_KEY.set(lookupKey);
+        }
+        lookupKey.mContext = context;
+        ContextCache cache = mContextCaches.get(lookupKey);
+        // Don't keep the context alive
+        lookupKey.mContext = null;
+        if (cache == null && create) {
+            purgeStaleContexts();
+            final ContextCache newCache = new ContextCache();
+            cache = mContextCaches.putIfAbsent(new ContextKey(context, mStaleContexts), newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+        return cache;
+    }
+
+    private void purgeStaleContexts() {
+        Reference<? extends Context> stale;
+        while ((stale = mStaleContexts.poll()) != null) {
+            mContextCaches.remove(stale);
+        }
+    }
+
+    private void lockForWrite() {
+        if (!mWriteLock.tryLock()) {
+            mContentionCount.incrementAndGet();
+            mWriteLock.lock();
+        }
+    }
+
+    /**
+     * Returns the number of drawables found in the cache.
+     */
+    public long getDrawableCacheHitCount() {
+        return mDrawableHitCount.get();
+    }
+
+    /**
+     * Returns the number of drawables which were not found in the cache.
+     */
+    public long getDrawableCacheMissCount() {
+        return mDrawableMissCount.get();
+    }
+
+    /**
+     * Returns the number of tint lists found in the cache.
+     */
+    public long getTintListCacheHitCount() {
+        return mTintListHitCount.get();
+    }
+
+    /**
+     * Returns the number of tint lists which were not found in the cache.
+     */
+    public long getTintListCacheMissCount() {
+        return mTintListMissCount.get();
+    }
+
+    /**
+     * Returns the number of times a thread had to wait for another one to update the caches.
+     */
+    public long getContentionCount() {
+        return mContentionCount.get();
+    }
+
+    /**
+     * Returns the number of tint lists computed by several threads at the same time, of which
+     * only one was kept.
+     */
+    public long getDuplicateComputationCount() {
+        return mDuplicateComputationCount.get();
+    }
+
+    /**
+     * Returns the number of color filters found in the cache.
+     */
+    public static long getColorFilterCacheHitCount() {
+        return COLOR_FILTER_CACHE.hitCount();
+    }
+
+    /**
+     * Returns the number of color filters which were not found in the cache.
+     */
+    public static long getColorFilterCacheMissCount() {
+        return COLOR_FILTER_CACHE.missCount();
+    }
+
+    // Weak key of the caches of a context, comparing contexts by identity like a WeakHashMap.
+    private static final class ContextKey extends WeakReference<Context> {
+        private final int mHashCode;
+
+        ContextKey(Context context, ReferenceQueue<Context> queue) {
+            super(context, queue);
+            mHashCode = System.identityHashCode(context);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            final Context context = get();
+            return context != null && context == getKeyContext(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+    // Key used to look up the caches of a context, equal to the ContextKey of the same context.
+    private static final class ContextLookupKey {
+        Context mContext;
+
+        ContextLookupKey() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            return mContext != null && mContext == getKeyContext(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mContext);
+        }
+    }
+
+    private static Context getKeyContext(Object key) {
+        if (key instanceof ContextKey) {
+            return ((ContextKey) key).get();
+        } else if (key instanceof ContextLookupKey) {
+            return ((ContextLookupKey) key).mContext;
         }
         return null;
     }
 
-    private void addTintListToCache(@NonNull Context context, @DrawableRes int resId,
-            @NonNull ColorStateList tintList) {
-        if (mTintLists == null) {
-            mTintLists = new WeakHashMap<>();
+    private static final class ContextCache {
+        final LongCache<WeakReference<ConstantState>> mDrawables = new LongCache<>();
+        final LongCache<ColorStateList> mTintLists = new LongCache<>();
+
+        ContextCache() {
+        }
+    }
+
+    // Map of long keys which can be read concurrently without locking nor allocating, while a
+    // single thread at a time writes to it. Entries are immutable and stored in an open
+    // addressing table, which is replaced by a copy twice as large when it gets half full, so
+    // that adding an entry takes amortized constant time.
+    private static final class LongCache<V> {
+        private static final int INITIAL_CAPACITY = 8;
+
+        private volatile AtomicReferenceArray<LongEntry<V>> mTable =
+                new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        private int mSize;
+
+        LongCache() {
+        }
+
+        V get(long key) {
+            final AtomicReferenceArray<LongEntry<V>> table = mTable;
+            final int mask = table.length() - 1;
+            // The table always has empty slots, which end the probing
+            for (int i = index(key, mask); ; i = (i + 1) & mask) {
+                final LongEntry<V> entry = table.get(i);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.mKey == key) {
+                    return entry.mValue;
+                }
+            }
+        }
+
+        // Must only be called by one thread at a time.
+        void put(long key, V value) {
+            final AtomicReferenceArray<LongEntry<V>> table = mTable;
+            if (!set(table, new LongEntry<>(key, value))) {
+                return;
+            }
+            mSize++;
+            if (mSize * 2 > table.length()) {
+                final AtomicReferenceArray<LongEntry<V>> newTable =
+                        new AtomicReferenceArray<>(table.length() * 2);
+                for (int i = 0; i < table.length(); i++) {
+                    final LongEntry<V> entry = table.get(i);
+                    if (entry != null) {
+                        set(newTable, entry);
+                    }
+                }
+                mTable = newTable;
+            }
+        }
+
+        // Must only be called by one thread at a time.
+        void clear() {
+            mTable = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+            mSize = 0;
+        }
+
+        /**
+         * Sets the entry in the table, and returns whether its key was not in the table yet.
+         */
+        private boolean set(AtomicReferenceArray<LongEntry<V>> table, LongEntry<V> entry) {
+            final int mask = table.length() - 1;
+            for (int i = index(entry.mKey, mask); ; i = (i + 1) & mask) {
+                final LongEntry<V> existing = table.get(i);
+                if (existing == null || existing.mKey == entry.mKey) {
+                    table.set(i, entry);
+                    return existing == null;
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            final int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
         }
-        SparseArrayCompat<ColorStateList> themeTints = mTintLists.get(context);
-        if (themeTints == null) {
-            themeTints = new SparseArrayCompat<>();
-            mTintLists.put(context, themeTints);
+    }
+
+    private static final class LongEntry<V> {
+        final long mKey;
+        final V mValue;
+
+        LongEntry(long key, V value) {
+            mKey = key;
+            mValue = value;
         }
-        themeTints.append(resId, tintList);
     }
 
     private static class ColorFilterLruCache extends LruCache<Integer, PorterDuffColorFilter> {
@@ -479,7 +779,7 @@ public final class ResourceManagerInternal {
         return getPorterDuffColorFilter(color, tintMode);
     }
 
-    public static synchronized PorterDuffColorFilter getPorterDuffColorFilter(
+    public static PorterDuffColorFilter getPorterDuffColorFilter(
             int color, PorterDuff.Mode mode) {
         // First, let's see if the cache already contains the color filter
         PorterDuffColorFilter filter = COLOR_FILTER_CACHE.get(color, mode);
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.appcompat.test.R;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.ActivityTestRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AppCompatViewInflaterFactoryTest {
+    @Rule
+    public final ActivityTestRule<AppCompatInflaterFactoryActivity> mActivityTestRule =
+            new ActivityTestRule<>(AppCompatInflaterFactoryActivity.class);
+
+    @Rule
+    public final ActivityTestRule<AppCompatInflaterDefaultActivity> mDefaultActivityTestRule =
+            new ActivityTestRule<>(AppCompatInflaterDefaultActivity.class);
+
+    @Test
+    @UiThreadTest
+    public void testRegisteredFactoryIsUsed() {
+        ViewGroup root = (ViewGroup) mActivityTestRule.getActivity().getLayoutInflater()
+                .inflate(R.layout.layout_view_factory, null);
+
+        FactoryView factoryView = root.findViewById(R.id.factory_view);
+        assertTrue(factoryView.mCreatedByFactory);
+        // The attributes are still applied
+        assertEquals(ViewGroup.LayoutParams.MATCH_PARENT, factoryView.getLayoutParams().width);
+        assertTrue(root.findViewById(R.id.other_view) instanceof OtherView);
+    }
+
+    @Test
+    @UiThreadTest
+    public void testFactoryIsScopedToItsInflater() {
+        // The default activity uses a plain AppCompatViewInflater, without any factory
+        ViewGroup root = (ViewGroup) mDefaultActivityTestRule.getActivity().getLayoutInflater()
+                .inflate(R.layout.layout_view_factory, null);
+
+        FactoryView factoryView = root.findViewById(R.id.factory_view);
+        assertFalse(factoryView.mCreatedByFactory);
+    }
+
+    public static class FactoryView extends View {
+        public boolean mCreatedByFactory;
+
+        public FactoryView(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+    }
+
+    public static class OtherView extends View {
+        public OtherView(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+    }
+}
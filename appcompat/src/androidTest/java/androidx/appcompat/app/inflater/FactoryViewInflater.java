@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.app.inflater;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatViewInflater;
+import androidx.appcompat.app.AppCompatViewInflaterFactoryTest.FactoryView;
+
+/**
+ * Custom view inflater that registers a factory for {@link FactoryView}.
+ */
+public class FactoryViewInflater extends AppCompatViewInflater {
+    public FactoryViewInflater() {
+        registerViewFactory(FactoryView.class.getName(), new ViewFactory() {
+            @NonNull
+            @Override
+            public View createView(@NonNull Context context, @NonNull AttributeSet attrs) {
+                FactoryView view = new FactoryView(context, attrs);
+                view.mCreatedByFactory = true;
+                return view;
+            }
+        });
+    }
+}
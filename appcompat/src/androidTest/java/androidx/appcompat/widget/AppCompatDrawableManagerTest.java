@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+
+import androidx.appcompat.R;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.ActivityTestRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class AppCompatDrawableManagerTest {
+    private static final int THREAD_COUNT = 4;
+
+    @Rule
+    public final ActivityTestRule<AppCompatActivity> mActivityTestRule =
+            new ActivityTestRule<>(AppCompatActivity.class);
+
+    @Test
+    public void testPorterDuffColorFilterIsCached() {
+        final long hitCount = ResourceManagerInternal.getColorFilterCacheHitCount();
+        final PorterDuffColorFilter filter = AppCompatDrawableManager.getPorterDuffColorFilter(
+                Color.MAGENTA, PorterDuff.Mode.SRC_IN);
+        assertSame(filter, AppCompatDrawableManager.getPorterDuffColorFilter(
+                Color.MAGENTA, PorterDuff.Mode.SRC_IN));
+        assertTrue(ResourceManagerInternal.getColorFilterCacheHitCount() > hitCount);
+    }
+
+    @Test
+    public void testConcurrentTintListsAreShared() throws InterruptedException {
+        final Context context = mActivityTestRule.getActivity();
+        final AppCompatDrawableManager manager = AppCompatDrawableManager.get();
+        final AtomicReferenceArray<ColorStateList> tintLists =
+                new AtomicReferenceArray<>(THREAD_COUNT);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final int index = i;
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        tintLists.set(index,
+                                manager.getTintList(context, R.drawable.abc_edit_text_material));
+                    } catch (InterruptedException e) {
+                        // Leaves a null tint list, failing the test
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        done.await();
+
+        final ColorStateList tintList = tintLists.get(0);
+        assertNotNull(tintList);
+        for (int i = 1; i < THREAD_COUNT; i++) {
+            assertSame(tintList, tintLists.get(i));
+        }
+        assertEquals(tintList, manager.getTintList(context, R.drawable.abc_edit_text_material));
+    }
+}
@@ -21,7 +21,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
+import android.graphics.RectF;
 import android.os.Build;
+import android.text.Layout;
 import android.text.StaticLayout;
 import android.text.method.SingleLineTransformationMethod;
 import android.util.AttributeSet;
@@ -141,6 +143,61 @@ public class AppCompatTextViewAutoSizeTest extends
         assertEquals(textView.getLineSpacingExtra(), staticLayout.getSpacingAdd(), 0f);
     }
 
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+    public void testFindLargestTextSizeWhichFits_reusesPreviousResult() {
+        final AppCompatTextView textView = new AppCompatTextView(mActivity);
+        textView.setText(mActivity.getResources().getString(R.string.sample_text1));
+        final LayoutCountingAutoSizeHelper helper = new LayoutCountingAutoSizeHelper(textView);
+        helper.setAutoSizeTextTypeWithDefaults(TextViewCompat.AUTO_SIZE_TEXT_TYPE_UNIFORM);
+        AppCompatTextViewAutoSizeHelper.clearTextSizeCache();
+
+        final RectF availableSpace = new RectF(0, 0, 300, 100);
+        final int textSize = helper.findLargestTextSizeWhichFits(availableSpace);
+        final int layoutCount = helper.mLayoutCount;
+        assertTrue(layoutCount > 0);
+
+        assertEquals(textSize, helper.findLargestTextSizeWhichFits(availableSpace));
+        assertEquals(layoutCount, helper.mLayoutCount);
+
+        // A different available space is measured again
+        helper.findLargestTextSizeWhichFits(new RectF(0, 0, 150, 100));
+        assertTrue(helper.mLayoutCount > layoutCount);
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+    public void testFindLargestTextSizeWhichFits_emptyAvailableSpace() {
+        final AppCompatTextView textView = new AppCompatTextView(mActivity);
+        textView.setText(mActivity.getResources().getString(R.string.sample_text1));
+        final AppCompatTextViewAutoSizeHelper helper =
+                new AppCompatTextViewAutoSizeHelper(textView);
+        helper.setAutoSizeTextTypeWithDefaults(TextViewCompat.AUTO_SIZE_TEXT_TYPE_UNIFORM);
+        AppCompatTextViewAutoSizeHelper.clearTextSizeCache();
+
+        // Before the first layout nothing fits, so the smallest size is used
+        assertEquals(helper.getAutoSizeTextAvailableSizes()[0],
+                helper.findLargestTextSizeWhichFits(new RectF(0, 0, 0, 0)));
+    }
+
+    /**
+     * Counts the layouts built to find the text sizes which fit.
+     */
+    static class LayoutCountingAutoSizeHelper extends AppCompatTextViewAutoSizeHelper {
+        int mLayoutCount;
+
+        LayoutCountingAutoSizeHelper(TextView textView) {
+            super(textView);
+        }
+
+        @Override
+        StaticLayout createLayout(CharSequence text, Layout.Alignment alignment,
+                int availableWidth, int maxLines) {
+            mLayoutCount++;
+            return super.createLayout(text, alignment, availableWidth, maxLines);
+        }
+    }
+
     public static class CustomTextViewWithTransformationMethod extends AppCompatTextView {
         public CustomTextViewWithTransformationMethod(Context context) {
             super(context);
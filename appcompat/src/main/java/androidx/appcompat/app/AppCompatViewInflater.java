@@ -77,6 +77,38 @@ public class AppCompatViewInflater {
 
     private final Object[] mConstructorArgs = new Object[2];
 
+    private final Map<String, ViewFactory> mViewFactoryMap = new ArrayMap<>();
+
+    /**
+     * Creates a given type of view, without the reflection used to inflate views which are not
+     * replaced by their AppCompat version.
+     */
+    public interface ViewFactory {
+        /**
+         * Creates a new view with the given context and attributes.
+         */
+        @NonNull
+        View createView(@NonNull Context context, @NonNull AttributeSet attrs);
+    }
+
+    /**
+     * Registers the factory to use to create the views of the given name, as written in layouts,
+     * such as {@code com.example.MyView}. Views inflated with the {@code view} tag are looked up
+     * by the value of their {@code class} attribute.
+     * <p>
+     * Factories only apply to this inflater, and so to the activities whose theme sets it as their
+     * {@code viewInflaterClass}. Subclasses typically register the custom views used in many of
+     * their layouts from their constructor, so that inflating these layouts calls the view
+     * constructors directly.
+     *
+     * @param name the name of the views
+     * @param factory the factory creating these views
+     */
+    protected final void registerViewFactory(@NonNull String name,
+            @NonNull ViewFactory factory) {
+        mViewFactoryMap.put(name, factory);
+    }
+
     final View createView(View parent, final String name, @NonNull Context context,
             @NonNull AttributeSet attrs, boolean inheritContext,
             boolean readAndroidTheme, boolean readAppTheme, boolean wrapContext) {
@@ -163,6 +195,10 @@ public class AppCompatViewInflater {
                 view = createView(context, name, attrs);
         }
 
+        if (view == null) {
+            view = createViewFromFactory(context, name, attrs);
+        }
+
         if (view == null && originalContext != context) {
             // If the original context does not equal our themed context, then we need to manually
             // inflate it using the name so that android:theme takes effect.
@@ -261,6 +297,26 @@ public class AppCompatViewInflater {
         return null;
     }
 
+    @Nullable
+    private View createViewFromFactory(Context context, String name, AttributeSet attrs) {
+        if (mViewFactoryMap.isEmpty()) {
+            return null;
+        }
+        if (name.equals("view")) {
+            name = attrs.getAttributeValue(null, "class");
+            if (name == null) {
+                return null;
+            }
+        }
+        final ViewFactory factory = mViewFactoryMap.get(name);
+        if (factory == null) {
+            return null;
+        }
+        final View view = factory.createView(context, attrs);
+        verifyNotNull(view, name);
+        return view;
+    }
+
     private View createViewFromTag(Context context, String name, AttributeSet attrs) {
         if (name.equals("view")) {
             name = attrs.getAttributeValue(null, "class");
@@ -48,13 +48,13 @@ public final class AppCompatDrawableManager {
     private static final boolean DEBUG = false;
     private static final PorterDuff.Mode DEFAULT_MODE = PorterDuff.Mode.SRC_IN;
 
-    private static AppCompatDrawableManager INSTANCE;
+    private static volatile AppCompatDrawableManager INSTANCE;
 
     public static synchronized void preload() {
         if (INSTANCE == null) {
-            INSTANCE = new AppCompatDrawableManager();
-            INSTANCE.mResourceManager = ResourceManagerInternal.get();
-            INSTANCE.mResourceManager.setHooks(new ResourceManagerInternal.ResourceManagerHooks() {
+            final AppCompatDrawableManager manager = new AppCompatDrawableManager();
+            manager.mResourceManager = ResourceManagerInternal.get();
+            manager.mResourceManager.setHooks(new ResourceManagerInternal.ResourceManagerHooks() {
                 /**
                  * Drawables which should be tinted with the value of
                  * {@code R.attr.colorControlNormal}, using the default mode using a raw color
@@ -387,35 +387,39 @@ public final class AppCompatDrawableManager {
                     return mode;
                 }
             });
+            // Only publish the instance once it is fully set up, see get()
+            INSTANCE = manager;
         }
     }
 
     /**
      * Returns the singleton instance of this class.
      */
-    public static synchronized AppCompatDrawableManager get() {
-        if (INSTANCE == null) {
+    public static AppCompatDrawableManager get() {
+        AppCompatDrawableManager instance = INSTANCE;
+        if (instance == null) {
             preload();
+            instance = INSTANCE;
         }
-        return INSTANCE;
+        return instance;
     }
 
     private ResourceManagerInternal mResourceManager;
 
-    public synchronized Drawable getDrawable(@NonNull Context context, @DrawableRes int resId) {
+    public Drawable getDrawable(@NonNull Context context, @DrawableRes int resId) {
         return mResourceManager.getDrawable(context, resId);
     }
 
-    synchronized Drawable getDrawable(@NonNull Context context, @DrawableRes int resId,
+    Drawable getDrawable(@NonNull Context context, @DrawableRes int resId,
             boolean failIfNotKnown) {
         return mResourceManager.getDrawable(context, resId, failIfNotKnown);
     }
 
-    public synchronized void onConfigurationChanged(@NonNull Context context) {
+    public void onConfigurationChanged(@NonNull Context context) {
         mResourceManager.onConfigurationChanged(context);
     }
 
-    synchronized Drawable onDrawableLoadedFromResources(@NonNull Context context,
+    Drawable onDrawableLoadedFromResources(@NonNull Context context,
             @NonNull VectorEnabledTintResources resources, @DrawableRes final int resId) {
         return mResourceManager.onDrawableLoadedFromResources(context, resources, resId);
     }
@@ -425,7 +429,7 @@ public final class AppCompatDrawableManager {
         return mResourceManager.tintDrawableUsingColorFilter(context, resId, drawable);
     }
 
-    synchronized ColorStateList getTintList(@NonNull Context context, @DrawableRes int resId) {
+    ColorStateList getTintList(@NonNull Context context, @DrawableRes int resId) {
         return mResourceManager.getTintList(context, resId);
     }
 
@@ -433,7 +437,7 @@ public final class AppCompatDrawableManager {
         ResourceManagerInternal.tintDrawable(drawable, tint, state);
     }
 
-    public static synchronized PorterDuffColorFilter getPorterDuffColorFilter(
+    public static PorterDuffColorFilter getPorterDuffColorFilter(
             int color, PorterDuff.Mode mode) {
         return ResourceManagerInternal.getPorterDuffColorFilter(color, mode);
     }
@@ -19,11 +19,14 @@ package androidx.appcompat.widget;
 import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.RectF;
+import android.graphics.Typeface;
 import android.os.Build;
 import android.text.Layout;
+import android.text.Spanned;
 import android.text.StaticLayout;
 import android.text.TextDirectionHeuristic;
 import android.text.TextDirectionHeuristics;
@@ -41,6 +44,8 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.R;
+import androidx.collection.LruCache;
+import androidx.core.util.ObjectsCompat;
 import androidx.core.widget.TextViewCompat;
 
 import java.lang.reflect.Field;
@@ -80,6 +85,16 @@ class AppCompatTextViewAutoSizeHelper {
     // Ported from TextView#VERY_WIDE. Represents a maximum width in pixels the TextView takes when
     // horizontal scrolling is activated.
     private static final int VERY_WIDE = 1024 * 1024;
+    // Maximum number of auto-size results remembered across all the TextViews.
+    private static final int MAX_CACHED_TEXT_SIZES = 100;
+    // Auto-size results of plain texts, shared by the TextViews displaying the same text with
+    // the same configuration, such as the items of a list. Only accessed from the UI thread.
+    private static final LruCache<TextSizeKey, Integer> sTextSizeCache =
+            new LruCache<>(MAX_CACHED_TEXT_SIZES);
+    // Configuration the results of sTextSizeCache were computed with, they are evicted when it
+    // changes since the same text may not be laid out the same way anymore, e.g. with other
+    // fonts.
+    private static Configuration sTextSizeCacheConfiguration;
     // Auto-size text type.
     private int mAutoSizeTextType = TextViewCompat.AUTO_SIZE_TEXT_TYPE_NONE;
     // Specify if auto-size text is needed.
@@ -634,31 +649,140 @@ class AppCompatTextViewAutoSizeHelper {
     }
 
     /**
-     * Performs a binary search to find the largest text size that will still fit within the size
-     * available to this view.
+     * Finds the largest text size that will still fit within the size available to this view.
+     *
+     * The result is remembered for plain texts, and otherwise found with a binary search which
+     * starts around the size estimated from the width of the text, so that only a few layouts
+     * are built when the estimate is good.
      */
-    private int findLargestTextSizeWhichFits(RectF availableSpace) {
+    @VisibleForTesting
+    int findLargestTextSizeWhichFits(RectF availableSpace) {
         final int sizesCount = mAutoSizeTextSizesInPx.length;
         if (sizesCount == 0) {
             throw new IllegalStateException("No available text sizes to choose from.");
         }
 
+        CharSequence text = mTextView.getText();
+        TransformationMethod transformationMethod = mTextView.getTransformationMethod();
+        if (transformationMethod != null) {
+            CharSequence transformedText = transformationMethod.getTransformation(text, mTextView);
+            if (transformedText != null) {
+                text = transformedText;
+            }
+        }
+
+        final int maxLines = Build.VERSION.SDK_INT >= 16 ? mTextView.getMaxLines() : -1;
+        // Needs reflection call due to being private.
+        Layout.Alignment alignment = invokeAndReturnWithDefault(
+                mTextView, "getLayoutAlignment", Layout.Alignment.ALIGN_NORMAL);
+
+        TextSizeKey key = null;
+        if (Build.VERSION.SDK_INT >= 16 && !(text instanceof Spanned)) {
+            final Configuration configuration = mContext.getResources().getConfiguration();
+            if (!configuration.equals(sTextSizeCacheConfiguration)) {
+                sTextSizeCache.evictAll();
+                sTextSizeCacheConfiguration = new Configuration(configuration);
+            }
+            key = new TextSizeKey(mTextView, text.toString(), alignment, availableSpace,
+                    maxLines, mAutoSizeTextSizesInPx);
+            Integer cachedSize = sTextSizeCache.get(key);
+            if (cachedSize != null) {
+                return cachedSize;
+            }
+        }
+
         int bestSizeIndex = 0;
         int lowIndex = bestSizeIndex + 1;
         int highIndex = sizesCount - 1;
-        int sizeToTryIndex;
+        int sizeToTryIndex = estimateLargestTextSizeIndex(text, availableSpace, maxLines);
+        if (sizeToTryIndex > 0) {
+            // Check the estimate and the next size first, which is all that's needed when the
+            // estimate is right, then fall back to a binary search on the remaining side.
+            if (suggestedSizeFitsInSpace(mAutoSizeTextSizesInPx[sizeToTryIndex], availableSpace,
+                    text, alignment, maxLines)) {
+                bestSizeIndex = sizeToTryIndex;
+                lowIndex = sizeToTryIndex + 1;
+                if (lowIndex <= highIndex) {
+                    if (suggestedSizeFitsInSpace(mAutoSizeTextSizesInPx[lowIndex],
+                            availableSpace, text, alignment, maxLines)) {
+                        bestSizeIndex = lowIndex;
+                        lowIndex++;
+                    } else {
+                        highIndex = sizeToTryIndex;
+                    }
+                }
+            } else {
+                highIndex = sizeToTryIndex - 1;
+            }
+        }
         while (lowIndex <= highIndex) {
             sizeToTryIndex = (lowIndex + highIndex) / 2;
-            if (suggestedSizeFitsInSpace(mAutoSizeTextSizesInPx[sizeToTryIndex], availableSpace)) {
-                bestSizeIndex = lowIndex;
+            if (suggestedSizeFitsInSpace(mAutoSizeTextSizesInPx[sizeToTryIndex], availableSpace,
+                    text, alignment, maxLines)) {
+                bestSizeIndex = sizeToTryIndex;
                 lowIndex = sizeToTryIndex + 1;
             } else {
                 highIndex = sizeToTryIndex - 1;
-                bestSizeIndex = highIndex;
             }
         }
 
-        return mAutoSizeTextSizesInPx[bestSizeIndex];
+        final int bestSize = mAutoSizeTextSizesInPx[bestSizeIndex];
+        if (key != null) {
+            sTextSizeCache.put(key, bestSize);
+        }
+        return bestSize;
+    }
+
+    /**
+     * Estimates the index of the largest text size that fits, assuming that the width of the
+     * text and the height of its lines grow linearly with the text size and that lines are
+     * filled entirely. This doesn't build any layout.
+     */
+    private int estimateLargestTextSizeIndex(CharSequence text, RectF availableSpace,
+            int maxLines) {
+        if (availableSpace.right <= 0) {
+            // Not laid out yet, there is nothing to estimate from.
+            return 0;
+        }
+        final int sizesCount = mAutoSizeTextSizesInPx.length;
+        final int referenceSize = mAutoSizeTextSizesInPx[sizesCount / 2];
+        initTempTextPaint(referenceSize);
+        final float textWidth = mTempTextPaint.measureText(text, 0, text.length());
+        final float fontSpacing = mTempTextPaint.getFontSpacing();
+        final float lineSpacingMultiplier =
+                Build.VERSION.SDK_INT >= 16 ? mTextView.getLineSpacingMultiplier() : 1.0f;
+        final float lineSpacingExtra =
+                Build.VERSION.SDK_INT >= 16 ? mTextView.getLineSpacingExtra() : 0.0f;
+        int paragraphCount = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                paragraphCount++;
+            }
+        }
+
+        int bestSizeIndex = 0;
+        int lowIndex = 1;
+        int highIndex = sizesCount - 1;
+        while (lowIndex <= highIndex) {
+            final int sizeToTryIndex = (lowIndex + highIndex) / 2;
+            final float scale = (float) mAutoSizeTextSizesInPx[sizeToTryIndex] / referenceSize;
+            final int lineCount = paragraphCount
+                    + (int) Math.floor(textWidth * scale / availableSpace.right);
+            final float height = lineCount
+                    * (fontSpacing * scale * lineSpacingMultiplier + lineSpacingExtra);
+            if ((maxLines == -1 || lineCount <= maxLines) && height <= availableSpace.bottom) {
+                bestSizeIndex = sizeToTryIndex;
+                lowIndex = sizeToTryIndex + 1;
+            } else {
+                highIndex = sizeToTryIndex - 1;
+            }
+        }
+        return bestSizeIndex;
+    }
+
+    @VisibleForTesting
+    static void clearTextSizeCache() {
+        sTextSizeCache.evictAll();
     }
 
     @VisibleForTesting
@@ -684,22 +808,10 @@ class AppCompatTextViewAutoSizeHelper {
         }
     }
 
-    private boolean suggestedSizeFitsInSpace(int suggestedSizeInPx, RectF availableSpace) {
-        CharSequence text = mTextView.getText();
-        TransformationMethod transformationMethod = mTextView.getTransformationMethod();
-        if (transformationMethod != null) {
-            CharSequence transformedText = transformationMethod.getTransformation(text, mTextView);
-            if (transformedText != null) {
-                text = transformedText;
-            }
-        }
-
-        final int maxLines = Build.VERSION.SDK_INT >= 16 ? mTextView.getMaxLines() : -1;
+    private boolean suggestedSizeFitsInSpace(int suggestedSizeInPx, RectF availableSpace,
+            CharSequence text, Layout.Alignment alignment, int maxLines) {
         initTempTextPaint(suggestedSizeInPx);
 
-        // Needs reflection call due to being private.
-        Layout.Alignment alignment = invokeAndReturnWithDefault(
-                mTextView, "getLayoutAlignment", Layout.Alignment.ALIGN_NORMAL);
         final StaticLayout layout = createLayout(text, alignment, Math.round(availableSpace.right),
                 maxLines);
         // Lines overflow.
@@ -774,7 +886,7 @@ class AppCompatTextViewAutoSizeHelper {
                 includePad);
     }
 
-    private static <T> T invokeAndReturnWithDefault(@NonNull Object object,
+    static <T> T invokeAndReturnWithDefault(@NonNull Object object,
             @NonNull final String methodName, @NonNull final T defaultValue) {
         T result = null;
         boolean exceptionThrown = false;
@@ -868,4 +980,115 @@ class AppCompatTextViewAutoSizeHelper {
         // Auto-size only supports TextView and all siblings but EditText.
         return !(mTextView instanceof AppCompatEditText);
     }
+
+    /**
+     * Everything the auto-sized text size of a plain text depends on, besides the text size
+     * itself.
+     */
+    private static final class TextSizeKey {
+        private final String mText;
+        private final Layout.Alignment mAlignment;
+        private final int mAvailableWidth;
+        private final int mAvailableHeight;
+        private final int mMaxLines;
+        private final int[] mTextSizes;
+        private final Typeface mTypeface;
+        private final int mPaintFlags;
+        private final float mTextScaleX;
+        private final float mTextSkewX;
+        private final float mLetterSpacing;
+        private final String mFontFeatureSettings;
+        private final String mFontVariationSettings;
+        private final Object mTextLocales;
+        private final float mLineSpacingMultiplier;
+        private final float mLineSpacingExtra;
+        private final boolean mIncludeFontPadding;
+        private final int mBreakStrategy;
+        private final int mHyphenationFrequency;
+        private final Object mTextDirection;
+        private final int mHashCode;
+
+        @RequiresApi(16)
+        TextSizeKey(TextView textView, String text, Layout.Alignment alignment,
+                RectF availableSpace, int maxLines, int[] textSizes) {
+            final TextPaint paint = textView.getPaint();
+            mText = text;
+            mAlignment = alignment;
+            mAvailableWidth = Math.round(availableSpace.right);
+            mAvailableHeight = Math.round(availableSpace.bottom);
+            mMaxLines = maxLines;
+            mTextSizes = textSizes;
+            mTypeface = paint.getTypeface();
+            mPaintFlags = paint.getFlags();
+            mTextScaleX = paint.getTextScaleX();
+            mTextSkewX = paint.getTextSkewX();
+            mLetterSpacing = Build.VERSION.SDK_INT >= 21 ? paint.getLetterSpacing() : 0f;
+            mFontFeatureSettings = Build.VERSION.SDK_INT >= 21
+                    ? paint.getFontFeatureSettings() : null;
+            mFontVariationSettings = Build.VERSION.SDK_INT >= 26
+                    ? paint.getFontVariationSettings() : null;
+            if (Build.VERSION.SDK_INT >= 24) {
+                mTextLocales = paint.getTextLocales();
+            } else if (Build.VERSION.SDK_INT >= 17) {
+                mTextLocales = paint.getTextLocale();
+            } else {
+                mTextLocales = null;
+            }
+            mLineSpacingMultiplier = textView.getLineSpacingMultiplier();
+            mLineSpacingExtra = textView.getLineSpacingExtra();
+            mIncludeFontPadding = textView.getIncludeFontPadding();
+            if (Build.VERSION.SDK_INT >= 23) {
+                mBreakStrategy = textView.getBreakStrategy();
+                mHyphenationFrequency = textView.getHyphenationFrequency();
+                mTextDirection = invokeAndReturnWithDefault(textView,
+                        "getTextDirectionHeuristic", TextDirectionHeuristics.FIRSTSTRONG_LTR);
+            } else {
+                mBreakStrategy = 0;
+                mHyphenationFrequency = 0;
+                mTextDirection = null;
+            }
+            mHashCode = ObjectsCompat.hash(mText, mAlignment, mAvailableWidth, mAvailableHeight,
+                    mMaxLines, Arrays.hashCode(mTextSizes), mTypeface, mPaintFlags, mTextScaleX,
+                    mTextSkewX, mLetterSpacing, mFontFeatureSettings, mFontVariationSettings,
+                    mTextLocales, mLineSpacingMultiplier, mLineSpacingExtra, mIncludeFontPadding,
+                    mBreakStrategy, mHyphenationFrequency, mTextDirection);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TextSizeKey)) {
+                return false;
+            }
+            TextSizeKey other = (TextSizeKey) o;
+            return mHashCode == other.mHashCode
+                    && mAvailableWidth == other.mAvailableWidth
+                    && mAvailableHeight == other.mAvailableHeight
+                    && mMaxLines == other.mMaxLines
+                    && mPaintFlags == other.mPaintFlags
+                    && mTextScaleX == other.mTextScaleX
+                    && mTextSkewX == other.mTextSkewX
+                    && mLetterSpacing == other.mLetterSpacing
+                    && mLineSpacingMultiplier == other.mLineSpacingMultiplier
+                    && mLineSpacingExtra == other.mLineSpacingExtra
+                    && mIncludeFontPadding == other.mIncludeFontPadding
+                    && mBreakStrategy == other.mBreakStrategy
+                    && mHyphenationFrequency == other.mHyphenationFrequency
+                    && mAlignment == other.mAlignment
+                    && mTextDirection == other.mTextDirection
+                    && mText.equals(other.mText)
+                    && Arrays.equals(mTextSizes, other.mTextSizes)
+                    && ObjectsCompat.equals(mTypeface, other.mTypeface)
+                    && ObjectsCompat.equals(mFontFeatureSettings, other.mFontFeatureSettings)
+                    && ObjectsCompat.equals(mFontVariationSettings, other.mFontVariationSettings)
+                    && ObjectsCompat.equals(mTextLocales, other.mTextLocales);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
 }
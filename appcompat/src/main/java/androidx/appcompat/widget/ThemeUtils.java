@@ -26,6 +26,8 @@ import androidx.core.graphics.ColorUtils;
 class ThemeUtils {
 
     private static final ThreadLocal<TypedValue> TL_TYPED_VALUE = new ThreadLocal<>();
+    // Per thread, since tints may be computed on several threads at once
+    private static final ThreadLocal<int[]> TL_TEMP_ARRAY = new ThreadLocal<>();
 
     static final int[] DISABLED_STATE_SET = new int[]{-android.R.attr.state_enabled};
     static final int[] FOCUSED_STATE_SET = new int[]{android.R.attr.state_focused};
@@ -37,8 +39,6 @@ class ThemeUtils {
             -android.R.attr.state_pressed, -android.R.attr.state_focused};
     static final int[] EMPTY_STATE_SET = new int[0];
 
-    private static final int[] TEMP_ARRAY = new int[1];
-
     public static ColorStateList createDisabledStateList(int textColor, int disabledTextColor) {
         // Now create a new ColorStateList with the default color, and the new disabled
         // color
@@ -60,8 +60,9 @@ class ThemeUtils {
     }
 
     public static int getThemeAttrColor(Context context, int attr) {
-        TEMP_ARRAY[0] = attr;
-        TintTypedArray a = TintTypedArray.obtainStyledAttributes(context, null, TEMP_ARRAY);
+        final int[] attrs = getTempArray();
+        attrs[0] = attr;
+        TintTypedArray a = TintTypedArray.obtainStyledAttributes(context, null, attrs);
         try {
             return a.getColor(0, 0);
         } finally {
@@ -70,8 +71,9 @@ class ThemeUtils {
     }
 
     public static ColorStateList getThemeAttrColorStateList(Context context, int attr) {
-        TEMP_ARRAY[0] = attr;
-        TintTypedArray a = TintTypedArray.obtainStyledAttributes(context, null, TEMP_ARRAY);
+        final int[] attrs = getTempArray();
+        attrs[0] = attr;
+        TintTypedArray a = TintTypedArray.obtainStyledAttributes(context, null, attrs);
         try {
             return a.getColorStateList(0);
         } finally {
@@ -105,6 +107,15 @@ class ThemeUtils {
         return typedValue;
     }
 
+    private static int[] getTempArray() {
+        int[] array = TL_TEMP_ARRAY.get();
+        if (array == null) {
+            array = new int[1];
+            TL_TEMP_ARRAY.set(array);
+        }
+        return array;
+    }
+
     static int getThemeAttrColor(Context context, int attr, float alpha) {
         final int color = getThemeAttrColor(context, attr);
         final int originalAlpha = Color.alpha(color);
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.asynclayoutinflater.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.asynclayoutinflater.test.R;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class AsyncLayoutInflaterTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private AsyncLayoutInflater mInflater;
+
+    @After
+    public void tearDown() {
+        TestView.sOnCreate = null;
+    }
+
+    @Test
+    public void inflatesByPriority() throws Throwable {
+        createInflater(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        TestView.sOnCreate = new Runnable() {
+            @Override
+            public void run() {
+                if (blocked.getCount() > 0) {
+                    blocked.countDown();
+                    await(unblock);
+                }
+            }
+        };
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done = new CountDownLatch(4);
+        // Keeps the thread busy while the other requests are queued
+        inflate(AsyncLayoutInflater.PRIORITY_DEFAULT, order, done);
+        assertTrue(blocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        inflate(AsyncLayoutInflater.PRIORITY_LOW, order, done);
+        inflate(AsyncLayoutInflater.PRIORITY_DEFAULT, order, done);
+        inflate(AsyncLayoutInflater.PRIORITY_HIGH, order, done);
+        unblock.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(4, order.size());
+        assertEquals(AsyncLayoutInflater.PRIORITY_HIGH, (int) order.get(1));
+        assertEquals(AsyncLayoutInflater.PRIORITY_DEFAULT, (int) order.get(2));
+        assertEquals(AsyncLayoutInflater.PRIORITY_LOW, (int) order.get(3));
+    }
+
+    @Test
+    public void inflatesInParallel() throws Throwable {
+        createInflater(2);
+        final CountDownLatch bothCreating = new CountDownLatch(2);
+        final AtomicInteger parallelCount = new AtomicInteger();
+        TestView.sOnCreate = new Runnable() {
+            @Override
+            public void run() {
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    return;
+                }
+                bothCreating.countDown();
+                try {
+                    if (bothCreating.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        parallelCount.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        final CountDownLatch done = new CountDownLatch(2);
+        inflate(AsyncLayoutInflater.PRIORITY_DEFAULT, null, done);
+        inflate(AsyncLayoutInflater.PRIORITY_DEFAULT, null, done);
+
+        assertTrue(done.await(2 * TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("both views should be created at the same time", 2, parallelCount.get());
+    }
+
+    @Test
+    public void preInflate() throws Throwable {
+        createInflater(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mInflater.preInflate(R.layout.test_view, null, 2);
+            }
+        });
+        // The thread inflates requests in order, and the pre-inflated views are handed back
+        // to the UI thread before this one.
+        final CountDownLatch done = new CountDownLatch(1);
+        inflate(AsyncLayoutInflater.PRIORITY_LOW, null, done);
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        final View[] views = new View[3];
+        final CountDownLatch hit = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mInflater.inflate(R.layout.test_view, null,
+                        new AsyncLayoutInflater.OnInflateFinishedListener() {
+                            @Override
+                            public void onInflateFinished(@NonNull View view, int resid,
+                                    @Nullable ViewGroup parent) {
+                                views[0] = view;
+                                hit.countDown();
+                            }
+                        });
+                views[1] = mInflater.getPreInflatedView(R.layout.test_view, null);
+                views[2] = mInflater.getPreInflatedView(R.layout.test_view, null);
+            }
+        });
+        assertTrue(hit.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertNotNull(views[0]);
+        assertNotNull(views[1]);
+        assertNull("only two views should be pre-inflated", views[2]);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(2, mInflater.getPreInflatedHitCount());
+                assertEquals(3, mInflater.getInflateCount());
+            }
+        });
+    }
+
+    @Test
+    public void metrics() throws Throwable {
+        createInflater(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            inflate(AsyncLayoutInflater.PRIORITY_DEFAULT, null, done);
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(3, mInflater.getInflateCount());
+                assertEquals(0, mInflater.getPreInflatedHitCount());
+                assertTrue(mInflater.getAverageInflateNanos() > 0);
+                assertTrue(mInflater.getMaxInflateNanos()
+                        >= mInflater.getAverageInflateNanos());
+                assertTrue(mInflater.getMaxQueueWaitNanos()
+                        >= mInflater.getAverageQueueWaitNanos());
+
+                mInflater.resetMetrics();
+                assertEquals(0, mInflater.getInflateCount());
+                assertEquals(0, mInflater.getMaxInflateNanos());
+                assertEquals(0, mInflater.getMaxQueueWaitNanos());
+            }
+        });
+    }
+
+    private void createInflater(final int threadCount) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mInflater = new AsyncLayoutInflater(
+                        ApplicationProvider.getApplicationContext(), threadCount);
+            }
+        });
+    }
+
+    private void inflate(final int priority, @Nullable final List<Integer> order,
+            final CountDownLatch done) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mInflater.inflate(R.layout.test_view, null, priority,
+                        new AsyncLayoutInflater.OnInflateFinishedListener() {
+                            @Override
+                            public void onInflateFinished(@NonNull View view, int resid,
+                                    @Nullable ViewGroup parent) {
+                                if (order != null) {
+                                    order.add(priority);
+                                }
+                                done.countDown();
+                            }
+                        });
+            }
+        });
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
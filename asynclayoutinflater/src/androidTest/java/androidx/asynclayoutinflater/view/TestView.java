@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.asynclayoutinflater.view;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * A view running a hook of the test when it is created.
+ */
+public class TestView extends View {
+    static volatile Runnable sOnCreate;
+
+    public TestView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        Runnable onCreate = sOnCreate;
+        if (onCreate != null) {
+            onCreate.run();
+        }
+    }
+}
@@ -23,17 +23,23 @@ import android.os.Looper;
 import android.os.Message;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
-import androidx.core.util.Pools.SynchronizedPool;
+import androidx.core.util.Pools.ConcurrentPool;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>Helper class for inflating layouts asynchronously. To use, construct
@@ -64,45 +70,277 @@ import java.util.concurrent.ArrayBlockingQueue;
  * <p>This inflater does not support setting a {@link LayoutInflater.Factory}
  * nor {@link LayoutInflater.Factory2}. Similarly it does not support inflating
  * layouts that contain fragments.
+ *
+ * <p>Requests are inflated by a pool of background threads shared by all the
+ * inflaters created with the same thread count, in order of priority, and
+ * never block the UI thread when many are pending. The threads stop when they
+ * have been idle for a while. Each thread inflates with its own copy of the
+ * {@link LayoutInflater}, kept by this inflater, so that requests are inflated
+ * in parallel. Layouts which are needed
+ * repeatedly can be inflated ahead of time with
+ * {@link #preInflate(int, ViewGroup, int)}: the views are kept by the
+ * inflater and used to answer the next requests for the same layout and parent.
  */
 public final class AsyncLayoutInflater {
     private static final String TAG = "AsyncLayoutInflater";
 
+    /**
+     * Priority of requests made without one.
+     */
+    public static final int PRIORITY_DEFAULT = 0;
+
+    /**
+     * Priority of views needed as soon as possible, inflated before the ones
+     * with a lower priority.
+     */
+    public static final int PRIORITY_HIGH = 10;
+
+    /**
+     * Priority of views which aren't needed soon, used for pre-inflated views.
+     */
+    public static final int PRIORITY_LOW = -10;
+
     LayoutInflater mInflater;
     Handler mHandler;
-    InflateThread mInflateThread;
+    InflateThreadPool mInflateThreadPool;
+    // Copies of mInflater used in the background, by index of the pool thread. Each one is only
+    // accessed by the thread of its index, since LayoutInflater.inflate() locks the inflater and
+    // shares state between calls.
+    final LayoutInflater[] mThreadInflaters;
+
+    // Pre-inflated views, by layout. Only accessed on the UI thread.
+    private final SparseArray<ArrayList<InflateRequest>> mPreInflated = new SparseArray<>();
+
+    // Metrics, only accessed on the UI thread.
+    private int mInflateCount;
+    private long mTotalQueueWaitNanos;
+    private long mMaxQueueWaitNanos;
+    private long mTotalInflateNanos;
+    private long mMaxInflateNanos;
+    private int mPreInflatedHitCount;
 
     public AsyncLayoutInflater(@NonNull Context context) {
+        this(context, 1);
+    }
+
+    /**
+     * Creates an inflater using a pool of the given number of background threads, shared
+     * with the other inflaters using the same number of threads.
+     */
+    public AsyncLayoutInflater(@NonNull Context context, @IntRange(from = 1) int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be at least 1");
+        }
         mInflater = new BasicInflater(context);
         mHandler = new Handler(mHandlerCallback);
-        mInflateThread = InflateThread.getInstance();
+        mInflateThreadPool = InflateThreadPool.getInstance(threadCount);
+        mThreadInflaters = new LayoutInflater[threadCount];
     }
 
     @UiThread
     public void inflate(@LayoutRes int resid, @Nullable ViewGroup parent,
             @NonNull OnInflateFinishedListener callback) {
+        inflate(resid, parent, PRIORITY_DEFAULT, callback);
+    }
+
+    /**
+     * Inflates a layout in the background, before the pending requests with a lower priority.
+     * If a view of the layout was pre-inflated for the same parent, it is used instead.
+     *
+     * @param priority the priority of the request, such as {@link #PRIORITY_HIGH}
+     */
+    @UiThread
+    public void inflate(@LayoutRes int resid, @Nullable ViewGroup parent, int priority,
+            @NonNull OnInflateFinishedListener callback) {
         if (callback == null) {
             throw new NullPointerException("callback argument may not be null!");
         }
-        InflateRequest request = mInflateThread.obtainRequest();
+        InflateRequest request = takePreInflated(resid, parent);
+        if (request != null) {
+            mPreInflatedHitCount++;
+            request.callback = callback;
+            Message.obtain(mHandler, 0, request).sendToTarget();
+            return;
+        }
+        request = mInflateThreadPool.obtainRequest();
         request.inflater = this;
         request.resid = resid;
         request.parent = parent;
+        request.priority = priority;
         request.callback = callback;
-        mInflateThread.enqueue(request);
+        mInflateThreadPool.enqueue(request);
+    }
+
+    /**
+     * Inflates copies of a layout in the background, with {@link #PRIORITY_LOW}, and keeps them
+     * to answer the next requests for the same layout and parent.
+     *
+     * @param count the number of views to inflate
+     */
+    @UiThread
+    public void preInflate(@LayoutRes int resid, @Nullable ViewGroup parent,
+            @IntRange(from = 0) int count) {
+        for (int i = 0; i < count; i++) {
+            InflateRequest request = mInflateThreadPool.obtainRequest();
+            request.inflater = this;
+            request.resid = resid;
+            request.parent = parent;
+            request.priority = PRIORITY_LOW;
+            mInflateThreadPool.enqueue(request);
+        }
+    }
+
+    /**
+     * Returns a view pre-inflated for the given layout and parent, removing it from the
+     * inflater, or null if there is none yet.
+     */
+    @UiThread
+    @Nullable
+    public View getPreInflatedView(@LayoutRes int resid, @Nullable ViewGroup parent) {
+        InflateRequest request = takePreInflated(resid, parent);
+        if (request == null) {
+            return null;
+        }
+        mPreInflatedHitCount++;
+        View view = request.view;
+        mInflateThreadPool.releaseRequest(request);
+        return view;
+    }
+
+    /**
+     * Drops all the views pre-inflated so far. Views still being pre-inflated are kept.
+     */
+    @UiThread
+    public void clearPreInflatedViews() {
+        for (int i = 0; i < mPreInflated.size(); i++) {
+            ArrayList<InflateRequest> requests = mPreInflated.valueAt(i);
+            for (int j = 0; j < requests.size(); j++) {
+                mInflateThreadPool.releaseRequest(requests.get(j));
+            }
+        }
+        mPreInflated.clear();
+    }
+
+    private InflateRequest takePreInflated(int resid, ViewGroup parent) {
+        ArrayList<InflateRequest> requests = mPreInflated.get(resid);
+        if (requests == null) {
+            return null;
+        }
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            if (requests.get(i).parent == parent) {
+                return requests.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private void addPreInflated(InflateRequest request) {
+        ArrayList<InflateRequest> requests = mPreInflated.get(request.resid);
+        if (requests == null) {
+            requests = new ArrayList<>();
+            mPreInflated.put(request.resid, requests);
+        }
+        requests.add(request);
+    }
+
+    void recordMetrics(InflateRequest request) {
+        if (request.endTimeNanos == 0) {
+            return;
+        }
+        long queueWait = request.startTimeNanos - request.enqueueTimeNanos;
+        long inflate = request.endTimeNanos - request.startTimeNanos;
+        mInflateCount++;
+        mTotalQueueWaitNanos += queueWait;
+        mMaxQueueWaitNanos = Math.max(mMaxQueueWaitNanos, queueWait);
+        mTotalInflateNanos += inflate;
+        mMaxInflateNanos = Math.max(mMaxInflateNanos, inflate);
+        request.enqueueTimeNanos = 0;
+        request.startTimeNanos = 0;
+        request.endTimeNanos = 0;
+    }
+
+    /**
+     * Returns the number of layouts inflated in the background, including pre-inflated ones.
+     */
+    @UiThread
+    public int getInflateCount() {
+        return mInflateCount;
+    }
+
+    /**
+     * Returns the average time requests waited in the queue before being inflated.
+     */
+    @UiThread
+    public long getAverageQueueWaitNanos() {
+        return mInflateCount > 0 ? mTotalQueueWaitNanos / mInflateCount : 0;
+    }
+
+    /**
+     * Returns the longest time a request waited in the queue before being inflated.
+     */
+    @UiThread
+    public long getMaxQueueWaitNanos() {
+        return mMaxQueueWaitNanos;
+    }
+
+    /**
+     * Returns the average time spent inflating a layout in the background.
+     */
+    @UiThread
+    public long getAverageInflateNanos() {
+        return mInflateCount > 0 ? mTotalInflateNanos / mInflateCount : 0;
+    }
+
+    /**
+     * Returns the longest time spent inflating a layout in the background.
+     */
+    @UiThread
+    public long getMaxInflateNanos() {
+        return mMaxInflateNanos;
+    }
+
+    /**
+     * Returns the number of requests answered with a pre-inflated view.
+     */
+    @UiThread
+    public int getPreInflatedHitCount() {
+        return mPreInflatedHitCount;
+    }
+
+    /**
+     * Resets all the metrics.
+     */
+    @UiThread
+    public void resetMetrics() {
+        mInflateCount = 0;
+        mTotalQueueWaitNanos = 0;
+        mMaxQueueWaitNanos = 0;
+        mTotalInflateNanos = 0;
+        mMaxInflateNanos = 0;
+        mPreInflatedHitCount = 0;
     }
 
     private Callback mHandlerCallback = new Callback() {
         @Override
         public boolean handleMessage(Message msg) {
             InflateRequest request = (InflateRequest) msg.obj;
+            recordMetrics(request);
+            if (request.callback == null) {
+                // Pre-inflated, keep it unless it failed to inflate in the background
+                if (request.view != null) {
+                    addPreInflated(request);
+                } else {
+                    mInflateThreadPool.releaseRequest(request);
+                }
+                return true;
+            }
             if (request.view == null) {
                 request.view = mInflater.inflate(
                         request.resid, request.parent, false);
             }
             request.callback.onInflateFinished(
                     request.view, request.resid, request.parent);
-            mInflateThread.releaseRequest(request);
+            mInflateThreadPool.releaseRequest(request);
             return true;
         }
     };
@@ -116,6 +354,11 @@ public final class AsyncLayoutInflater {
         AsyncLayoutInflater inflater;
         ViewGroup parent;
         int resid;
+        int priority;
+        long sequence;
+        long enqueueTimeNanos;
+        long startTimeNanos;
+        long endTimeNanos;
         View view;
         OnInflateFinishedListener callback;
 
@@ -157,75 +400,154 @@ public final class AsyncLayoutInflater {
         }
     }
 
-    private static class InflateThread extends Thread {
-        private static final InflateThread sInstance;
-        static {
-            sInstance = new InflateThread();
-            sInstance.start();
+    private static class InflateThreadPool {
+        private static final SparseArray<InflateThreadPool> sInstances = new SparseArray<>();
+
+        // Higher priorities first, then in the order requests were made
+        private static final Comparator<InflateRequest> sComparator =
+                new Comparator<InflateRequest>() {
+                    @Override
+                    public int compare(InflateRequest a, InflateRequest b) {
+                        if (a.priority != b.priority) {
+                            return a.priority > b.priority ? -1 : 1;
+                        }
+                        return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+                    }
+                };
+
+        static synchronized InflateThreadPool getInstance(int threadCount) {
+            InflateThreadPool pool = sInstances.get(threadCount);
+            if (pool == null) {
+                pool = new InflateThreadPool(threadCount);
+                sInstances.put(threadCount, pool);
+            }
+            return pool;
+        }
+
+        final PriorityBlockingQueue<InflateRequest> mQueue =
+                new PriorityBlockingQueue<>(11, sComparator);
+        private final ConcurrentPool<InflateRequest> mRequestPool = new ConcurrentPool<>(10);
+        private final AtomicLong mSequence = new AtomicLong();
+        // Whether the thread of each index is running, guarded by this
+        private final boolean[] mRunningThreads;
+
+        private InflateThreadPool(int threadCount) {
+            mRunningThreads = new boolean[threadCount];
+        }
+
+        public InflateRequest obtainRequest() {
+            InflateRequest obj = mRequestPool.acquire();
+            if (obj == null) {
+                obj = new InflateRequest();
+            }
+            return obj;
         }
 
-        public static InflateThread getInstance() {
-            return sInstance;
+        public void releaseRequest(InflateRequest obj) {
+            obj.callback = null;
+            obj.inflater = null;
+            obj.parent = null;
+            obj.resid = 0;
+            obj.priority = 0;
+            obj.view = null;
+            obj.enqueueTimeNanos = 0;
+            obj.startTimeNanos = 0;
+            obj.endTimeNanos = 0;
+            mRequestPool.release(obj);
+        }
+
+        public void enqueue(InflateRequest request) {
+            request.sequence = mSequence.getAndIncrement();
+            request.enqueueTimeNanos = System.nanoTime();
+            // The queue is unbounded, so this never blocks the UI thread
+            mQueue.offer(request);
+            startThreadIfNeeded();
+        }
+
+        private synchronized void startThreadIfNeeded() {
+            // Threads are started one request at a time, up to the size of the pool
+            for (int i = 0; i < mRunningThreads.length; i++) {
+                if (!mRunningThreads[i]) {
+                    mRunningThreads[i] = true;
+                    InflateThread thread = new InflateThread(this, i);
+                    thread.setName(TAG + "-" + mRunningThreads.length + "-" + i);
+                    thread.start();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Called by an idle thread, returns whether it should stop. Requests enqueued after it
+         * stopped start a new thread.
+         */
+        synchronized boolean stopIfIdle(int index) {
+            if (!mQueue.isEmpty()) {
+                return false;
+            }
+            mRunningThreads[index] = false;
+            return true;
         }
+    }
+
+    private static class InflateThread extends Thread {
+        // Time after which a thread without any request to inflate stops
+        private static final long IDLE_TIMEOUT_MILLIS = 10000;
 
-        private ArrayBlockingQueue<InflateRequest> mQueue = new ArrayBlockingQueue<>(10);
-        private SynchronizedPool<InflateRequest> mRequestPool = new SynchronizedPool<>(10);
+        private final InflateThreadPool mPool;
+        private final int mIndex;
+
+        InflateThread(InflateThreadPool pool, int index) {
+            mPool = pool;
+            mIndex = index;
+        }
 
         // Extracted to its own method to ensure locals have a constrained liveness
         // scope by the GC. This is needed to avoid keeping previous request references
         // alive for an indeterminate amount of time, see b/33158143 for details
-        public void runInner() {
+        // Returns false once the thread should stop.
+        public boolean runInner() {
             InflateRequest request;
             try {
-                request = mQueue.take();
+                request = mPool.mQueue.poll(IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
             } catch (InterruptedException ex) {
                 // Odd, just continue
                 Log.w(TAG, ex);
-                return;
+                return true;
+            }
+            if (request == null) {
+                return !mPool.stopIfIdle(mIndex);
             }
 
+            request.startTimeNanos = System.nanoTime();
             try {
-                request.view = request.inflater.mInflater.inflate(
+                request.view = getInflater(request.inflater).inflate(
                         request.resid, request.parent, false);
             } catch (RuntimeException ex) {
                 // Probably a Looper failure, retry on the UI thread
                 Log.w(TAG, "Failed to inflate resource in the background! Retrying on the UI"
                         + " thread", ex);
             }
+            request.endTimeNanos = System.nanoTime();
             Message.obtain(request.inflater.mHandler, 0, request)
                     .sendToTarget();
+            return true;
         }
 
-        @Override
-        public void run() {
-            while (true) {
-                runInner();
+        private LayoutInflater getInflater(AsyncLayoutInflater asyncInflater) {
+            LayoutInflater inflater = asyncInflater.mThreadInflaters[mIndex];
+            if (inflater == null) {
+                inflater = asyncInflater.mInflater.cloneInContext(
+                        asyncInflater.mInflater.getContext());
+                asyncInflater.mThreadInflaters[mIndex] = inflater;
             }
+            return inflater;
         }
 
-        public InflateRequest obtainRequest() {
-            InflateRequest obj = mRequestPool.acquire();
-            if (obj == null) {
-                obj = new InflateRequest();
-            }
-            return obj;
-        }
-
-        public void releaseRequest(InflateRequest obj) {
-            obj.callback = null;
-            obj.inflater = null;
-            obj.parent = null;
-            obj.resid = 0;
-            obj.view = null;
-            mRequestPool.release(obj);
-        }
-
-        public void enqueue(InflateRequest request) {
-            try {
-                mQueue.put(request);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(
-                        "Failed to enqueue async inflate request", e);
+        @Override
+        public void run() {
+            while (runInner()) {
+                // Inflate until idle
             }
         }
     }
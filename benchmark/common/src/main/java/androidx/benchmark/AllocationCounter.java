@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Counts the allocations of the current thread and the garbage collections of the process, for
+ * {@link BenchmarkLoop} to report allocations per iteration and ignore results slowed down by a
+ * collection.
+ * <p>
+ * All counts are cumulative, and {@link #UNAVAILABLE} when not supported by the platform.
+ */
+public abstract class AllocationCounter {
+    /**
+     * Count returned when the platform doesn't support counting something.
+     */
+    public static final long UNAVAILABLE = -1;
+
+    /**
+     * Counter which doesn't count anything.
+     */
+    @NonNull
+    public static final AllocationCounter NONE = new AllocationCounter() {
+        @Override
+        public long getAllocatedObjects() {
+            return UNAVAILABLE;
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return UNAVAILABLE;
+        }
+
+        @Override
+        public long getGcCount() {
+            return UNAVAILABLE;
+        }
+    };
+
+    /**
+     * Returns a counter using the management beans of the JVM. Only allocated bytes and
+     * collections can be counted on the JVM.
+     */
+    @NonNull
+    public static AllocationCounter jvm() {
+        return new JvmAllocationCounter();
+    }
+
+    /**
+     * Starts counting allocations of the current thread. Counting allocations may slow them down,
+     * so this is only called around iterations which aren't timed.
+     */
+    public void start() {
+    }
+
+    /**
+     * Stops counting allocations of the current thread.
+     */
+    public void stop() {
+    }
+
+    /**
+     * Returns the number of objects allocated by the current thread.
+     */
+    public abstract long getAllocatedObjects();
+
+    /**
+     * Returns the number of bytes allocated by the current thread.
+     */
+    public abstract long getAllocatedBytes();
+
+    /**
+     * Returns the number of garbage collections which happened in the process.
+     */
+    public abstract long getGcCount();
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the results of a {@link BenchmarkReport} against a baseline report to find the
+ * benchmarks which regressed or improved.
+ * <p>
+ * Raw medians of a few results are too noisy to gate changes on: instead, a confidence interval
+ * of the difference between the mean durations is computed with Welch's t-test, which doesn't
+ * assume both runs have the same variance. A benchmark changed when its interval excludes zero,
+ * and the change is larger than a relative threshold, so that tiny but consistent differences
+ * aren't reported.
+ * <p>
+ * Can be run from the command line, exiting with status 1 when a benchmark regressed:
+ * <pre>
+ * java androidx.benchmark.BenchmarkComparator baseline.json current.json [confidence] [threshold]
+ * </pre>
+ */
+public final class BenchmarkComparator {
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+    public static final double DEFAULT_THRESHOLD = 0.02;
+
+    private final double mConfidence;
+    private final double mThreshold;
+
+    /**
+     * Creates a comparator using a confidence of {@link #DEFAULT_CONFIDENCE} and a threshold of
+     * {@link #DEFAULT_THRESHOLD}.
+     */
+    public BenchmarkComparator() {
+        this(DEFAULT_CONFIDENCE, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param confidence confidence level of the intervals, between 0 and 1 exclusive
+     * @param threshold  minimum change relative to the baseline mean to report, e.g. 0.02 for 2%
+     */
+    public BenchmarkComparator(double confidence, double threshold) {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be in (0, 1): " + confidence);
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        mConfidence = confidence;
+        mThreshold = threshold;
+    }
+
+    /**
+     * Compares the benchmarks present in both reports, in the order of the current report.
+     */
+    @NonNull
+    public List<Comparison> compare(@NonNull BenchmarkReport baseline,
+            @NonNull BenchmarkReport current) {
+        Map<String, BenchmarkResult> baselineResults = new HashMap<>();
+        for (BenchmarkResult result : baseline.getResults()) {
+            baselineResults.put(result.getKey(), result);
+        }
+        List<Comparison> comparisons = new ArrayList<>();
+        for (BenchmarkResult result : current.getResults()) {
+            BenchmarkResult baselineResult = baselineResults.get(result.getKey());
+            if (baselineResult != null) {
+                comparisons.add(compare(baselineResult, result));
+            }
+        }
+        return comparisons;
+    }
+
+    /**
+     * Compares the results of a benchmark against its baseline.
+     */
+    @NonNull
+    public Comparison compare(@NonNull BenchmarkResult baseline,
+            @NonNull BenchmarkResult current) {
+        Stats baselineStats = baseline.getStats();
+        Stats currentStats = current.getStats();
+        int baselineCount = baseline.getResults().length;
+        int currentCount = current.getResults().length;
+        double baselineVariance = variance(baselineStats, baselineCount);
+        double currentVariance = variance(currentStats, currentCount);
+        double standardError = Math.sqrt(baselineVariance + currentVariance);
+        double difference = currentStats.getMean() - baselineStats.getMean();
+
+        double margin = 0;
+        if (standardError > 0) {
+            // Welch-Satterthwaite approximation of the degrees of freedom
+            double degreesOfFreedom = Math.pow(baselineVariance + currentVariance, 2)
+                    / (baselineVariance * baselineVariance / (baselineCount - 1)
+                    + currentVariance * currentVariance / (currentCount - 1));
+            margin = standardError
+                    * TDistribution.quantile(1 - (1 - mConfidence) / 2, degreesOfFreedom);
+        }
+        double low = difference - margin;
+        double high = difference + margin;
+        double change = baselineStats.getMean() > 0 ? difference / baselineStats.getMean() : 0;
+
+        int verdict = Comparison.UNCHANGED;
+        if (Math.abs(change) > mThreshold) {
+            if (low > 0) {
+                verdict = Comparison.REGRESSION;
+            } else if (high < 0) {
+                verdict = Comparison.IMPROVEMENT;
+            }
+        }
+        return new Comparison(current.getKey(), baselineStats.getMean(), currentStats.getMean(),
+                low, high, change, verdict);
+    }
+
+    private static double variance(Stats stats, int count) {
+        double standardDeviation = stats.getStandardDeviation();
+        return standardDeviation * standardDeviation / count;
+    }
+
+    /**
+     * Result of the comparison of a benchmark against its baseline.
+     */
+    public static final class Comparison {
+        /** The difference isn't significant, or is below the threshold. */
+        public static final int UNCHANGED = 0;
+        /** The benchmark is significantly slower than its baseline. */
+        public static final int REGRESSION = 1;
+        /** The benchmark is significantly faster than its baseline. */
+        public static final int IMPROVEMENT = 2;
+
+        private final String mKey;
+        private final double mBaselineMean;
+        private final double mCurrentMean;
+        private final double mDifferenceLow;
+        private final double mDifferenceHigh;
+        private final double mChange;
+        private final int mVerdict;
+
+        Comparison(@NonNull String key, double baselineMean, double currentMean,
+                double differenceLow, double differenceHigh, double change, int verdict) {
+            mKey = key;
+            mBaselineMean = baselineMean;
+            mCurrentMean = currentMean;
+            mDifferenceLow = differenceLow;
+            mDifferenceHigh = differenceHigh;
+            mChange = change;
+            mVerdict = verdict;
+        }
+
+        @NonNull
+        public String getKey() {
+            return mKey;
+        }
+
+        public double getBaselineMean() {
+            return mBaselineMean;
+        }
+
+        public double getCurrentMean() {
+            return mCurrentMean;
+        }
+
+        /**
+         * Returns the lower bound of the confidence interval of the difference between the current
+         * and baseline means, in nanoseconds.
+         */
+        public double getDifferenceLow() {
+            return mDifferenceLow;
+        }
+
+        /**
+         * Returns the upper bound of the confidence interval of the difference between the current
+         * and baseline means, in nanoseconds.
+         */
+        public double getDifferenceHigh() {
+            return mDifferenceHigh;
+        }
+
+        /**
+         * Returns the difference between the current and baseline means, relative to the
+         * baseline mean.
+         */
+        public double getChange() {
+            return mChange;
+        }
+
+        /**
+         * Returns {@link #UNCHANGED}, {@link #REGRESSION} or {@link #IMPROVEMENT}.
+         */
+        public int getVerdict() {
+            return mVerdict;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            String verdict = mVerdict == REGRESSION ? "REGRESSION"
+                    : mVerdict == IMPROVEMENT ? "IMPROVEMENT" : "unchanged";
+            return String.format("%-12s %+7.2f%% [%+.0f, %+.0f] ns %13.0f -> %13.0f ns %s",
+                    verdict, mChange * 100, mDifferenceLow, mDifferenceHigh, mBaselineMean,
+                    mCurrentMean, mKey);
+        }
+    }
+
+    /**
+     * Compares two report files and prints every comparison, exiting with status 1 when a
+     * benchmark regressed.
+     */
+    public static void main(@NonNull String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: BenchmarkComparator baseline.json current.json"
+                    + " [confidence] [threshold]");
+            System.exit(2);
+            return;
+        }
+        BenchmarkComparator comparator = new BenchmarkComparator(
+                parseOrDefault(args, 2, DEFAULT_CONFIDENCE),
+                parseOrDefault(args, 3, DEFAULT_THRESHOLD));
+        List<Comparison> comparisons = comparator.compare(
+                BenchmarkReport.readFrom(new File(args[0])),
+                BenchmarkReport.readFrom(new File(args[1])));
+        boolean regressed = false;
+        for (Comparison comparison : comparisons) {
+            System.out.println(comparison);
+            regressed |= comparison.getVerdict() == Comparison.REGRESSION;
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static double parseOrDefault(@NonNull String[] args, int index,
+            double defaultValue) {
+        return index < args.length ? Double.parseDouble(args[index]) : defaultValue;
+    }
+}
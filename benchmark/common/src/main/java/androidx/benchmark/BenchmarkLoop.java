@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the measurement loop of a benchmark: warms it up, times a number of repeats, then counts
+ * the allocations of one more repeat which isn't timed.
+ * <p>
+ * Doesn't depend on Android, so that benchmarks of pure Java code can run in unit tests on the
+ * JVM through {@link JvmBenchmarkRule}. On Android, it is wrapped by BenchmarkState.
+ * <p>
+ * Results slowed down by a garbage collection are ignored when computing {@link #getStats()},
+ * see {@link OutlierFilter}.
+ *
+ * Example usage:
+ * // Executes the code while keepRunning returning true.
+ *
+ * public void sampleMethod() {
+ *     BenchmarkLoop loop = new BenchmarkLoop(AllocationCounter.jvm());
+ *
+ *     int[] src = new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+ *     while (loop.keepRunning()) {
+ *         int[] dest = new int[src.length];
+ *         System.arraycopy(src, 0, dest, 0, src.length);
+ *     }
+ *     System.out.println(loop.getStats().getMin());
+ * }
+ */
+public class BenchmarkLoop {
+    private static final int NOT_STARTED = 0;  // The benchmark has not started yet.
+    private static final int WARMUP = 1; // The benchmark is warming up.
+    private static final int RUNNING = 2;  // The benchmark is running.
+    private static final int ALLOCATION = 3;  // The allocations of the benchmark are counted.
+    private static final int FINISHED = 4;  // The benchmark has stopped.
+
+    // values determined empirically
+    private static final long TARGET_TEST_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int MAX_TEST_ITERATIONS = 1000000;
+    private static final int MIN_TEST_ITERATIONS = 10;
+    // Allocations are counted over fewer iterations, as counting them can slow them down a lot.
+    private static final int MAX_ALLOCATION_ITERATIONS = 10000;
+
+    /**
+     * Number of timed repeats, each one giving a result.
+     */
+    public static final int REPEAT_COUNT = 5;
+
+    private final AllocationCounter mAllocationCounter;
+
+    private int mState = NOT_STARTED;  // Current benchmark state.
+
+    private final WarmupManager mWarmupManager = new WarmupManager();
+
+    private long mStartTimeNs = 0; // System.nanoTime() at start of last warmup iter / test repeat.
+
+    private boolean mPaused;
+    private long mPausedTimeNs = 0; // The System.nanoTime() when the pauseTiming() is called.
+    private long mPausedDurationNs = 0;  // The duration of paused state in nano sec.
+
+    private int mIteration = 0;
+    private int mMaxIterations = 0;
+    private int mAllocationIterations = 0;
+
+    private int mRepeatCount = 0;
+
+    // Allocations when the allocation repeat or the last pause started, and while paused.
+    private long mStartAllocatedObjects;
+    private long mStartAllocatedBytes;
+    private long mPausedAllocatedObjects;
+    private long mPausedAllocatedBytes;
+    private long mPausedTimeAllocatedObjects;
+    private long mPausedTimeAllocatedBytes;
+
+    private long mStartGcCount;
+
+    // Statistics. These values will be filled when the benchmark has finished.
+    // The computation needs double precision, but long int is fine for final reporting.
+    private Stats mStats;
+    private long[] mFilteredResults;
+    private int mOutlierCount;
+    private long mAllocatedObjects = AllocationCounter.UNAVAILABLE;
+    private long mAllocatedBytes = AllocationCounter.UNAVAILABLE;
+
+    // Individual duration in nano seconds, and number of collections during each repeat.
+    private final ResultBuffer mResults = new ResultBuffer(REPEAT_COUNT);
+    private final ResultBuffer mGcCounts = new ResultBuffer(REPEAT_COUNT);
+
+    /**
+     * Creates a loop which doesn't count allocations.
+     */
+    public BenchmarkLoop() {
+        this(AllocationCounter.NONE);
+    }
+
+    /**
+     * Creates a loop counting allocations and garbage collections with the given counter.
+     */
+    public BenchmarkLoop(@NonNull AllocationCounter allocationCounter) {
+        mAllocationCounter = allocationCounter;
+    }
+
+    /**
+     * Stops the benchmark timer.
+     * <p>
+     * This method can be called only when the timer is running.
+     */
+    public void pauseTiming() {
+        if (mPaused) {
+            throw new IllegalStateException(
+                    "Unable to pause the benchmark. The benchmark has already paused.");
+        }
+        if (mState == ALLOCATION) {
+            mPausedTimeAllocatedObjects = mAllocationCounter.getAllocatedObjects();
+            mPausedTimeAllocatedBytes = mAllocationCounter.getAllocatedBytes();
+        }
+        mPausedTimeNs = System.nanoTime();
+        mPaused = true;
+    }
+
+    /**
+     * Starts the benchmark timer.
+     * <p>
+     * This method can be called only when the timer is stopped.
+     */
+    public void resumeTiming() {
+        if (!mPaused) {
+            throw new IllegalStateException(
+                    "Unable to resume the benchmark. The benchmark is already running.");
+        }
+        mPausedDurationNs += System.nanoTime() - mPausedTimeNs;
+        mPausedTimeNs = 0;
+        if (mState == ALLOCATION) {
+            mPausedAllocatedObjects +=
+                    mAllocationCounter.getAllocatedObjects() - mPausedTimeAllocatedObjects;
+            mPausedAllocatedBytes +=
+                    mAllocationCounter.getAllocatedBytes() - mPausedTimeAllocatedBytes;
+        }
+        mPaused = false;
+    }
+
+    private void beginWarmup() {
+        mStartTimeNs = System.nanoTime();
+        mIteration = 0;
+        mState = WARMUP;
+    }
+
+    private void beginBenchmark() {
+        onWarmupComplete();
+        onMeasurementStart();
+        final int idealIterations =
+                (int) (TARGET_TEST_DURATION_NS / mWarmupManager.getEstimatedIterationTime());
+        mMaxIterations = Math.min(MAX_TEST_ITERATIONS,
+                Math.max(idealIterations, MIN_TEST_ITERATIONS));
+        mPausedDurationNs = 0;
+        mIteration = 0;
+        mRepeatCount = 0;
+        mState = RUNNING;
+        mStartGcCount = mAllocationCounter.getGcCount();
+        mStartTimeNs = System.nanoTime();
+    }
+
+    private boolean startNextTestRun() {
+        final long currentTime = System.nanoTime();
+        mResults.add((currentTime - mStartTimeNs - mPausedDurationNs) / mMaxIterations);
+        mGcCounts.add(delta(mStartGcCount, mAllocationCounter.getGcCount(), 0));
+        mRepeatCount++;
+        if (mRepeatCount >= REPEAT_COUNT) {
+            onMeasurementComplete();
+            return beginAllocationRun();
+        }
+        mPausedDurationNs = 0;
+        mIteration = 0;
+        mStartGcCount = mAllocationCounter.getGcCount();
+        mStartTimeNs = System.nanoTime();
+        return true;
+    }
+
+    private boolean beginAllocationRun() {
+        mAllocationCounter.start();
+        mStartAllocatedObjects = mAllocationCounter.getAllocatedObjects();
+        mStartAllocatedBytes = mAllocationCounter.getAllocatedBytes();
+        if (mStartAllocatedObjects == AllocationCounter.UNAVAILABLE
+                && mStartAllocatedBytes == AllocationCounter.UNAVAILABLE) {
+            mAllocationCounter.stop();
+            finish();
+            return false;
+        }
+        mAllocationIterations = Math.min(mMaxIterations, MAX_ALLOCATION_ITERATIONS);
+        mPausedAllocatedObjects = 0;
+        mPausedAllocatedBytes = 0;
+        mIteration = 0;
+        mState = ALLOCATION;
+        return true;
+    }
+
+    private void finishAllocationRun() {
+        final long allocatedObjects = mAllocationCounter.getAllocatedObjects();
+        final long allocatedBytes = mAllocationCounter.getAllocatedBytes();
+        mAllocationCounter.stop();
+        mAllocatedObjects = delta(mStartAllocatedObjects, allocatedObjects,
+                mPausedAllocatedObjects);
+        mAllocatedBytes = delta(mStartAllocatedBytes, allocatedBytes, mPausedAllocatedBytes);
+        if (mAllocatedObjects != AllocationCounter.UNAVAILABLE) {
+            mAllocatedObjects /= mAllocationIterations;
+        }
+        if (mAllocatedBytes != AllocationCounter.UNAVAILABLE) {
+            mAllocatedBytes /= mAllocationIterations;
+        }
+        finish();
+    }
+
+    private void finish() {
+        final long[] results = mResults.toArray();
+        mFilteredResults = OutlierFilter.filter(results, mGcCounts.toArray());
+        mOutlierCount = results.length - mFilteredResults.length;
+        mStats = new Stats(mFilteredResults);
+        mState = FINISHED;
+    }
+
+    private static long delta(long start, long end, long excluded) {
+        if (start == AllocationCounter.UNAVAILABLE || end == AllocationCounter.UNAVAILABLE) {
+            return AllocationCounter.UNAVAILABLE;
+        }
+        return Math.max(0, end - start - excluded);
+    }
+
+    /**
+     * Judges whether the benchmark needs more samples.
+     *
+     * For the usage, see class comment.
+     */
+    public boolean keepRunning() {
+        switch (mState) {
+            case NOT_STARTED:
+                beginWarmup();
+                return true;
+            case WARMUP:
+                mIteration++;
+                // Only check nanoTime on every iteration in WARMUP since we
+                // don't yet have a target iteration count.
+                final long time = System.nanoTime();
+                final long lastDuration = time - mStartTimeNs;
+                mStartTimeNs = time;
+                if (mWarmupManager.onNextIteration(lastDuration)) {
+                    beginBenchmark();
+                }
+                return true;
+            case RUNNING:
+                mIteration++;
+                if (mIteration >= mMaxIterations) {
+                    return startNextTestRun();
+                }
+                if (mPaused) {
+                    throw new IllegalStateException("Benchmark step finished with paused state. "
+                            + "Resume the benchmark before finishing each step.");
+                }
+                return true;
+            case ALLOCATION:
+                mIteration++;
+                if (mIteration >= mAllocationIterations) {
+                    finishAllocationRun();
+                    return false;
+                }
+                if (mPaused) {
+                    throw new IllegalStateException("Benchmark step finished with paused state. "
+                            + "Resume the benchmark before finishing each step.");
+                }
+                return true;
+            case FINISHED:
+                throw new IllegalStateException("The benchmark has finished.");
+            default:
+                throw new IllegalStateException("The benchmark is in unknown state.");
+        }
+    }
+
+    /**
+     * Called when the warmup has completed, before the timed repeats start.
+     */
+    protected void onWarmupComplete() {
+    }
+
+    /**
+     * Called before the first timed repeat starts.
+     */
+    protected void onMeasurementStart() {
+    }
+
+    /**
+     * Called after the last timed repeat, before allocations are counted.
+     */
+    protected void onMeasurementComplete() {
+    }
+
+    private void checkFinished() {
+        if (mState != FINISHED) {
+            throw new IllegalStateException("The benchmark hasn't finished");
+        }
+    }
+
+    /**
+     * Get the end of run benchmark statistics, without the results slowed down by a garbage
+     * collection.
+     * <p>
+     * This method may only be called keepRunning() returns {@code false}.
+     *
+     * @return Stats from run.
+     */
+    @NonNull
+    public Stats getStats() {
+        checkFinished();
+        return mStats;
+    }
+
+    /**
+     * Returns the duration of an iteration in nanoseconds measured by each repeat, including the
+     * results ignored by {@link #getStats()}.
+     */
+    @NonNull
+    public long[] getResults() {
+        checkFinished();
+        return mResults.toArray();
+    }
+
+    /**
+     * Returns the results used to compute {@link #getStats()}.
+     */
+    @NonNull
+    long[] getFilteredResults() {
+        checkFinished();
+        return mFilteredResults.clone();
+    }
+
+    /**
+     * Returns the number of results ignored by {@link #getStats()} because they were slowed down
+     * by a garbage collection.
+     */
+    public int getOutlierCount() {
+        checkFinished();
+        return mOutlierCount;
+    }
+
+    /**
+     * Returns the number of garbage collections during the timed repeats, or
+     * {@link AllocationCounter#UNAVAILABLE} if they couldn't be counted.
+     */
+    public long getGcCount() {
+        checkFinished();
+        long count = 0;
+        for (int i = 0; i < mGcCounts.size(); i++) {
+            final long repeatCount = mGcCounts.get(i);
+            if (repeatCount == AllocationCounter.UNAVAILABLE) {
+                return AllocationCounter.UNAVAILABLE;
+            }
+            count += repeatCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of iterations of each timed repeat.
+     */
+    public int getIterationCount() {
+        checkFinished();
+        return mMaxIterations;
+    }
+
+    /**
+     * Returns the number of objects allocated by an iteration, or
+     * {@link AllocationCounter#UNAVAILABLE} if they couldn't be counted.
+     */
+    public long getAllocatedObjectsPerIteration() {
+        checkFinished();
+        return mAllocatedObjects;
+    }
+
+    /**
+     * Returns the number of bytes allocated by an iteration, or
+     * {@link AllocationCounter#UNAVAILABLE} if they couldn't be counted.
+     */
+    public long getAllocatedBytesPerIteration() {
+        checkFinished();
+        return mAllocatedBytes;
+    }
+
+    /**
+     * Returns the number of iterations run to warm up the benchmark.
+     */
+    public int getWarmupIterationCount() {
+        return mWarmupManager.getIteration();
+    }
+
+    /**
+     * Returns the time spent warming up the benchmark, in nanoseconds.
+     */
+    public long getWarmupDurationNs() {
+        return mWarmupManager.getTotalDuration();
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine readable report of benchmark results, written and read as JSON, which
+ * {@link BenchmarkComparator} uses to detect regressions against a baseline.
+ * <p>
+ * Besides the results, a report holds information about the environment the benchmarks ran in,
+ * like the JVM or the device, as string properties.
+ */
+public final class BenchmarkReport {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, String> mEnvironment = new LinkedHashMap<>();
+    private final List<BenchmarkResult> mResults = new ArrayList<>();
+
+    /**
+     * Creates an empty report, with the environment describing the JVM and OS running it.
+     */
+    public BenchmarkReport() {
+        this(true);
+    }
+
+    private BenchmarkReport(boolean addJvmEnvironment) {
+        if (addJvmEnvironment) {
+            String[] properties = {"java.vm.name", "java.vm.version", "java.version", "os.name",
+                    "os.arch", "os.version"};
+            for (String property : properties) {
+                String value = System.getProperty(property);
+                if (value != null) {
+                    mEnvironment.put(property, value);
+                }
+            }
+            mEnvironment.put("availableProcessors",
+                    String.valueOf(Runtime.getRuntime().availableProcessors()));
+        }
+    }
+
+    /**
+     * Sets a property describing the environment the benchmarks ran in.
+     */
+    public void putEnvironment(@NonNull String key, @NonNull String value) {
+        mEnvironment.put(key, value);
+    }
+
+    @NonNull
+    public Map<String, String> getEnvironment() {
+        return Collections.unmodifiableMap(mEnvironment);
+    }
+
+    /**
+     * Adds the result of a benchmark, replacing any previous result with the same key.
+     */
+    public void addResult(@NonNull BenchmarkResult result) {
+        for (int i = 0; i < mResults.size(); i++) {
+            if (mResults.get(i).getKey().equals(result.getKey())) {
+                mResults.set(i, result);
+                return;
+            }
+        }
+        mResults.add(result);
+    }
+
+    @NonNull
+    public List<BenchmarkResult> getResults() {
+        return Collections.unmodifiableList(mResults);
+    }
+
+    /**
+     * Writes the report as JSON into the given file, replacing it.
+     */
+    public void writeTo(@NonNull File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+        try {
+            writeTo(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the report as JSON.
+     */
+    public void writeTo(@NonNull Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("version").value(FORMAT_VERSION);
+        json.name("environment").beginObject();
+        for (Map.Entry<String, String> entry : mEnvironment.entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue());
+        }
+        json.endObject();
+        json.name("benchmarks").beginArray();
+        for (BenchmarkResult result : mResults) {
+            writeResult(json, result);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeResult(JsonWriter json, BenchmarkResult result) throws IOException {
+        Stats stats = result.getStats();
+        json.beginObject();
+        json.name("className").value(result.getClassName());
+        json.name("name").value(result.getName());
+        json.name("iterations").value(result.getIterationCount());
+        json.name("warmupIterations").value(result.getWarmupIterationCount());
+        json.name("warmupDurationNs").value(result.getWarmupDurationNs());
+        json.name("gcCount").value(result.getGcCount());
+        json.name("allocatedObjects").value(result.getAllocatedObjects());
+        json.name("allocatedBytes").value(result.getAllocatedBytes());
+        json.name("stats").beginObject();
+        json.name("min").value(stats.getMin());
+        json.name("median").value(stats.getMedian());
+        json.name("mean").value(stats.getMean());
+        json.name("max").value(stats.getMax());
+        json.name("standardDeviation").value(stats.getStandardDeviation());
+        json.name("percentile90").value(stats.getPercentile90());
+        json.name("percentile95").value(stats.getPercentile95());
+        json.endObject();
+        writeArray(json.name("results"), result.getResults());
+        writeArray(json.name("rawResults"), result.getRawResults());
+        json.endObject();
+    }
+
+    private static void writeArray(JsonWriter json, long[] values) throws IOException {
+        json.beginArray();
+        for (long value : values) {
+            json.value(value);
+        }
+        json.endArray();
+    }
+
+    /**
+     * Reads a report written by {@link #writeTo(File)}.
+     */
+    @NonNull
+    public static BenchmarkReport readFrom(@NonNull File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+        try {
+            return readFrom(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads a report written by {@link #writeTo(Writer)}.
+     */
+    @NonNull
+    public static BenchmarkReport readFrom(@NonNull Reader reader) throws IOException {
+        BenchmarkReport report = new BenchmarkReport(false);
+        JsonReader json = new JsonReader(reader);
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "version":
+                    int version = json.nextInt();
+                    if (version > FORMAT_VERSION) {
+                        throw new IOException("Unsupported report version " + version);
+                    }
+                    break;
+                case "environment":
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        report.mEnvironment.put(json.nextName(), json.nextString());
+                    }
+                    json.endObject();
+                    break;
+                case "benchmarks":
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        report.mResults.add(readResult(json));
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return report;
+    }
+
+    private static BenchmarkResult readResult(JsonReader json) throws IOException {
+        String className = null;
+        String name = null;
+        long[] results = null;
+        long[] rawResults = null;
+        int iterations = 0;
+        int warmupIterations = 0;
+        long warmupDurationNs = 0;
+        long gcCount = AllocationCounter.UNAVAILABLE;
+        long allocatedObjects = AllocationCounter.UNAVAILABLE;
+        long allocatedBytes = AllocationCounter.UNAVAILABLE;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "className":
+                    className = json.nextString();
+                    break;
+                case "name":
+                    name = json.nextString();
+                    break;
+                case "iterations":
+                    iterations = json.nextInt();
+                    break;
+                case "warmupIterations":
+                    warmupIterations = json.nextInt();
+                    break;
+                case "warmupDurationNs":
+                    warmupDurationNs = json.nextLong();
+                    break;
+                case "gcCount":
+                    gcCount = json.nextLong();
+                    break;
+                case "allocatedObjects":
+                    allocatedObjects = json.nextLong();
+                    break;
+                case "allocatedBytes":
+                    allocatedBytes = json.nextLong();
+                    break;
+                case "results":
+                    results = readArray(json);
+                    break;
+                case "rawResults":
+                    rawResults = readArray(json);
+                    break;
+                default:
+                    // stats are computed again from the results
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        if (className == null || name == null || results == null || results.length < 2) {
+            throw new IOException("Benchmark without class name, name or enough results");
+        }
+        return new BenchmarkResult(className, name, results,
+                rawResults != null ? rawResults : results, iterations, warmupIterations,
+                warmupDurationNs, gcCount, allocatedObjects, allocatedBytes);
+    }
+
+    private static long[] readArray(JsonReader json) throws IOException {
+        ResultBuffer buffer = new ResultBuffer(BenchmarkLoop.REPEAT_COUNT);
+        json.beginArray();
+        while (json.peek() != JsonToken.END_ARRAY) {
+            buffer.add(json.nextLong());
+        }
+        json.endArray();
+        return buffer.toArray();
+    }
+}
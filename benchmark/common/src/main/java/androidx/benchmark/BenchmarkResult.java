@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Result of a finished benchmark, as written in a {@link BenchmarkReport}.
+ */
+public final class BenchmarkResult {
+    private final String mClassName;
+    private final String mName;
+    private final long[] mResults;
+    private final long[] mRawResults;
+    private final int mIterationCount;
+    private final int mWarmupIterationCount;
+    private final long mWarmupDurationNs;
+    private final long mGcCount;
+    private final long mAllocatedObjects;
+    private final long mAllocatedBytes;
+    private final Stats mStats;
+
+    BenchmarkResult(@NonNull String className, @NonNull String name, @NonNull long[] results,
+            @NonNull long[] rawResults, int iterationCount, int warmupIterationCount,
+            long warmupDurationNs, long gcCount, long allocatedObjects, long allocatedBytes) {
+        mClassName = className;
+        mName = name;
+        mResults = results;
+        mRawResults = rawResults;
+        mIterationCount = iterationCount;
+        mWarmupIterationCount = warmupIterationCount;
+        mWarmupDurationNs = warmupDurationNs;
+        mGcCount = gcCount;
+        mAllocatedObjects = allocatedObjects;
+        mAllocatedBytes = allocatedBytes;
+        mStats = new Stats(results);
+    }
+
+    /**
+     * Creates the result of the given finished loop.
+     *
+     * @param className the name of the class holding the benchmark
+     * @param name      the name of the benchmark
+     * @param loop      the finished loop of the benchmark
+     */
+    @NonNull
+    public static BenchmarkResult create(@NonNull String className, @NonNull String name,
+            @NonNull BenchmarkLoop loop) {
+        return new BenchmarkResult(className, name, loop.getFilteredResults(), loop.getResults(),
+                loop.getIterationCount(), loop.getWarmupIterationCount(),
+                loop.getWarmupDurationNs(), loop.getGcCount(),
+                loop.getAllocatedObjectsPerIteration(), loop.getAllocatedBytesPerIteration());
+    }
+
+    /**
+     * Returns the key identifying the benchmark across reports.
+     */
+    @NonNull
+    public String getKey() {
+        return mClassName + "#" + mName;
+    }
+
+    @NonNull
+    public String getClassName() {
+        return mClassName;
+    }
+
+    @NonNull
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Returns the duration of an iteration in nanoseconds of each repeat kept in the stats.
+     */
+    @NonNull
+    public long[] getResults() {
+        return mResults.clone();
+    }
+
+    /**
+     * Returns the duration of an iteration in nanoseconds of every repeat, including the ones
+     * slowed down by a garbage collection.
+     */
+    @NonNull
+    public long[] getRawResults() {
+        return mRawResults.clone();
+    }
+
+    @NonNull
+    public Stats getStats() {
+        return mStats;
+    }
+
+    public int getIterationCount() {
+        return mIterationCount;
+    }
+
+    public int getWarmupIterationCount() {
+        return mWarmupIterationCount;
+    }
+
+    public long getWarmupDurationNs() {
+        return mWarmupDurationNs;
+    }
+
+    /**
+     * Returns the number of garbage collections during the timed repeats, or
+     * {@link AllocationCounter#UNAVAILABLE}.
+     */
+    public long getGcCount() {
+        return mGcCount;
+    }
+
+    /**
+     * Returns the number of objects allocated by an iteration, or
+     * {@link AllocationCounter#UNAVAILABLE}.
+     */
+    public long getAllocatedObjects() {
+        return mAllocatedObjects;
+    }
+
+    /**
+     * Returns the number of bytes allocated by an iteration, or
+     * {@link AllocationCounter#UNAVAILABLE}.
+     */
+    public long getAllocatedBytes() {
+        return mAllocatedBytes;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * {@link AllocationCounter} using the thread and garbage collector management beans of the JVM.
+ * <p>
+ * Kept in its own class so that java.lang.management, which doesn't exist on Android, is only
+ * loaded when running on the JVM.
+ */
+final class JvmAllocationCounter extends AllocationCounter {
+    // null when the JVM doesn't count allocated bytes
+    private final com.sun.management.ThreadMXBean mThreadBean;
+    private final List<GarbageCollectorMXBean> mGcBeans;
+
+    JvmAllocationCounter() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = null;
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (!allocationBean.isThreadAllocatedMemorySupported()) {
+                allocationBean = null;
+            } else if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        mThreadBean = allocationBean;
+        mGcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    @Override
+    public long getAllocatedObjects() {
+        return UNAVAILABLE;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        if (mThreadBean == null) {
+            return UNAVAILABLE;
+        }
+        return mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Override
+    public long getGcCount() {
+        long count = 0;
+        for (int i = 0; i < mGcBeans.size(); i++) {
+            long beanCount = mGcBeans.get(i).getCollectionCount();
+            if (beanCount > 0) {
+                count += beanCount;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Use this rule to benchmark pure Java code in unit tests running on the JVM, and print the
+ * results after the test succeeds.
+ *
+ * <pre>
+ * {@literal @}Rule public JvmBenchmarkRule benchmarkRule = new JvmBenchmarkRule();
+ * {@literal @}Test public void functionName() {
+ *     ...
+ *     BenchmarkLoop loop = benchmarkRule.getState();
+ *     while (loop.keepRunning()) {
+ *         // DO YOUR TEST HERE!
+ *     }
+ *     ...
+ * }
+ * </pre>
+ *
+ * When running on the JVM, allocated bytes and garbage collections are counted, but not allocated
+ * objects.
+ * <p>
+ * When the {@value #OUTPUT_PROPERTY} system property is set, the results of all the benchmarks
+ * run by the JVM are also written as a {@link BenchmarkReport} into the file it names.
+ */
+public class JvmBenchmarkRule implements TestRule {
+    /**
+     * System property naming the file to write the {@link BenchmarkReport} into.
+     */
+    public static final String OUTPUT_PROPERTY = "androidx.benchmark.output";
+
+    private static final Object sReportLock = new Object();
+    private static BenchmarkReport sReport;
+
+    @SuppressWarnings("WeakerAccess") // synthetic access
+    final BenchmarkLoop mState = new BenchmarkLoop(AllocationCounter.jvm());
+    @SuppressWarnings("WeakerAccess") // synthetic access
+    boolean mApplied = false;
+    @SuppressWarnings("WeakerAccess") // synthetic access
+    final PrintStream mOutput;
+
+    public JvmBenchmarkRule() {
+        this(System.out);
+    }
+
+    JvmBenchmarkRule(@NonNull PrintStream output) {
+        mOutput = output;
+    }
+
+    @NonNull
+    public BenchmarkLoop getState() {
+        if (!mApplied) {
+            throw new IllegalStateException("Cannot get state before JvmBenchmarkRule is applied"
+                    + " to a test. Check that your JvmBenchmarkRule is annotated correctly"
+                    + " (@Rule in Java, @get:Rule in Kotlin).");
+        }
+        return mState;
+    }
+
+    @NonNull
+    @Override
+    public Statement apply(@NonNull final Statement base, @NonNull final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                mApplied = true;
+                base.evaluate();
+                BenchmarkResult result = BenchmarkResult.create(description.getClassName(),
+                        description.getMethodName(), mState);
+                mOutput.println(summaryLine(mState, result.getKey()));
+                String output = System.getProperty(OUTPUT_PROPERTY);
+                if (output != null) {
+                    writeReport(new File(output), result);
+                }
+            }
+        };
+    }
+
+    static void writeReport(@NonNull File file, @NonNull BenchmarkResult result)
+            throws IOException {
+        synchronized (sReportLock) {
+            if (sReport == null) {
+                sReport = new BenchmarkReport();
+            }
+            sReport.addResult(result);
+            sReport.writeTo(file);
+        }
+    }
+
+    @NonNull
+    static String summaryLine(@NonNull BenchmarkLoop loop, @NonNull String key) {
+        return String.format("%13d ns %13s allocs %13s bytes %s",
+                loop.getStats().getMin(),
+                format(loop.getAllocatedObjectsPerIteration()),
+                format(loop.getAllocatedBytesPerIteration()),
+                key);
+    }
+
+    private static String format(long count) {
+        return count == AllocationCounter.UNAVAILABLE ? "-" : Long.toString(count);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Removes the results of the repeats which were slowed down by a garbage collection.
+ * <p>
+ * A result is only removed when a collection happened during its repeat and it is an outlier,
+ * more than {@link #THRESHOLD} scaled median absolute deviations above the median of all
+ * results. Benchmarks which collect during every repeat, or whose collections don't affect their
+ * timing, keep all their results.
+ */
+final class OutlierFilter {
+    // Results further than this many deviations above the median are outliers
+    static final double THRESHOLD = 3;
+    // Makes the median absolute deviation comparable to the standard deviation of normal data
+    private static final double MAD_SCALE = 1.4826;
+    // Results closer than this ratio of the median are never outliers, even when the deviation is
+    // very small
+    private static final double MIN_RELATIVE_DEVIATION = 0.01;
+    private static final int MIN_RESULTS = 2;
+
+    private OutlierFilter() {
+    }
+
+    /**
+     * Returns the results which weren't slowed down by a garbage collection.
+     *
+     * @param results  the result of each repeat
+     * @param gcCounts the number of garbage collections during each repeat, or
+     *                 {@link AllocationCounter#UNAVAILABLE} when unknown
+     */
+    @NonNull
+    static long[] filter(@NonNull long[] results, @NonNull long[] gcCounts) {
+        if (results.length != gcCounts.length) {
+            throw new IllegalArgumentException("Results and collection counts differ in size");
+        }
+        final double median = median(results.clone());
+        final long[] deviations = new long[results.length];
+        for (int i = 0; i < results.length; i++) {
+            deviations[i] = Math.abs(results[i] - (long) median);
+        }
+        final double deviation = Math.max(MAD_SCALE * median(deviations),
+                MIN_RELATIVE_DEVIATION * median);
+        final double limit = median + THRESHOLD * deviation;
+
+        long[] filtered = new long[results.length];
+        int count = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (gcCounts[i] <= 0 || results[i] <= limit) {
+                filtered[count++] = results[i];
+            }
+        }
+        if (count < MIN_RESULTS) {
+            return results;
+        }
+        return count == results.length ? results : Arrays.copyOf(filtered, count);
+    }
+
+    private static double median(long[] values) {
+        Arrays.sort(values);
+        final int size = values.length;
+        if (size == 0) {
+            return 0;
+        }
+        return size % 2 == 0
+                ? (values[size / 2] + values[size / 2 - 1]) / 2.0
+                : values[size / 2];
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of long results, which avoids boxing every result while a benchmark runs.
+ */
+final class ResultBuffer {
+    private long[] mValues;
+    private int mSize;
+
+    ResultBuffer(int initialCapacity) {
+        mValues = new long[initialCapacity];
+    }
+
+    void add(long value) {
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, Math.max(mSize * 2, 1));
+        }
+        mValues[mSize++] = value;
+    }
+
+    long get(int index) {
+        if (index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+        }
+        return mValues[index];
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void clear() {
+        mSize = 0;
+    }
+
+    @NonNull
+    long[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+}
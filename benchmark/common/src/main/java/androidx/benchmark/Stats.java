@@ -18,8 +18,7 @@ package androidx.benchmark;
 
 import androidx.annotation.NonNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -32,32 +31,36 @@ public class Stats {
 
     /* Calculate stats in constructor. */
     public Stats(@NonNull List<Long> values) {
+        this(toArray(values));
+    }
+
+    /* Calculate stats in constructor. */
+    public Stats(@NonNull long[] values) {
         // make a copy since we're modifying it
-        values = new ArrayList<>(values);
-        final int size = values.size();
+        values = values.clone();
+        final int size = values.length;
         if (size < 2) {
             throw new IllegalArgumentException("At least two results are necessary.");
         }
 
-        Collections.sort(values);
+        Arrays.sort(values);
 
-        mMin = values.get(0);
-        mMax = values.get(values.size() - 1);
+        mMin = values[0];
+        mMax = values[size - 1];
 
         mMedian = size % 2 == 0
-                ? (values.get(size / 2) + values.get(size / 2 - 1)) / 2
-                : values.get(size / 2);
+                ? (values[size / 2] + values[size / 2 - 1]) / 2
+                : values[size / 2];
         mPercentile90 = getPercentile(values, 90);
         mPercentile95 = getPercentile(values, 95);
 
         for (int i = 0; i < size; ++i) {
-            long result = values.get(i);
-            mMean += result;
+            mMean += values[i];
         }
         mMean /= (double) size;
 
         for (int i = 0; i < size; ++i) {
-            final double tmp = values.get(i) - mMean;
+            final double tmp = values[i] - mMean;
             mStandardDeviation += tmp * tmp;
         }
         mStandardDeviation = Math.sqrt(mStandardDeviation / (double) (size - 1));
@@ -91,12 +94,20 @@ public class Stats {
         return mPercentile95;
     }
 
-    private static long getPercentile(List<Long> values, int percentile) {
+    private static long[] toArray(List<Long> values) {
+        final long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static long getPercentile(long[] values, int percentile) {
         if (percentile < 0 || percentile > 100) {
             throw new IllegalArgumentException(
                     "invalid percentile " + percentile + ", should be 0-100");
         }
-        int idx = (values.size() - 1) * percentile / 100;
-        return values.get(idx);
+        int idx = (values.length - 1) * percentile / 100;
+        return values[idx];
     }
 }
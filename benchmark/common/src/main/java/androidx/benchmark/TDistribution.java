@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+/**
+ * Student's t-distribution, used by {@link BenchmarkComparator} to compute confidence intervals
+ * from the few results of a benchmark.
+ */
+final class TDistribution {
+    private static final double EPSILON = 1e-12;
+    private static final int MAX_ITERATIONS = 300;
+    private static final double[] LANCZOS = {
+            0.99999999999980993, 676.5203681218851, -1259.1392167224028, 771.32342877765313,
+            -176.61502916214059, 12.507343278686905, -0.13857109526572012,
+            9.9843695780195716e-6, 1.5056327351493116e-7};
+
+    private TDistribution() {
+    }
+
+    /**
+     * Returns the probability for a variable with the given degrees of freedom to be at most t.
+     */
+    static double cdf(double t, double degreesOfFreedom) {
+        double x = degreesOfFreedom / (degreesOfFreedom + t * t);
+        double tail = 0.5 * regularizedBeta(x, degreesOfFreedom / 2, 0.5);
+        return t > 0 ? 1 - tail : tail;
+    }
+
+    /**
+     * Returns the value t for which {@link #cdf(double, double)} is the given probability.
+     */
+    static double quantile(double probability, double degreesOfFreedom) {
+        if (probability <= 0 || probability >= 1) {
+            throw new IllegalArgumentException("Probability must be in (0, 1): " + probability);
+        }
+        double low = -1;
+        double high = 1;
+        while (cdf(low, degreesOfFreedom) > probability) {
+            low *= 2;
+        }
+        while (cdf(high, degreesOfFreedom) < probability) {
+            high *= 2;
+        }
+        for (int i = 0; i < MAX_ITERATIONS && high - low > EPSILON; i++) {
+            double middle = (low + high) / 2;
+            if (cdf(middle, degreesOfFreedom) < probability) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private static double regularizedBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        double front = Math.exp(a * Math.log(x) + b * Math.log(1 - x)
+                - logGamma(a) - logGamma(b) + logGamma(a + b));
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * continuedFraction(x, a, b) / a;
+        }
+        return 1 - front * continuedFraction(1 - x, b, a) / b;
+    }
+
+    // Continued fraction of the incomplete beta function, evaluated with Lentz's method.
+    private static double continuedFraction(double x, double a, double b) {
+        final double tiny = 1e-300;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < tiny ? tiny : d);
+        double result = d;
+        for (int m = 1; m <= MAX_ITERATIONS; m++) {
+            int m2 = 2 * m;
+            double numerator = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + numerator * d;
+            d = 1 / (Math.abs(d) < tiny ? tiny : d);
+            c = 1 + numerator / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            result *= d * c;
+
+            numerator = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + numerator * d;
+            d = 1 / (Math.abs(d) < tiny ? tiny : d);
+            c = 1 + numerator / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            double delta = d * c;
+            result *= delta;
+            if (Math.abs(delta - 1) < EPSILON) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // Lanczos approximation of the logarithm of the gamma function, for positive values.
+    private static double logGamma(double x) {
+        if (x < 0.5) {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        }
+        x -= 1;
+        double sum = LANCZOS[0];
+        for (int i = 1; i < LANCZOS.length; i++) {
+            sum += LANCZOS[i] / (x + i);
+        }
+        double t = x + LANCZOS.length - 1.5;
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+}
@@ -16,8 +16,6 @@
 
 package androidx.benchmark;
 
-import android.util.Log;
-
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -27,6 +25,8 @@ import java.util.concurrent.TimeUnit;
  * exponential moving averages.
  *
  * Tuned to do minimal amount of intrusive work in onNextIteration to avoid polluting the benchmark.
+ *
+ * Doesn't depend on Android, so that benchmarks can also run on the JVM.
  */
 class WarmupManager {
     static final long MIN_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(250);
@@ -81,12 +81,6 @@ class WarmupManager {
             if (mSimilarIterationCount > MIN_SIMILAR_ITERATIONS
                     || mTotalDuration >= MAX_DURATION_NS) {
                 // benchmark has stabilized, or we're out of time
-                Log.d("WarmupManager", String.format(
-                        "Complete: t=%.3f, iter=%d, fastAvg=%3.0f, slowAvg=%3.0f",
-                        mTotalDuration / 1000000000.0,
-                        mIteration,
-                        mFastMovingAvg,
-                        mSlowMovingAvg));
                 return true;
             }
         }
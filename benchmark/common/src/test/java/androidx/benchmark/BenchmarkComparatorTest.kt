@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class BenchmarkComparatorTest {
+    private val comparator = BenchmarkComparator()
+
+    @Test
+    fun regression() {
+        val comparison = comparator.compare(
+            result(100, 101, 99, 100, 102),
+            result(110, 111, 109, 112, 110))
+        assertEquals(BenchmarkComparator.Comparison.REGRESSION, comparison.verdict)
+        assertTrue(comparison.differenceLow > 0)
+        assertEquals(0.0996, comparison.change, 0.001)
+    }
+
+    @Test
+    fun improvement() {
+        val comparison = comparator.compare(
+            result(110, 111, 109, 112, 110),
+            result(100, 101, 99, 100, 102))
+        assertEquals(BenchmarkComparator.Comparison.IMPROVEMENT, comparison.verdict)
+        assertTrue(comparison.differenceHigh < 0)
+    }
+
+    @Test
+    fun noisyIsUnchanged() {
+        // the medians differ by 20%, but the results overlap too much to be significant
+        val comparison = comparator.compare(
+            result(100, 140, 80, 100, 120),
+            result(120, 80, 160, 120, 100))
+        assertEquals(BenchmarkComparator.Comparison.UNCHANGED, comparison.verdict)
+        assertTrue(comparison.differenceLow < 0 && comparison.differenceHigh > 0)
+    }
+
+    @Test
+    fun belowThresholdIsUnchanged() {
+        // significant, but below the 2% default threshold
+        val comparison = comparator.compare(
+            result(1000, 1000, 1000, 1000, 1000),
+            result(1010, 1010, 1010, 1010, 1010))
+        assertEquals(BenchmarkComparator.Comparison.UNCHANGED, comparison.verdict)
+        assertEquals(10.0, comparison.differenceLow, 0.0)
+        assertEquals(10.0, comparison.differenceHigh, 0.0)
+    }
+
+    @Test
+    fun reports() {
+        val baseline = BenchmarkReport()
+        baseline.addResult(result(100, 101, 99, 100, 102, name = "a"))
+        baseline.addResult(result(100, 101, 99, 100, 102, name = "removed"))
+        val current = BenchmarkReport()
+        current.addResult(result(150, 151, 149, 150, 152, name = "a"))
+        current.addResult(result(100, 101, 99, 100, 102, name = "added"))
+
+        val comparisons = comparator.compare(baseline, current)
+        assertEquals(1, comparisons.size)
+        assertEquals("Test#a", comparisons[0].key)
+        assertEquals(BenchmarkComparator.Comparison.REGRESSION, comparisons[0].verdict)
+    }
+
+    private fun result(vararg results: Long, name: String = "benchmark") = BenchmarkResult(
+        "Test", name, results, results, 1000, 100, 1000000, 0, 2, 64)
+}
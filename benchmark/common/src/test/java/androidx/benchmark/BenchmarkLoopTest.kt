@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class BenchmarkLoopTest {
+    @Test
+    fun results() {
+        val loop = BenchmarkLoop()
+        while (loop.keepRunning()) {
+            // nothing
+        }
+        assertEquals(BenchmarkLoop.REPEAT_COUNT, loop.results.size)
+        assertTrue(loop.iterationCount > 0)
+        assertTrue(loop.warmupIterationCount > 0)
+        assertEquals(AllocationCounter.UNAVAILABLE, loop.allocatedObjectsPerIteration)
+        assertEquals(AllocationCounter.UNAVAILABLE, loop.allocatedBytesPerIteration)
+    }
+
+    @Test
+    fun allocations() {
+        val counter = FakeAllocationCounter()
+        val loop = BenchmarkLoop(counter)
+        while (loop.keepRunning()) {
+            counter.allocate(2, 32)
+            loop.pauseTiming()
+            counter.allocate(5, 100)
+            loop.resumeTiming()
+        }
+        assertEquals(2, loop.allocatedObjectsPerIteration)
+        assertEquals(32, loop.allocatedBytesPerIteration)
+        assertEquals(0, loop.gcCount)
+        assertEquals(0, counter.counting)
+    }
+
+    @Test
+    fun jvmAllocations() {
+        val loop = BenchmarkLoop(AllocationCounter.jvm())
+        var array: LongArray? = null
+        while (loop.keepRunning()) {
+            array = LongArray(16)
+        }
+        assertEquals(16, array!!.size)
+        assertEquals(AllocationCounter.UNAVAILABLE, loop.allocatedObjectsPerIteration)
+        // a long[16] takes at least 128 bytes, when the JVM counts allocated bytes
+        val bytes = loop.allocatedBytesPerIteration
+        assertTrue("", bytes == AllocationCounter.UNAVAILABLE || bytes >= 128)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun statsBeforeFinished() {
+        BenchmarkLoop().stats
+    }
+
+    private class FakeAllocationCounter : AllocationCounter() {
+        var objects = 0L
+        var bytes = 0L
+        var counting = 0
+
+        fun allocate(objects: Long, bytes: Long) {
+            if (counting > 0) {
+                this.objects += objects
+                this.bytes += bytes
+            }
+        }
+
+        override fun start() {
+            counting++
+        }
+
+        override fun stop() {
+            counting--
+        }
+
+        override fun getAllocatedObjects() = objects
+
+        override fun getAllocatedBytes() = bytes
+
+        override fun getGcCount() = 0L
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.io.StringReader
+import java.io.StringWriter
+
+@RunWith(JUnit4::class)
+class BenchmarkReportTest {
+    @Test
+    fun roundTrip() {
+        val report = BenchmarkReport()
+        report.putEnvironment("build.model", "Pixel")
+        report.addResult(BenchmarkResult("Test", "foo", longArrayOf(10, 11, 12),
+            longArrayOf(10, 11, 12, 30), 1000, 100, 1000000, 1, 2, 64))
+
+        val writer = StringWriter()
+        report.writeTo(writer)
+        val read = BenchmarkReport.readFrom(StringReader(writer.toString()))
+
+        assertEquals(report.environment, read.environment)
+        assertEquals("Pixel", read.environment["build.model"])
+        assertTrue(read.environment.containsKey("java.vm.name"))
+        assertEquals(1, read.results.size)
+        val result = read.results[0]
+        assertEquals("Test#foo", result.key)
+        assertArrayEquals(longArrayOf(10, 11, 12), result.results)
+        assertArrayEquals(longArrayOf(10, 11, 12, 30), result.rawResults)
+        assertEquals(1000, result.iterationCount)
+        assertEquals(100, result.warmupIterationCount)
+        assertEquals(1000000, result.warmupDurationNs)
+        assertEquals(1, result.gcCount)
+        assertEquals(2, result.allocatedObjects)
+        assertEquals(64, result.allocatedBytes)
+        assertEquals(11, result.stats.median)
+    }
+
+    @Test
+    fun replacesResult() {
+        val report = BenchmarkReport()
+        report.addResult(BenchmarkResult("Test", "foo", longArrayOf(10, 11), longArrayOf(10, 11),
+            1, 1, 1, 0, 0, 0))
+        report.addResult(BenchmarkResult("Test", "foo", longArrayOf(20, 21), longArrayOf(20, 21),
+            1, 1, 1, 0, 0, 0))
+        assertEquals(1, report.results.size)
+        assertEquals(20, report.results[0].stats.min)
+    }
+
+    @Test
+    fun loopResult() {
+        val loop = BenchmarkLoop()
+        while (loop.keepRunning()) {
+            // nothing
+        }
+        val result = BenchmarkResult.create("Test", "loop", loop)
+        assertEquals(BenchmarkLoop.REPEAT_COUNT, result.rawResults.size)
+        assertEquals(loop.stats.min, result.stats.min)
+        assertEquals(loop.iterationCount, result.iterationCount)
+    }
+}
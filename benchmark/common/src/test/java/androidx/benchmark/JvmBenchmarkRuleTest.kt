@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark
+
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class JvmBenchmarkRuleTest {
+    @get:Rule
+    val benchmarkRule = JvmBenchmarkRule()
+
+    @Test
+    fun runs() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            // nothing
+        }
+        val summary = JvmBenchmarkRule.summaryLine(state, "foo")
+        assertTrue(summary, summary.endsWith(" foo"))
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun throwsIfNotAnnotated() {
+        JvmBenchmarkRule().state
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class OutlierFilterTest {
+    @Test
+    fun keepsOutlierWithoutGc() {
+        val results = longArrayOf(100, 101, 99, 100, 300)
+        val filtered = OutlierFilter.filter(results, longArrayOf(0, 0, 0, 0, 0))
+        assertArrayEquals(results, filtered)
+    }
+
+    @Test
+    fun removesOutlierWithGc() {
+        val filtered = OutlierFilter.filter(
+            longArrayOf(100, 101, 99, 100, 300),
+            longArrayOf(0, 0, 0, 0, 1))
+        assertArrayEquals(longArrayOf(100, 101, 99, 100), filtered)
+    }
+
+    @Test
+    fun keepsFastResultWithGc() {
+        val results = longArrayOf(100, 101, 99, 100, 102)
+        val filtered = OutlierFilter.filter(results, longArrayOf(1, 1, 0, 0, 1))
+        assertArrayEquals(results, filtered)
+    }
+
+    @Test
+    fun unavailableGcCount() {
+        val results = longArrayOf(100, 101, 99, 100, 300)
+        val filtered = OutlierFilter.filter(results, LongArray(5) { AllocationCounter.UNAVAILABLE })
+        assertArrayEquals(results, filtered)
+    }
+
+    @Test
+    fun keepsTwoResults() {
+        val results = longArrayOf(100, 300, 300)
+        val filtered = OutlierFilter.filter(results, longArrayOf(0, 1, 1))
+        assertArrayEquals(results, filtered)
+    }
+}
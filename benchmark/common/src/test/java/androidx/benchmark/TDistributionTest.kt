@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class TDistributionTest {
+    @Test
+    fun quantile() {
+        assertEquals(12.706, TDistribution.quantile(0.975, 1.0), 0.001)
+        assertEquals(2.776, TDistribution.quantile(0.975, 4.0), 0.001)
+        assertEquals(2.228, TDistribution.quantile(0.975, 10.0), 0.001)
+        assertEquals(-2.228, TDistribution.quantile(0.025, 10.0), 0.001)
+        assertEquals(3.169, TDistribution.quantile(0.995, 10.0), 0.001)
+        assertEquals(1.962, TDistribution.quantile(0.975, 1000.0), 0.001)
+    }
+
+    @Test
+    fun cdf() {
+        assertEquals(0.5, TDistribution.cdf(0.0, 5.0), 1e-9)
+        assertEquals(0.975, TDistribution.cdf(2.571, 5.0), 0.0001)
+    }
+}
@@ -16,7 +16,6 @@
 
 package androidx.benchmark
 
-import androidx.test.filters.SmallTest
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Test
@@ -24,7 +23,6 @@ import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
 import java.util.concurrent.TimeUnit
 
-@SmallTest
 @RunWith(JUnit4::class)
 class WarmupManagerTest {
 
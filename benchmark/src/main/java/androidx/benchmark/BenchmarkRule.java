@@ -20,6 +20,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import android.app.Activity;
+import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -29,6 +30,9 @@ import org.junit.rules.TestRule;
 import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * Use this rule to make sure we report the status after the test success.
  *
@@ -49,10 +53,18 @@ import org.junit.runners.model.Statement;
  *
  * Notice that optional subTestName can't be just numbers, that means each sub test needs to have a
  * name when using parameterization.
+ *
+ * The results of all the benchmarks run by the instrumentation are also written as a
+ * {@link BenchmarkReport} into "benchmarkData.json", in the external files directory of the
+ * test application, to be compared against a baseline by {@link BenchmarkComparator}.
  */
 
 public class BenchmarkRule implements TestRule {
     private static final String TAG = "BenchmarkRule";
+    private static final String REPORT_FILE_NAME = "benchmarkData.json";
+
+    private static BenchmarkReport sReport;
+
     @SuppressWarnings("WeakerAccess") // synthetic access
     final BenchmarkState mState = new BenchmarkState();
     @SuppressWarnings("WeakerAccess") // synthetic access
@@ -105,8 +117,34 @@ public class BenchmarkRule implements TestRule {
 
                 InstrumentationRegistry.getInstrumentation().sendStatus(Activity.RESULT_OK,
                         mState.getFullStatusReport(invokeMethodName));
+                writeReport(mState.getResult(description.getClassName(), invokeMethodName));
             }
         };
     }
+
+    static synchronized void writeReport(@NonNull BenchmarkResult result) {
+        File dir = InstrumentationRegistry.getInstrumentation().getTargetContext()
+                .getExternalFilesDir(null);
+        if (dir == null) {
+            Log.w(TAG, "Unable to write benchmark report, external storage is unavailable");
+            return;
+        }
+        if (sReport == null) {
+            sReport = new BenchmarkReport();
+            sReport.putEnvironment("build.brand", Build.BRAND);
+            sReport.putEnvironment("build.device", Build.DEVICE);
+            sReport.putEnvironment("build.fingerprint", Build.FINGERPRINT);
+            sReport.putEnvironment("build.model", Build.MODEL);
+            sReport.putEnvironment("build.sdkInt", String.valueOf(Build.VERSION.SDK_INT));
+            sReport.putEnvironment("warnings", WarningState.WARNING_PREFIX);
+        }
+        sReport.addResult(result);
+        File file = new File(dir, REPORT_FILE_NAME);
+        try {
+            sReport.writeTo(file);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write benchmark report to " + file, e);
+        }
+    }
 }
 
@@ -26,8 +26,6 @@ import androidx.test.platform.app.InstrumentationRegistry;
 
 import java.io.File;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Provides a benchmark framework.
@@ -45,6 +43,10 @@ import java.util.concurrent.TimeUnit;
  *     }
  *     System.out.println(state.summaryLine());
  * }
+ *
+ * After the timed repeats, one more repeat is run to count the allocations of an iteration with
+ * {@link Debug}'s allocation counters, which slow allocations down too much to be used while
+ * timing.
  */
 public final class BenchmarkState {
     private static final String TAG = "Benchmark";
@@ -54,48 +56,44 @@ public final class BenchmarkState {
 
     private static final boolean ENABLE_PROFILING = false;
 
-    private static final int NOT_STARTED = 0;  // The benchmark has not started yet.
-    private static final int WARMUP = 1; // The benchmark is warming up.
-    private static final int RUNNING = 2;  // The benchmark is running.
-    private static final int FINISHED = 3;  // The benchmark has stopped.
-
-    // values determined empirically
-    private static final long TARGET_TEST_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(500);
-    private static final int MAX_TEST_ITERATIONS = 1000000;
-    private static final int MIN_TEST_ITERATIONS = 10;
-    private static final int REPEAT_COUNT = 5;
-
     static {
         StringBuilder sb = new StringBuilder();
         sb.append("Benchmark");
-        for (int i = 0; i < REPEAT_COUNT; i++) {
+        for (int i = 0; i < BenchmarkLoop.REPEAT_COUNT; i++) {
             sb.append(", Result ").append(i);
         }
 
         Log.i(CSV_TAG, sb.toString());
     }
 
-    private int mState = NOT_STARTED;  // Current benchmark state.
-
-    private WarmupManager mWarmupManager = new WarmupManager();
-
-    private long mStartTimeNs = 0; // System.nanoTime() at start of last warmup iter / test repeat.
-
-    private boolean mPaused;
-    private long mPausedTimeNs = 0; // The System.nanoTime() when the pauseTiming() is called.
-    private long mPausedDurationNs = 0;  // The duration of paused state in nano sec.
-
-    private int mIteration = 0;
-    private int mMaxIterations = 0;
-
-    private int mRepeatCount = 0;
+    private final BenchmarkLoop mLoop = new BenchmarkLoop(new DebugAllocationCounter()) {
+        @Override
+        protected void onWarmupComplete() {
+            Log.d("WarmupManager", String.format(
+                    "Complete: t=%.3f, iter=%d",
+                    getWarmupDurationNs() / 1000000000.0,
+                    getWarmupIterationCount()));
+        }
 
-    // Statistics. These values will be filled when the benchmark has finished.
-    // The computation needs double precision, but long int is fine for final reporting.
-    private Stats mStats;
+        @Override
+        protected void onMeasurementStart() {
+            if (ENABLE_PROFILING && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                // TODO: support data dir for old platforms
+                File f = new File(
+                        InstrumentationRegistry.getInstrumentation().getContext().getDataDir(),
+                        "benchprof");
+                Log.d(TAG, "Tracing to: " + f.getAbsolutePath());
+                Debug.startMethodTracingSampling(f.getAbsolutePath(), 16 * 1024 * 1024, 100);
+            }
+        }
 
-    // Individual duration in nano seconds.
-    private ArrayList<Long> mResults = new ArrayList<>();
+        @Override
+        protected void onMeasurementComplete() {
+            if (ENABLE_PROFILING) {
+                Debug.stopMethodTracing();
+            }
+        }
+    };
 
     /**
      * Stops the benchmark timer.
@@ -103,12 +101,7 @@ public final class BenchmarkState {
      * This method can be called only when the timer is running.
      */
     public void pauseTiming() {
-        if (mPaused) {
-            throw new IllegalStateException(
-                    "Unable to pause the benchmark. The benchmark has already paused.");
-        }
-        mPausedTimeNs = System.nanoTime();
-        mPaused = true;
+        mLoop.pauseTiming();
     }
 
     /**
@@ -117,57 +110,7 @@ public final class BenchmarkState {
      * This method can be called only when the timer is stopped.
      */
     public void resumeTiming() {
-        if (!mPaused) {
-            throw new IllegalStateException(
-                    "Unable to resume the benchmark. The benchmark is already running.");
-        }
-        mPausedDurationNs += System.nanoTime() - mPausedTimeNs;
-        mPausedTimeNs = 0;
-        mPaused = false;
-    }
-
-    private void beginWarmup() {
-        mStartTimeNs = System.nanoTime();
-        mIteration = 0;
-        mState = WARMUP;
-    }
-
-    private void beginBenchmark() {
-        if (ENABLE_PROFILING && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            // TODO: support data dir for old platforms
-            File f = new File(
-                    InstrumentationRegistry.getInstrumentation().getContext().getDataDir(),
-                    "benchprof");
-            Log.d(TAG, "Tracing to: " + f.getAbsolutePath());
-            Debug.startMethodTracingSampling(f.getAbsolutePath(), 16 * 1024 * 1024, 100);
-        }
-        final int idealIterations =
-                (int) (TARGET_TEST_DURATION_NS / mWarmupManager.getEstimatedIterationTime());
-        mMaxIterations = Math.min(MAX_TEST_ITERATIONS,
-                Math.max(idealIterations, MIN_TEST_ITERATIONS));
-        mPausedDurationNs = 0;
-        mIteration = 0;
-        mRepeatCount = 0;
-        mState = RUNNING;
-        mStartTimeNs = System.nanoTime();
-    }
-
-    private boolean startNextTestRun() {
-        final long currentTime = System.nanoTime();
-        mResults.add((currentTime - mStartTimeNs - mPausedDurationNs) / mMaxIterations);
-        mRepeatCount++;
-        if (mRepeatCount >= REPEAT_COUNT) {
-            if (ENABLE_PROFILING) {
-                Debug.stopMethodTracing();
-            }
-            mStats = new Stats(mResults);
-            mState = FINISHED;
-            return false;
-        }
-        mPausedDurationNs = 0;
-        mIteration = 0;
-        mStartTimeNs = System.nanoTime();
-        return true;
+        mLoop.resumeTiming();
     }
 
     /**
@@ -176,36 +119,7 @@ public final class BenchmarkState {
      * For the usage, see class comment.
      */
     public boolean keepRunning() {
-        switch (mState) {
-            case NOT_STARTED:
-                beginWarmup();
-                return true;
-            case WARMUP:
-                mIteration++;
-                // Only check nanoTime on every iteration in WARMUP since we
-                // don't yet have a target iteration count.
-                final long time = System.nanoTime();
-                final long lastDuration = time - mStartTimeNs;
-                mStartTimeNs = time;
-                if (mWarmupManager.onNextIteration(lastDuration)) {
-                    beginBenchmark();
-                }
-                return true;
-            case RUNNING:
-                mIteration++;
-                if (mIteration >= mMaxIterations) {
-                    return startNextTestRun();
-                }
-                if (mPaused) {
-                    throw new IllegalStateException("Benchmark step finished with paused state. "
-                            + "Resume the benchmark before finishing each step.");
-                }
-                return true;
-            case FINISHED:
-                throw new IllegalStateException("The benchmark has finished.");
-            default:
-                throw new IllegalStateException("The benchmark is in unknown state.");
-        }
+        return mLoop.keepRunning();
     }
 
     /**
@@ -217,10 +131,35 @@ public final class BenchmarkState {
      */
     @NonNull
     public Stats getStats() {
-        if (mState != FINISHED) {
-            throw new IllegalStateException("The benchmark hasn't finished");
-        }
-        return mStats;
+        return mLoop.getStats();
+    }
+
+    /**
+     * Returns the number of objects allocated by an iteration, or
+     * {@link AllocationCounter#UNAVAILABLE} if they couldn't be counted.
+     * <p>
+     * This method may only be called keepRunning() returns {@code false}.
+     */
+    public long getAllocatedObjectsPerIteration() {
+        return mLoop.getAllocatedObjectsPerIteration();
+    }
+
+    /**
+     * Returns the number of bytes allocated by an iteration, or
+     * {@link AllocationCounter#UNAVAILABLE} if they couldn't be counted.
+     * <p>
+     * This method may only be called keepRunning() returns {@code false}.
+     */
+    public long getAllocatedBytesPerIteration() {
+        return mLoop.getAllocatedBytesPerIteration();
+    }
+
+    /**
+     * Returns the result of the finished benchmark, for a {@link BenchmarkReport}.
+     */
+    @NonNull
+    BenchmarkResult getResult(@NonNull String className, @NonNull String name) {
+        return BenchmarkResult.create(className, name, mLoop);
     }
 
     private long mean() {
@@ -240,7 +179,7 @@ public final class BenchmarkState {
     }
 
     private long count() {
-        return mMaxIterations;
+        return mLoop.getIterationCount();
     }
 
     private String summaryLine() {
@@ -251,10 +190,15 @@ public final class BenchmarkState {
         sb.append("min=").append(min()).append("ns, ");
         sb.append("stddev=").append(standardDeviation()).append(", ");
         sb.append("count=").append(count()).append(", ");
+        sb.append("outliers=").append(mLoop.getOutlierCount()).append(", ");
+        sb.append("gcs=").append(mLoop.getGcCount()).append(", ");
+        sb.append("allocations=").append(getAllocatedObjectsPerIteration()).append(", ");
+        sb.append("allocatedBytes=").append(getAllocatedBytesPerIteration()).append(", ");
         // print out the first few iterations' number for double checking.
-        int sampleNumber = Math.min(mResults.size(), 16);
+        long[] results = mLoop.getResults();
+        int sampleNumber = Math.min(results.length, 16);
         for (int i = 0; i < sampleNumber; i++) {
-            sb.append("No ").append(i).append(" result is ").append(mResults.get(i)).append(", ");
+            sb.append("No ").append(i).append(" result is ").append(results[i]).append(", ");
         }
         return sb.toString();
     }
@@ -298,8 +242,9 @@ public final class BenchmarkState {
 
     private String csvLine() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < mResults.size(); i++) {
-            sb.append(", ").append(mResults.get(i));
+        long[] results = mLoop.getResults();
+        for (int i = 0; i < results.length; i++) {
+            sb.append(", ").append(results[i]);
         }
         return sb.toString();
     }
@@ -319,6 +264,8 @@ public final class BenchmarkState {
         status.putLong(key + "_min", min());
         status.putLong(key + "_standardDeviation", standardDeviation());
         status.putLong(key + "_count", count());
+        status.putLong(key + "_allocations", getAllocatedObjectsPerIteration());
+        status.putLong(key + "_allocatedBytes", getAllocatedBytesPerIteration());
         status.putString(STUDIO_OUTPUT_KEY_PREFIX + STUDIO_OUTPUT_KEY_ID,
                 ideSummaryLineWrapped(key));
         return status;
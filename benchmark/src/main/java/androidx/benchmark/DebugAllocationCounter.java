@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.benchmark;
+
+import android.os.Build;
+import android.os.Debug;
+
+/**
+ * {@link AllocationCounter} using the allocation counters and runtime statistics of
+ * {@link Debug}.
+ */
+@SuppressWarnings("deprecation")
+class DebugAllocationCounter extends AllocationCounter {
+    private static final String GC_COUNT_STAT = "art.gc.gc-count";
+
+    @Override
+    public void start() {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+    }
+
+    @Override
+    public void stop() {
+        Debug.stopAllocCounting();
+    }
+
+    @Override
+    public long getAllocatedObjects() {
+        return Debug.getThreadAllocCount();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return Debug.getThreadAllocSize();
+    }
+
+    @Override
+    public long getGcCount() {
+        if (Build.VERSION.SDK_INT < 23) {
+            return UNAVAILABLE;
+        }
+        String count = Debug.getRuntimeStat(GC_COUNT_STAT);
+        if (count == null) {
+            return UNAVAILABLE;
+        }
+        try {
+            return Long.parseLong(count);
+        } catch (NumberFormatException e) {
+            return UNAVAILABLE;
+        }
+    }
+}
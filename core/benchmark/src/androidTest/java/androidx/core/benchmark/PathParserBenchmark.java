@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.benchmark;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.core.graphics.PathParser;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures parsing the path data of a set of Material icons, both in the comma separated form
+ * produced by Android Studio and in the compact form of SVG exports.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class PathParserBenchmark {
+    private static final String[] ICONS = {
+            // add
+            "M19,13h-6v6h-2v-6H5v-2h6V5h2v6h6v2z",
+            // arrow_back
+            "M20,11H7.83l5.59,-5.59L12,4l-8,8 8,8 1.41,-1.41L7.83,13H20v-2z",
+            // check
+            "M9,16.17L4.83,12l-1.42,1.41L9,19 21,7l-1.41,-1.41z",
+            // close
+            "M19,6.41L17.59,5 12,10.59 6.41,5 5,6.41 10.59,12 5,17.59 6.41,19 12,13.41 17.59,19 "
+                    + "19,17.59 13.41,12z",
+            // favorite
+            "M12,21.35l-1.45,-1.32C5.4,15.36 2,12.28 2,8.5 2,5.42 4.42,3 7.5,3c1.74,0 3.41,0.81 "
+                    + "4.5,2.09C13.09,3.81 14.76,3 16.5,3 19.58,3 22,5.42 22,8.5c0,3.78 -3.4,6.86 "
+                    + "-8.55,11.54L12,21.35z",
+            // home
+            "M10,20v-6h4v6h5v-8h3L12,3 2,12h3v8z",
+            // menu
+            "M3,18h18v-2H3v2zm0,-5h18v-2H3v2zm0,-7v2h18V6H3z",
+            // search
+            "M15.5,14h-0.79l-0.28,-0.27C15.41,12.59 16,11.11 16,9.5 16,5.91 13.09,3 9.5,3S3,5.91 "
+                    + "3,9.5 5.91,16 9.5,16c1.61,0 3.09,-0.59 4.23,-1.57l0.27,0.28v0.79l5,4.99L20.49,"
+                    + "19l-4.99,-5zM9.5,14C7.01,14 5,11.99 5,9.5S7.01,5 9.5,5 14,7.01 14,9.5 11.99,14 "
+                    + "9.5,14z",
+            // settings
+            "M19.14,12.94c0.04,-0.3 0.06,-0.61 0.06,-0.94c0,-0.32 -0.02,-0.64 -0.07,-0.94l2.03,"
+                    + "-1.58c0.18,-0.14 0.23,-0.41 0.12,-0.61l-1.92,-3.32c-0.12,-0.22 -0.37,-0.29 "
+                    + "-0.59,-0.22l-2.39,0.96c-0.5,-0.38 -1.03,-0.7 -1.62,-0.94L14.4,2.81c-0.04,"
+                    + "-0.24 -0.24,-0.41 -0.48,-0.41h-3.84c-0.24,0 -0.43,0.17 -0.47,0.41L9.25,5.35"
+                    + "C8.66,5.59 8.12,5.92 7.63,6.29L5.24,5.33c-0.22,-0.08 -0.47,0 -0.59,0.22L2.74,"
+                    + "8.87C2.62,9.08 2.66,9.34 2.86,9.48l2.03,1.58C4.84,11.36 4.8,11.69 4.8,12s0.02,"
+                    + "0.64 0.07,0.94l-2.03,1.58c-0.18,0.14 -0.23,0.41 -0.12,0.61l1.92,3.32c0.12,"
+                    + "0.22 0.37,0.29 0.59,0.22l2.39,-0.96c0.5,0.38 1.03,0.7 1.62,0.94l0.36,2.54"
+                    + "c0.05,0.24 0.24,0.41 0.48,0.41h3.84c0.24,0 0.44,-0.17 0.47,-0.41l0.36,-2.54"
+                    + "c0.59,-0.24 1.13,-0.56 1.62,-0.94l2.39,0.96c0.22,0.08 0.47,0 0.59,-0.22l1.92,"
+                    + "-3.32c0.12,-0.22 0.07,-0.47 -0.12,-0.61L19.14,12.94zM12,15.6c-1.98,0 -3.6,"
+                    + "-1.62 -3.6,-3.6s1.62,-3.6 3.6,-3.6s3.6,1.62 3.6,3.6S13.98,15.6 12,15.6z",
+            // check_circle, SVG export
+            "M12 2C6.48 2 2 6.48 2 12s4.48 10 10 10 10-4.48 10-10S17.52 2 12 2zm-2 15l-5-5 "
+                    + "1.41-1.41L10 14.17l7.59-7.59L19 8l-9 9z",
+            // info, SVG export
+            "M12 2C6.48 2 2 6.48 2 12s4.48 10 10 10 10-4.48 10-10S17.52 2 12 2zm1 15h-2v-6h2v6z"
+                    + "m0-8h-2V7h2v2z",
+            // star, SVG export
+            "M12 17.27L18.18 21l-1.64-7.03L22 9.24l-7.19-.61L12 2 9.19 8.63 2 9.24l5.46 4.73"
+                    + "L5.82 21z",
+    };
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @After
+    public void tearDown() {
+        PathParser.clearCache();
+    }
+
+    @Test
+    public void parseIntoBuffer() {
+        final PathParser.PathData buffer = new PathParser.PathData();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (String icon : ICONS) {
+                PathParser.parsePathData(icon, buffer);
+            }
+        }
+    }
+
+    @Test
+    public void createNodesUncached() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            PathParser.clearCache();
+            state.resumeTiming();
+            for (String icon : ICONS) {
+                PathParser.createNodesFromPathData(icon);
+            }
+        }
+    }
+
+    @Test
+    public void createNodesCached() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (String icon : ICONS) {
+                PathParser.createNodesFromPathData(icon);
+            }
+        }
+    }
+
+    @Test
+    public void createPathCached() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (String icon : ICONS) {
+                PathParser.createPathFromPathData(icon);
+            }
+        }
+    }
+}
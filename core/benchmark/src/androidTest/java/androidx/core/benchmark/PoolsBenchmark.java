@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.benchmark;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.core.util.Pools;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Measures the throughput of pools acquiring and releasing instances, from the benchmark thread
+ * alone and from several threads at once.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class PoolsBenchmark {
+    private static final int POOL_SIZE = 16;
+    private static final int OPERATIONS = 1000;
+    private static final int THREADS = 4;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void synchronizedPool() {
+        runSingleThread(new Pools.SynchronizedPool<Object>(POOL_SIZE));
+    }
+
+    @Test
+    public void concurrentPool() {
+        runSingleThread(new Pools.ConcurrentPool<Object>(POOL_SIZE));
+    }
+
+    @Test
+    public void synchronizedPoolContended() throws Exception {
+        runThreads(new Pools.SynchronizedPool<Object>(POOL_SIZE));
+    }
+
+    @Test
+    public void concurrentPoolContended() throws Exception {
+        runThreads(new Pools.ConcurrentPool<Object>(POOL_SIZE));
+    }
+
+    private void runSingleThread(Pools.Pool<Object> pool) {
+        fill(pool);
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            acquireAndRelease(pool);
+        }
+    }
+
+    private void runThreads(final Pools.Pool<Object> pool) throws Exception {
+        fill(pool);
+        // Every iteration, the benchmark thread and the helper threads all start together and
+        // the iteration ends once they have all finished their operations.
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        final boolean[] running = {true};
+        Thread[] helpers = new Thread[THREADS - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            barrier.await();
+                            synchronized (running) {
+                                if (!running[0]) {
+                                    return;
+                                }
+                            }
+                            acquireAndRelease(pool);
+                            barrier.await();
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            helpers[i].start();
+        }
+
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            barrier.await();
+            acquireAndRelease(pool);
+            barrier.await();
+        }
+
+        synchronized (running) {
+            running[0] = false;
+        }
+        barrier.await();
+        for (Thread helper : helpers) {
+            helper.join();
+        }
+    }
+
+    private static void fill(Pools.Pool<Object> pool) {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool.release(new Object());
+        }
+    }
+
+    @SuppressWarnings("WeakerAccess") // synthetic access
+    static void acquireAndRelease(Pools.Pool<Object> pool) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            Object instance = pool.acquire();
+            if (instance == null) {
+                instance = new Object();
+            }
+            pool.release(instance);
+        }
+    }
+}
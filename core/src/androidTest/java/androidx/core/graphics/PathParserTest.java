@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.graphics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PathParserTest {
+    private static final float EPSILON = 0f;
+
+    @After
+    public void tearDown() {
+        PathParser.clearCache();
+    }
+
+    @Test
+    public void testCreateNodes() {
+        PathParser.PathDataNode[] nodes = PathParser.createNodesFromPathData(
+                " M1,2.5 l-3-.5.25 1e2 1.5E-1,-2e+1 Z");
+        assertEquals(3, nodes.length);
+        assertEquals('M', nodes[0].mType);
+        assertArrayEquals(new float[] {1f, 2.5f}, nodes[0].mParams, EPSILON);
+        assertEquals('l', nodes[1].mType);
+        assertArrayEquals(new float[] {-3f, -.5f, .25f, 100f, 0.15f, -20f}, nodes[1].mParams,
+                EPSILON);
+        assertEquals('Z', nodes[2].mType);
+        assertEquals(0, nodes[2].mParams.length);
+    }
+
+    @Test
+    public void testMatchesFloatParsing() {
+        String[] values = {"0", "-0.0001", "3.14159265358979", "123456789.123456789", "1e-30",
+                "6.02214076e23", "0.30000000000000004", "+7", "0.0554866511374712",
+                "2.9615361527114E+22", "16777217", "0.1", "-1.5e-10"};
+        StringBuilder pathData = new StringBuilder("M");
+        for (String value : values) {
+            pathData.append(value).append(' ');
+        }
+        float[] params = PathParser.createNodesFromPathData(pathData.toString())[0].mParams;
+        assertEquals(values.length, params.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], Float.floatToIntBits(Float.parseFloat(values[i])),
+                    Float.floatToIntBits(params[i]));
+        }
+    }
+
+    @Test
+    public void testParseIntoBuffer() {
+        PathParser.PathData buffer = new PathParser.PathData();
+        PathParser.parsePathData("M1,2L3,4 5,6z", buffer);
+        assertEquals(3, buffer.getNodeCount());
+        assertEquals('L', buffer.getType(1));
+        assertEquals(4, buffer.getValueCount(1));
+        assertEquals(3f, buffer.getValues()[buffer.getValueOffset(1)], EPSILON);
+        assertEquals(0, buffer.getValueCount(2));
+
+        // The buffer is reset by the next parse.
+        PathParser.parsePathData("h10", buffer);
+        assertEquals(1, buffer.getNodeCount());
+        assertEquals(1, buffer.getValueCount(0));
+    }
+
+    @Test
+    public void testCachedNodesAreCopies() {
+        PathParser.PathDataNode[] first = PathParser.createNodesFromPathData("M0,0L10,10");
+        first[1].mParams[0] = 42f;
+        PathParser.PathDataNode[] second = PathParser.createNodesFromPathData("M0,0L10,10");
+        assertNotSame(first, second);
+        assertEquals(10f, second[1].mParams[0], EPSILON);
+    }
+
+    @Test
+    public void testCreatePath() {
+        Path path = PathParser.createPathFromPathData("M2,2h10v8H2z");
+        RectF bounds = new RectF();
+        path.computeBounds(bounds, true);
+        assertEquals(new RectF(2, 2, 12, 10), bounds);
+        assertNull(PathParser.createPathFromPathData(null));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMissingValues() {
+        PathParser.createPathFromPathData("M0,0L10z");
+    }
+}
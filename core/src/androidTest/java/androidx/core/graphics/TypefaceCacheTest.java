@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Typeface;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class TypefaceCacheTest {
+
+    @Test
+    public void testEvictsBySize() {
+        TypefaceCache cache = new TypefaceCache(100);
+        cache.put("a", Typeface.DEFAULT, 40);
+        cache.put("b", Typeface.SERIF, 40);
+        assertEquals(80, cache.size());
+
+        // Touch "a" so that "b" is the least recently used entry.
+        assertSame(Typeface.DEFAULT, cache.get("a"));
+        cache.put("c", Typeface.MONOSPACE, 40);
+
+        assertSame(Typeface.DEFAULT, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertSame(Typeface.MONOSPACE, cache.get("c"));
+        assertEquals(80, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testUnknownAndOversizedEntries() {
+        TypefaceCache cache = new TypefaceCache(TypefaceCache.DEFAULT_ENTRY_SIZE * 2);
+        cache.put("unknown", Typeface.DEFAULT, -1);
+        assertEquals(TypefaceCache.DEFAULT_ENTRY_SIZE, cache.size());
+
+        // Larger than the whole cache, kept on its own.
+        cache.put("huge", Typeface.SERIF, TypefaceCache.DEFAULT_ENTRY_SIZE * 3);
+        assertSame(Typeface.SERIF, cache.get("huge"));
+        assertNull(cache.get("unknown"));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(TypefaceCache.DEFAULT_ENTRY_SIZE * 3, cache.size());
+
+        cache.put("unknown", Typeface.DEFAULT, -1);
+        assertNull(cache.get("huge"));
+        assertSame(Typeface.DEFAULT, cache.get("unknown"));
+        assertEquals(TypefaceCache.DEFAULT_ENTRY_SIZE, cache.size());
+    }
+
+    @Test
+    public void testSetMaxSizeKeepsMostRecentEntry() {
+        TypefaceCache cache = new TypefaceCache(100);
+        cache.put("a", Typeface.DEFAULT, 60);
+        cache.put("b", Typeface.SERIF, 60);
+        assertEquals(1, cache.getEntryCount());
+
+        cache.setMaxSize(10);
+        assertSame(Typeface.SERIF, cache.get("b"));
+        assertEquals(60, cache.size());
+    }
+
+    @Test
+    public void testSetMaxSizeTrims() {
+        TypefaceCache cache = new TypefaceCache(100);
+        cache.put("a", Typeface.DEFAULT, 30);
+        cache.put("b", Typeface.SERIF, 30);
+        cache.put("c", Typeface.MONOSPACE, 30);
+
+        cache.setMaxSize(50);
+        assertEquals(1, cache.getEntryCount());
+        assertSame(Typeface.MONOSPACE, cache.get("c"));
+
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(50, cache.maxSize());
+    }
+
+    @Test
+    public void testKeysDoNotCollide() {
+        assertNotEquals(TypefaceCache.createResourceKey("pkg", 1, 0),
+                TypefaceCache.createProviderKey("pkg-1", 0));
+    }
+}
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyInt;
@@ -60,6 +61,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -410,6 +412,34 @@ public class FontsContractCompatTest {
         assertNull(callback.mTypeface);
     }
 
+    @Test
+    public void testFetchTypefaces() throws Exception {
+        FontsContractCompat.resetCache();
+        final FontRequest request = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY_QUERY, SIGNATURE);
+        final FontRequest request2 = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY2_QUERY, SIGNATURE);
+        final FontRequest notFound = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.NOT_FOUND_QUERY, SIGNATURE);
+
+        List<Future<Typeface>> futures = FontsContractCompat.fetchTypefaces(mContext,
+                Arrays.asList(request, request2, notFound, request), Typeface.NORMAL,
+                null /* executor */);
+        assertEquals(4, futures.size());
+        Typeface typeface = futures.get(0).get(5L, TimeUnit.SECONDS);
+        assertNotNull(typeface);
+        assertNotNull(futures.get(1).get(5L, TimeUnit.SECONDS));
+        assertNull(futures.get(2).get(5L, TimeUnit.SECONDS));
+        // Duplicated requests are only fetched once.
+        assertSame(futures.get(0), futures.get(3));
+
+        // Fetched typefaces are cached, so another batch completes right away.
+        List<Future<Typeface>> cached = FontsContractCompat.fetchTypefaces(mContext,
+                Collections.singletonList(request), Typeface.NORMAL, null /* executor */);
+        assertTrue(cached.get(0).isDone());
+        assertSame(typeface, cached.get(0).get());
+    }
+
     public static class FontCallback extends ResourcesCompat.FontCallback {
         private final CountDownLatch mLatch;
         Typeface mTypeface;
@@ -22,6 +22,8 @@ import static android.text.TextDirectionHeuristics.RTL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -43,6 +45,10 @@ import androidx.test.filters.SmallTest;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
 @RunWith(AndroidJUnit4.class)
 @SmallTest
 public class PrecomputedTextCompatTest {
@@ -368,4 +374,45 @@ public class PrecomputedTextCompatTest {
         assertEquals(pm1.length(), pm1.getParagraphEnd(1));
     }
 
+    @Test
+    public void testCache() {
+        final Params param = new Params.Builder(PAINT).build();
+        final PrecomputedTextCompat.Cache cache = new PrecomputedTextCompat.Cache(2);
+        assertNull(cache.get(STRING, param));
+        final PrecomputedTextCompat pm = cache.getOrCreate(STRING, param);
+        assertSame(pm, cache.get(STRING, param));
+        assertSame(pm, cache.get(new StringBuilder(STRING), param));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.getOrCreate(MULTIPARA_STRING, param);
+        cache.getOrCreate("Third", param);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(STRING, param));
+    }
+
+    @Test
+    public void testCache_ignoresSpannedText() {
+        final Params param = new Params.Builder(PAINT).build();
+        final PrecomputedTextCompat.Cache cache = new PrecomputedTextCompat.Cache(2);
+        cache.put(PrecomputedTextCompat.create(SPANNED, param));
+        assertEquals(0, cache.size());
+        assertNull(cache.get(SPANNED, param));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testGetTextFutures() throws Exception {
+        final Params param = new Params.Builder(PAINT).build();
+        final PrecomputedTextCompat.Cache cache = new PrecomputedTextCompat.Cache(10);
+        final PrecomputedTextCompat cached = cache.getOrCreate(MULTIPARA_STRING, param);
+        final List<Future<PrecomputedTextCompat>> futures = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING, MULTIPARA_STRING, STRING, SPANNED), param, null, cache);
+        assertEquals(4, futures.size());
+        assertEquals(STRING, futures.get(0).get().toString());
+        assertSame(cached, futures.get(1).get());
+        assertSame(futures.get(0).get(), futures.get(2).get());
+        assertEquals(STRING, futures.get(3).get().toString());
+        assertSame(futures.get(0).get(), cache.get(STRING, param));
+    }
 }
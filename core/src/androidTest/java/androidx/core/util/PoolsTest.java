@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PoolsTest {
+
+    @Test
+    public void testConcurrentPoolAcquireRelease() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(2);
+        assertNull(pool.acquire());
+
+        Object instance = new Object();
+        assertTrue(pool.release(instance));
+        assertSame(instance, pool.acquire());
+        assertNull(pool.acquire());
+
+        assertEquals(1, pool.getHitCount());
+        assertEquals(2, pool.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentPoolMaxSize() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(2);
+        assertTrue(pool.release(new Object()));
+        assertTrue(pool.release(new Object()));
+        assertFalse(pool.release(new Object()));
+
+        assertNotNull(pool.acquire());
+        assertNotNull(pool.acquire());
+        assertNull(pool.acquire());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConcurrentPoolReleaseTwice() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(4);
+        Object instance = new Object();
+        pool.release(instance);
+        pool.release(instance);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConcurrentPoolInvalidSize() {
+        new Pools.ConcurrentPool<>(0);
+    }
+
+    @Test
+    public void testConcurrentPoolThreads() throws InterruptedException {
+        final Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(4);
+        final Set<Object> acquired =
+                Collections.synchronizedSet(Collections.newSetFromMap(
+                        new IdentityHashMap<Object, Boolean>()));
+        final AtomicBoolean failed = new AtomicBoolean();
+        final int threadCount = 4;
+        final int operationCount = 10000;
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < operationCount; i++) {
+                        Object instance = pool.acquire();
+                        if (instance == null) {
+                            instance = new Object();
+                        }
+                        // no other thread may hold the same instance
+                        if (!acquired.add(instance)) {
+                            failed.set(true);
+                        }
+                        acquired.remove(instance);
+                        pool.release(instance);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        assertFalse(failed.get());
+        assertEquals(threadCount * operationCount, pool.getHitCount() + pool.getMissCount());
+    }
+}
@@ -20,9 +20,10 @@ package androidx.core.graphics;
 import android.graphics.Path;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-
-import java.util.ArrayList;
+import androidx.collection.LruCache;
+import androidx.core.util.Pools;
 
 /**
  * This class is a duplicate from the PathParser.java of frameworks/base, with slight
@@ -34,6 +35,34 @@ import java.util.ArrayList;
 public class PathParser {
     private static final String LOGTAG = "PathParser";
 
+    // Maximum total number of commands and values kept in the parsed path data cache, about
+    // 256KB of floats.
+    private static final int MAX_CACHE_SIZE = 64 * 1024;
+
+    /**
+     * Parsed path data, keyed by path string. Vector drawables and animators of an app are
+     * commonly inflated many times with the same handful of path strings, which then only need to
+     * be parsed once.
+     */
+    private static final LruCache<String, PathData> sPathDataCache =
+            new LruCache<String, PathData>(MAX_CACHE_SIZE) {
+                @Override
+                protected int sizeOf(@NonNull String key, @NonNull PathData value) {
+                    return value.mNodeCount + value.mValueCount;
+                }
+            };
+
+    private static final Pools.Pool<PathData> sParseBuffers = new Pools.ConcurrentPool<>(4);
+
+    // Exact powers of ten as floats, used to build floats without going through a String.
+    private static final float[] POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    // Mantissas below this value are exact as floats.
+    private static final long MAX_EXACT_MANTISSA = 1 << 24;
+    // Above this many significant digits, the mantissa is never exact as a float.
+    private static final int MAX_EXACT_DIGITS = 8;
+
     // Copy from Arrays.copyOfRange() which is only available from API level 9.
 
     /**
@@ -70,11 +99,11 @@ public class PathParser {
      * @return the generated Path object.
      */
     public static Path createPathFromPathData(String pathData) {
-        Path path = new Path();
-        PathDataNode[] nodes = createNodesFromPathData(pathData);
-        if (nodes != null) {
+        PathData data = getPathData(pathData);
+        if (data != null) {
+            Path path = new Path();
             try {
-                PathDataNode.nodesToPath(nodes, path);
+                data.toPath(path);
             } catch (RuntimeException e) {
                 throw new RuntimeException("Error in parsing " + pathData, e);
             }
@@ -88,28 +117,72 @@ public class PathParser {
      * @return an array of the PathDataNode.
      */
     public static PathDataNode[] createNodesFromPathData(String pathData) {
+        PathData data = getPathData(pathData);
+        return data == null ? null : data.toNodes();
+    }
+
+    /**
+     * Returns the parsed path data of the given string, parsing it only if it is not cached yet.
+     * The returned data is shared and must not be modified.
+     */
+    @Nullable
+    private static PathData getPathData(@Nullable String pathData) {
         if (pathData == null) {
             return null;
         }
-        int start = 0;
-        int end = 1;
-
-        ArrayList<PathDataNode> list = new ArrayList<PathDataNode>();
-        while (end < pathData.length()) {
-            end = nextStart(pathData, end);
-            String s = pathData.substring(start, end).trim();
-            if (s.length() > 0) {
-                float[] val = getFloats(s);
-                addNode(list, s.charAt(0), val);
+        PathData data = sPathDataCache.get(pathData);
+        if (data == null) {
+            PathData buffer = sParseBuffers.acquire();
+            if (buffer == null) {
+                buffer = new PathData();
             }
+            try {
+                parsePathData(pathData, buffer);
+                data = buffer.copy();
+            } finally {
+                sParseBuffers.release(buffer);
+            }
+            sPathDataCache.put(pathData, data);
+        }
+        return data;
+    }
 
+    /**
+     * Removes every parsed path data from the cache.
+     */
+    public static void clearCache() {
+        sPathDataCache.evictAll();
+    }
+
+    /**
+     * Parses the given path string into the given buffer, replacing its previous content.
+     * <p>
+     * Nothing is allocated once the buffer has grown large enough for the path: the commands and
+     * their values are written in flat arrays and numbers are parsed in place.
+     *
+     * @param pathData The string representing a path, the same as "d" string in svg file.
+     * @param out      The buffer to write the commands and their values into.
+     */
+    public static void parsePathData(@NonNull String pathData, @NonNull PathData out) {
+        out.clear();
+        final int length = pathData.length();
+        int start = 0;
+        while (start < length) {
+            // Trim the whitespaces before the command.
+            while (start < length && pathData.charAt(start) <= ' ') {
+                start++;
+            }
+            if (start >= length) {
+                break;
+            }
+            final int end = nextStart(pathData, start + 1);
+            final char cmd = pathData.charAt(start);
+            out.startNode(cmd);
+            if (cmd != 'z' && cmd != 'Z') {
+                addFloats(pathData, start + 1, end, out);
+            }
             start = end;
-            end++;
         }
-        if ((end - start) == 1 && start < pathData.length()) {
-            addNode(list, pathData.charAt(start), new float[0]);
-        }
-        return list.toArray(new PathDataNode[list.size()]);
     }
 
     /**
@@ -186,117 +259,139 @@ public class PathParser {
         return end;
     }
 
-    private static void addNode(ArrayList<PathDataNode> list, char cmd, float[] val) {
-        list.add(new PathDataNode(cmd, val));
-    }
-
-    private static class ExtractFloatResult {
-        // We need to return the position of the next separator and whether the
-        // next float starts with a '-' or a '.'.
-        int mEndPosition;
-        boolean mEndWithNegOrDot;
-
-        ExtractFloatResult() {
-        }
-    }
-
     /**
-     * Parse the floats in the string.
-     * This is an optimized version of parseFloat(s.split(",|\\s"));
-     *
-     * @param s the string containing a command and list of floats
-     * @return array of floats
+     * Parses the floats between the given positions and adds them to the current node.
+     * This is an optimized version of parseFloat(s.split(",|\\s")).
      */
-    private static float[] getFloats(String s) {
-        if (s.charAt(0) == 'z' || s.charAt(0) == 'Z') {
-            return new float[0];
-        }
-        try {
-            float[] results = new float[s.length()];
-            int count = 0;
-            int startPosition = 1;
-            int endPosition = 0;
-
-            ExtractFloatResult result = new ExtractFloatResult();
-            int totalLength = s.length();
-
-            // The startPosition should always be the first character of the
-            // current number, and endPosition is the character after the current
-            // number.
-            while (startPosition < totalLength) {
-                extract(s, startPosition, result);
-                endPosition = result.mEndPosition;
-
-                if (startPosition < endPosition) {
-                    results[count++] = Float.parseFloat(
-                            s.substring(startPosition, endPosition));
-                }
-
-                if (result.mEndWithNegOrDot) {
-                    // Keep the '-' or '.' sign with next number.
-                    startPosition = endPosition;
-                } else {
-                    startPosition = endPosition + 1;
+    private static void addFloats(String s, int start, int end, PathData out) {
+        // The position should always be the first character of the current number, and
+        // numberEnd is the character after the current number.
+        int position = start;
+        while (position < end) {
+            int numberEnd = position;
+            boolean endWithNegOrDot = false;
+            boolean secondDot = false;
+            boolean isExponential = false;
+            // Now looking for a whitespace, ',', '.' or '-' from the position.
+            for (; numberEnd < end; numberEnd++) {
+                boolean isPrevExponential = isExponential;
+                isExponential = false;
+                char c = s.charAt(numberEnd);
+                if (c <= ' ' || c == ',') {
+                    break;
+                } else if (c == '-') {
+                    // The negative sign following a 'e' or 'E' is not a separator.
+                    if (numberEnd != position && !isPrevExponential) {
+                        endWithNegOrDot = true;
+                        break;
+                    }
+                } else if (c == '.') {
+                    if (secondDot) {
+                        // This is the second dot, and it is considered as a separator.
+                        endWithNegOrDot = true;
+                        break;
+                    }
+                    secondDot = true;
+                } else if (c == 'e' || c == 'E') {
+                    isExponential = true;
                 }
             }
-            return copyOfRange(results, 0, count);
-        } catch (NumberFormatException e) {
-            throw new RuntimeException("error in parsing \"" + s + "\"", e);
+            if (position < numberEnd) {
+                out.addValue(parseFloat(s, position, numberEnd));
+            }
+            // Keep the '-' or '.' sign with next number.
+            position = endWithNegOrDot ? numberEnd : numberEnd + 1;
         }
     }
 
     /**
-     * Calculate the position of the next comma or space or negative sign
-     *
-     * @param s      the string to search
-     * @param start  the position to start searching
-     * @param result the result of the extraction, including the position of the
-     *               the starting position of next number, whether it is ending with a '-'.
+     * Parses the float between the given positions, without allocating unless the number is
+     * too precise to be built exactly from a float.
+     * <p>
+     * The mantissa and the power of ten are both exact floats, so a single float multiplication
+     * or division rounds the value as {@link Float#parseFloat(String)} does. Building the value
+     * as a double first would round it twice.
      */
-    private static void extract(String s, int start, ExtractFloatResult result) {
-        // Now looking for ' ', ',', '.' or '-' from the start.
-        int currentIndex = start;
-        boolean foundSeparator = false;
-        result.mEndWithNegOrDot = false;
-        boolean secondDot = false;
-        boolean isExponential = false;
-        for (; currentIndex < s.length(); currentIndex++) {
-            boolean isPrevExponential = isExponential;
-            isExponential = false;
-            char currentChar = s.charAt(currentIndex);
-            switch (currentChar) {
-                case ' ':
-                case ',':
-                    foundSeparator = true;
-                    break;
-                case '-':
-                    // The negative sign following a 'e' or 'E' is not a separator.
-                    if (currentIndex != start && !isPrevExponential) {
-                        foundSeparator = true;
-                        result.mEndWithNegOrDot = true;
-                    }
-                    break;
-                case '.':
-                    if (!secondDot) {
-                        secondDot = true;
-                    } else {
-                        // This is the second dot, and it is considered as a separator.
-                        foundSeparator = true;
-                        result.mEndWithNegOrDot = true;
+    private static float parseFloat(String s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (mantissa != 0 || c != '0') {
+                    if (digits == MAX_EXACT_DIGITS) {
+                        return parseFloatSlow(s, start, end);
                     }
-                    break;
-                case 'e':
-                case 'E':
-                    isExponential = true;
-                    break;
-            }
-            if (foundSeparator) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                }
+                if (inFraction) {
+                    exponent--;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
                 break;
             }
         }
-        // When there is nothing found, then we put the end position to the end
-        // of the string.
-        result.mEndPosition = currentIndex;
+        if (!hasDigits) {
+            return parseFloatSlow(s, start, end);
+        }
+        if (i < end) {
+            if (c != 'e' && c != 'E') {
+                return parseFloatSlow(s, start, end);
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            if (i == end) {
+                return parseFloatSlow(s, start, end);
+            }
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9' || explicitExponent > 1000) {
+                    return parseFloatSlow(s, start, end);
+                }
+                explicitExponent = explicitExponent * 10 + (c - '0');
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA) {
+            return parseFloatSlow(s, start, end);
+        }
+        float value = mantissa;
+        if (mantissa != 0 && exponent != 0) {
+            if (exponent < -10 || exponent > 10) {
+                return parseFloatSlow(s, start, end);
+            }
+            value = exponent > 0 ? value * POWERS_OF_TEN[exponent]
+                    : value / POWERS_OF_TEN[-exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    private static float parseFloatSlow(String s, int start, int end) {
+        try {
+            return Float.parseFloat(s.substring(start, end));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("error in parsing \"" + s.substring(start, end) + "\"",
+                    e);
+        }
     }
 
     /**
@@ -332,6 +427,140 @@ public class PathParser {
         return true;
     }
 
+    /**
+     * The commands of a path and their values, stored in flat arrays so that a path can be
+     * parsed and drawn without allocating objects for each command.
+     * <p>
+     * A buffer can be reused with {@link #parsePathData(String, PathData)}, its arrays only grow
+     * when a path has more commands or values than any path previously parsed into it.
+     */
+    public static class PathData {
+        char[] mTypes;
+        // Index in mValues of the first value of each node
+        int[] mOffsets;
+        float[] mValues;
+        int mNodeCount;
+        int mValueCount;
+
+        public PathData() {
+            this(16, 64);
+        }
+
+        PathData(int nodeCapacity, int valueCapacity) {
+            mTypes = new char[nodeCapacity];
+            mOffsets = new int[nodeCapacity];
+            mValues = new float[valueCapacity];
+        }
+
+        /**
+         * @return the number of commands of the path.
+         */
+        public int getNodeCount() {
+            return mNodeCount;
+        }
+
+        /**
+         * @return the type of the given command, e.g. 'M' or 'c'.
+         */
+        public char getType(int node) {
+            return mTypes[node];
+        }
+
+        /**
+         * @return the index in {@link #getValues()} of the first value of the given command.
+         */
+        public int getValueOffset(int node) {
+            return mOffsets[node];
+        }
+
+        /**
+         * @return the number of values of the given command.
+         */
+        public int getValueCount(int node) {
+            final int end = node + 1 < mNodeCount ? mOffsets[node + 1] : mValueCount;
+            return end - mOffsets[node];
+        }
+
+        /**
+         * @return the values of all the commands. The array may be longer than the values.
+         */
+        @NonNull
+        public float[] getValues() {
+            return mValues;
+        }
+
+        void clear() {
+            mNodeCount = 0;
+            mValueCount = 0;
+        }
+
+        void startNode(char type) {
+            if (mNodeCount == mTypes.length) {
+                final int capacity = Math.max(8, mNodeCount * 2);
+                char[] types = new char[capacity];
+                System.arraycopy(mTypes, 0, types, 0, mNodeCount);
+                mTypes = types;
+                int[] offsets = new int[capacity];
+                System.arraycopy(mOffsets, 0, offsets, 0, mNodeCount);
+                mOffsets = offsets;
+            }
+            mTypes[mNodeCount] = type;
+            mOffsets[mNodeCount] = mValueCount;
+            mNodeCount++;
+        }
+
+        void addValue(float value) {
+            if (mValueCount == mValues.length) {
+                float[] values = new float[Math.max(16, mValueCount * 2)];
+                System.arraycopy(mValues, 0, values, 0, mValueCount);
+                mValues = values;
+            }
+            mValues[mValueCount++] = value;
+        }
+
+        /**
+         * @return a copy of this path data using arrays of the exact size.
+         */
+        @NonNull
+        PathData copy() {
+            PathData copy = new PathData(mNodeCount, mValueCount);
+            System.arraycopy(mTypes, 0, copy.mTypes, 0, mNodeCount);
+            System.arraycopy(mOffsets, 0, copy.mOffsets, 0, mNodeCount);
+            System.arraycopy(mValues, 0, copy.mValues, 0, mValueCount);
+            copy.mNodeCount = mNodeCount;
+            copy.mValueCount = mValueCount;
+            return copy;
+        }
+
+        /**
+         * @return a new array of PathDataNode holding the commands of this path.
+         */
+        @NonNull
+        public PathDataNode[] toNodes() {
+            PathDataNode[] nodes = new PathDataNode[mNodeCount];
+            for (int i = 0; i < mNodeCount; i++) {
+                nodes[i] = new PathDataNode(mTypes[i],
+                        copyOfRange(mValues, mOffsets[i], mOffsets[i] + getValueCount(i)));
+            }
+            return nodes;
+        }
+
+        /**
+         * Adds the commands of this path to the given Path.
+         *
+         * @param path The target Path object.
+         */
+        public void toPath(@NonNull Path path) {
+            float[] current = new float[6];
+            char previousCommand = 'm';
+            for (int i = 0; i < mNodeCount; i++) {
+                PathDataNode.addCommand(path, current, previousCommand, mTypes[i], mValues,
+                        mOffsets[i], getValueCount(i));
+                previousCommand = mTypes[i];
+            }
+        }
+    }
+
     /**
      * Each PathDataNode represents one command in the "d" attribute of the svg
      * file.
@@ -369,7 +598,8 @@ public class PathParser {
             float[] current = new float[6];
             char previousCommand = 'm';
             for (int i = 0; i < node.length; i++) {
-                addCommand(path, current, previousCommand, node[i].mType, node[i].mParams);
+                addCommand(path, current, previousCommand, node[i].mType, node[i].mParams, 0,
+                        node[i].mParams.length);
                 previousCommand = node[i].mType;
             }
         }
@@ -392,8 +622,8 @@ public class PathParser {
             }
         }
 
-        private static void addCommand(Path path, float[] current,
-                char previousCmd, char cmd, float[] val) {
+        static void addCommand(Path path, float[] current, char previousCmd, char cmd,
+                float[] val, int offset, int count) {
 
             int incr = 2;
             float currentX = current[0];
@@ -448,12 +678,17 @@ public class PathParser {
                     break;
             }
 
-            for (int k = 0; k < val.length; k += incr) {
+            final int end = offset + count;
+            for (int k = offset; k < end; k += incr) {
+                if (k + incr > end) {
+                    // The values of other commands may follow in a flat array, do not use them.
+                    throw new ArrayIndexOutOfBoundsException("Missing values for command " + cmd);
+                }
                 switch (cmd) {
                     case 'm': // moveto - Start a new sub-path (relative)
                         currentX += val[k + 0];
                         currentY += val[k + 1];
-                        if (k > 0) {
+                        if (k > offset) {
                             // According to the spec, if a moveto is followed by multiple
                             // pairs of coordinates, the subsequent pairs are treated as
                             // implicit lineto commands.
@@ -467,7 +702,7 @@ public class PathParser {
                     case 'M': // moveto - Start a new sub-path
                         currentX = val[k + 0];
                         currentY = val[k + 1];
-                        if (k > 0) {
+                        if (k > offset) {
                             // According to the spec, if a moveto is followed by multiple
                             // pairs of coordinates, the subsequent pairs are treated as
                             // implicit lineto commands.
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.graphics;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
+
+import android.graphics.Typeface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process wide cache of the {@link Typeface}s loaded from font resources and from font
+ * providers, shared by {@link TypefaceCompat} and
+ * {@link androidx.core.provider.FontsContractCompat}.
+ * <p>
+ * Entries are weighted by the size in bytes of the font files backing them rather than counted,
+ * so that a handful of large CJK fonts and dozens of small Latin ones are bounded the same way.
+ * Entries whose size is not known, such as the typefaces loaded from font resources, are
+ * weighted with {@link #DEFAULT_ENTRY_SIZE}. The most recently used entry is always kept, even
+ * when it is larger than the maximum size on its own.
+ *
+ * @hide
+ */
+@RestrictTo(LIBRARY_GROUP_PREFIX)
+public final class TypefaceCache {
+    /** Default maximum total size of the cached fonts, in bytes. */
+    public static final int DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+    /** Size used for entries for which the size of the font files could not be found. */
+    public static final int DEFAULT_ENTRY_SIZE = 64 * 1024;
+
+    private static final String RESOURCE_KEY_PREFIX = "res:";
+    private static final String PROVIDER_KEY_PREFIX = "provider:";
+
+    private static final TypefaceCache sInstance = new TypefaceCache(DEFAULT_MAX_SIZE);
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(0, 0.75f, true);
+    private int mMaxSize;
+    private int mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    TypefaceCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Returns the cache shared by the whole process.
+     */
+    @NonNull
+    public static TypefaceCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the key of a typeface created from a font resource.
+     */
+    @NonNull
+    public static String createResourceKey(@NonNull String packageName, int id, int style) {
+        return RESOURCE_KEY_PREFIX + packageName + "-" + id + "-" + style;
+    }
+
+    /**
+     * Returns the key of a typeface fetched from a font provider.
+     */
+    @NonNull
+    public static String createProviderKey(@NonNull String requestIdentifier, int style) {
+        return PROVIDER_KEY_PREFIX + requestIdentifier + "-" + style;
+    }
+
+    /**
+     * Returns the cached typeface for the given key, or null if there is none.
+     */
+    @Nullable
+    public synchronized Typeface get(@NonNull String key) {
+        Entry entry = mEntries.get(key);
+        if (entry != null) {
+            mHitCount++;
+            return entry.mTypeface;
+        }
+        mMissCount++;
+        return null;
+    }
+
+    /**
+     * Caches the given typeface, evicting the least recently used entries if needed. A typeface
+     * larger than the maximum size evicts every other entry, but is cached.
+     *
+     * @param key      the key, as returned by {@link #createResourceKey} or
+     *                 {@link #createProviderKey}
+     * @param typeface the typeface
+     * @param size     the size in bytes of the font files the typeface was created from, or a
+     *                 negative value if it is not known
+     */
+    public synchronized void put(@NonNull String key, @NonNull Typeface typeface, int size) {
+        if (size < 0) {
+            size = DEFAULT_ENTRY_SIZE;
+        }
+        Entry previous = mEntries.remove(key);
+        if (previous != null) {
+            mSize -= previous.mSize;
+        }
+        mEntries.put(key, new Entry(typeface, size));
+        mSize += size;
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Sets the maximum total size of the cached fonts, evicting entries if needed.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Removes every entry of the cache.
+     */
+    public synchronized void evictAll() {
+        mEntries.clear();
+        mSize = 0;
+    }
+
+    /**
+     * Returns the total size in bytes of the cached fonts.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the maximum total size in bytes of the cached fonts.
+     */
+    public synchronized int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     */
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a typeface.
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null.
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the maximum size.
+     */
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    private void trimToSize(int maxSize) {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        // Keep the most recently used entry, so that a large font is not loaded again on every use.
+        while (mSize > maxSize && mEntries.size() > 1) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            mSize -= eldest.mSize;
+            mEvictionCount++;
+        }
+    }
+
+    private static final class Entry {
+        final Typeface mTypeface;
+        final int mSize;
+
+        Entry(Typeface typeface, int size) {
+            mTypeface = typeface;
+            mSize = size;
+        }
+    }
+}
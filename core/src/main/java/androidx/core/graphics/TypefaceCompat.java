@@ -25,10 +25,10 @@ import android.os.Build;
 import android.os.CancellationSignal;
 import android.os.Handler;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
-import androidx.collection.LruCache;
 import androidx.core.content.res.FontResourcesParserCompat;
 import androidx.core.content.res.FontResourcesParserCompat.FamilyResourceEntry;
 import androidx.core.content.res.FontResourcesParserCompat.FontFamilyFilesResourceEntry;
@@ -57,12 +57,21 @@ public class TypefaceCompat {
         }
     }
 
+    private TypefaceCompat() {}
+
     /**
-     * Cache for Typeface objects dynamically loaded from assets.
+     * Sets the maximum total size of the fonts kept in the cache shared by the typefaces loaded
+     * from font resources and from font providers.
+     * <p>
+     * Typefaces from font providers are weighted by the size of their font files, typefaces from
+     * font resources by a fixed size of 64KB. The default maximum size is 4MB.
+     * Shrinking the cache evicts the least recently used typefaces right away.
+     *
+     * @param maxSizeBytes the maximum total size of the cached fonts, in bytes
      */
-    private static final LruCache<String, Typeface> sTypefaceCache = new LruCache<>(16);
-
-    private TypefaceCompat() {}
+    public static void setTypefaceCacheMaxSize(@IntRange(from = 1) int maxSizeBytes) {
+        TypefaceCache.getInstance().setMaxSize(maxSizeBytes);
+    }
 
     /**
      * Find from internal cache.
@@ -73,7 +82,7 @@ public class TypefaceCompat {
     @Nullable
     @RestrictTo(LIBRARY_GROUP_PREFIX)
     public static Typeface findFromCache(@NonNull Resources resources, int id, int style) {
-        return sTypefaceCache.get(createResourceUid(resources, id, style));
+        return TypefaceCache.getInstance().get(createResourceUid(resources, id, style));
     }
 
     /**
@@ -85,7 +94,7 @@ public class TypefaceCompat {
      * @return Unique id for a given resource and id.
      */
     private static String createResourceUid(final Resources resources, int id, int style) {
-        return resources.getResourcePackageName(id) + "-" + id + "-" + style;
+        return TypefaceCache.createResourceKey(resources.getResourcePackageName(id), id, style);
     }
 
     /**
@@ -113,8 +122,9 @@ public class TypefaceCompat {
             typeface = FontsContractCompat.getFontSync(context, providerEntry.getRequest(),
                     fontCallback, handler, isBlocking, timeout, style);
         } else {
+            final FontFamilyFilesResourceEntry familyEntry = (FontFamilyFilesResourceEntry) entry;
             typeface = sTypefaceCompatImpl.createFromFontFamilyFilesResourceEntry(
-                    context, (FontFamilyFilesResourceEntry) entry, resources, style);
+                    context, familyEntry, resources, style);
             if (fontCallback != null) {
                 if (typeface != null) {
                     fontCallback.callbackSuccessAsync(typeface, handler);
@@ -126,7 +136,9 @@ public class TypefaceCompat {
             }
         }
         if (typeface != null) {
-            sTypefaceCache.put(createResourceUid(resources, id, style), typeface);
+            // Measuring the font files would open each of them again, use the default size.
+            TypefaceCache.getInstance().put(createResourceUid(resources, id, style), typeface,
+                    -1);
         }
         return typeface;
     }
@@ -144,7 +156,7 @@ public class TypefaceCompat {
                 context, resources, id, path, style);
         if (typeface != null) {
             final String resourceUid = createResourceUid(resources, id, style);
-            sTypefaceCache.put(resourceUid, typeface);
+            TypefaceCache.getInstance().put(resourceUid, typeface, -1);
         }
         return typeface;
     }
@@ -45,15 +45,16 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
-import androidx.collection.LruCache;
 import androidx.collection.SimpleArrayMap;
 import androidx.core.content.res.FontResourcesParserCompat;
 import androidx.core.content.res.ResourcesCompat;
+import androidx.core.graphics.TypefaceCache;
 import androidx.core.graphics.TypefaceCompat;
 import androidx.core.graphics.TypefaceCompatUtil;
 import androidx.core.provider.SelfDestructiveThread.ReplyCallback;
 import androidx.core.util.Preconditions;
 
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
@@ -65,6 +66,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class to deal with Font ContentProviders.
@@ -169,13 +177,16 @@ public class FontsContractCompat {
     /* package */ static final int RESULT_CODE_WRONG_CERTIFICATES = -2;
     // Note -3 is used by FontRequestCallback to indicate the font failed to load.
 
-    static final LruCache<String, Typeface> sTypefaceCache = new LruCache<>(16);
-
     private static final int BACKGROUND_THREAD_KEEP_ALIVE_DURATION_MS = 10000;
     private static final SelfDestructiveThread sBackgroundThread =
             new SelfDestructiveThread("fonts", Process.THREAD_PRIORITY_BACKGROUND,
                     BACKGROUND_THREAD_KEEP_ALIVE_DURATION_MS);
 
+    private static final int MAX_FETCH_THREADS = 4;
+    private static final Object sFetchExecutorLock = new Object();
+    @GuardedBy("sFetchExecutorLock")
+    private static ThreadPoolExecutor sFetchExecutor;
+
     @NonNull
     static TypefaceResult getFontInternal(final Context context, final FontRequest request,
             int style) {
@@ -188,9 +199,11 @@ public class FontsContractCompat {
         if (result.getStatusCode() == FontFamilyResult.STATUS_OK) {
             final Typeface typeface = TypefaceCompat.createFromFontInfo(
                     context, null /* CancellationSignal */, result.getFonts(), style);
-            return new TypefaceResult(typeface, typeface != null
-                    ? FontRequestCallback.RESULT_OK
-                    : FontRequestCallback.FAIL_REASON_FONT_LOAD_ERROR);
+            if (typeface == null) {
+                return new TypefaceResult(null, FontRequestCallback.FAIL_REASON_FONT_LOAD_ERROR);
+            }
+            return new TypefaceResult(typeface, FontRequestCallback.RESULT_OK,
+                    getFontsSize(context, result.getFonts()));
         }
         int resultCode = result.getStatusCode() == FontFamilyResult.STATUS_WRONG_CERTIFICATES
                 ? FontRequestCallback.FAIL_REASON_WRONG_CERTIFICATES
@@ -206,11 +219,63 @@ public class FontsContractCompat {
     private static final class TypefaceResult {
         final Typeface mTypeface;
         @FontRequestCallback.FontRequestFailReason final int mResult;
+        // Size in bytes of the font files, -1 if unknown.
+        final int mSize;
 
         TypefaceResult(@Nullable Typeface typeface,
                 @FontRequestCallback.FontRequestFailReason int result) {
+            this(typeface, result, -1);
+        }
+
+        TypefaceResult(@Nullable Typeface typeface,
+                @FontRequestCallback.FontRequestFailReason int result, int size) {
             mTypeface = typeface;
             mResult = result;
+            mSize = size;
+        }
+    }
+
+    /**
+     * Returns the total size in bytes of the given fonts which are ready, or -1 if any of them
+     * can not be measured.
+     */
+    private static int getFontsSize(Context context, FontInfo[] fonts) {
+        final ContentResolver resolver = context.getContentResolver();
+        long total = 0;
+        ArrayList<Uri> measured = new ArrayList<>(fonts.length);
+        for (FontInfo font : fonts) {
+            if (font.getResultCode() != Columns.RESULT_CODE_OK
+                    || measured.contains(font.getUri())) {
+                continue;
+            }
+            measured.add(font.getUri());
+            ParcelFileDescriptor pfd = null;
+            long size;
+            try {
+                pfd = resolver.openFileDescriptor(font.getUri(), "r");
+                size = pfd == null ? -1 : pfd.getStatSize();
+            } catch (IOException | SecurityException e) {
+                size = -1;
+            } finally {
+                if (pfd != null) {
+                    try {
+                        pfd.close();
+                    } catch (IOException e) {
+                        // Ignore, only used to measure the file.
+                    }
+                }
+            }
+            if (size < 0) {
+                return -1;
+            }
+            total += size;
+        }
+        return total > Integer.MAX_VALUE ? -1 : (int) total;
+    }
+
+    private static void putInCache(String id, TypefaceResult result) {
+        if (result.mTypeface != null) {
+            TypefaceCache.getInstance().put(id, result.mTypeface, result.mSize);
         }
     }
 
@@ -220,7 +285,7 @@ public class FontsContractCompat {
      **/
     @RestrictTo(LIBRARY_GROUP_PREFIX)
     public static void resetCache() {
-        sTypefaceCache.evictAll();
+        TypefaceCache.getInstance().evictAll();
     }
 
     /** @hide */
@@ -229,8 +294,8 @@ public class FontsContractCompat {
             final @Nullable ResourcesCompat.FontCallback fontCallback,
             final @Nullable Handler handler, boolean isBlockingFetch, int timeout,
             final int style) {
-        final String id = request.getIdentifier() + "-" + style;
-        Typeface cached = sTypefaceCache.get(id);
+        final String id = TypefaceCache.createProviderKey(request.getIdentifier(), style);
+        Typeface cached = TypefaceCache.getInstance().get(id);
         if (cached != null) {
             if (fontCallback != null) {
                 fontCallback.onFontRetrieved(cached);
@@ -255,9 +320,7 @@ public class FontsContractCompat {
             @Override
             public TypefaceResult call() throws Exception {
                 TypefaceResult typeface = getFontInternal(context, request, style);
-                if (typeface.mTypeface != null) {
-                    sTypefaceCache.put(id, typeface.mTypeface);
-                }
+                putInCache(id, typeface);
                 return typeface;
             }
         };
@@ -320,6 +383,95 @@ public class FontsContractCompat {
         }
     }
 
+    /**
+     * Fetches the typefaces of several font requests in parallel.
+     * <p>
+     * Requests whose typeface is already cached complete immediately, and requests appearing
+     * several times in the list are only fetched once. The other ones are run on the given
+     * executor, or on a small pool of background threads shared with other calls if it is null,
+     * instead of one after the other. Fetched typefaces are added to the same cache as the fonts
+     * requested through {@link #requestFont} and font resources, whose size can be configured with
+     * {@link TypefaceCompat#setTypefaceCacheMaxSize(int)}.
+     * <p>
+     * Each returned future yields the typeface of the request at the same index, or null if it
+     * could not be fetched.
+     *
+     * @param context  A context to be used for fetching the fonts.
+     * @param requests The font requests to fetch.
+     * @param style    The style of the typefaces, e.g. {@link Typeface#NORMAL}.
+     * @param executor The executor to run the fetches on, or null to use the default one.
+     * @return The futures of the typefaces, in the same order as the requests.
+     */
+    @NonNull
+    public static List<Future<Typeface>> fetchTypefaces(@NonNull Context context,
+            @NonNull List<FontRequest> requests, final int style, @Nullable Executor executor) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(requests);
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        if (executor == null) {
+            executor = getFetchExecutor();
+        }
+        final int count = requests.size();
+        final List<Future<Typeface>> futures = new ArrayList<>(count);
+        final HashMap<String, Future<Typeface>> batch = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            final FontRequest request = Preconditions.checkNotNull(requests.get(i));
+            final String id = TypefaceCache.createProviderKey(request.getIdentifier(), style);
+            Future<Typeface> future = batch.get(id);
+            if (future == null) {
+                final Typeface cached = TypefaceCache.getInstance().get(id);
+                final FutureTask<Typeface> task = new FutureTask<>(new Callable<Typeface>() {
+                    @Override
+                    public Typeface call() {
+                        if (cached != null) {
+                            return cached;
+                        }
+                        TypefaceResult result = getFontInternal(appContext, request, style);
+                        putInCache(id, result);
+                        return result.mTypeface;
+                    }
+                });
+                if (cached != null) {
+                    task.run();
+                } else {
+                    executor.execute(task);
+                }
+                future = task;
+                batch.put(id, future);
+            }
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    private static Executor getFetchExecutor() {
+        synchronized (sFetchExecutorLock) {
+            if (sFetchExecutor == null) {
+                final int threads = Math.max(1,
+                        Math.min(MAX_FETCH_THREADS, Runtime.getRuntime().availableProcessors()));
+                sFetchExecutor = new ThreadPoolExecutor(threads, threads,
+                        BACKGROUND_THREAD_KEEP_ALIVE_DURATION_MS, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                            @Override
+                            public Thread newThread(@NonNull final Runnable runnable) {
+                                Thread thread = new Thread(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        Process.setThreadPriority(
+                                                Process.THREAD_PRIORITY_BACKGROUND);
+                                        runnable.run();
+                                    }
+                                }, "fonts-fetch");
+                                return thread;
+                            }
+                        });
+                sFetchExecutor.allowCoreThreadTimeOut(true);
+            }
+            return sFetchExecutor;
+        }
+    }
+
     /**
      * Object represent a font entry in the family returned from {@link #fetchFonts}.
      */
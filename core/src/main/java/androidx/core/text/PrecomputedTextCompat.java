@@ -23,6 +23,7 @@ import android.text.Layout;
 import android.text.PrecomputedText;
 import android.text.Spannable;
 import android.text.SpannableString;
+import android.text.Spanned;
 import android.text.StaticLayout;
 import android.text.TextDirectionHeuristic;
 import android.text.TextDirectionHeuristics;
@@ -37,16 +38,20 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.UiThread;
+import androidx.collection.LruCache;
 import androidx.core.os.TraceCompat;
 import androidx.core.util.ObjectsCompat;
 import androidx.core.util.Preconditions;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A text which has the character metrics data.
@@ -71,6 +76,7 @@ public class PrecomputedTextCompat implements Spannable {
 
     private static final Object sLock = new Object();
     @GuardedBy("sLock") private static @NonNull Executor sExecutor = null;
+    @GuardedBy("sLock") private static @NonNull Executor sBatchExecutor = null;
 
     /**
      * The information required for building {@link PrecomputedTextCompat}.
@@ -559,6 +565,163 @@ public class PrecomputedTextCompat implements Spannable {
                 @NonNull final CharSequence text) {
             super(new PrecomputedTextCallback(params, text));
         }
+
+        PrecomputedTextFutureTask(@NonNull final PrecomputedTextCompat.Params params,
+                @NonNull final CharSequence text, @NonNull final Cache cache) {
+            super(new Callable<PrecomputedTextCompat>() {
+                @Override
+                public PrecomputedTextCompat call() throws Exception {
+                    PrecomputedTextCompat result = PrecomputedTextCompat.create(text, params);
+                    cache.put(result);
+                    return result;
+                }
+            });
+        }
+
+        // Already completed with the given result
+        PrecomputedTextFutureTask(@NonNull final PrecomputedTextCompat result) {
+            super(new Callable<PrecomputedTextCompat>() {
+                @Override
+                public PrecomputedTextCompat call() throws Exception {
+                    return result;
+                }
+            });
+            run();
+        }
+    }
+
+    /**
+     * A bounded cache of precomputed texts, keyed by text and {@link Params}, so that texts
+     * displayed many times are only measured once.
+     *
+     * Only texts without spans are cached, since spans may change how a text is measured. The
+     * cached {@link PrecomputedTextCompat} instances are shared by all the callers getting them
+     * from the cache, so their spans must not be modified.
+     *
+     * This class is thread safe.
+     */
+    public static final class Cache {
+        private final LruCache<Key, PrecomputedTextCompat> mCache;
+        // Lookups of texts with spans, which are never cached.
+        private final AtomicInteger mUncacheableCount = new AtomicInteger();
+
+        /**
+         * Creates a cache keeping up to the given number of texts, evicting the least recently
+         * used ones first.
+         *
+         * @param maxSize the maximum number of texts in the cache
+         */
+        public Cache(@IntRange(from = 1) int maxSize) {
+            mCache = new LruCache<>(maxSize);
+        }
+
+        /**
+         * Returns the cached precomputed text for the given text and parameters, or null if
+         * there is none.
+         */
+        public @Nullable PrecomputedTextCompat get(@NonNull CharSequence text,
+                @NonNull Params params) {
+            if (!isCacheable(text)) {
+                mUncacheableCount.incrementAndGet();
+                return null;
+            }
+            return mCache.get(new Key(text.toString(), params));
+        }
+
+        /**
+         * Adds a precomputed text to the cache. Texts with spans are ignored.
+         */
+        public void put(@NonNull PrecomputedTextCompat text) {
+            if (isCacheable(text.mText)) {
+                mCache.put(new Key(text.toString(), text.getParams()), text);
+            }
+        }
+
+        /**
+         * Returns the cached precomputed text for the given text and parameters, creating and
+         * caching it with {@link #create(CharSequence, Params)} if there is none.
+         */
+        public @NonNull PrecomputedTextCompat getOrCreate(@NonNull CharSequence text,
+                @NonNull Params params) {
+            PrecomputedTextCompat result = get(text, params);
+            if (result == null) {
+                result = create(text, params);
+                put(result);
+            }
+            return result;
+        }
+
+        /**
+         * Removes all the texts from the cache.
+         */
+        public void evictAll() {
+            mCache.evictAll();
+        }
+
+        /**
+         * Returns the number of texts in the cache.
+         */
+        public int size() {
+            return mCache.size();
+        }
+
+        /**
+         * Returns the maximum number of texts in the cache.
+         */
+        public int maxSize() {
+            return mCache.maxSize();
+        }
+
+        /**
+         * Returns the number of times {@link #get} found a cached text.
+         */
+        public int getHitCount() {
+            return mCache.hitCount();
+        }
+
+        /**
+         * Returns the number of times {@link #get} did not find a cached text, counting texts
+         * with spans.
+         */
+        public int getMissCount() {
+            return mCache.missCount() + mUncacheableCount.get();
+        }
+
+        static boolean isCacheable(CharSequence text) {
+            if (!(text instanceof Spanned)) {
+                return true;
+            }
+            Spanned spanned = (Spanned) text;
+            return spanned.nextSpanTransition(0, spanned.length(), Object.class)
+                    == spanned.length();
+        }
+
+        private static final class Key {
+            private final String mText;
+            private final Params mParams;
+            private final int mHashCode;
+
+            Key(String text, Params params) {
+                mText = text;
+                mParams = params;
+                mHashCode = 31 * text.hashCode() + params.hashCode();
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Key)) {
+                    return false;
+                }
+                Key other = (Key) o;
+                return mHashCode == other.mHashCode && mText.equals(other.mText)
+                        && mParams.equals(other.mParams);
+            }
+
+            @Override
+            public int hashCode() {
+                return mHashCode;
+            }
+        }
     }
 
     /**
@@ -637,6 +800,69 @@ public class PrecomputedTextCompat implements Spannable {
         return task;
     }
 
+    /**
+     * Helper for precomputing many texts at once, such as the items of a list, in parallel.
+     *
+     * This is similar to calling {@link #getTextFuture} for each text, except that the default
+     * executor runs as many tasks in parallel as there are processors. When a cache is given,
+     * the texts already in the cache are returned as completed futures without being measured
+     * again, texts repeated in the list are only measured once, and the measured texts are
+     * added to the cache.
+     *
+     * @param texts the texts to be displayed
+     * @param params the parameters to be used for displaying the texts
+     * @param executor the executor to process the text layouts. If null is passed, a default
+     *                 pool with one thread per processor will be used.
+     * @param cache the cache to look the texts up in and add them to, or null
+     * @return the futures of the precomputed texts, in the same order as the texts
+     *
+     * @see #getTextFuture
+     */
+    public static @NonNull List<Future<PrecomputedTextCompat>> getTextFutures(
+            @NonNull List<? extends CharSequence> texts,
+            @NonNull PrecomputedTextCompat.Params params, @Nullable Executor executor,
+            @Nullable Cache cache) {
+        Preconditions.checkNotNull(texts);
+        Preconditions.checkNotNull(params);
+        if (executor == null) {
+            synchronized (sLock) {
+                if (sBatchExecutor == null) {
+                    sBatchExecutor = Executors.newFixedThreadPool(
+                            Math.max(1, Runtime.getRuntime().availableProcessors()));
+                }
+                executor = sBatchExecutor;
+            }
+        }
+        final int size = texts.size();
+        final ArrayList<Future<PrecomputedTextCompat>> futures = new ArrayList<>(size);
+        // Tasks of the texts which are cacheable, so that the repeated ones share them
+        final HashMap<String, PrecomputedTextFutureTask> tasks =
+                cache != null ? new HashMap<String, PrecomputedTextFutureTask>() : null;
+        for (int i = 0; i < size; i++) {
+            final CharSequence text = texts.get(i);
+            if (cache == null || !Cache.isCacheable(text)) {
+                PrecomputedTextFutureTask task = new PrecomputedTextFutureTask(params, text);
+                executor.execute(task);
+                futures.add(task);
+                continue;
+            }
+            final String string = text.toString();
+            PrecomputedTextFutureTask task = tasks.get(string);
+            if (task == null) {
+                PrecomputedTextCompat cached = cache.get(string, params);
+                if (cached != null) {
+                    task = new PrecomputedTextFutureTask(cached);
+                } else {
+                    task = new PrecomputedTextFutureTask(params, string, cache);
+                    executor.execute(task);
+                }
+                tasks.put(string, task);
+            }
+            futures.add(task);
+        }
+        return futures;
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Spannable overrides
@@ -21,6 +21,9 @@ package androidx.core.util;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * Helper class for creating pools of objects. An example use looks like this:
  * <pre>
@@ -167,4 +170,128 @@ public final class Pools {
             }
         }
     }
+
+    /**
+     * Lock-free pool of objects, which can be shared by several threads like a
+     * {@link SynchronizedPool} without all of them contending for a single lock.
+     * <p>
+     * Pooled instances are kept in a fixed array of slots, claimed with compare-and-set. Each
+     * thread starts looking at a slot which depends on its id, so that threads mostly use
+     * different parts of the pool, and only share slots when theirs are empty or full.
+     * <p>
+     * The pool also counts how many times {@link #acquire()} returned an instance, or not, to
+     * help tuning its size.
+     *
+     * @param <T> The pooled type.
+     */
+    public static class ConcurrentPool<T> implements Pool<T> {
+        // Spaces the counters of different stripes so that they don't share a cache line.
+        private static final int COUNTER_PADDING = 8;
+
+        private final AtomicReferenceArray<Object> mPool;
+        private final int mStripeCount;
+        private final AtomicLongArray mHits;
+        private final AtomicLongArray mMisses;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param maxPoolSize The max pool size.
+         *
+         * @throws IllegalArgumentException If the max pool size is less than zero.
+         */
+        public ConcurrentPool(int maxPoolSize) {
+            if (maxPoolSize <= 0) {
+                throw new IllegalArgumentException("The max pool size must be > 0");
+            }
+            mPool = new AtomicReferenceArray<>(maxPoolSize);
+            mStripeCount = Math.min(maxPoolSize, Runtime.getRuntime().availableProcessors());
+            mHits = new AtomicLongArray(mStripeCount * COUNTER_PADDING);
+            mMisses = new AtomicLongArray(mStripeCount * COUNTER_PADDING);
+        }
+
+        @Override
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public T acquire() {
+            final int stripe = stripe();
+            final int size = mPool.length();
+            int index = firstSlot(stripe);
+            for (int i = 0; i < size; i++) {
+                Object instance = mPool.get(index);
+                if (instance != null && mPool.compareAndSet(index, instance, null)) {
+                    mHits.incrementAndGet(stripe * COUNTER_PADDING);
+                    return (T) instance;
+                }
+                if (++index == size) {
+                    index = 0;
+                }
+            }
+            mMisses.incrementAndGet(stripe * COUNTER_PADDING);
+            return null;
+        }
+
+        @Override
+        public boolean release(@NonNull T instance) {
+            final int size = mPool.length();
+            int index = firstSlot(stripe());
+            int emptyIndex = -1;
+            for (int i = 0; i < size; i++) {
+                Object pooled = mPool.get(index);
+                if (pooled == instance) {
+                    throw new IllegalStateException("Already in the pool!");
+                }
+                if (pooled == null && emptyIndex < 0) {
+                    emptyIndex = index;
+                }
+                if (++index == size) {
+                    index = 0;
+                }
+            }
+            if (emptyIndex < 0) {
+                return false;
+            }
+            // Other threads may fill the empty slot first, keep looking until the pool is full.
+            index = emptyIndex;
+            for (int i = 0; i < size; i++) {
+                if (mPool.get(index) == null && mPool.compareAndSet(index, null, instance)) {
+                    return true;
+                }
+                if (++index == size) {
+                    index = 0;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return The number of times {@link #acquire()} returned a pooled instance.
+         */
+        public long getHitCount() {
+            return sum(mHits);
+        }
+
+        /**
+         * @return The number of times {@link #acquire()} returned null as the pool was empty.
+         */
+        public long getMissCount() {
+            return sum(mMisses);
+        }
+
+        private int stripe() {
+            return (int) (Thread.currentThread().getId() % mStripeCount);
+        }
+
+        private int firstSlot(int stripe) {
+            return (int) ((long) stripe * mPool.length() / mStripeCount);
+        }
+
+        private static long sum(AtomicLongArray counters) {
+            long sum = 0;
+            for (int i = 0; i < counters.length(); i += COUNTER_PADDING) {
+                sum += counters.get(i);
+            }
+            return sum;
+        }
+    }
 }
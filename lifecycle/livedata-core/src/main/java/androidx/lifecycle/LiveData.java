@@ -82,13 +82,7 @@ public abstract class LiveData<T> {
     private final Runnable mPostValueRunnable = new Runnable() {
         @Override
         public void run() {
-            Object newValue;
-            synchronized (mDataLock) {
-                newValue = mPendingData;
-                mPendingData = NOT_SET;
-            }
-            //noinspection unchecked
-            setValue((T) newValue);
+            dispatchPendingValue();
         }
     };
 
@@ -280,15 +274,39 @@ public abstract class LiveData<T> {
      * @param value The new value
      */
     protected void postValue(T value) {
-        boolean postTask;
+        if (!enqueuePendingValue(value)) {
+            return;
+        }
+        ArchTaskExecutor.getInstance().postToMainThread(mPostValueRunnable);
+    }
+
+    /**
+     * Stores the given value as the pending value.
+     *
+     * @return true if there was no pending value before, meaning the caller is responsible for
+     * scheduling a {@link #dispatchPendingValue()} on the main thread.
+     */
+    boolean enqueuePendingValue(Object value) {
         synchronized (mDataLock) {
-            postTask = mPendingData == NOT_SET;
+            boolean postTask = mPendingData == NOT_SET;
             mPendingData = value;
+            return postTask;
         }
-        if (!postTask) {
-            return;
+    }
+
+    /**
+     * Swaps the pending value in and dispatches it. Must be called on the main thread, once per
+     * successful {@link #enqueuePendingValue(Object)}.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void dispatchPendingValue() {
+        Object newValue;
+        synchronized (mDataLock) {
+            newValue = mPendingData;
+            mPendingData = NOT_SET;
         }
-        ArchTaskExecutor.getInstance().postToMainThread(mPostValueRunnable);
+        //noinspection unchecked
+        setValue((T) newValue);
     }
 
     /**
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle;
+
+import android.os.Build;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.arch.core.executor.ArchTaskExecutor;
+
+import java.util.ArrayList;
+
+/**
+ * Collects values posted from background threads to many {@link MutableLiveData} instances and
+ * delivers them to the main thread in a single pass, instead of posting one message per
+ * LiveData.
+ * <p>
+ * The usual {@link MutableLiveData#postValue(Object)} semantics are kept: if a LiveData receives
+ * several values before the pass runs, only the latest one is dispatched. Values posted through
+ * a batcher and through {@link MutableLiveData#postValue(Object)} share the same pending slot, so
+ * mixing both is safe.
+ * <p>
+ * When created as frame aligned, the pass runs from a {@link Choreographer} frame callback on
+ * API 16 and above, so at most one pass is made per frame. Otherwise the pass runs as soon as the
+ * main thread handles the scheduled message.
+ * <pre class="prettyprint">
+ * PostValueBatcher batcher = new PostValueBatcher();
+ * // on any thread
+ * batcher.postValue(userLiveData, user);
+ * batcher.postValue(countLiveData, count);
+ * </pre>
+ */
+public class PostValueBatcher {
+    private final Object mLock = new Object();
+    private final boolean mFrameAligned;
+
+    // guarded by mLock
+    private ArrayList<LiveData<?>> mPending = new ArrayList<>();
+    // guarded by mLock
+    private long mFirstPendingNanos;
+    // only accessed on the main thread, swapped with mPending under mLock
+    private ArrayList<LiveData<?>> mDispatching = new ArrayList<>();
+
+    // guarded by mLock
+    private long mPassCount;
+    private long mValueCount;
+    private long mTotalLatencyNanos;
+    private long mMaxLatencyNanos;
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mFrameAligned && Build.VERSION.SDK_INT >= 16) {
+                Api16Impl.postFrameCallback(PostValueBatcher.this);
+            } else {
+                dispatchPending();
+            }
+        }
+    };
+
+    /**
+     * Creates a frame aligned batcher.
+     */
+    public PostValueBatcher() {
+        this(true);
+    }
+
+    /**
+     * Creates a batcher.
+     *
+     * @param frameAligned {@code true} to deliver the pending values at the start of the next
+     *                     frame, {@code false} to deliver them as soon as the main thread is free.
+     */
+    public PostValueBatcher(boolean frameAligned) {
+        mFrameAligned = frameAligned;
+    }
+
+    /**
+     * Posts the given value to the given LiveData as part of the next batched pass.
+     * <p>
+     * If the LiveData already has a pending value, it is replaced and no new work is scheduled.
+     *
+     * @param liveData The LiveData to update
+     * @param value    The new value
+     * @param <T>      The type of data held by the LiveData
+     */
+    public <T> void postValue(@NonNull MutableLiveData<T> liveData, T value) {
+        if (!liveData.enqueuePendingValue(value)) {
+            return;
+        }
+        boolean schedule;
+        synchronized (mLock) {
+            schedule = mPending.isEmpty();
+            if (schedule) {
+                mFirstPendingNanos = System.nanoTime();
+            }
+            mPending.add(liveData);
+        }
+        if (schedule) {
+            ArchTaskExecutor.getInstance().postToMainThread(mDispatchRunnable);
+        }
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void dispatchPending() {
+        ArrayList<LiveData<?>> dispatching;
+        long firstPendingNanos;
+        synchronized (mLock) {
+            dispatching = mPending;
+            firstPendingNanos = mFirstPendingNanos;
+            mPending = mDispatching;
+            mDispatching = dispatching;
+        }
+        final int size = dispatching.size();
+        for (int i = 0; i < size; i++) {
+            dispatching.get(i).dispatchPendingValue();
+        }
+        dispatching.clear();
+        long latency = System.nanoTime() - firstPendingNanos;
+        synchronized (mLock) {
+            mPassCount++;
+            mValueCount += size;
+            mTotalLatencyNanos += latency;
+            mMaxLatencyNanos = Math.max(mMaxLatencyNanos, latency);
+        }
+    }
+
+    /**
+     * Returns the number of main thread passes made so far.
+     */
+    public long getDispatchCount() {
+        synchronized (mLock) {
+            return mPassCount;
+        }
+    }
+
+    /**
+     * Returns the number of values delivered so far. Values which were replaced by a newer value
+     * before being delivered are not counted.
+     */
+    public long getDispatchedValueCount() {
+        synchronized (mLock) {
+            return mValueCount;
+        }
+    }
+
+    /**
+     * Returns the average time, in nanoseconds, between the first value of a pass being posted
+     * and the end of that pass, or 0 if no pass was made yet.
+     */
+    public long getAverageLatencyNanos() {
+        synchronized (mLock) {
+            return mPassCount == 0 ? 0 : mTotalLatencyNanos / mPassCount;
+        }
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, between the first value of a pass being posted
+     * and the end of that pass.
+     */
+    public long getMaxLatencyNanos() {
+        synchronized (mLock) {
+            return mMaxLatencyNanos;
+        }
+    }
+
+    /**
+     * Resets the dispatch count and latency metrics.
+     */
+    public void resetStats() {
+        synchronized (mLock) {
+            mPassCount = 0;
+            mValueCount = 0;
+            mTotalLatencyNanos = 0;
+            mMaxLatencyNanos = 0;
+        }
+    }
+
+    @RequiresApi(16)
+    private static class Api16Impl {
+        static void postFrameCallback(final PostValueBatcher batcher) {
+            Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    batcher.dispatchPending();
+                }
+            });
+        }
+
+        private Api16Impl() {
+        }
+    }
+}
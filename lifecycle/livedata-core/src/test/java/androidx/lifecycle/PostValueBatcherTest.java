@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class PostValueBatcherTest {
+    private final List<Runnable> mMainThreadQueue = new ArrayList<>();
+    private PostValueBatcher mBatcher;
+
+    @Before
+    public void setUp() {
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                mMainThreadQueue.add(runnable);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return true;
+            }
+        });
+        mBatcher = new PostValueBatcher(false);
+    }
+
+    @After
+    public void tearDown() {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    private void drainMainThread() {
+        while (!mMainThreadQueue.isEmpty()) {
+            mMainThreadQueue.remove(0).run();
+        }
+    }
+
+    @Test
+    public void singleMessageForManyLiveData() {
+        List<MutableLiveData<Integer>> liveDataList = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            MutableLiveData<Integer> liveData = new MutableLiveData<>();
+            liveDataList.add(liveData);
+            mBatcher.postValue(liveData, i);
+        }
+        assertThat(mMainThreadQueue.size(), is(1));
+        assertThat(liveDataList.get(0).getValue(), nullValue());
+
+        drainMainThread();
+        for (int i = 0; i < 100; i++) {
+            assertThat(liveDataList.get(i).getValue(), is(i));
+        }
+        assertThat(mBatcher.getDispatchCount(), is(1L));
+        assertThat(mBatcher.getDispatchedValueCount(), is(100L));
+    }
+
+    @Test
+    public void latestValueWins() {
+        MutableLiveData<String> liveData = new MutableLiveData<>();
+        final List<String> received = new ArrayList<>();
+        liveData.observeForever(new Observer<String>() {
+            @Override
+            public void onChanged(String value) {
+                received.add(value);
+            }
+        });
+        mBatcher.postValue(liveData, "a");
+        mBatcher.postValue(liveData, "b");
+        liveData.postValue("c");
+        assertThat(mMainThreadQueue.size(), is(1));
+
+        drainMainThread();
+        assertThat(received.size(), is(1));
+        assertThat(received.get(0), is("c"));
+        assertThat(mBatcher.getDispatchedValueCount(), is(1L));
+    }
+
+    @Test
+    public void newPassAfterDispatch() {
+        MutableLiveData<String> liveData = new MutableLiveData<>();
+        mBatcher.postValue(liveData, "a");
+        drainMainThread();
+        mBatcher.postValue(liveData, "b");
+        drainMainThread();
+
+        assertThat(liveData.getValue(), is("b"));
+        assertThat(mBatcher.getDispatchCount(), is(2L));
+
+        mBatcher.resetStats();
+        assertThat(mBatcher.getDispatchCount(), is(0L));
+        assertThat(mBatcher.getMaxLatencyNanos(), is(0L));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Parcel;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.versionedparcelable.ParcelImpl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares sending the whole playlist to a controller with sending a {@link PlaylistUpdate}, when
+ * an item is added to a large playlist. Both include writing to and reading from a parcel, as the
+ * binder call would.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class PlaylistUpdateBenchmark {
+    private static final int PLAYLIST_SIZE = 5000;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final List<MediaItem> mPlaylist = createPlaylist(PLAYLIST_SIZE);
+    private final List<MediaItem> mUpdatedPlaylist = createUpdatedPlaylist(mPlaylist);
+
+    @Test
+    public void sendFullPlaylist() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel parcel = Parcel.obtain();
+            MediaUtils.convertMediaItemListToParcelImplListSlice(mUpdatedPlaylist)
+                    .writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            MediaUtils.convertParcelImplListSliceToMediaItemList(
+                    ParcelImplListSlice.CREATOR.createFromParcel(parcel));
+            parcel.recycle();
+        }
+    }
+
+    @Test
+    public void sendPlaylistUpdate() {
+        assertTrue(getUpdateParcelSize() < getFullPlaylistParcelSize());
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            PlaylistUpdate update = PlaylistUpdate.create(mPlaylist, mUpdatedPlaylist, null, 0, 1);
+            Parcel parcel = Parcel.obtain();
+            parcel.writeParcelable(MediaUtils.toParcelable(update), 0);
+            parcel.setDataPosition(0);
+            ParcelImpl parcelImpl = parcel.readParcelable(ParcelImpl.class.getClassLoader());
+            PlaylistUpdate copy = MediaUtils.fromParcelable(parcelImpl);
+            copy.applyTo(mPlaylist, 0);
+            parcel.recycle();
+        }
+    }
+
+    private int getFullPlaylistParcelSize() {
+        Parcel parcel = Parcel.obtain();
+        MediaUtils.convertMediaItemListToParcelImplListSlice(mUpdatedPlaylist)
+                .writeToParcel(parcel, 0);
+        // Only the first chunk is inlined. The rest is sent by further binder calls.
+        int size = parcel.dataSize();
+        parcel.recycle();
+        return size;
+    }
+
+    private int getUpdateParcelSize() {
+        PlaylistUpdate update = PlaylistUpdate.create(mPlaylist, mUpdatedPlaylist, null, 0, 1);
+        assertFalse(update.isFull());
+        Parcel parcel = Parcel.obtain();
+        parcel.writeParcelable(MediaUtils.toParcelable(update), 0);
+        int size = parcel.dataSize();
+        parcel.recycle();
+        return size;
+    }
+
+    private static List<MediaItem> createPlaylist(int size) {
+        List<MediaItem> playlist = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            playlist.add(createMediaItem(i));
+        }
+        return playlist;
+    }
+
+    private static List<MediaItem> createUpdatedPlaylist(List<MediaItem> playlist) {
+        List<MediaItem> updatedPlaylist = new ArrayList<>(playlist);
+        updatedPlaylist.add(playlist.size() / 2, createMediaItem(playlist.size()));
+        assertEquals(playlist.size() + 1, updatedPlaylist.size());
+        return updatedPlaylist;
+    }
+
+    private static MediaItem createMediaItem(int index) {
+        return new MediaItem.Builder()
+                .setMetadata(new MediaMetadata.Builder()
+                        .putString(MediaMetadata.METADATA_KEY_MEDIA_ID, "media_id_" + index)
+                        .putString(MediaMetadata.METADATA_KEY_TITLE, "Title " + index)
+                        .putString(MediaMetadata.METADATA_KEY_ARTIST, "Artist " + index)
+                        .putLong(MediaMetadata.METADATA_KEY_DURATION, 180000 + index)
+                        .build())
+                .build();
+    }
+}
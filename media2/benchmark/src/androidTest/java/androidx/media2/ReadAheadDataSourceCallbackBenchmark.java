@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Compares reading from a {@link DataSourceCallback} which decrypts its data with and without
+ * {@link ReadAheadDataSourceCallback}, with the small reads of a media player.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ReadAheadDataSourceCallbackBenchmark {
+    private static final int DATA_SIZE = 2 * 1024 * 1024;
+    private static final int READ_SIZE = 4096;
+    private static final int SEEK_COUNT = 20;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final byte[] mEncryptedData = createData();
+    private final byte[] mBuffer = new byte[READ_SIZE];
+
+    @Test
+    public void readSequentially() throws IOException {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            readSequentially(new EncryptedDataSourceCallback(mEncryptedData), 0, DATA_SIZE);
+        }
+    }
+
+    @Test
+    public void readSequentiallyWithReadAhead() throws IOException {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            readSequentially(new ReadAheadDataSourceCallback(
+                    new EncryptedDataSourceCallback(mEncryptedData)), 0, DATA_SIZE);
+        }
+    }
+
+    @Test
+    public void seek() throws IOException {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            seek(new EncryptedDataSourceCallback(mEncryptedData));
+        }
+    }
+
+    @Test
+    public void seekWithReadAhead() throws IOException {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            seek(new ReadAheadDataSourceCallback(
+                    new EncryptedDataSourceCallback(mEncryptedData)));
+        }
+    }
+
+    // Reads a bit of data after each seek, as a player does to resume playback.
+    private void seek(DataSourceCallback callback) throws IOException {
+        Random random = new Random(0);
+        for (int i = 0; i < SEEK_COUNT; i++) {
+            long position = random.nextInt(DATA_SIZE - 64 * 1024);
+            readSequentially(callback, position, 64 * 1024);
+        }
+    }
+
+    private void readSequentially(DataSourceCallback callback, long position, int length)
+            throws IOException {
+        final long end = position + length;
+        while (position < end) {
+            int bytesRead = callback.readAt(position, mBuffer, 0, mBuffer.length);
+            if (bytesRead < 0) {
+                break;
+            }
+            position += bytesRead;
+        }
+    }
+
+    private static byte[] createData() {
+        byte[] data = new byte[DATA_SIZE];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Decrypts its data with AES/CTR on each read, as apps storing their media encrypted do.
+     */
+    private static class EncryptedDataSourceCallback extends DataSourceCallback {
+        private static final int AES_BLOCK_SIZE = 16;
+        private static final byte[] KEY = new byte[16];
+
+        private final byte[] mData;
+        private final SecretKeySpec mKey = new SecretKeySpec(KEY, "AES");
+        private final byte[] mBlockBuffer = new byte[AES_BLOCK_SIZE];
+
+        EncryptedDataSourceCallback(byte[] data) {
+            mData = data;
+        }
+
+        @Override
+        public int readAt(long position, @NonNull byte[] buffer, int offset, int size)
+                throws IOException {
+            if (position >= mData.length) {
+                return -1;
+            }
+            size = (int) Math.min(size, mData.length - position);
+            try {
+                // Starts the counter at the AES block containing the position.
+                Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+                byte[] iv = BigInteger.valueOf(position / AES_BLOCK_SIZE).toByteArray();
+                byte[] counter = new byte[AES_BLOCK_SIZE];
+                System.arraycopy(iv, 0, counter, AES_BLOCK_SIZE - iv.length, iv.length);
+                cipher.init(Cipher.DECRYPT_MODE, mKey, new IvParameterSpec(counter));
+                int skip = (int) (position % AES_BLOCK_SIZE);
+                if (skip > 0) {
+                    cipher.update(mData, (int) position - skip, skip, mBlockBuffer, 0);
+                }
+                return cipher.update(mData, (int) position, size, buffer, offset);
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public long getSize() {
+            return mData.length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2.subtitle;
+
+import android.text.SpannableStringBuilder;
+import android.view.accessibility.CaptioningManager.CaptionStyle;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures parsing CEA-608 and CEA-708 caption streams shaped as a broadcast sends them: a few
+ * bytes per video frame, mostly text with some pen and window commands.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ClosedCaptionParserBenchmark {
+    private static final int LINE_COUNT = 100;
+    private static final String TEXT = "THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG.";
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final List<byte[]> mCea608Packets = createCea608Packets();
+    private final List<byte[]> mCea708Packets = createCea708Packets();
+
+    @Test
+    public void parseCea608() {
+        final Cea608CCParser parser = new Cea608CCParser(new Cea608CCParser.DisplayListener() {
+            @Override
+            public void onDisplayChanged(SpannableStringBuilder[] styledTexts) {
+            }
+
+            @Override
+            public CaptionStyle getCaptionStyle() {
+                return CaptionStyle.DEFAULT;
+            }
+        });
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < mCea608Packets.size(); i++) {
+                parser.parse(mCea608Packets.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void parseCea708() {
+        final Cea708CCParser parser = new Cea708CCParser(new Cea708CCParser.DisplayListener() {
+            @Override
+            public void emitEvent(Cea708CCParser.CaptionEvent event) {
+            }
+        });
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int i = 0; i < mCea708Packets.size(); i++) {
+                parser.parse(mCea708Packets.get(i));
+            }
+        }
+    }
+
+    // Roll-up captions, with each control code sent twice and two byte pairs per frame.
+    private static List<byte[]> createCea608Packets() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int line = 0; line < LINE_COUNT; line++) {
+            for (int i = 0; i < 2; i++) {
+                // RU3, CR, PAC to the last row with an indent.
+                write608(stream, 0x14, 0x26);
+                write608(stream, 0x14, 0x2d);
+                write608(stream, 0x14, 0x72);
+            }
+            for (int i = 0; i < TEXT.length(); i += 2) {
+                write608(stream, TEXT.charAt(i), i + 1 < TEXT.length() ? TEXT.charAt(i + 1) : 0);
+            }
+        }
+        return split(stream.toByteArray(), 6);
+    }
+
+    private static void write608(ByteArrayOutputStream stream, int data1, int data2) {
+        stream.write(4);
+        stream.write(data1);
+        stream.write(data2);
+    }
+
+    // A window per line, set up with pen commands, and the text in service blocks.
+    private static List<byte[]> createCea708Packets() {
+        List<byte[]> codes = new ArrayList<>();
+        for (int line = 0; line < LINE_COUNT; line++) {
+            int windowId = line % 8;
+            // DefineWindow, SetPenAttributes, SetPenColor, SetPenLocation.
+            codes.add(new byte[] {(byte) (0x98 + windowId), 0x20, 0x4a, 0x00, 0x21, 0x1f, 0x09});
+            codes.add(new byte[] {(byte) 0x90, 0x05, 0x00});
+            codes.add(new byte[] {(byte) 0x91, 0x2a, 0x00, 0x00});
+            codes.add(new byte[] {(byte) 0x92, 0x01, 0x00});
+            for (int i = 0; i < TEXT.length(); i++) {
+                codes.add(new byte[] {(byte) TEXT.charAt(i)});
+            }
+            // CR, then DisplayWindows.
+            codes.add(new byte[] {0x0d});
+            codes.add(new byte[] {(byte) 0x89, (byte) (1 << windowId)});
+        }
+
+        // Service blocks hold up to 31 bytes, and don't split codes.
+        List<byte[]> packets = new ArrayList<>();
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        for (byte[] code : codes) {
+            if (packet.size() + code.length > 31) {
+                packets.add(packet.toByteArray());
+                packet.reset();
+            }
+            packet.write(code, 0, code.length);
+        }
+        packets.add(packet.toByteArray());
+        return packets;
+    }
+
+    private static List<byte[]> split(byte[] stream, int packetSize) {
+        List<byte[]> packets = new ArrayList<>();
+        for (int start = 0; start < stream.length; start += packetSize) {
+            packets.add(Arrays.copyOfRange(stream, start,
+                    Math.min(start + packetSize, stream.length)));
+        }
+        return packets;
+    }
+}
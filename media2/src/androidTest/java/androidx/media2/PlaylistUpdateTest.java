@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Parcel;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.versionedparcelable.ParcelImpl;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests {@link PlaylistUpdate}.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PlaylistUpdateTest {
+    private static final int BASE_VERSION = 3;
+    private static final int VERSION = 4;
+
+    @Test
+    public void testInsert() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.add(4, createMediaItem(100));
+        newList.add(5, createMediaItem(101));
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testInsertAtEnd() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.add(createMediaItem(100));
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testRemove() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.subList(2, 5).clear();
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testRemoveAll() {
+        List<MediaItem> oldList = createPlaylist(10);
+        assertIncrementalUpdate(oldList, new ArrayList<MediaItem>(), null);
+    }
+
+    @Test
+    public void testMoveForward() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.add(7, newList.remove(2));
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testMoveBackward() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.add(1, newList.remove(8));
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testReplace() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.set(6, createMediaItem(100));
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testRemoveAndInsert() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.subList(3, 6).clear();
+        newList.add(3, createMediaItem(100));
+        assertIncrementalUpdate(oldList, newList, null);
+    }
+
+    @Test
+    public void testChangedItem() {
+        List<MediaItem> oldList = createPlaylist(10);
+        assertIncrementalUpdate(oldList, new ArrayList<>(oldList), oldList.get(5));
+    }
+
+    @Test
+    public void testNoChange() {
+        List<MediaItem> oldList = createPlaylist(10);
+        assertIncrementalUpdate(oldList, new ArrayList<>(oldList), null);
+    }
+
+    @Test
+    public void testLargeChangeIsFull() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = createPlaylist(10);
+        PlaylistUpdate update = PlaylistUpdate.create(oldList, newList, null, BASE_VERSION,
+                VERSION);
+        assertTrue(update.isFull());
+        assertEquals(VERSION, update.getVersion());
+        assertSame(newList, update.getPlaylist());
+    }
+
+    @Test
+    public void testManyChangedItemsIsFull() {
+        List<MediaItem> oldList = createPlaylist(200);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.addAll(50, createPlaylist(40));
+        PlaylistUpdate update = PlaylistUpdate.create(oldList, newList, null, BASE_VERSION,
+                VERSION);
+        assertTrue(update.isFull());
+        assertSame(newList, update.getPlaylist());
+    }
+
+    @Test
+    public void testUnknownBaseIsFull() {
+        List<MediaItem> newList = createPlaylist(10);
+        assertTrue(PlaylistUpdate.create(null, newList, null, PlaylistUpdate.VERSION_NONE,
+                VERSION).isFull());
+        assertTrue(PlaylistUpdate.create(createPlaylist(3), null, null, BASE_VERSION,
+                VERSION).isFull());
+    }
+
+    @Test
+    public void testApplyToOtherVersion() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.remove(3);
+        PlaylistUpdate update = PlaylistUpdate.create(oldList, newList, null, BASE_VERSION,
+                VERSION);
+        assertFalse(update.isFull());
+        assertNull(update.applyTo(oldList, BASE_VERSION - 1));
+        assertNull(update.applyTo(newList, BASE_VERSION));
+        assertNull(update.applyTo(null, BASE_VERSION));
+    }
+
+    @Test
+    public void testParcel() {
+        List<MediaItem> oldList = createPlaylist(10);
+        List<MediaItem> newList = new ArrayList<>(oldList);
+        newList.add(2, createMediaItem(100));
+        PlaylistUpdate update = PlaylistUpdate.create(oldList, newList, null, BASE_VERSION,
+                VERSION);
+
+        Parcel parcel = Parcel.obtain();
+        parcel.writeParcelable(MediaUtils.toParcelable(update), 0);
+        parcel.setDataPosition(0);
+        ParcelImpl parcelImpl = parcel.readParcelable(ParcelImpl.class.getClassLoader());
+        parcel.recycle();
+        PlaylistUpdate copy = MediaUtils.fromParcelable(parcelImpl);
+
+        assertNotNull(copy);
+        assertFalse(copy.isFull());
+        assertNull(copy.getPlaylist());
+        assertEquals(BASE_VERSION, copy.getBaseVersion());
+        assertEquals(VERSION, copy.getVersion());
+        assertEquals(oldList.size(), copy.getBaseSize());
+        List<MediaItem> result = copy.applyTo(oldList, BASE_VERSION);
+        assertNotNull(result);
+        assertEquals(newList.size(), result.size());
+        for (int i = 0; i < newList.size(); i++) {
+            assertEquals(newList.get(i).getMediaId(), result.get(i).getMediaId());
+        }
+    }
+
+    private static void assertIncrementalUpdate(List<MediaItem> oldList, List<MediaItem> newList,
+            MediaItem changedItem) {
+        PlaylistUpdate update = PlaylistUpdate.create(oldList, newList, changedItem,
+                BASE_VERSION, VERSION);
+        assertFalse(update.isFull());
+        assertEquals(BASE_VERSION, update.getBaseVersion());
+        assertEquals(VERSION, update.getVersion());
+        assertEquals(oldList.size(), update.getBaseSize());
+        List<MediaItem> oldListCopy = Collections.unmodifiableList(new ArrayList<>(oldList));
+        assertEquals(newList, update.applyTo(oldListCopy, BASE_VERSION));
+    }
+
+    private static List<MediaItem> createPlaylist(int size) {
+        List<MediaItem> playlist = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            playlist.add(createMediaItem(i));
+        }
+        return playlist;
+    }
+
+    private static MediaItem createMediaItem(int index) {
+        return new MediaItem.Builder()
+                .setMetadata(new MediaMetadata.Builder()
+                        .putString(MediaMetadata.METADATA_KEY_MEDIA_ID, "item" + index)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link ReadAheadDataSourceCallback}.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ReadAheadDataSourceCallbackTest {
+    private static final int BLOCK_SIZE = 1024;
+    private static final int CACHE_SIZE = 16 * BLOCK_SIZE;
+
+    private byte[] mData;
+    private CountingDataSourceCallback mDataSourceCallback;
+    private ReadAheadDataSourceCallback mReadAheadCallback;
+
+    @Before
+    public void setUp() {
+        mData = new byte[100 * BLOCK_SIZE + 123];
+        new Random(42).nextBytes(mData);
+        mDataSourceCallback = new CountingDataSourceCallback(mData);
+        mReadAheadCallback = new ReadAheadDataSourceCallback(mDataSourceCallback, BLOCK_SIZE,
+                CACHE_SIZE);
+    }
+
+    @Test
+    public void testSequentialRead() throws IOException {
+        byte[] result = readSequentially(0, 100);
+        assertArrayEquals(mData, result);
+        assertTrue(mDataSourceCallback.mReadCount < mData.length / 100 / 4);
+        assertTrue(mReadAheadCallback.getMissCount() <= mDataSourceCallback.mReadCount);
+        assertTrue(mReadAheadCallback.getHitCount() > mReadAheadCallback.getMissCount());
+    }
+
+    @Test
+    public void testReadAtEnd() throws IOException {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int bytesRead = mReadAheadCallback.readAt(mData.length - 10, buffer, 0, buffer.length);
+        assertEquals(10, bytesRead);
+        assertArrayEquals(Arrays.copyOfRange(mData, mData.length - 10, mData.length),
+                Arrays.copyOf(buffer, 10));
+        assertEquals(-1, mReadAheadCallback.readAt(mData.length, buffer, 0, buffer.length));
+        assertEquals(0, mReadAheadCallback.readAt(0, buffer, 0, 0));
+    }
+
+    @Test
+    public void testRandomReads() throws IOException {
+        Random random = new Random(7);
+        byte[] buffer = new byte[3 * BLOCK_SIZE];
+        for (int i = 0; i < 1000; i++) {
+            int position = random.nextInt(mData.length);
+            int size = 1 + random.nextInt(buffer.length - 1);
+            int bytesRead = mReadAheadCallback.readAt(position, buffer, 0, size);
+            assertEquals(Math.min(size, mData.length - position), bytesRead);
+            assertArrayEquals(Arrays.copyOfRange(mData, position, position + bytesRead),
+                    Arrays.copyOf(buffer, bytesRead));
+        }
+    }
+
+    @Test
+    public void testReadAgainAfterSeek() throws IOException {
+        byte[] buffer = new byte[100];
+        mReadAheadCallback.readAt(0, buffer, 0, buffer.length);
+        mReadAheadCallback.readAt(50 * BLOCK_SIZE, buffer, 0, buffer.length);
+        int readCount = mDataSourceCallback.mReadCount;
+
+        // The first block has been used, so it's kept after the seek.
+        mReadAheadCallback.readAt(200, buffer, 0, buffer.length);
+        assertEquals(readCount, mDataSourceCallback.mReadCount);
+        assertArrayEquals(Arrays.copyOfRange(mData, 200, 300), buffer);
+    }
+
+    @Test
+    public void testShortReads() throws IOException {
+        mDataSourceCallback.mMaxReadSize = 100;
+        assertArrayEquals(mData, readSequentially(0, 1000));
+    }
+
+    @Test
+    public void testGetSize() throws IOException {
+        assertEquals(mData.length, mReadAheadCallback.getSize());
+        assertEquals(mData.length, mReadAheadCallback.getSize());
+        assertEquals(1, mDataSourceCallback.mGetSizeCount);
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        mReadAheadCallback.close();
+        assertTrue(mDataSourceCallback.mClosed);
+    }
+
+    private byte[] readSequentially(int position, int readSize) throws IOException {
+        byte[] result = new byte[mData.length - position];
+        byte[] buffer = new byte[readSize];
+        int offset = 0;
+        while (true) {
+            int bytesRead = mReadAheadCallback.readAt(position + offset, buffer, 0, readSize);
+            if (bytesRead < 0) {
+                break;
+            }
+            System.arraycopy(buffer, 0, result, offset, bytesRead);
+            offset += bytesRead;
+        }
+        assertEquals(result.length, offset);
+        return result;
+    }
+
+    private static class CountingDataSourceCallback extends DataSourceCallback {
+        private final byte[] mData;
+        int mMaxReadSize = Integer.MAX_VALUE;
+        int mReadCount;
+        int mGetSizeCount;
+        boolean mClosed;
+
+        CountingDataSourceCallback(byte[] data) {
+            mData = data;
+        }
+
+        @Override
+        public int readAt(long position, @NonNull byte[] buffer, int offset, int size) {
+            mReadCount++;
+            if (position >= mData.length) {
+                return -1;
+            }
+            int length = (int) Math.min(Math.min(size, mMaxReadSize), mData.length - position);
+            System.arraycopy(mData, (int) position, buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public long getSize() {
+            mGetSizeCount++;
+            return mData.length;
+        }
+
+        @Override
+        public void close() {
+            mClosed = true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2.subtitle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.text.SpannableStringBuilder;
+import android.view.accessibility.CaptioningManager.CaptionStyle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests {@link Cea608CCParser}.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class Cea608CCParserTest {
+    // Transparent space, which fills the columns without text.
+    private static final char TS = '\u00A0';
+    private static final int LAST_ROW = Cea608CCParser.MAX_ROWS - 1;
+
+    private Cea608CCParser mParser;
+    private SpannableStringBuilder[] mStyledTexts;
+    private int mDisplayChangedCount;
+
+    @Before
+    public void setUp() {
+        mParser = new Cea608CCParser(new Cea608CCParser.DisplayListener() {
+            @Override
+            public void onDisplayChanged(SpannableStringBuilder[] styledTexts) {
+                mStyledTexts = styledTexts;
+                mDisplayChangedCount++;
+            }
+
+            @Override
+            public CaptionStyle getCaptionStyle() {
+                return CaptionStyle.DEFAULT;
+            }
+        });
+    }
+
+    @Test
+    public void testPaintOn() {
+        // PAC to the last row, "Hi", "!" and a special char (eighth note).
+        mParser.parse(new byte[] {
+                4, 0x14, 0x60,
+                4, 'H', 'i',
+                4, '!', 0x00,
+                4, 0x11, 0x37});
+        assertEquals(1, mDisplayChangedCount);
+        assertEquals("Hi!\u266A", getRowText(LAST_ROW));
+        for (int row = 0; row < LAST_ROW; row++) {
+            assertNull(mStyledTexts[row]);
+        }
+    }
+
+    @Test
+    public void testCharacterMaps() {
+        // PAC to the last row, basic chars replaced from ASCII, and an extended char which
+        // replaces the previous char.
+        mParser.parse(new byte[] {
+                4, 0x14, 0x60,
+                4, 0x2a, 0x7e,
+                4, 'E', 0x00,
+                4, 0x12, 0x21});
+        assertEquals("\u00E1\u00F1\u00C9", getRowText(LAST_ROW));
+    }
+
+    @Test
+    public void testPopOn() {
+        // Resume caption loading, PAC to the last row, "OK", then end of caption.
+        byte[] text = new byte[] {
+                4, 0x14, 0x20,
+                4, 0x14, 0x60,
+                4, 'O', 'K'};
+        mParser.parse(text);
+        assertEquals(0, mDisplayChangedCount);
+        mParser.parse(new byte[] {4, 0x14, 0x2f});
+        assertEquals(1, mDisplayChangedCount);
+        assertEquals("OK", getRowText(LAST_ROW));
+    }
+
+    @Test
+    public void testDoubleControlCodeIgnored() {
+        // PAC to the last row, "AB", then a backspace sent twice, which erases one char.
+        mParser.parse(new byte[] {
+                4, 0x14, 0x60,
+                4, 'A', 'B',
+                4, 0x14, 0x21,
+                4, 0x14, 0x21});
+        assertEquals("A", getRowText(LAST_ROW));
+    }
+
+    private String getRowText(int row) {
+        StringBuilder builder = new StringBuilder(mStyledTexts[row]);
+        for (int i = builder.length() - 1; i >= 0; i--) {
+            if (builder.charAt(i) == TS) {
+                builder.deleteCharAt(i);
+            }
+        }
+        return builder.toString();
+    }
+}
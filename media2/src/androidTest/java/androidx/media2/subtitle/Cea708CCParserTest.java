@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2.subtitle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link Cea708CCParser}.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class Cea708CCParserTest {
+    private final List<Cea708CCParser.CaptionEvent> mEvents = new ArrayList<>();
+    private Cea708CCParser mParser;
+
+    @Before
+    public void setUp() {
+        mParser = new Cea708CCParser(new Cea708CCParser.DisplayListener() {
+            @Override
+            public void emitEvent(Cea708CCParser.CaptionEvent event) {
+                mEvents.add(event.copy());
+            }
+        });
+    }
+
+    @Test
+    public void testText() {
+        // "Hello", CR, "W", 0xe9 (G1), music note (0x7f), and an ignored NUL.
+        mParser.parse(new byte[] {'H', 'e', 'l', 'l', 'o', 0x0d, 'W', (byte) 0xe9, 0x7f, 0x00});
+        assertEquals(1, mEvents.size());
+        assertEvent(mEvents.get(0), Cea708CCParser.CAPTION_EMIT_TYPE_BUFFER, "Hello\nW\u00E9\u266B");
+    }
+
+    @Test
+    public void testCommandsFlushText() {
+        // "AB", ClearWindows(0xff), ETX, "C", CurrentWindow2, DelayCancel.
+        mParser.parse(new byte[] {'A', 'B', (byte) 0x88, (byte) 0xff, 0x03, 'C', (byte) 0x82,
+                (byte) 0x8e});
+        assertEquals(6, mEvents.size());
+        assertEvent(mEvents.get(0), Cea708CCParser.CAPTION_EMIT_TYPE_BUFFER, "AB");
+        assertEvent(mEvents.get(1), Cea708CCParser.CAPTION_EMIT_TYPE_COMMAND_CLW, 255);
+        assertEvent(mEvents.get(2), Cea708CCParser.CAPTION_EMIT_TYPE_CONTROL, (char) 0x03);
+        assertEvent(mEvents.get(3), Cea708CCParser.CAPTION_EMIT_TYPE_BUFFER, "C");
+        assertEvent(mEvents.get(4), Cea708CCParser.CAPTION_EMIT_TYPE_COMMAND_CWX, 2);
+        assertEvent(mEvents.get(5), Cea708CCParser.CAPTION_EMIT_TYPE_COMMAND_DLC, null);
+    }
+
+    @Test
+    public void testPenAttributes() {
+        // SetPenAttributes twice with the same parameters.
+        byte[] data = new byte[] {(byte) 0x90, 0x25, (byte) 0xc3};
+        mParser.parse(data);
+        mParser.parse(data);
+        assertEquals(2, mEvents.size());
+        Cea708CCParser.CaptionPenAttr penAttr = (Cea708CCParser.CaptionPenAttr) mEvents.get(0).obj;
+        assertEquals(Cea708CCParser.CaptionPenAttr.PEN_SIZE_STANDARD, penAttr.penSize);
+        assertEquals(Cea708CCParser.CaptionPenAttr.OFFSET_NORMAL, penAttr.penOffset);
+        assertEquals(2, penAttr.textTag);
+        assertEquals(3, penAttr.fontTag);
+        assertEquals(0, penAttr.edgeType);
+        assertTrue(penAttr.italic);
+        assertTrue(penAttr.underline);
+        assertSame(penAttr, mEvents.get(1).obj);
+    }
+
+    @Test
+    public void testDefineWindow() {
+        // DefineWindow3: visible, priority 2, anchor (10, 20), anchor ID 8, 2 rows, 31 columns.
+        mParser.parse(new byte[] {(byte) 0x9b, 0x22, 0x0a, 0x14, (byte) 0x82, 0x1f, 0x09});
+        assertEquals(1, mEvents.size());
+        assertEquals(Cea708CCParser.CAPTION_EMIT_TYPE_COMMAND_DFX, mEvents.get(0).type);
+        Cea708CCParser.CaptionWindow window = (Cea708CCParser.CaptionWindow) mEvents.get(0).obj;
+        assertEquals(3, window.id);
+        assertTrue(window.visible);
+        assertFalse(window.rowLock);
+        assertEquals(2, window.priority);
+        assertEquals(10, window.anchorVertical);
+        assertEquals(20, window.anchorHorizontal);
+        assertEquals(8, window.anchorId);
+        assertEquals(2, window.rowCount);
+        assertEquals(31, window.columnCount);
+        assertEquals(1, window.windowStyle);
+        assertEquals(1, window.penStyle);
+    }
+
+    @Test
+    public void testExtendedCodesSkipped() {
+        // EXT1 with a C2 code followed by one parameter byte, then "B".
+        mParser.parse(new byte[] {0x10, 0x08, 'A', 'B'});
+        assertEquals(1, mEvents.size());
+        assertEvent(mEvents.get(0), Cea708CCParser.CAPTION_EMIT_TYPE_BUFFER, "B");
+    }
+
+    @Test
+    public void testTruncatedCommand() {
+        // "A", then SetPenColor missing its last parameter byte.
+        mParser.parse(new byte[] {'A', (byte) 0x91, 0x00, 0x00});
+        assertEquals(1, mEvents.size());
+        assertEvent(mEvents.get(0), Cea708CCParser.CAPTION_EMIT_TYPE_BUFFER, "A");
+    }
+
+    @Test
+    public void testEventReused() {
+        final List<Cea708CCParser.CaptionEvent> events = new ArrayList<>();
+        Cea708CCParser parser = new Cea708CCParser(new Cea708CCParser.DisplayListener() {
+            @Override
+            public void emitEvent(Cea708CCParser.CaptionEvent event) {
+                events.add(event);
+            }
+        });
+        parser.parse(new byte[] {'A', (byte) 0x8f, 'B'});
+        assertEquals(3, events.size());
+        assertSame(events.get(0), events.get(1));
+        assertNull(events.get(0).obj);
+    }
+
+    private static void assertEvent(Cea708CCParser.CaptionEvent event, int type, Object obj) {
+        assertEquals(type, event.type);
+        assertEquals(obj, event.obj);
+    }
+}
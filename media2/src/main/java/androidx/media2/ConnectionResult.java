@@ -29,8 +29,6 @@ import androidx.versionedparcelable.ParcelField;
 import androidx.versionedparcelable.VersionedParcelable;
 import androidx.versionedparcelable.VersionedParcelize;
 
-import java.util.List;
-
 /**
  * Created by {@link MediaSession} to send its state to the {@link MediaController} when the
  * connection request is accepted. It's intentionally {@link VersionedParcelable} for future
@@ -77,6 +75,8 @@ class ConnectionResult extends CustomVersionedParcelable {
     int mPreviousMediaItemIndex;
     @ParcelField(16)
     int mNextMediaItemIndex;
+    @ParcelField(17)
+    int mPlaylistVersion;
 
     // For versioned parcelable
     ConnectionResult() {
@@ -101,10 +101,13 @@ class ConnectionResult extends CustomVersionedParcelable {
         mNextMediaItemIndex = sessionImpl.getNextMediaItemIndex();
         if (allowedCommands != null
                 && allowedCommands.hasCommand(SessionCommand.COMMAND_CODE_PLAYER_GET_PLAYLIST)) {
-            List<MediaItem> playlist = sessionImpl.getPlaylist();
-            mPlaylistSlice = MediaUtils.convertMediaItemListToParcelImplListSlice(playlist);
+            PlaylistUpdate snapshot = sessionImpl.getPlaylistSnapshot();
+            mPlaylistSlice = MediaUtils.convertMediaItemListToParcelImplListSlice(
+                    snapshot.getPlaylist());
+            mPlaylistVersion = snapshot.getVersion();
         } else {
             mPlaylistSlice = null;
+            mPlaylistVersion = PlaylistUpdate.VERSION_NONE;
         }
         mAllowedCommands = allowedCommands;
         mVersion = MediaUtils.CURRENT_VERSION;
@@ -158,6 +161,10 @@ class ConnectionResult extends CustomVersionedParcelable {
         return mPlaylistSlice;
     }
 
+    public int getPlaylistVersion() {
+        return mPlaylistVersion;
+    }
+
     public SessionCommandGroup getAllowedCommands() {
         return mAllowedCommands;
     }
@@ -117,6 +117,11 @@ class MediaControllerImplBase implements MediaControllerImpl {
     private boolean mIsReleased;
     @GuardedBy("mLock")
     private List<MediaItem> mPlaylist;
+    // Version of mPlaylist in the session, for applying incremental playlist updates.
+    @GuardedBy("mLock")
+    private int mPlaylistVersion = PlaylistUpdate.VERSION_NONE;
+    @GuardedBy("mLock")
+    private boolean mPlaylistSyncRequested;
     @GuardedBy("mLock")
     private MediaMetadata mPlaylistMetadata;
     @GuardedBy("mLock")
@@ -963,6 +968,42 @@ class MediaControllerImplBase implements MediaControllerImpl {
         });
     }
 
+    void notifyPlaylistUpdate(int seq, PlaylistUpdate update, List<MediaItem> fullPlaylist,
+            MediaMetadata metadata, int currentMediaItemIndex, int previousMediaItemIndex,
+            int nextMediaItemIndex) {
+        final List<MediaItem> playlist;
+        IMediaSession iSession = null;
+        synchronized (mLock) {
+            if (update.isFull()) {
+                playlist = fullPlaylist;
+                mPlaylistVersion = update.getVersion();
+                mPlaylistSyncRequested = false;
+            } else {
+                playlist = update.applyTo(mPlaylist, mPlaylistVersion);
+                if (playlist != null) {
+                    mPlaylistVersion = update.getVersion();
+                } else if (!mPlaylistSyncRequested) {
+                    mPlaylistSyncRequested = true;
+                    iSession = mISession;
+                }
+            }
+        }
+        if (!update.isFull() && playlist == null) {
+            // Playlist here isn't the base of the update. Ask for the whole playlist once, and
+            // ignore the updates until it arrives.
+            if (iSession != null) {
+                try {
+                    iSession.requestPlaylistSync(mControllerStub, seq);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Cannot request the playlist", e);
+                }
+            }
+            return;
+        }
+        notifyPlaylistChanges(playlist, metadata, currentMediaItemIndex, previousMediaItemIndex,
+                nextMediaItemIndex);
+    }
+
     void notifyPlaylistMetadataChanges(final MediaMetadata metadata) {
         synchronized (mLock) {
             mPlaylistMetadata = metadata;
@@ -1076,7 +1117,8 @@ class MediaControllerImplBase implements MediaControllerImpl {
             final PendingIntent sessionActivity,
             final int currentMediaItemIndex,
             final int previousMediaItemIndex,
-            final int nextMediaItemIndex) {
+            final int nextMediaItemIndex,
+            final int playlistVersion) {
         if (DEBUG) {
             Log.d(TAG, "onConnectedNotLocked sessionBinder=" + sessionBinder
                     + ", allowedCommands=" + allowedCommands);
@@ -1110,6 +1152,7 @@ class MediaControllerImplBase implements MediaControllerImpl {
                 mRepeatMode = repeatMode;
                 mShuffleMode = shuffleMode;
                 mPlaylist = playlist;
+                mPlaylistVersion = playlistVersion;
                 mSessionActivity = sessionActivity;
                 mISession = sessionBinder;
                 mCurrentMediaItemIndex = currentMediaItemIndex;
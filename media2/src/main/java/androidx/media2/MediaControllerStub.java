@@ -155,6 +155,30 @@ class MediaControllerStub extends IMediaController.Stub {
         });
     }
 
+    @Override
+    public void onPlaylistUpdated(final int seq, final ParcelImpl playlistUpdate,
+            final ParcelImplListSlice listSlice, final ParcelImpl metadata, final int currentIdx,
+            final int previousIdx, final int nextIdx) {
+        if (playlistUpdate == null || metadata == null) {
+            return;
+        }
+        dispatchControllerTask(new ControllerTask() {
+            @Override
+            public void run(MediaControllerImplBase controller) {
+                PlaylistUpdate update = MediaUtils.fromParcelable(playlistUpdate);
+                if (update == null) {
+                    Log.w(TAG, "onPlaylistUpdated(): Ignoring null update");
+                    return;
+                }
+                List<MediaItem> playlist = update.isFull()
+                        ? MediaUtils.convertParcelImplListSliceToMediaItemList(listSlice) : null;
+                controller.notifyPlaylistUpdate(seq, update, playlist,
+                        (MediaMetadata) MediaUtils.fromParcelable(metadata), currentIdx,
+                        previousIdx, nextIdx);
+            }
+        });
+    }
+
     @Override
     public void onPlaylistMetadataChanged(int seq, final ParcelImpl metadata)
             throws RuntimeException {
@@ -261,7 +285,8 @@ class MediaControllerStub extends IMediaController.Stub {
                     result.getBufferedPositionMs(), result.getPlaybackInfo(),
                     result.getRepeatMode(), result.getShuffleMode(), itemList,
                     result.getSessionActivity(), result.getCurrentMediaItemIndex(),
-                    result.getPreviousMediaItemIndex(), result.getNextMediaItemIndex());
+                    result.getPreviousMediaItemIndex(), result.getNextMediaItemIndex(),
+                    result.getPlaylistVersion());
         } finally {
             Binder.restoreCallingIdentity(token);
         }
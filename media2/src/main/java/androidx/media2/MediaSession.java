@@ -366,13 +366,14 @@ public class MediaSession implements AutoCloseable {
      * Handles the controller's connection request from {@link MediaSessionService}.
      *
      * @param controller controller aidl
+     * @param controllerVersion controller version, one of the MediaUtils.VERSION_* constants
      * @param packageName controller package name
      * @param pid controller pid
      * @param uid controller uid
      */
-    void handleControllerConnectionFromService(IMediaController controller, String packageName,
-            int pid, int uid) {
-        mImpl.connectFromService(controller, packageName, pid, uid);
+    void handleControllerConnectionFromService(IMediaController controller,
+            int controllerVersion, String packageName, int pid, int uid) {
+        mImpl.connectFromService(controller, controllerVersion, packageName, pid, uid);
     }
 
     IBinder getLegacyBrowerServiceBinder() {
@@ -1116,6 +1117,14 @@ public class MediaSession implements AutoCloseable {
                 int nextIdx) throws RemoteException;
         abstract void onPlaylistMetadataChanged(int seq, @Nullable MediaMetadata metadata)
                 throws RemoteException;
+        // Sends the whole playlist unless overridden by the callbacks which can send the update
+        // itself.
+        void onPlaylistUpdated(int seq, @NonNull PlaylistUpdate update,
+                @Nullable MediaMetadata metadata, int currentIdx, int previousIdx, int nextIdx)
+                throws RemoteException {
+            onPlaylistChanged(seq, update.getPlaylist(), metadata, currentIdx, previousIdx,
+                    nextIdx);
+        }
         abstract void onShuffleModeChanged(int seq, @SessionPlayer.ShuffleMode int shuffleMode,
                 int currentIdx, int previousIdx, int nextIdx) throws RemoteException;
         abstract void onRepeatModeChanged(int seq, @SessionPlayer.RepeatMode int repeatMode,
@@ -1160,7 +1169,9 @@ public class MediaSession implements AutoCloseable {
         PlaybackInfo getPlaybackInfo();
         PendingIntent getSessionActivity();
         IBinder getLegacyBrowserServiceBinder();
-        void connectFromService(IMediaController caller, String packageName, int pid, int uid);
+        void connectFromService(IMediaController caller, int controllerVersion,
+                String packageName, int pid, int uid);
+        PlaylistUpdate getPlaylistSnapshot();
     }
 
     /**
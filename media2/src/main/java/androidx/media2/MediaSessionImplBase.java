@@ -133,6 +133,11 @@ class MediaSessionImplBase implements MediaSessionImpl {
     private SessionPlayer mPlayer;
     @GuardedBy("mLock")
     private MediaBrowserServiceCompat mBrowserServiceLegacyStub;
+    // Copy of the playlist that the controllers have been last notified of, and its version.
+    @GuardedBy("mLock")
+    private List<MediaItem> mNotifiedPlaylist;
+    @GuardedBy("mLock")
+    private int mPlaylistVersion;
 
     MediaSessionImplBase(MediaSession instance, Context context, String id, SessionPlayer player,
             PendingIntent sessionActivity, Executor callbackExecutor, SessionCallback callback) {
@@ -915,8 +920,41 @@ class MediaSessionImplBase implements MediaSessionImpl {
     }
 
     @Override
-    public void connectFromService(IMediaController caller, String packageName, int pid, int uid) {
-        mSessionStub.connect(caller, packageName, pid, uid);
+    public void connectFromService(IMediaController caller, int controllerVersion,
+            String packageName, int pid, int uid) {
+        mSessionStub.connect(caller, controllerVersion, packageName, pid, uid);
+    }
+
+    @Override
+    public PlaylistUpdate getPlaylistSnapshot() {
+        final List<MediaItem> playlist = getPlaylistOrNull();
+        synchronized (mLock) {
+            if (mNotifiedPlaylist == null && playlist != null) {
+                mNotifiedPlaylist = new ArrayList<>(playlist);
+            }
+            return PlaylistUpdate.createFull(mPlaylistVersion, mNotifiedPlaylist);
+        }
+    }
+
+    /**
+     * Creates the update from the playlist that the controllers have been last notified of to the
+     * given playlist, which becomes the new last notified one. Should be called once per change,
+     * and the result sent to all controllers.
+     *
+     * @param changedItem an item of the playlist whose metadata has changed
+     */
+    @NonNull
+    PlaylistUpdate createPlaylistUpdate(@Nullable List<MediaItem> playlist,
+            @Nullable MediaItem changedItem) {
+        final List<MediaItem> copy = playlist != null ? new ArrayList<>(playlist) : null;
+        synchronized (mLock) {
+            final int baseVersion = mNotifiedPlaylist != null
+                    ? mPlaylistVersion : PlaylistUpdate.VERSION_NONE;
+            final PlaylistUpdate update = PlaylistUpdate.create(mNotifiedPlaylist, copy,
+                    changedItem, baseVersion, ++mPlaylistVersion);
+            mNotifiedPlaylist = copy;
+            return update;
+        }
     }
 
     /**
@@ -1002,11 +1040,12 @@ class MediaSessionImplBase implements MediaSessionImpl {
         List<MediaItem> oldPlaylist = oldPlayer.getPlaylist();
         final List<MediaItem> newPlaylist = getPlaylistOrNull();
         if (!ObjectsCompat.equals(oldPlaylist, newPlaylist)) {
+            final PlaylistUpdate update = createPlaylistUpdate(newPlaylist, null);
             dispatchRemoteControllerTaskWithoutReturn(new RemoteControllerTask() {
                 @Override
                 public void run(ControllerCb callback, int seq) throws RemoteException {
-                    callback.onPlaylistChanged(seq,
-                            newPlaylist, getPlaylistMetadata(), getCurrentMediaItemIndex(),
+                    callback.onPlaylistUpdated(seq,
+                            update, getPlaylistMetadata(), getCurrentMediaItemIndex(),
                             getPreviousMediaItemIndex(), getNextMediaItemIndex());
                 }
             });
@@ -1337,10 +1376,11 @@ class MediaSessionImplBase implements MediaSessionImpl {
                 mList = list;
             }
 
+            final PlaylistUpdate update = session.createPlaylistUpdate(list, null);
             dispatchRemoteControllerTask(player, new RemoteControllerTask() {
                 @Override
                 public void run(ControllerCb callback, int seq) throws RemoteException {
-                    callback.onPlaylistChanged(seq, list, metadata,
+                    callback.onPlaylistUpdated(seq, update, metadata,
                             session.getCurrentMediaItemIndex(), session.getPreviousMediaItemIndex(),
                             session.getNextMediaItemIndex());
                 }
@@ -1477,11 +1517,16 @@ class MediaSessionImplBase implements MediaSessionImpl {
             if (metadata != null) {
                 final MediaSessionImplBase session = getSession();
                 item.setMetadata(metadata);
+                if (session == null || session.getPlayer() != player) {
+                    return;
+                }
+                final PlaylistUpdate update = session.createPlaylistUpdate(
+                        player.getPlaylist(), item);
                 dispatchRemoteControllerTask(player, new RemoteControllerTask() {
                     @Override
                     public void run(ControllerCb callback, int seq) throws RemoteException {
-                        callback.onPlaylistChanged(seq,
-                                player.getPlaylist(), player.getPlaylistMetadata(),
+                        callback.onPlaylistUpdated(seq,
+                                update, player.getPlaylistMetadata(),
                                 session.getCurrentMediaItemIndex(),
                                 session.getPreviousMediaItemIndex(),
                                 session.getNextMediaItemIndex());
@@ -1538,10 +1583,11 @@ class MediaSessionImplBase implements MediaSessionImpl {
             }
             for (int i = 0; i < list.size(); i++) {
                 if (item.equals(list.get(i))) {
+                    final PlaylistUpdate update = session.createPlaylistUpdate(list, item);
                     session.dispatchRemoteControllerTaskWithoutReturn(new RemoteControllerTask() {
                         @Override
                         public void run(ControllerCb callback, int seq) throws RemoteException {
-                            callback.onPlaylistChanged(seq, list,
+                            callback.onPlaylistUpdated(seq, update,
                                     session.getPlaylistMetadata(),
                                     session.getCurrentMediaItemIndex(),
                                     session.getPreviousMediaItemIndex(),
@@ -229,6 +229,8 @@ class MediaSessionServiceImplBase implements MediaSessionServiceImpl {
             final ConnectionRequest request = MediaUtils.fromParcelable(connectionRequest);
             final int pid = (callingPid != 0) ? callingPid : request.getPid();
             final String packageName = connectionRequest == null ? null : request.getPackageName();
+            final int controllerVersion = connectionRequest == null
+                    ? MediaUtils.VERSION_0 : request.getVersion();
             try {
                 mHandler.post(new Runnable() {
                     @Override
@@ -260,8 +262,8 @@ class MediaSessionServiceImplBase implements MediaSessionServiceImpl {
                                 service.addSession(session);
                                 shouldNotifyDisconnected = false;
 
-                                session.handleControllerConnectionFromService(caller, packageName,
-                                        pid, uid);
+                                session.handleControllerConnectionFromService(caller,
+                                        controllerVersion, packageName, pid, uid);
                             } catch (Exception e) {
                                 // Don't propagate exception in service to the controller.
                                 Log.w(TAG, "Failed to add a session to session service", e);
@@ -312,13 +312,13 @@ class MediaSessionStub extends IMediaSession.Stub {
         dispatchSessionTaskInternal(caller, seq, null, commandCode, task);
     }
 
-    void connect(final IMediaController caller, final String callingPackage, final int pid,
-            final int uid) {
+    void connect(final IMediaController caller, final int controllerVersion,
+            final String callingPackage, final int pid, final int uid) {
         MediaSessionManager.RemoteUserInfo remoteUserInfo =
                 new MediaSessionManager.RemoteUserInfo(callingPackage, pid, uid);
         final ControllerInfo controllerInfo = new ControllerInfo(remoteUserInfo,
                 mSessionManager.isTrustedForMediaControl(remoteUserInfo),
-                new Controller2Cb(caller));
+                new Controller2Cb(caller, controllerVersion));
         mSessionImpl.getCallbackExecutor().execute(new Runnable() {
             @Override
             public void run() {
@@ -432,7 +432,7 @@ class MediaSessionStub extends IMediaSession.Stub {
         // If it's the case, use PID from the ConnectionRequest.
         final int pid = (callingPid != 0) ? callingPid : request.getPid();
         try {
-            connect(caller, request.getPackageName(), pid, uid);
+            connect(caller, request.getVersion(), request.getPackageName(), pid, uid);
         } finally {
             Binder.restoreCallingIdentity(token);
         }
@@ -1020,6 +1020,43 @@ class MediaSessionStub extends IMediaSession.Stub {
                 });
     }
 
+    @Override
+    public void requestPlaylistSync(final IMediaController caller, final int seq) {
+        if (caller == null) {
+            return;
+        }
+        final long token = Binder.clearCallingIdentity();
+        try {
+            final ControllerInfo controller = mConnectedControllersManager.getController(
+                    caller.asBinder());
+            if (mSessionImpl.isClosed() || controller == null) {
+                return;
+            }
+            // Player callbacks are also called on the callback executor, so no incremental update
+            // can be sent between taking the snapshot and sending it.
+            mSessionImpl.getCallbackExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mConnectedControllersManager.isConnected(controller)) {
+                        return;
+                    }
+                    try {
+                        controller.getControllerCb().onPlaylistUpdated(seq,
+                                mSessionImpl.getPlaylistSnapshot(),
+                                mSessionImpl.getPlaylistMetadata(),
+                                mSessionImpl.getCurrentMediaItemIndex(),
+                                mSessionImpl.getPreviousMediaItemIndex(),
+                                mSessionImpl.getNextMediaItemIndex());
+                    } catch (RemoteException e) {
+                        Log.w(TAG, "Exception in " + controller.toString(), e);
+                    }
+                }
+            });
+        } finally {
+            Binder.restoreCallingIdentity(token);
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////////////////////////////
     // AIDL methods for LibrarySession overrides
     //////////////////////////////////////////////////////////////////////////////////////////////
@@ -1212,9 +1249,11 @@ class MediaSessionStub extends IMediaSession.Stub {
     final class Controller2Cb extends ControllerCb {
         // TODO: Drop 'Callback' from the name.
         private final IMediaController mIControllerCallback;
+        private final int mControllerVersion;
 
-        Controller2Cb(@NonNull IMediaController callback) {
+        Controller2Cb(@NonNull IMediaController callback, int controllerVersion) {
             mIControllerCallback = callback;
+            mControllerVersion = controllerVersion;
         }
 
         @NonNull
@@ -1315,6 +1354,29 @@ class MediaSessionStub extends IMediaSession.Stub {
             }
         }
 
+        @Override
+        void onPlaylistUpdated(int seq, @NonNull PlaylistUpdate update, MediaMetadata metadata,
+                int currentIdx, int previousIdx, int nextIdx) throws RemoteException {
+            if (mControllerVersion < MediaUtils.VERSION_1) {
+                super.onPlaylistUpdated(seq, update, metadata, currentIdx, previousIdx, nextIdx);
+                return;
+            }
+            ControllerInfo controller = mConnectedControllersManager.getController(
+                    getCallbackBinder());
+            if (mConnectedControllersManager.isAllowedCommand(controller,
+                    SessionCommand.COMMAND_CODE_PLAYER_GET_PLAYLIST)) {
+                // Only a full update needs the whole playlist.
+                mIControllerCallback.onPlaylistUpdated(seq, MediaUtils.toParcelable(update),
+                        update.isFull() ? MediaUtils.convertMediaItemListToParcelImplListSlice(
+                                update.getPlaylist()) : null,
+                        MediaUtils.toParcelable(metadata), currentIdx, previousIdx, nextIdx);
+            } else if (mConnectedControllersManager.isAllowedCommand(controller,
+                    SessionCommand.COMMAND_CODE_PLAYER_GET_PLAYLIST_METADATA)) {
+                mIControllerCallback.onPlaylistMetadataChanged(seq,
+                        MediaUtils.toParcelable(metadata));
+            }
+        }
+
         @Override
         void onPlaylistMetadataChanged(int seq, MediaMetadata metadata) throws RemoteException {
             ControllerInfo controller = mConnectedControllersManager.getController(
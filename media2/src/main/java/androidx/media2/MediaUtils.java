@@ -96,8 +96,11 @@ public class MediaUtils {
     // Initial version for all Media2 APIs.
     public static final int VERSION_0 = 0;
 
+    // Version where controllers receive incremental playlist updates.
+    public static final int VERSION_1 = 1;
+
     // Current version for all Media2 APIs.
-    public static final int CURRENT_VERSION = VERSION_0;
+    public static final int CURRENT_VERSION = VERSION_1;
 
     private static final Map<String, String> METADATA_COMPAT_KEY_TO_METADATA_KEY = new HashMap<>();
     private static final Map<String, String> METADATA_KEY_TO_METADATA_COMPAT_KEY = new HashMap<>();
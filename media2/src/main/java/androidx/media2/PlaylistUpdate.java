@@ -0,0 +1,316 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2;
+
+import android.annotation.SuppressLint;
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.versionedparcelable.NonParcelField;
+import androidx.versionedparcelable.ParcelField;
+import androidx.versionedparcelable.ParcelImpl;
+import androidx.versionedparcelable.VersionedParcelable;
+import androidx.versionedparcelable.VersionedParcelize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by {@link MediaSession} to send a change of its playlist to the {@link MediaController}s
+ * which support it, instead of the whole playlist.
+ * <p>
+ * Playlists are versioned by the session. An incremental update transforms the playlist of
+ * version {@link #getBaseVersion()}, which has {@link #getBaseSize()} items, into the playlist of
+ * version {@link #getVersion()} with a few insert, remove, move and replace operations. A full
+ * update only carries the version, and the whole playlist is sent next to it. A controller whose
+ * playlist isn't at the base version of an incremental update asks the session for a full update.
+ * <p>
+ * All fields here are effectively final. Do not modify.
+ */
+@VersionedParcelize
+@SuppressLint("RestrictedApi")
+class PlaylistUpdate implements VersionedParcelable {
+    // Version of a playlist that is not known, e.g. the base of a full update.
+    static final int VERSION_NONE = -1;
+
+    // Inserts the next 'argument' items at 'index'.
+    static final int OP_INSERT = 0;
+    // Removes 'argument' items from 'index'.
+    static final int OP_REMOVE = 1;
+    // Moves the item at 'index' to the position 'argument'.
+    static final int OP_MOVE = 2;
+    // Replaces 'argument' items from 'index' by the next items.
+    static final int OP_REPLACE = 3;
+
+    private static final int[] NO_OPERATIONS = new int[0];
+
+    // Incremental updates are sent in a single transaction, unlike the whole playlist which is
+    // sliced, so the items they carry are kept well below the transaction size limit.
+    private static final int MAX_ITEM_COUNT = 32;
+    private static final int MAX_ITEMS_SIZE_IN_BYTES =
+            MediaUtils.TRANSACTION_SIZE_LIMIT_IN_BYTES / 4;
+
+    @ParcelField(0)
+    int mBaseVersion;
+    @ParcelField(1)
+    int mVersion;
+    @ParcelField(2)
+    int mBaseSize;
+    // Triplets of operation, index and argument, applied in order.
+    @ParcelField(3)
+    int[] mOperations;
+    // Items inserted or replaced by the operations, in order.
+    @ParcelField(4)
+    List<ParcelImpl> mItemParcels;
+    // The whole playlist after the update. Only available in the session.
+    @NonParcelField
+    List<MediaItem> mPlaylist;
+
+    // For versioned parcelable.
+    PlaylistUpdate() {
+        // no-op
+    }
+
+    private PlaylistUpdate(int baseVersion, int version, int baseSize, int[] operations,
+            List<MediaItem> items, List<MediaItem> playlist) {
+        mBaseVersion = baseVersion;
+        mVersion = version;
+        mBaseSize = baseSize;
+        mOperations = operations;
+        mItemParcels = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            mItemParcels.add(MediaUtils.toParcelable(items.get(i)));
+        }
+        mPlaylist = playlist;
+    }
+
+    /**
+     * Creates a full update, for which the whole playlist needs to be sent.
+     */
+    @NonNull
+    static PlaylistUpdate createFull(int version, @Nullable List<MediaItem> playlist) {
+        return new PlaylistUpdate(VERSION_NONE, version, 0, NO_OPERATIONS,
+                Collections.<MediaItem>emptyList(), playlist);
+    }
+
+    /**
+     * Creates the update from the old playlist to the new one.
+     * <p>
+     * Items are compared by identity, as players keep the same instances in their playlists. Only
+     * a single contiguous range of changes is looked for, which covers the edits made through the
+     * {@link SessionPlayer} API. A full update is returned when the changed items would be about as
+     * large to send as the whole playlist, or too large to be sent in a single transaction.
+     *
+     * @param changedItem an item whose metadata has changed, which has to be replaced although
+     *                    it is still in the playlist
+     */
+    @NonNull
+    static PlaylistUpdate create(@Nullable List<MediaItem> oldPlaylist,
+            @Nullable List<MediaItem> newPlaylist, @Nullable MediaItem changedItem,
+            int baseVersion, int version) {
+        if (oldPlaylist == null || newPlaylist == null || baseVersion == VERSION_NONE) {
+            return createFull(version, newPlaylist);
+        }
+        final int oldSize = oldPlaylist.size();
+        final int newSize = newPlaylist.size();
+        final int minSize = Math.min(oldSize, newSize);
+        int prefix = 0;
+        while (prefix < minSize && oldPlaylist.get(prefix) == newPlaylist.get(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < minSize - prefix
+                && oldPlaylist.get(oldSize - 1 - suffix) == newPlaylist.get(newSize - 1 - suffix)) {
+            suffix++;
+        }
+        final int oldCount = oldSize - prefix - suffix;
+        final int newCount = newSize - prefix - suffix;
+
+        final int[] operations;
+        List<MediaItem> items = Collections.emptyList();
+        if (oldCount == 0 && newCount == 0) {
+            if (changedItem == null) {
+                operations = NO_OPERATIONS;
+            } else {
+                int index = newPlaylist.indexOf(changedItem);
+                if (index < 0) {
+                    return createFull(version, newPlaylist);
+                }
+                operations = new int[] {OP_REPLACE, index, 1};
+                items = Collections.singletonList(changedItem);
+            }
+        } else if (changedItem != null) {
+            return createFull(version, newPlaylist);
+        } else if (oldCount == 0) {
+            operations = new int[] {OP_INSERT, prefix, newCount};
+            items = newPlaylist.subList(prefix, prefix + newCount);
+        } else if (newCount == 0) {
+            operations = new int[] {OP_REMOVE, prefix, oldCount};
+        } else if (oldCount == newCount
+                && isMovedToEnd(oldPlaylist, newPlaylist, prefix, oldCount)) {
+            operations = new int[] {OP_MOVE, prefix, prefix + oldCount - 1};
+        } else if (oldCount == newCount
+                && isMovedToEnd(newPlaylist, oldPlaylist, prefix, oldCount)) {
+            operations = new int[] {OP_MOVE, prefix + oldCount - 1, prefix};
+        } else if (oldCount == newCount) {
+            operations = new int[] {OP_REPLACE, prefix, newCount};
+            items = newPlaylist.subList(prefix, prefix + newCount);
+        } else {
+            operations = new int[] {OP_REMOVE, prefix, oldCount, OP_INSERT, prefix, newCount};
+            items = newPlaylist.subList(prefix, prefix + newCount);
+        }
+        if ((items.size() > newSize / 2 && items.size() > 1) || items.size() > MAX_ITEM_COUNT) {
+            return createFull(version, newPlaylist);
+        }
+        PlaylistUpdate update =
+                new PlaylistUpdate(baseVersion, version, oldSize, operations, items, newPlaylist);
+        if (getSizeInBytes(update.mItemParcels) > MAX_ITEMS_SIZE_IN_BYTES) {
+            return createFull(version, newPlaylist);
+        }
+        return update;
+    }
+
+    private static int getSizeInBytes(List<ParcelImpl> itemParcels) {
+        if (itemParcels.isEmpty()) {
+            return 0;
+        }
+        Parcel parcel = Parcel.obtain();
+        try {
+            for (int i = 0; i < itemParcels.size(); i++) {
+                parcel.writeParcelable(itemParcels.get(i), 0);
+            }
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Returns whether the first item of the range in {@code from} has been moved to the end of the
+     * range in {@code to}, the other items keeping their order.
+     */
+    private static boolean isMovedToEnd(List<MediaItem> from, List<MediaItem> to, int start,
+            int count) {
+        if (count < 2 || from.get(start) != to.get(start + count - 1)) {
+            return false;
+        }
+        for (int i = 1; i < count; i++) {
+            if (from.get(start + i) != to.get(start + i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the whole playlist has to be sent with this update.
+     */
+    boolean isFull() {
+        return mBaseVersion == VERSION_NONE;
+    }
+
+    int getBaseVersion() {
+        return mBaseVersion;
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    int getBaseSize() {
+        return mBaseSize;
+    }
+
+    /**
+     * Returns the whole playlist after this update. Only available in the session.
+     */
+    @Nullable
+    List<MediaItem> getPlaylist() {
+        return mPlaylist;
+    }
+
+    /**
+     * Applies this incremental update to the given playlist.
+     *
+     * @param playlist the playlist to update, which isn't modified
+     * @param version the version of the playlist
+     * @return the updated playlist, or {@code null} if the given playlist isn't the base of this
+     *         update and a full update is needed
+     */
+    @Nullable
+    List<MediaItem> applyTo(@Nullable List<MediaItem> playlist, int version) {
+        if (playlist == null || isFull() || version != mBaseVersion
+                || playlist.size() != mBaseSize) {
+            return null;
+        }
+        final List<ParcelImpl> itemParcels = mItemParcels == null
+                ? Collections.<ParcelImpl>emptyList() : mItemParcels;
+        final ArrayList<MediaItem> result = new ArrayList<>(playlist);
+        int nextItem = 0;
+        for (int i = 0; i + 2 < mOperations.length; i += 3) {
+            final int index = mOperations[i + 1];
+            final int argument = mOperations[i + 2];
+            final int size = result.size();
+            switch (mOperations[i]) {
+                case OP_INSERT:
+                    if (index < 0 || index > size || argument < 0
+                            || nextItem + argument > itemParcels.size()) {
+                        return null;
+                    }
+                    result.addAll(index, toMediaItems(itemParcels, nextItem, argument));
+                    nextItem += argument;
+                    break;
+                case OP_REMOVE:
+                    if (index < 0 || argument < 0 || index + argument > size) {
+                        return null;
+                    }
+                    result.subList(index, index + argument).clear();
+                    break;
+                case OP_MOVE:
+                    if (index < 0 || index >= size || argument < 0 || argument >= size) {
+                        return null;
+                    }
+                    result.add(argument, result.remove(index));
+                    break;
+                case OP_REPLACE:
+                    if (index < 0 || argument < 0 || index + argument > size
+                            || nextItem + argument > itemParcels.size()) {
+                        return null;
+                    }
+                    for (int j = 0; j < argument; j++) {
+                        MediaItem item = MediaUtils.fromParcelable(itemParcels.get(nextItem++));
+                        result.set(index + j, item);
+                    }
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return result;
+    }
+
+    private static List<MediaItem> toMediaItems(List<ParcelImpl> itemParcels, int start,
+            int count) {
+        List<MediaItem> items = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            items.add((MediaItem) MediaUtils.fromParcelable(itemParcels.get(i)));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.core.util.Preconditions;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A {@link DataSourceCallback} that caches the data of another {@link DataSourceCallback} in
+ * blocks, and reads ahead while the data is read sequentially.
+ * <p>
+ * Media players tend to read small chunks of data, so each of their reads becomes a call to
+ * {@link DataSourceCallback#readAt}. Wrap your callback with this class when these calls are
+ * expensive, e.g. when the data needs to be decrypted, to read larger blocks at once:
+ * <pre>
+ * CallbackMediaItem item = new CallbackMediaItem.Builder(
+ *         new ReadAheadDataSourceCallback(myDataSourceCallback)).build();
+ * </pre>
+ * The data is read in blocks aligned on multiples of the block size. While reads are sequential,
+ * the number of blocks read at once doubles up to half the number of cached blocks. A read
+ * elsewhere, e.g. after a seek, resets it to one block, and drops the blocks that were read ahead
+ * but never used. The memory used for the blocks is bounded by the cache size and reused.
+ * <p>
+ * The data of the wrapped callback is assumed not to change. Closing this callback closes the
+ * wrapped one.
+ */
+public final class ReadAheadDataSourceCallback extends DataSourceCallback {
+    /** Default size of the blocks, in bytes. */
+    public static final int DEFAULT_BLOCK_SIZE = 32 * 1024;
+
+    /** Default maximum size of the cached blocks, in bytes. */
+    public static final int DEFAULT_CACHE_SIZE = 1024 * 1024;
+
+    // Less blocks would leave no room for reading ahead.
+    private static final int MIN_BLOCK_COUNT = 2;
+
+    private static final long SIZE_NOT_FETCHED = -2;
+
+    private final Object mLock = new Object();
+    private final DataSourceCallback mDataSourceCallback;
+    private final int mBlockSize;
+    private final int mMaxBlockCount;
+    private final int mMaxReadAheadBlockCount;
+
+    // Cached blocks by block index, from the least recently used.
+    @GuardedBy("mLock")
+    private final LinkedHashMap<Long, Block> mBlocks = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("mLock")
+    private final ArrayDeque<byte[]> mFreeBuffers = new ArrayDeque<>();
+    @GuardedBy("mLock")
+    private int mAllocatedBufferCount;
+    // Holds the data read at once from the wrapped callback, before it's split into blocks.
+    @GuardedBy("mLock")
+    private byte[] mReadBuffer;
+    @GuardedBy("mLock")
+    private long mNextPosition = -1;
+    @GuardedBy("mLock")
+    private int mReadAheadBlockCount = 1;
+    @GuardedBy("mLock")
+    private long mSize = SIZE_NOT_FETCHED;
+    @GuardedBy("mLock")
+    private int mHitCount;
+    @GuardedBy("mLock")
+    private int mMissCount;
+
+    /**
+     * Creates a callback caching the data of the given callback with the default block size and
+     * cache size.
+     *
+     * @param dataSourceCallback the callback to read the data from
+     */
+    public ReadAheadDataSourceCallback(@NonNull DataSourceCallback dataSourceCallback) {
+        this(dataSourceCallback, DEFAULT_BLOCK_SIZE, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a callback caching the data of the given callback.
+     *
+     * @param dataSourceCallback the callback to read the data from
+     * @param blockSize the size of the blocks, in bytes
+     * @param cacheSize the maximum size of the cached blocks, in bytes. At least two blocks are
+     *                  cached.
+     */
+    public ReadAheadDataSourceCallback(@NonNull DataSourceCallback dataSourceCallback,
+            @IntRange(from = 1) int blockSize, @IntRange(from = 1) int cacheSize) {
+        Preconditions.checkNotNull(dataSourceCallback);
+        Preconditions.checkArgument(blockSize > 0, "blockSize should be positive");
+        Preconditions.checkArgument(cacheSize > 0, "cacheSize should be positive");
+        mDataSourceCallback = dataSourceCallback;
+        mBlockSize = blockSize;
+        mMaxBlockCount = Math.max(MIN_BLOCK_COUNT, cacheSize / blockSize);
+        mMaxReadAheadBlockCount = mMaxBlockCount / 2;
+    }
+
+    @Override
+    public int readAt(long position, @NonNull byte[] buffer, int offset, int size)
+            throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        synchronized (mLock) {
+            updateReadAheadLocked(position);
+            boolean hit = true;
+            boolean endOfData = false;
+            int bytesRead = 0;
+            while (bytesRead < size) {
+                final long currentPosition = position + bytesRead;
+                final long index = currentPosition / mBlockSize;
+                final int blockOffset = (int) (currentPosition - index * mBlockSize);
+                Block block = mBlocks.get(index);
+                if (block == null) {
+                    hit = false;
+                    block = fetchBlocksLocked(index);
+                    if (block == null) {
+                        endOfData = true;
+                        break;
+                    }
+                }
+                if (blockOffset >= block.mLength) {
+                    endOfData = block.mEndOfData;
+                    break;
+                }
+                final int length = Math.min(size - bytesRead, block.mLength - blockOffset);
+                System.arraycopy(block.mData, blockOffset, buffer, offset + bytesRead, length);
+                block.mUsed = true;
+                bytesRead += length;
+                if (block.mLength < mBlockSize) {
+                    // End of the data, or a short read of the wrapped callback.
+                    break;
+                }
+            }
+            if (hit) {
+                mHitCount++;
+            } else {
+                mMissCount++;
+            }
+            mNextPosition = position + bytesRead;
+            if (bytesRead == 0 && endOfData) {
+                return -1;
+            }
+            return bytesRead;
+        }
+    }
+
+    @Override
+    public long getSize() throws IOException {
+        synchronized (mLock) {
+            if (mSize == SIZE_NOT_FETCHED) {
+                mSize = mDataSourceCallback.getSize();
+            }
+            return mSize;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (mLock) {
+            mBlocks.clear();
+            mFreeBuffers.clear();
+            mAllocatedBufferCount = 0;
+            mReadBuffer = null;
+            mNextPosition = -1;
+            mReadAheadBlockCount = 1;
+        }
+        mDataSourceCallback.close();
+    }
+
+    /**
+     * Returns the number of {@link #readAt} calls served from the cached blocks only.
+     */
+    public int getHitCount() {
+        synchronized (mLock) {
+            return mHitCount;
+        }
+    }
+
+    /**
+     * Returns the number of {@link #readAt} calls which needed to read from the wrapped callback.
+     */
+    public int getMissCount() {
+        synchronized (mLock) {
+            return mMissCount;
+        }
+    }
+
+    @GuardedBy("mLock")
+    private void updateReadAheadLocked(long position) {
+        if (position == mNextPosition) {
+            return;
+        }
+        mReadAheadBlockCount = 1;
+        if (mNextPosition >= 0) {
+            // Seeked. What was read ahead for the previous position is unlikely to be used.
+            Iterator<Block> iterator = mBlocks.values().iterator();
+            while (iterator.hasNext()) {
+                Block block = iterator.next();
+                if (!block.mUsed) {
+                    iterator.remove();
+                    mFreeBuffers.push(block.mData);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the block at the given index and the following ones to read ahead with a single call
+     * to the wrapped callback, and caches them.
+     *
+     * @return the block at the given index, or null if there's no data there
+     */
+    @GuardedBy("mLock")
+    private Block fetchBlocksLocked(long index) throws IOException {
+        final long start = index * mBlockSize;
+        // Reads twice as much next time if the reads stay sequential.
+        final int readAheadBlockCount = mReadAheadBlockCount;
+        mReadAheadBlockCount = Math.min(readAheadBlockCount * 2, mMaxReadAheadBlockCount);
+        int blockCount = 1;
+        while (blockCount < readAheadBlockCount && !mBlocks.containsKey(index + blockCount)) {
+            blockCount++;
+        }
+        if (mSize >= 0) {
+            final long remainingBlockCount = (mSize - start + mBlockSize - 1) / mBlockSize;
+            blockCount = (int) Math.max(1, Math.min(blockCount, remainingBlockCount));
+        }
+        final int length = blockCount * mBlockSize;
+        if (mReadBuffer == null || mReadBuffer.length < length) {
+            mReadBuffer = new byte[mMaxReadAheadBlockCount * mBlockSize];
+        }
+
+        int bytesRead = 0;
+        boolean endOfData = false;
+        while (bytesRead < length) {
+            int result = mDataSourceCallback.readAt(start + bytesRead, mReadBuffer, bytesRead,
+                    length - bytesRead);
+            if (result <= 0) {
+                endOfData = result < 0;
+                break;
+            }
+            bytesRead += result;
+        }
+        if (bytesRead == 0 && endOfData) {
+            return null;
+        }
+        if (bytesRead < mBlockSize && !endOfData) {
+            // Short read of the wrapped callback. Return the data without caching it.
+            return new Block(mReadBuffer, bytesRead, false);
+        }
+        Block first = null;
+        for (int i = 0; i * mBlockSize < bytesRead; i++) {
+            final int blockLength = Math.min(mBlockSize, bytesRead - i * mBlockSize);
+            if (blockLength < mBlockSize && !endOfData) {
+                // Short read of the wrapped callback. Fetch the rest again when needed.
+                break;
+            }
+            final Block block = new Block(obtainBufferLocked(), blockLength,
+                    endOfData && (i + 1) * mBlockSize >= bytesRead);
+            System.arraycopy(mReadBuffer, i * mBlockSize, block.mData, 0, blockLength);
+            mBlocks.put(index + i, block);
+            if (i == 0) {
+                first = block;
+            }
+        }
+        return first;
+    }
+
+    @GuardedBy("mLock")
+    private byte[] obtainBufferLocked() {
+        if (!mFreeBuffers.isEmpty()) {
+            return mFreeBuffers.pop();
+        }
+        if (mAllocatedBufferCount < mMaxBlockCount) {
+            mAllocatedBufferCount++;
+            return new byte[mBlockSize];
+        }
+        // Evicts the least recently used block. Blocks being read ahead are more recent.
+        Iterator<Block> iterator = mBlocks.values().iterator();
+        Block eldest = iterator.next();
+        iterator.remove();
+        return eldest.mData;
+    }
+
+    private static final class Block {
+        final byte[] mData;
+        // Less than the block size only for the last block of the data, or for a block which
+        // isn't cached.
+        final int mLength;
+        final boolean mEndOfData;
+        boolean mUsed;
+
+        Block(byte[] data, int length, boolean endOfData) {
+            mData = data;
+            mLength = length;
+            mEndOfData = endOfData;
+        }
+    }
+}
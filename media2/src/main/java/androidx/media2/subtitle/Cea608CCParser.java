@@ -26,7 +26,6 @@ import android.text.style.UpdateAppearance;
 import android.util.Log;
 import android.view.accessibility.CaptioningManager.CaptionStyle;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
@@ -83,26 +82,38 @@ class Cea608CCParser {
     private CCMemory mNonDisplay = new CCMemory();
     private CCMemory mTextMem = new CCMemory();
 
+    // Reused for each byte pair.
+    private final CCData mCCData = new CCData();
+    private final char[] mDisplayChars = new char[2];
+    // Whether the display changed while parsing the data. It's updated once at the end, as the
+    // whole data is shown at the same time.
+    private boolean mDisplayChanged;
+
     Cea608CCParser(DisplayListener listener) {
         mListener = listener;
     }
 
     public void parse(byte[] data) {
-        CCData[] ccData = CCData.fromByteArray(data);
-
-        for (int i = 0; i < ccData.length; i++) {
+        final CCData ccData = mCCData;
+        for (int i = 0; i + 2 < data.length; i += 3) {
+            ccData.set(data[i], data[i + 1], data[i + 2]);
             if (DEBUG) {
-                Log.d(TAG, ccData[i].toString());
+                Log.d(TAG, ccData.toString());
             }
 
-            if (handleCtrlCode(ccData[i])
-                    || handleTabOffsets(ccData[i])
-                    || handlePACCode(ccData[i])
-                    || handleMidRowCode(ccData[i])) {
+            if (handleCtrlCode(ccData)
+                    || handleTabOffsets(ccData)
+                    || handlePACCode(ccData)
+                    || handleMidRowCode(ccData)) {
                 continue;
             }
 
-            handleDisplayableChars(ccData[i]);
+            handleDisplayableChars(ccData);
+        }
+
+        if (mDisplayChanged) {
+            mDisplayChanged = false;
+            updateDisplay();
         }
     }
 
@@ -139,10 +150,10 @@ class Cea608CCParser {
             getMemory().bs();
         }
 
-        getMemory().writeText(ccData.getDisplayText());
+        getMemory().writeText(mDisplayChars, ccData.getDisplayChars(mDisplayChars));
 
         if (mMode == MODE_PAINT_ON || mMode == MODE_ROLL_UP) {
-            updateDisplay();
+            mDisplayChanged = true;
         }
 
         return true;
@@ -231,7 +242,7 @@ class Cea608CCParser {
             case EDM:
                 // erase display memory
                 mDisplay.erase();
-                updateDisplay();
+                mDisplayChanged = true;
                 break;
             case CR:
                 if (mMode == MODE_ROLL_UP) {
@@ -240,7 +251,7 @@ class Cea608CCParser {
                     getMemory().cr();
                 }
                 if (mMode == MODE_ROLL_UP) {
-                    updateDisplay();
+                    mDisplayChanged = true;
                 }
                 break;
             case ENM:
@@ -252,7 +263,7 @@ class Cea608CCParser {
                 swapMemory();
                 // switch to pop-on style
                 mMode = MODE_POP_ON;
-                updateDisplay();
+                mDisplayChanged = true;
                 break;
             case INVALID:
             default:
@@ -296,10 +307,23 @@ class Cea608CCParser {
             "WHITE", "GREEN", "BLUE", "CYAN", "RED", "YELLOW", "MAGENTA", "INVALID"
         };
 
+        // Mid-row codes by the lower 4 bits of their second byte.
+        private static final StyleCode[] sMidRowStyles = new StyleCode[16];
+
+        static {
+            for (int i = 0; i < sMidRowStyles.length; i++) {
+                sMidRowStyles[i] = create((byte) i);
+            }
+        }
+
         final int mStyle;
         final int mColor;
 
         static StyleCode fromByte(byte data2) {
+            return sMidRowStyles[data2 & 0x0f];
+        }
+
+        private static StyleCode create(byte data2) {
             int style = 0;
             int color = (data2 >> 1) & 0x7;
 
@@ -351,12 +375,26 @@ class Cea608CCParser {
     }
 
     private static class PAC extends StyleCode {
+        private static final int[] sRowTable = {11, 1, 3, 12, 14, 5, 7, 9};
+
+        // PACs by the lower 3 bits of their first byte and the lower 6 bits of their second byte.
+        private static final PAC[] sPACs = new PAC[8 << 6];
+
+        static {
+            for (int i = 0; i < sPACs.length; i++) {
+                sPACs[i] = create((byte) (i >> 6), (byte) (i & 0x3f));
+            }
+        }
+
         final int mRow;
         final int mCol;
 
         static PAC fromBytes(byte data1, byte data2) {
-            int[] rowTable = {11, 1, 3, 12, 14, 5, 7, 9};
-            int row = rowTable[data1 & 0x07] + ((data2 & 0x20) >> 5);
+            return sPACs[(data1 & 0x07) << 6 | (data2 & 0x3f)];
+        }
+
+        private static PAC create(byte data1, byte data2) {
+            int row = sRowTable[data1 & 0x07] + ((data2 & 0x20) >> 5);
             int style = 0;
             if ((data2 & 1) != 0) {
                 style |= STYLE_UNDERLINE;
@@ -557,7 +595,7 @@ class Cea608CCParser {
                 for (int i = 0; i < mCol; i++) {
                     if (mLines[mRow].charAt(i) != TS) {
                         for (int j = mCol; j < mLines[mRow].length(); j++) {
-                            mLines[j].setCharAt(j, TS);
+                            mLines[mRow].setCharAt(j, TS);
                         }
                         return;
                     }
@@ -607,9 +645,9 @@ class Cea608CCParser {
             mCol = 1;
         }
 
-        void writeText(String text) {
-            for (int i = 0; i < text.length(); i++) {
-                getLineBuffer(mRow).setCharAt(mCol, text.charAt(i));
+        void writeText(char[] chars, int count) {
+            for (int i = 0; i < count; i++) {
+                getLineBuffer(mRow).setCharAt(mCol, chars[i]);
                 moveCursorByCol(1);
             }
         }
@@ -629,11 +667,11 @@ class Cea608CCParser {
         }
 
         SpannableStringBuilder[] getStyledText(CaptionStyle captionStyle) {
-            ArrayList<SpannableStringBuilder> rows = new ArrayList<>(MAX_ROWS);
+            SpannableStringBuilder[] rows = new SpannableStringBuilder[MAX_ROWS];
             for (int i = 1; i <= MAX_ROWS; i++) {
-                rows.add(mLines[i] != null ? mLines[i].getStyledText(captionStyle) : null);
+                rows[i - 1] = mLines[i] != null ? mLines[i].getStyledText(captionStyle) : null;
             }
-            return rows.toArray(new SpannableStringBuilder[MAX_ROWS]);
+            return rows;
         }
 
         private static int clamp(int x, int min, int max) {
@@ -699,9 +737,32 @@ class Cea608CCParser {
      * misc control codes, Mid-Row or Preamble Address Codes.
      */
     private static class CCData {
-        private final byte mType;
-        private final byte mData1;
-        private final byte mData2;
+        // What the byte pairs may be, by their first byte.
+        private static final byte KIND_NONE = 0;
+        private static final byte KIND_BASIC_CHARS = 1;
+        private static final byte KIND_CTRL_CODE = 2;
+        private static final byte KIND_TAB_OFFSET = 3;
+        private static final byte KIND_MID_ROW_OR_SPECIAL_CHAR = 4;
+        private static final byte KIND_SPANISH_CHAR = 5;
+        private static final byte KIND_PORTUGUESE_CHAR = 6;
+
+        private static final byte[] sKinds = new byte[256];
+
+        static {
+            Arrays.fill(sKinds, 0x20, 0x80, KIND_BASIC_CHARS);
+            for (int channel : new int[] {0x10, 0x18}) {
+                sKinds[channel | 0x01] = KIND_MID_ROW_OR_SPECIAL_CHAR;
+                sKinds[channel | 0x02] = KIND_SPANISH_CHAR;
+                sKinds[channel | 0x03] = KIND_PORTUGUESE_CHAR;
+                sKinds[channel | 0x04] = KIND_CTRL_CODE;
+                sKinds[channel | 0x07] = KIND_TAB_OFFSET;
+            }
+        }
+
+        private byte mType;
+        private byte mData1;
+        private byte mData2;
+        private int mKind;
 
         private static final String[] sCtrlCodeMap = {
             "RCL", "BS" , "AOF", "AON",
@@ -710,120 +771,127 @@ class Cea608CCParser {
             "EDM", "CR" , "ENM", "EOC",
         };
 
-        private static final String[] sSpecialCharMap = {
-            "\u00AE",
-            "\u00B0",
-            "\u00BD",
-            "\u00BF",
-            "\u2122",
-            "\u00A2",
-            "\u00A3",
-            "\u266A", // Eighth note
-            "\u00E0",
-            "\u00A0", // Transparent space
-            "\u00E8",
-            "\u00E2",
-            "\u00EA",
-            "\u00EE",
-            "\u00F4",
-            "\u00FB",
+        private static final char[] sSpecialCharMap = {
+            '\u00AE',
+            '\u00B0',
+            '\u00BD',
+            '\u00BF',
+            '\u2122',
+            '\u00A2',
+            '\u00A3',
+            '\u266A', // Eighth note
+            '\u00E0',
+            '\u00A0', // Transparent space
+            '\u00E8',
+            '\u00E2',
+            '\u00EA',
+            '\u00EE',
+            '\u00F4',
+            '\u00FB',
         };
 
-        private static final String[] sSpanishCharMap = {
+        private static final char[] sSpanishCharMap = {
             // Spanish and misc chars
-            "\u00C1", // A
-            "\u00C9", // E
-            "\u00D3", // I
-            "\u00DA", // O
-            "\u00DC", // U
-            "\u00FC", // u
-            "\u2018", // opening single quote
-            "\u00A1", // inverted exclamation mark
-            "*",
-            "'",
-            "\u2014", // em dash
-            "\u00A9", // Copyright
-            "\u2120", // Servicemark
-            "\u2022", // round bullet
-            "\u201C", // opening double quote
-            "\u201D", // closing double quote
+            '\u00C1', // A
+            '\u00C9', // E
+            '\u00D3', // I
+            '\u00DA', // O
+            '\u00DC', // U
+            '\u00FC', // u
+            '\u2018', // opening single quote
+            '\u00A1', // inverted exclamation mark
+            '*',
+            '\'',
+            '\u2014', // em dash
+            '\u00A9', // Copyright
+            '\u2120', // Servicemark
+            '\u2022', // round bullet
+            '\u201C', // opening double quote
+            '\u201D', // closing double quote
             // French
-            "\u00C0",
-            "\u00C2",
-            "\u00C7",
-            "\u00C8",
-            "\u00CA",
-            "\u00CB",
-            "\u00EB",
-            "\u00CE",
-            "\u00CF",
-            "\u00EF",
-            "\u00D4",
-            "\u00D9",
-            "\u00F9",
-            "\u00DB",
-            "\u00AB",
-            "\u00BB"
+            '\u00C0',
+            '\u00C2',
+            '\u00C7',
+            '\u00C8',
+            '\u00CA',
+            '\u00CB',
+            '\u00EB',
+            '\u00CE',
+            '\u00CF',
+            '\u00EF',
+            '\u00D4',
+            '\u00D9',
+            '\u00F9',
+            '\u00DB',
+            '\u00AB',
+            '\u00BB'
         };
 
-        private static final String[] sProtugueseCharMap = {
+        private static final char[] sProtugueseCharMap = {
             // Portuguese
-            "\u00C3",
-            "\u00E3",
-            "\u00CD",
-            "\u00CC",
-            "\u00EC",
-            "\u00D2",
-            "\u00F2",
-            "\u00D5",
-            "\u00F5",
-            "{",
-            "}",
-            "\\",
-            "^",
-            "_",
-            "|",
-            "~",
+            '\u00C3',
+            '\u00E3',
+            '\u00CD',
+            '\u00CC',
+            '\u00EC',
+            '\u00D2',
+            '\u00F2',
+            '\u00D5',
+            '\u00F5',
+            '{',
+            '}',
+            '\\',
+            '^',
+            '_',
+            '|',
+            '~',
             // German and misc chars
-            "\u00C4",
-            "\u00E4",
-            "\u00D6",
-            "\u00F6",
-            "\u00DF",
-            "\u00A5",
-            "\u00A4",
-            "\u2502", // vertical bar
-            "\u00C5",
-            "\u00E5",
-            "\u00D8",
-            "\u00F8",
-            "\u250C", // top-left corner
-            "\u2510", // top-right corner
-            "\u2514", // lower-left corner
-            "\u2518", // lower-right corner
+            '\u00C4',
+            '\u00E4',
+            '\u00D6',
+            '\u00F6',
+            '\u00DF',
+            '\u00A5',
+            '\u00A4',
+            '\u2502', // vertical bar
+            '\u00C5',
+            '\u00E5',
+            '\u00D8',
+            '\u00F8',
+            '\u250C', // top-left corner
+            '\u2510', // top-right corner
+            '\u2514', // lower-left corner
+            '\u2518', // lower-right corner
         };
 
-        static CCData[] fromByteArray(byte[] data) {
-            CCData[] ccData = new CCData[data.length / 3];
+        // Characters of the basic character set, which is ASCII except some of them.
+        private static final char[] sBasicCharMap = new char[0x80];
 
-            for (int i = 0; i < ccData.length; i++) {
-                ccData[i] = new CCData(
-                        data[i * 3],
-                        data[i * 3 + 1],
-                        data[i * 3 + 2]);
+        static {
+            for (int i = 0; i < sBasicCharMap.length; i++) {
+                sBasicCharMap[i] = (char) i;
             }
-
-            return ccData;
+            sBasicCharMap[0x2A] = '\u00E1';
+            sBasicCharMap[0x5C] = '\u00E9';
+            sBasicCharMap[0x5E] = '\u00ED';
+            sBasicCharMap[0x5F] = '\u00F3';
+            sBasicCharMap[0x60] = '\u00FA';
+            sBasicCharMap[0x7B] = '\u00E7';
+            sBasicCharMap[0x7C] = '\u00F7';
+            sBasicCharMap[0x7D] = '\u00D1';
+            sBasicCharMap[0x7E] = '\u00F1';
+            sBasicCharMap[0x7F] = '\u2588'; // Full block
         }
 
-        CCData(byte type, byte data1, byte data2) {
+        void set(byte type, byte data1, byte data2) {
             mType = type;
             mData1 = data1;
             mData2 = data2;
+            mKind = sKinds[data1 & 0xff];
         }
 
         int getCtrlCode() {
-            if ((mData1 == 0x14 || mData1 == 0x1c)
+            if (mKind == KIND_CTRL_CODE
                     && mData2 >= 0x20 && mData2 <= 0x2f) {
                 return mData2;
             }
@@ -833,7 +901,7 @@ class Cea608CCParser {
         StyleCode getMidRow() {
             // only support standard Mid-row codes, ignore
             // optional background/foreground mid-row codes
-            if ((mData1 == 0x11 || mData1 == 0x19)
+            if (mKind == KIND_MID_ROW_OR_SPECIAL_CHAR
                     && mData2 >= 0x20 && mData2 <= 0x2f) {
                 return StyleCode.fromByte(mData2);
             }
@@ -850,7 +918,7 @@ class Cea608CCParser {
         }
 
         int getTabOffset() {
-            if ((mData1 == 0x17 || mData1 == 0x1f)
+            if (mKind == KIND_TAB_OFFSET
                     && mData2 >= 0x21 && mData2 <= 0x23) {
                 return mData2 & 0x3;
             }
@@ -861,18 +929,35 @@ class Cea608CCParser {
             return isBasicChar() || isSpecialChar() || isExtendedChar();
         }
 
-        String getDisplayText() {
-            String str = getBasicChars();
-
-            if (str == null) {
-                str =  getSpecialChar();
-
-                if (str == null) {
-                    str = getExtendedChar();
+        /**
+         * Puts the displayable chars into the given array, which holds at least 2 chars.
+         *
+         * @return the number of chars
+         */
+        int getDisplayChars(char[] chars) {
+            if (isBasicChar()) {
+                chars[0] = sBasicCharMap[mData1];
+                if (mData2 >= 0x20 && mData2 <= 0x7f) {
+                    chars[1] = sBasicCharMap[mData2];
+                    return 2;
                 }
+                return 1;
             }
-
-            return str;
+            if (isSpecialChar()) {
+                chars[0] = sSpecialCharMap[mData2 - 0x30];
+                return 1;
+            }
+            if (mKind == KIND_SPANISH_CHAR && mData2 >= 0x20 && mData2 <= 0x3f) {
+                // 1 Spanish/French char
+                chars[0] = sSpanishCharMap[mData2 - 0x20];
+                return 1;
+            }
+            if (mKind == KIND_PORTUGUESE_CHAR && mData2 >= 0x20 && mData2 <= 0x3f) {
+                // 1 Portuguese/German/Danish char
+                chars[0] = sProtugueseCharMap[mData2 - 0x20];
+                return 1;
+            }
+            return 0;
         }
 
         private String ctrlCodeToString(int ctrlCode) {
@@ -880,71 +965,17 @@ class Cea608CCParser {
         }
 
         private boolean isBasicChar() {
-            return mData1 >= 0x20 && mData1 <= 0x7f;
+            return mKind == KIND_BASIC_CHARS;
         }
 
         private boolean isSpecialChar() {
-            return ((mData1 == 0x11 || mData1 == 0x19)
-                    && mData2 >= 0x30 && mData2 <= 0x3f);
+            return mKind == KIND_MID_ROW_OR_SPECIAL_CHAR
+                    && mData2 >= 0x30 && mData2 <= 0x3f;
         }
 
         boolean isExtendedChar() {
-            return ((mData1 == 0x12 || mData1 == 0x1A
-                    || mData1 == 0x13 || mData1 == 0x1B)
-                    && mData2 >= 0x20 && mData2 <= 0x3f);
-        }
-
-        private char getBasicChar(byte data) {
-            char c;
-            // replace the non-ASCII ones
-            switch (data) {
-                case 0x2A: c = '\u00E1'; break;
-                case 0x5C: c = '\u00E9'; break;
-                case 0x5E: c = '\u00ED'; break;
-                case 0x5F: c = '\u00F3'; break;
-                case 0x60: c = '\u00FA'; break;
-                case 0x7B: c = '\u00E7'; break;
-                case 0x7C: c = '\u00F7'; break;
-                case 0x7D: c = '\u00D1'; break;
-                case 0x7E: c = '\u00F1'; break;
-                case 0x7F: c = '\u2588'; break; // Full block
-                default: c = (char) data; break;
-            }
-            return c;
-        }
-
-        private String getBasicChars() {
-            if (mData1 >= 0x20 && mData1 <= 0x7f) {
-                StringBuilder builder = new StringBuilder(2);
-                builder.append(getBasicChar(mData1));
-                if (mData2 >= 0x20 && mData2 <= 0x7f) {
-                    builder.append(getBasicChar(mData2));
-                }
-                return builder.toString();
-            }
-
-            return null;
-        }
-
-        private String getSpecialChar() {
-            if ((mData1 == 0x11 || mData1 == 0x19)
-                    && mData2 >= 0x30 && mData2 <= 0x3f) {
-                return sSpecialCharMap[mData2 - 0x30];
-            }
-
-            return null;
-        }
-
-        private String getExtendedChar() {
-            if ((mData1 == 0x12 || mData1 == 0x1A) && mData2 >= 0x20 && mData2 <= 0x3f) {
-                // 1 Spanish/French char
-                return sSpanishCharMap[mData2 - 0x20];
-            } else if ((mData1 == 0x13 || mData1 == 0x1B) && mData2 >= 0x20 && mData2 <= 0x3f) {
-                // 1 Portuguese/German/Danish char
-                return sProtugueseCharMap[mData2 - 0x20];
-            }
-
-            return null;
+            return (mKind == KIND_SPANISH_CHAR || mKind == KIND_PORTUGUESE_CHAR)
+                    && mData2 >= 0x20 && mData2 <= 0x3f;
         }
 
         @Override
@@ -977,8 +1008,9 @@ class Cea608CCParser {
             }
 
             if (isDisplayableChar()) {
+                char[] chars = new char[2];
                 return String.format("[%d]Displayable: %s (%02x %02x)",
-                        mType, getDisplayText(), mData1, mData2);
+                        mType, new String(chars, 0, getDisplayChars(chars)), mData1, mData2);
             }
 
             return String.format("[%d]Invalid: %02x %02x", mType, mData1, mData2);
@@ -18,10 +18,14 @@ package androidx.media2.subtitle;
 
 import android.graphics.Color;
 import android.util.Log;
+import android.util.LongSparseArray;
+import android.util.SparseArray;
 
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 
 // Note: This is forked from android.media.Cea708CCParser since P
 /**
@@ -55,8 +59,7 @@ import java.util.Arrays;
  * In here, we listen at most one chosen caption track by service number. Otherwise, just skip the
  * other service blocks.
  *
- * <h3>Step 4. Interpreting Service Block Data ({@link #parseServiceBlockData}, {@code parseXX},
- * and {@link #parseExt1} methods)</h3>
+ * <h3>Step 4. Interpreting Service Block Data ({@link #parse})</h3>
  *
  * <p>Service block data is actual caption stream. it looks similar to telnet. It uses most parts of
  * ASCII table and consists of specially defined commands and some ASCII control codes which work
@@ -70,9 +73,9 @@ import java.util.Arrays;
  * <p>4 main code groups: C0, C1, G0, G1
  * <br>4 extended code groups: C2, C3, G2, G3
  *
- * <p>Each code group has its own handle method. For example, {@link #parseC0} handles C0 code group
- * and so on. And {@link #parseServiceBlockData} method maps a stream on the main code groups while
- * {@link #parseExt1} method maps on the extended code groups.
+ * <p>The codes are looked up in tables built once from the ranges of the code groups, which give
+ * what to do with each code and how many parameter bytes follow it. Runs of characters are put
+ * into the buffer at once.
  *
  * <p>The main code groups:
  * <ul>
@@ -96,11 +99,52 @@ class Cea708CCParser {
     private static final String TAG = "Cea708CCParser";
     private static final boolean DEBUG = false;
 
-    private static final String MUSIC_NOTE_CHAR = new String(
-            "\u266B".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    private static final char MUSIC_NOTE_CHAR = '\u266B';
+
+    // What parse() does with a code of the main code groups.
+    private static final byte KIND_IGNORED = 0;
+    private static final byte KIND_TEXT = 1;
+    private static final byte KIND_CONTROL = 2;
+    private static final byte KIND_COMMAND = 3;
+    private static final byte KIND_P16 = 4;
+    private static final byte KIND_EXT1 = 5;
+
+    // The following tables are indexed by the codes of the main code groups.
+    private static final byte[] CODE_KINDS = new byte[256];
+    // The characters put into the buffer by KIND_TEXT codes.
+    private static final char[] CODE_CHARS = new char[256];
+    // The events emitted by KIND_COMMAND codes.
+    private static final byte[] CODE_EVENT_TYPES = new byte[256];
+    // The number of parameter bytes following the codes.
+    private static final byte[] CODE_PARAM_LENGTHS = new byte[256];
+    // The number of parameter bytes following the codes of the extended code groups.
+    private static final byte[] EXT1_PARAM_LENGTHS = new byte[256];
+
+    // Window bitmaps, window IDs and delays boxed once, as the events carry them as objects.
+    private static final Integer[] BYTE_VALUES = new Integer[256];
+    // Colors by their encoding: two bits for each of opacity, red, green and blue.
+    private static final CaptionColor[] COLORS = new CaptionColor[256];
+
+    // Bounds the caches of the command parameters, which streams tend to repeat.
+    private static final int MAX_CACHED_PARAMS = 64;
+
+    private static final int INITIAL_CHARS_SIZE = 128;
 
     private final StringBuilder mBuilder = new StringBuilder();
-    private int mCommand = 0;
+    private char[] mChars = new char[INITIAL_CHARS_SIZE];
+
+    // Every event is emitted with this object. See CaptionEvent.
+    private final CaptionEvent mEvent = new CaptionEvent(0, null);
+
+    private final SparseArray<CaptionPenAttr> mPenAttrs = new SparseArray<>();
+    private final SparseArray<CaptionPenColor> mPenColors = new SparseArray<>();
+    private final SparseArray<CaptionPenLocation> mPenLocations = new SparseArray<>();
+    private final SparseArray<CaptionWindowAttr> mWindowAttrs = new SparseArray<>();
+    private final LongSparseArray<CaptionWindow> mWindows = new LongSparseArray<>();
+
+    private CharsetDecoder mP16Decoder;
+    private ByteBuffer mP16Bytes;
+    private CharBuffer mP16Chars;
 
     // Assign a dummy listener in order to avoid null checks.
     private DisplayListener mListener = new DisplayListener() {
@@ -120,7 +164,7 @@ class Cea708CCParser {
      * The observer must do the casting to the corresponding type.
      *
      * <ul><li>{@code CAPTION_EMIT_TYPE_BUFFER}: Passes a caption text buffer to a observer.
-     * {@code obj} must be of {@link String}.</li>
+     * {@code obj} must be of {@link CharSequence}.</li>
      *
      * <li>{@code CAPTION_EMIT_TYPE_CONTROL}: Passes a caption character control code to a observer.
      * {@code obj} must be of {@link Character}.</li>
@@ -145,6 +189,95 @@ class Cea708CCParser {
     public static final int CAPTION_EMIT_TYPE_COMMAND_SWA = 15;
     public static final int CAPTION_EMIT_TYPE_COMMAND_DFX = 16;
 
+    static {
+        for (int i = 0; i < 256; i++) {
+            BYTE_VALUES[i] = i;
+            COLORS[i] = new CaptionColor((i & 0xc0) >> 6, (i & 0x30) >> 4, (i & 0x0c) >> 2,
+                    i & 0x03);
+        }
+
+        // For the details of C0 code group, see CEA-708B Section 7.4.1.
+        // NUL, BS, FF, CR interpreted as they are in ASCII control codes.
+        // HCR moves the pen location to th beginning of the current line and deletes contents.
+        // FF clears the screen and moves the pen location to (0,0).
+        // ETX is the NULL command which is used to flush text to the current window when no
+        // other command is pending.
+        CODE_KINDS[Const.CODE_C0_ETX] = KIND_CONTROL;
+        CODE_KINDS[Const.CODE_C0_BS] = KIND_CONTROL;
+        CODE_KINDS[Const.CODE_C0_FF] = KIND_CONTROL;
+        CODE_KINDS[Const.CODE_C0_HCR] = KIND_CONTROL;
+        setText(Const.CODE_C0_CR, '\n');
+        setParamLengths(CODE_PARAM_LENGTHS, Const.CODE_C0_SKIP1_RANGE_START,
+                Const.CODE_C0_SKIP1_RANGE_END, 1);
+        setParamLengths(CODE_PARAM_LENGTHS, Const.CODE_C0_SKIP2_RANGE_START,
+                Const.CODE_C0_SKIP2_RANGE_END, 2);
+        // EXT1 is followed by a code of the extended code groups rather than a parameter.
+        CODE_KINDS[Const.CODE_C0_EXT1] = KIND_EXT1;
+        CODE_PARAM_LENGTHS[Const.CODE_C0_EXT1] = 1;
+        CODE_KINDS[Const.CODE_C0_P16] = KIND_P16;
+
+        // For the details of C1 code group, see CEA-708B Section 8.10.
+        for (int code = Const.CODE_C1_CW0; code <= Const.CODE_C1_CW7; code++) {
+            setCommand(code, CAPTION_EMIT_TYPE_COMMAND_CWX, 0);
+        }
+        setCommand(Const.CODE_C1_CLW, CAPTION_EMIT_TYPE_COMMAND_CLW, 1);
+        setCommand(Const.CODE_C1_DSW, CAPTION_EMIT_TYPE_COMMAND_DSW, 1);
+        setCommand(Const.CODE_C1_HDW, CAPTION_EMIT_TYPE_COMMAND_HDW, 1);
+        setCommand(Const.CODE_C1_TGW, CAPTION_EMIT_TYPE_COMMAND_TGW, 1);
+        setCommand(Const.CODE_C1_DLW, CAPTION_EMIT_TYPE_COMMAND_DLW, 1);
+        setCommand(Const.CODE_C1_DLY, CAPTION_EMIT_TYPE_COMMAND_DLY, 1);
+        setCommand(Const.CODE_C1_DLC, CAPTION_EMIT_TYPE_COMMAND_DLC, 0);
+        setCommand(Const.CODE_C1_RST, CAPTION_EMIT_TYPE_COMMAND_RST, 0);
+        setCommand(Const.CODE_C1_SPA, CAPTION_EMIT_TYPE_COMMAND_SPA, 2);
+        setCommand(Const.CODE_C1_SPC, CAPTION_EMIT_TYPE_COMMAND_SPC, 3);
+        setCommand(Const.CODE_C1_SPL, CAPTION_EMIT_TYPE_COMMAND_SPL, 2);
+        setCommand(Const.CODE_C1_SWA, CAPTION_EMIT_TYPE_COMMAND_SWA, 4);
+        for (int code = Const.CODE_C1_DF0; code <= Const.CODE_C1_DF7; code++) {
+            setCommand(code, CAPTION_EMIT_TYPE_COMMAND_DFX, 6);
+        }
+
+        // For the details of G0 and G1 code groups, see CEA-708B Section 7.4.3 and 7.4.4.
+        // G0 is ASCII except the music note, and G1 is ISO 8859-1 Latin 1.
+        for (int code = Const.CODE_G0_RANGE_START; code <= Const.CODE_G0_RANGE_END; code++) {
+            setText(code, (char) code);
+        }
+        setText(Const.CODE_G0_MUSICNOTE, MUSIC_NOTE_CHAR);
+        for (int code = Const.CODE_G1_RANGE_START; code <= Const.CODE_G1_RANGE_END; code++) {
+            setText(code, (char) code);
+        }
+
+        // For the details of C2 and C3 code groups, see CEA-708B Section 7.4.7 and 7.4.8. They
+        // have no commands as of CEA-708B, so a decoder must skip them.
+        // TODO: Handle G2 (TSP, NBTSP, BLK...) and G3 ([CC] icon), which have no parameters.
+        setParamLengths(EXT1_PARAM_LENGTHS, Const.CODE_C2_SKIP1_RANGE_START,
+                Const.CODE_C2_SKIP1_RANGE_END, 1);
+        setParamLengths(EXT1_PARAM_LENGTHS, Const.CODE_C2_SKIP2_RANGE_START,
+                Const.CODE_C2_SKIP2_RANGE_END, 2);
+        setParamLengths(EXT1_PARAM_LENGTHS, Const.CODE_C2_SKIP3_RANGE_START,
+                Const.CODE_C2_SKIP3_RANGE_END, 3);
+        setParamLengths(EXT1_PARAM_LENGTHS, Const.CODE_C3_SKIP4_RANGE_START,
+                Const.CODE_C3_SKIP4_RANGE_END, 4);
+        setParamLengths(EXT1_PARAM_LENGTHS, Const.CODE_C3_SKIP5_RANGE_START,
+                Const.CODE_C3_SKIP5_RANGE_END, 5);
+    }
+
+    private static void setText(int code, char c) {
+        CODE_KINDS[code] = KIND_TEXT;
+        CODE_CHARS[code] = c;
+    }
+
+    private static void setCommand(int code, int eventType, int paramLength) {
+        CODE_KINDS[code] = KIND_COMMAND;
+        CODE_EVENT_TYPES[code] = (byte) eventType;
+        CODE_PARAM_LENGTHS[code] = (byte) paramLength;
+    }
+
+    private static void setParamLengths(byte[] paramLengths, int start, int end, int length) {
+        for (int code = start; code <= end; code++) {
+            paramLengths[code] = (byte) length;
+        }
+    }
+
     Cea708CCParser(DisplayListener listener) {
         if (listener != null) {
             mListener = listener;
@@ -155,487 +288,265 @@ class Cea708CCParser {
         void emitEvent(CaptionEvent event);
     }
 
-    private void emitCaptionEvent(CaptionEvent captionEvent) {
+    private void emitCaptionEvent(int type, Object obj) {
         // Emit the existing string buffer before a new event is arrived.
         emitCaptionBuffer();
-        mListener.emitEvent(captionEvent);
+        emit(type, obj);
     }
 
     private void emitCaptionBuffer() {
         if (mBuilder.length() > 0) {
-            mListener.emitEvent(new CaptionEvent(CAPTION_EMIT_TYPE_BUFFER, mBuilder.toString()));
+            emit(CAPTION_EMIT_TYPE_BUFFER, mBuilder);
             mBuilder.setLength(0);
         }
     }
 
+    private void emit(int type, Object obj) {
+        mEvent.type = type;
+        mEvent.obj = obj;
+        mListener.emitEvent(mEvent);
+        mEvent.obj = null;
+    }
+
     // Step 3. DTVCC packet -> Service Blocks (parseDtvCcPacket method)
     public void parse(byte[] data) {
         // From this point, starts to read DTVCC coding layer.
         // First, identify code groups, which is defined in CEA-708B Section 7.1.
         int pos = 0;
         while (pos < data.length) {
-            pos = parseServiceBlockData(data, pos);
+            final int code = data[pos] & 0xff;
+            final int kind = CODE_KINDS[code];
+            if (kind == KIND_TEXT) {
+                pos = appendText(data, pos);
+                continue;
+            }
+            ++pos;
+            final int paramLength = CODE_PARAM_LENGTHS[code];
+            if (pos + paramLength > data.length) {
+                Log.w(TAG, "Truncated code " + code);
+                break;
+            }
+            switch (kind) {
+                case KIND_CONTROL:
+                    emitCaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) code);
+                    break;
+                case KIND_COMMAND:
+                    parseCommand(code, data, pos);
+                    break;
+                case KIND_P16:
+                    appendP16Char(data[pos], data[pos + 1]);
+                    break;
+                case KIND_EXT1:
+                    pos += EXT1_PARAM_LENGTHS[data[pos] & 0xff];
+                    break;
+            }
+            pos += paramLength;
         }
 
         // Emit the buffer after reading codes.
         emitCaptionBuffer();
     }
 
-    // Step 4. Main code groups
-    private int parseServiceBlockData(byte[] data, int pos) {
-        // For the details of the ranges of DTVCC code groups, see CEA-708B Table 6.
-        mCommand = data[pos] & 0xff;
-        ++pos;
-        if (mCommand == Const.CODE_C0_EXT1) {
-            if (DEBUG) {
-                Log.d(TAG, String.format("parseServiceBlockData EXT1 %x", mCommand));
-            }
-            pos = parseExt1(data, pos);
-        } else if (mCommand >= Const.CODE_C0_RANGE_START
-                && mCommand <= Const.CODE_C0_RANGE_END) {
-            if (DEBUG) {
-                Log.d(TAG, String.format("parseServiceBlockData C0 %x", mCommand));
-            }
-            pos = parseC0(data, pos);
-        } else if (mCommand >= Const.CODE_C1_RANGE_START
-                && mCommand <= Const.CODE_C1_RANGE_END) {
-            if (DEBUG) {
-                Log.d(TAG, String.format("parseServiceBlockData C1 %x", mCommand));
-            }
-            pos = parseC1(data, pos);
-        } else if (mCommand >= Const.CODE_G0_RANGE_START
-                && mCommand <= Const.CODE_G0_RANGE_END) {
-            if (DEBUG) {
-                Log.d(TAG, String.format("parseServiceBlockData G0 %x", mCommand));
-            }
-            pos = parseG0(data, pos);
-        } else if (mCommand >= Const.CODE_G1_RANGE_START
-                && mCommand <= Const.CODE_G1_RANGE_END) {
-            if (DEBUG) {
-                Log.d(TAG, String.format("parseServiceBlockData G1 %x", mCommand));
+    // Puts the run of text codes starting at the given position into the buffer at once.
+    private int appendText(byte[] data, int pos) {
+        if (mChars.length < data.length - pos) {
+            mChars = new char[data.length - pos];
+        }
+        final char[] chars = mChars;
+        int count = 0;
+        while (pos < data.length) {
+            final int code = data[pos] & 0xff;
+            if (CODE_KINDS[code] != KIND_TEXT) {
+                break;
             }
-            pos = parseG1(data, pos);
+            chars[count++] = CODE_CHARS[code];
+            ++pos;
         }
+        mBuilder.append(chars, 0, count);
         return pos;
     }
 
-    private int parseC0(byte[] data, int pos) {
-        // For the details of C0 code group, see CEA-708B Section 7.4.1.
-        // CL Group: C0 Subset of ASCII Control codes
-        if (mCommand >= Const.CODE_C0_SKIP2_RANGE_START
-                && mCommand <= Const.CODE_C0_SKIP2_RANGE_END) {
-            if (mCommand == Const.CODE_C0_P16) {
-                // P16 escapes next two bytes for the large character maps.(no standard rule)
-                // For Korea broadcasting, express whole letters by using this.
-                try {
-                    if (data[pos] == 0) {
-                        mBuilder.append((char) data[pos + 1]);
-                    } else {
-                        String value = new String(Arrays.copyOfRange(data, pos, pos + 2), "EUC-KR");
-                        mBuilder.append(value);
-                    }
-                } catch (UnsupportedEncodingException e) {
-                    Log.e(TAG, "P16 Code - Could not find supported encoding", e);
-                }
-            }
-            pos += 2;
-        } else if (mCommand >= Const.CODE_C0_SKIP1_RANGE_START
-                && mCommand <= Const.CODE_C0_SKIP1_RANGE_END) {
-            ++pos;
-        } else {
-            // NUL, BS, FF, CR interpreted as they are in ASCII control codes.
-            // HCR moves the pen location to th beginning of the current line and deletes contents.
-            // FF clears the screen and moves the pen location to (0,0).
-            // ETX is the NULL command which is used to flush text to the current window when no
-            // other command is pending.
-            switch (mCommand) {
-                case Const.CODE_C0_NUL:
-                    break;
-                case Const.CODE_C0_ETX:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
-                    break;
-                case Const.CODE_C0_BS:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
-                    break;
-                case Const.CODE_C0_FF:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
-                    break;
-                case Const.CODE_C0_CR:
-                    mBuilder.append('\n');
-                    break;
-                case Const.CODE_C0_HCR:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
-                    break;
-                default:
-                    break;
+    private void appendP16Char(byte first, byte second) {
+        // P16 escapes next two bytes for the large character maps.(no standard rule)
+        // For Korea broadcasting, express whole letters by using this.
+        if (first == 0) {
+            mBuilder.append((char) (second & 0xff));
+            return;
+        }
+        if (mP16Decoder == null) {
+            try {
+                mP16Decoder = Charset.forName("EUC-KR").newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "P16 Code - Could not find supported encoding", e);
+                return;
             }
+            mP16Bytes = ByteBuffer.allocate(2);
+            mP16Chars = CharBuffer.allocate(2);
         }
-        return pos;
+        mP16Bytes.clear();
+        mP16Bytes.put(first).put(second).flip();
+        mP16Chars.clear();
+        mP16Decoder.reset();
+        mP16Decoder.decode(mP16Bytes, mP16Chars, true);
+        mP16Decoder.flush(mP16Chars);
+        mP16Chars.flip();
+        mBuilder.append(mP16Chars);
     }
 
-    private int parseC1(byte[] data, int pos) {
+    private void parseCommand(int code, byte[] data, int pos) {
         // For the details of C1 code group, see CEA-708B Section 8.10.
         // CR Group: C1 Caption Control Codes
-        switch (mCommand) {
-            case Const.CODE_C1_CW0:
-            case Const.CODE_C1_CW1:
-            case Const.CODE_C1_CW2:
-            case Const.CODE_C1_CW3:
-            case Const.CODE_C1_CW4:
-            case Const.CODE_C1_CW5:
-            case Const.CODE_C1_CW6:
-            case Const.CODE_C1_CW7: {
+        final int type = CODE_EVENT_TYPES[code];
+        if (DEBUG) {
+            Log.d(TAG, String.format("CaptionCommand type: %d, code: %x", type, code));
+        }
+        switch (type) {
+            case CAPTION_EMIT_TYPE_COMMAND_CWX:
                 // SetCurrentWindow0-7
-                int windowId = mCommand - Const.CODE_C1_CW0;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_CWX, windowId));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand CWX windowId: %d", windowId));
-                }
+                emitCaptionEvent(type, BYTE_VALUES[code - Const.CODE_C1_CW0]);
                 break;
-            }
-
-            case Const.CODE_C1_CLW: {
-                // ClearWindows
-                int windowBitmap = data[pos] & 0xff;
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_CLW, windowBitmap));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand CLW windowBitmap: %d", windowBitmap));
-                }
-                break;
-            }
-
-            case Const.CODE_C1_DSW: {
-                // DisplayWindows
-                int windowBitmap = data[pos] & 0xff;
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_DSW, windowBitmap));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand DSW windowBitmap: %d", windowBitmap));
-                }
-                break;
-            }
-
-            case Const.CODE_C1_HDW: {
-                // HideWindows
-                int windowBitmap = data[pos] & 0xff;
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_HDW, windowBitmap));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand HDW windowBitmap: %d", windowBitmap));
-                }
-                break;
-            }
-
-            case Const.CODE_C1_TGW: {
-                // ToggleWindows
-                int windowBitmap = data[pos] & 0xff;
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_TGW, windowBitmap));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand TGW windowBitmap: %d", windowBitmap));
-                }
-                break;
-            }
-
-            case Const.CODE_C1_DLW: {
-                // DeleteWindows
-                int windowBitmap = data[pos] & 0xff;
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_DLW, windowBitmap));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand DLW windowBitmap: %d", windowBitmap));
-                }
+            case CAPTION_EMIT_TYPE_COMMAND_CLW:
+            case CAPTION_EMIT_TYPE_COMMAND_DSW:
+            case CAPTION_EMIT_TYPE_COMMAND_HDW:
+            case CAPTION_EMIT_TYPE_COMMAND_TGW:
+            case CAPTION_EMIT_TYPE_COMMAND_DLW:
+            case CAPTION_EMIT_TYPE_COMMAND_DLY:
+                // The window bitmap, or the delay in tenths of seconds.
+                emitCaptionEvent(type, BYTE_VALUES[data[pos] & 0xff]);
                 break;
-            }
-
-            case Const.CODE_C1_DLY: {
-                // Delay
-                int tenthsOfSeconds = data[pos] & 0xff;
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_DLY, tenthsOfSeconds));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand DLY %d tenths of seconds",
-                            tenthsOfSeconds));
-                }
-                break;
-            }
-            case Const.CODE_C1_DLC: {
-                // DelayCancel
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_DLC, null));
-                if (DEBUG) {
-                    Log.d(TAG, "CaptionCommand DLC");
-                }
-                break;
-            }
-
-            case Const.CODE_C1_RST: {
-                // Reset
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_RST, null));
-                if (DEBUG) {
-                    Log.d(TAG, "CaptionCommand RST");
-                }
+            case CAPTION_EMIT_TYPE_COMMAND_DLC:
+            case CAPTION_EMIT_TYPE_COMMAND_RST:
+                emitCaptionEvent(type, null);
                 break;
-            }
-
-            case Const.CODE_C1_SPA: {
-                // SetPenAttributes
-                int textTag = (data[pos] & 0xf0) >> 4;
-                int penSize = data[pos] & 0x03;
-                int penOffset = (data[pos] & 0x0c) >> 2;
-                boolean italic = (data[pos + 1] & 0x80) != 0;
-                boolean underline = (data[pos + 1] & 0x40) != 0;
-                int edgeType = (data[pos + 1] & 0x38) >> 3;
-                int fontTag = data[pos + 1] & 0x7;
-                pos += 2;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_SPA,
-                        new CaptionPenAttr(penSize, penOffset, textTag, fontTag, edgeType,
-                                underline, italic)));
-                if (DEBUG) {
-                    Log.d(TAG, String.format(
-                            "CaptionCommand SPA penSize: %d, penOffset: %d, textTag: %d, "
-                                    + "fontTag: %d, edgeType: %d, underline: %s, italic: %s",
-                            penSize, penOffset, textTag, fontTag, edgeType, underline, italic));
-                }
+            case CAPTION_EMIT_TYPE_COMMAND_SPA:
+                emitCaptionEvent(type, getPenAttr(data, pos));
                 break;
-            }
-
-            case Const.CODE_C1_SPC: {
-                // SetPenColor
-                int opacity = (data[pos] & 0xc0) >> 6;
-                int red = (data[pos] & 0x30) >> 4;
-                int green = (data[pos] & 0x0c) >> 2;
-                int blue = data[pos] & 0x03;
-                CaptionColor foregroundColor = new CaptionColor(opacity, red, green, blue);
-                ++pos;
-                opacity = (data[pos] & 0xc0) >> 6;
-                red = (data[pos] & 0x30) >> 4;
-                green = (data[pos] & 0x0c) >> 2;
-                blue = data[pos] & 0x03;
-                CaptionColor backgroundColor = new CaptionColor(opacity, red, green, blue);
-                ++pos;
-                red = (data[pos] & 0x30) >> 4;
-                green = (data[pos] & 0x0c) >> 2;
-                blue = data[pos] & 0x03;
-                CaptionColor edgeColor = new CaptionColor(
-                        CaptionColor.OPACITY_SOLID, red, green, blue);
-                ++pos;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_SPC,
-                        new CaptionPenColor(foregroundColor, backgroundColor, edgeColor)));
-                if (DEBUG) {
-                    Log.d(TAG, String.format(
-                            "CaptionCommand SPC foregroundColor %s backgroundColor %s edgeColor %s",
-                            foregroundColor, backgroundColor, edgeColor));
-                }
-                break;
-            }
-
-            case Const.CODE_C1_SPL: {
-                // SetPenLocation
-                // column is normally 0-31 for 4:3 formats, and 0-41 for 16:9 formats
-                int row = data[pos] & 0x0f;
-                int column = data[pos + 1] & 0x3f;
-                pos += 2;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_SPL,
-                        new CaptionPenLocation(row, column)));
-                if (DEBUG) {
-                    Log.d(TAG, String.format("CaptionCommand SPL row: %d, column: %d",
-                            row, column));
-                }
+            case CAPTION_EMIT_TYPE_COMMAND_SPC:
+                emitCaptionEvent(type, getPenColor(data, pos));
                 break;
-            }
-
-            case Const.CODE_C1_SWA: {
-                // SetWindowAttributes
-                int opacity = (data[pos] & 0xc0) >> 6;
-                int red = (data[pos] & 0x30) >> 4;
-                int green = (data[pos] & 0x0c) >> 2;
-                int blue = data[pos] & 0x03;
-                CaptionColor fillColor = new CaptionColor(opacity, red, green, blue);
-                int borderType = (data[pos + 1] & 0xc0) >> 6 | (data[pos + 2] & 0x80) >> 5;
-                red = (data[pos + 1] & 0x30) >> 4;
-                green = (data[pos + 1] & 0x0c) >> 2;
-                blue = data[pos + 1] & 0x03;
-                CaptionColor borderColor = new CaptionColor(
-                        CaptionColor.OPACITY_SOLID, red, green, blue);
-                boolean wordWrap = (data[pos + 2] & 0x40) != 0;
-                int printDirection = (data[pos + 2] & 0x30) >> 4;
-                int scrollDirection = (data[pos + 2] & 0x0c) >> 2;
-                int justify = (data[pos + 2] & 0x03);
-                int effectSpeed = (data[pos + 3] & 0xf0) >> 4;
-                int effectDirection = (data[pos + 3] & 0x0c) >> 2;
-                int displayEffect = data[pos + 3] & 0x3;
-                pos += 4;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_SWA,
-                        new CaptionWindowAttr(fillColor, borderColor, borderType, wordWrap,
-                                printDirection, scrollDirection, justify,
-                                effectDirection, effectSpeed, displayEffect)));
-                if (DEBUG) {
-                    Log.d(TAG, String.format(
-                            "CaptionCommand SWA fillColor: %s, borderColor: %s, borderType: %d"
-                                    + "wordWrap: %s, printDirection: %d, scrollDirection: %d, "
-                                    + "justify: %s, effectDirection: %d, effectSpeed: %d, "
-                                    + "displayEffect: %d",
-                            fillColor, borderColor, borderType, wordWrap, printDirection,
-                            scrollDirection, justify, effectDirection, effectSpeed, displayEffect));
-                }
+            case CAPTION_EMIT_TYPE_COMMAND_SPL:
+                emitCaptionEvent(type, getPenLocation(data, pos));
                 break;
-            }
-
-            case Const.CODE_C1_DF0:
-            case Const.CODE_C1_DF1:
-            case Const.CODE_C1_DF2:
-            case Const.CODE_C1_DF3:
-            case Const.CODE_C1_DF4:
-            case Const.CODE_C1_DF5:
-            case Const.CODE_C1_DF6:
-            case Const.CODE_C1_DF7: {
-                // DefineWindow0-7
-                int windowId = mCommand - Const.CODE_C1_DF0;
-                boolean visible = (data[pos] & 0x20) != 0;
-                boolean rowLock = (data[pos] & 0x10) != 0;
-                boolean columnLock = (data[pos] & 0x08) != 0;
-                int priority = data[pos] & 0x07;
-                boolean relativePositioning = (data[pos + 1] & 0x80) != 0;
-                int anchorVertical = data[pos + 1] & 0x7f;
-                int anchorHorizontal = data[pos + 2] & 0xff;
-                int anchorId = (data[pos + 3] & 0xf0) >> 4;
-                int rowCount = data[pos + 3] & 0x0f;
-                int columnCount = data[pos + 4] & 0x3f;
-                int windowStyle = (data[pos + 5] & 0x38) >> 3;
-                int penStyle = data[pos + 5] & 0x07;
-                pos += 6;
-                emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_DFX,
-                        new CaptionWindow(windowId, visible, rowLock, columnLock, priority,
-                                relativePositioning, anchorVertical, anchorHorizontal, anchorId,
-                                rowCount, columnCount, penStyle, windowStyle)));
-                if (DEBUG) {
-                    Log.d(TAG, String.format(
-                            "CaptionCommand DFx windowId: %d, priority: %d, columnLock: %s, "
-                                    + "rowLock: %s, visible: %s, anchorVertical: %d, "
-                                    + "relativePositioning: %s, anchorHorizontal: %d, "
-                                    + "rowCount: %d, anchorId: %d, columnCount: %d, penStyle: %d, "
-                                    + "windowStyle: %d",
-                            windowId, priority, columnLock, rowLock, visible, anchorVertical,
-                            relativePositioning, anchorHorizontal, rowCount, anchorId, columnCount,
-                            penStyle, windowStyle));
-                }
+            case CAPTION_EMIT_TYPE_COMMAND_SWA:
+                emitCaptionEvent(type, getWindowAttr(data, pos));
                 break;
-            }
-
-            default:
+            case CAPTION_EMIT_TYPE_COMMAND_DFX:
+                emitCaptionEvent(type, getWindow(code - Const.CODE_C1_DF0, data, pos));
                 break;
         }
-        return pos;
     }
 
-    private int parseG0(byte[] data, int pos) {
-        // For the details of G0 code group, see CEA-708B Section 7.4.3.
-        // GL Group: G0 Modified version of ANSI X3.4 Printable Character Set (ASCII)
-        if (mCommand == Const.CODE_G0_MUSICNOTE) {
-            // Music note.
-            mBuilder.append(MUSIC_NOTE_CHAR);
-        } else {
-            // Put ASCII code into buffer.
-            mBuilder.append((char) mCommand);
+    // The following methods decode the parameters of the commands, or return the same objects
+    // as before for the same parameter bytes.
+
+    private CaptionPenAttr getPenAttr(byte[] data, int pos) {
+        final int key = (data[pos] & 0xff) << 8 | (data[pos + 1] & 0xff);
+        CaptionPenAttr penAttr = mPenAttrs.get(key);
+        if (penAttr == null) {
+            int textTag = (data[pos] & 0xf0) >> 4;
+            int penSize = data[pos] & 0x03;
+            int penOffset = (data[pos] & 0x0c) >> 2;
+            boolean italic = (data[pos + 1] & 0x80) != 0;
+            boolean underline = (data[pos + 1] & 0x40) != 0;
+            int edgeType = (data[pos + 1] & 0x38) >> 3;
+            int fontTag = data[pos + 1] & 0x7;
+            penAttr = new CaptionPenAttr(penSize, penOffset, textTag, fontTag, edgeType,
+                    underline, italic);
+            cache(mPenAttrs, key, penAttr);
         }
-        return pos;
-    }
-
-    private int parseG1(byte[] data, int pos) {
-        // For the details of G0 code group, see CEA-708B Section 7.4.4.
-        // GR Group: G1 ISO 8859-1 Latin 1 Characters
-        // Put ASCII Extended character set into buffer.
-        mBuilder.append((char) mCommand);
-        return pos;
+        return penAttr;
     }
 
-    // Step 4. Extended code groups
-    private int parseExt1(byte[] data, int pos) {
-        // For the details of EXT1 code group, see CEA-708B Section 7.2.
-        mCommand = data[pos] & 0xff;
-        ++pos;
-        if (mCommand >= Const.CODE_C2_RANGE_START
-                && mCommand <= Const.CODE_C2_RANGE_END) {
-            pos = parseC2(data, pos);
-        } else if (mCommand >= Const.CODE_C3_RANGE_START
-                && mCommand <= Const.CODE_C3_RANGE_END) {
-            pos = parseC3(data, pos);
-        } else if (mCommand >= Const.CODE_G2_RANGE_START
-                && mCommand <= Const.CODE_G2_RANGE_END) {
-            pos = parseG2(data, pos);
-        } else if (mCommand >= Const.CODE_G3_RANGE_START
-                && mCommand <= Const.CODE_G3_RANGE_END) {
-            pos = parseG3(data, pos);
+    private CaptionPenColor getPenColor(byte[] data, int pos) {
+        // The edge color has no opacity.
+        final int key = (data[pos] & 0xff) << 16 | (data[pos + 1] & 0xff) << 8
+                | (data[pos + 2] & 0x3f);
+        CaptionPenColor penColor = mPenColors.get(key);
+        if (penColor == null) {
+            penColor = new CaptionPenColor(COLORS[data[pos] & 0xff],
+                    COLORS[data[pos + 1] & 0xff], COLORS[data[pos + 2] & 0x3f]);
+            cache(mPenColors, key, penColor);
         }
-        return pos;
+        return penColor;
     }
 
-    private int parseC2(byte[] data, int pos) {
-        // For the details of C2 code group, see CEA-708B Section 7.4.7.
-        // Extended Miscellaneous Control Codes
-        // C2 Table : No commands as of CEA-708B. A decoder must skip.
-        if (mCommand >= Const.CODE_C2_SKIP0_RANGE_START
-                && mCommand <= Const.CODE_C2_SKIP0_RANGE_END) {
-            // Do nothing.
-        } else if (mCommand >= Const.CODE_C2_SKIP1_RANGE_START
-                && mCommand <= Const.CODE_C2_SKIP1_RANGE_END) {
-            ++pos;
-        } else if (mCommand >= Const.CODE_C2_SKIP2_RANGE_START
-                && mCommand <= Const.CODE_C2_SKIP2_RANGE_END) {
-            pos += 2;
-        } else if (mCommand >= Const.CODE_C2_SKIP3_RANGE_START
-                && mCommand <= Const.CODE_C2_SKIP3_RANGE_END) {
-            pos += 3;
+    private CaptionPenLocation getPenLocation(byte[] data, int pos) {
+        // column is normally 0-31 for 4:3 formats, and 0-41 for 16:9 formats
+        final int row = data[pos] & 0x0f;
+        final int column = data[pos + 1] & 0x3f;
+        final int key = row << 8 | column;
+        CaptionPenLocation penLocation = mPenLocations.get(key);
+        if (penLocation == null) {
+            penLocation = new CaptionPenLocation(row, column);
+            cache(mPenLocations, key, penLocation);
         }
-        return pos;
+        return penLocation;
     }
 
-    private int parseC3(byte[] data, int pos) {
-        // For the details of C3 code group, see CEA-708B Section 7.4.8.
-        // Extended Control Code Set 2
-        // C3 Table : No commands as of CEA-708B. A decoder must skip.
-        if (mCommand >= Const.CODE_C3_SKIP4_RANGE_START
-                && mCommand <= Const.CODE_C3_SKIP4_RANGE_END) {
-            pos += 4;
-        } else if (mCommand >= Const.CODE_C3_SKIP5_RANGE_START
-                && mCommand <= Const.CODE_C3_SKIP5_RANGE_END) {
-            pos += 5;
+    private CaptionWindowAttr getWindowAttr(byte[] data, int pos) {
+        final int key = (data[pos] & 0xff) << 24 | (data[pos + 1] & 0xff) << 16
+                | (data[pos + 2] & 0xff) << 8 | (data[pos + 3] & 0xff);
+        CaptionWindowAttr windowAttr = mWindowAttrs.get(key);
+        if (windowAttr == null) {
+            // The border color has no opacity.
+            CaptionColor fillColor = COLORS[data[pos] & 0xff];
+            CaptionColor borderColor = COLORS[data[pos + 1] & 0x3f];
+            int borderType = (data[pos + 1] & 0xc0) >> 6 | (data[pos + 2] & 0x80) >> 5;
+            boolean wordWrap = (data[pos + 2] & 0x40) != 0;
+            int printDirection = (data[pos + 2] & 0x30) >> 4;
+            int scrollDirection = (data[pos + 2] & 0x0c) >> 2;
+            int justify = (data[pos + 2] & 0x03);
+            int effectSpeed = (data[pos + 3] & 0xf0) >> 4;
+            int effectDirection = (data[pos + 3] & 0x0c) >> 2;
+            int displayEffect = data[pos + 3] & 0x3;
+            windowAttr = new CaptionWindowAttr(fillColor, borderColor, borderType, wordWrap,
+                    printDirection, scrollDirection, justify, effectDirection, effectSpeed,
+                    displayEffect);
+            cache(mWindowAttrs, key, windowAttr);
         }
-        return pos;
+        return windowAttr;
     }
 
-    private int parseG2(byte[] data, int pos) {
-        // For the details of C3 code group, see CEA-708B Section 7.4.5.
-        // Extended Control Code Set 1(G2 Table)
-        switch (mCommand) {
-            case Const.CODE_G2_TSP:
-                // TODO : TSP is the Transparent space
-                break;
-            case Const.CODE_G2_NBTSP:
-                // TODO : NBTSP is Non-Breaking Transparent Space.
-                break;
-            case Const.CODE_G2_BLK:
-                // TODO : BLK indicates a solid block which fills the entire character block
-                // TODO : with a solid foreground color.
-                break;
-            default:
-                break;
+    private CaptionWindow getWindow(int windowId, byte[] data, int pos) {
+        long key = windowId;
+        for (int i = 0; i < 6; i++) {
+            key = key << 8 | (data[pos + i] & 0xff);
         }
-        return pos;
+        CaptionWindow window = mWindows.get(key);
+        if (window == null) {
+            boolean visible = (data[pos] & 0x20) != 0;
+            boolean rowLock = (data[pos] & 0x10) != 0;
+            boolean columnLock = (data[pos] & 0x08) != 0;
+            int priority = data[pos] & 0x07;
+            boolean relativePositioning = (data[pos + 1] & 0x80) != 0;
+            int anchorVertical = data[pos + 1] & 0x7f;
+            int anchorHorizontal = data[pos + 2] & 0xff;
+            int anchorId = (data[pos + 3] & 0xf0) >> 4;
+            int rowCount = data[pos + 3] & 0x0f;
+            int columnCount = data[pos + 4] & 0x3f;
+            int windowStyle = (data[pos + 5] & 0x38) >> 3;
+            int penStyle = data[pos + 5] & 0x07;
+            window = new CaptionWindow(windowId, visible, rowLock, columnLock, priority,
+                    relativePositioning, anchorVertical, anchorHorizontal, anchorId, rowCount,
+                    columnCount, penStyle, windowStyle);
+            if (mWindows.size() >= MAX_CACHED_PARAMS) {
+                mWindows.clear();
+            }
+            mWindows.put(key, window);
+        }
+        return window;
     }
 
-    private int parseG3(byte[] data, int pos) {
-        // For the details of C3 code group, see CEA-708B Section 7.4.6.
-        // Future characters and icons(G3 Table)
-        if (mCommand == Const.CODE_G3_CC) {
-            // TODO : [CC] icon with square corners
+    private static <T> void cache(SparseArray<T> cache, int key, T value) {
+        if (cache.size() >= MAX_CACHED_PARAMS) {
+            cache.clear();
         }
-
-        // Do nothing
-        return pos;
+        cache.put(key, value);
     }
 
+
     /**
      * Collection of CEA-708 structures.
      */
@@ -762,15 +673,25 @@ class Cea708CCParser {
 
     /**
      * Caption event generated by {@link Cea708CCParser}.
+     *
+     * <p>The parser reuses the event, and the text buffer of {@code CAPTION_EMIT_TYPE_BUFFER}
+     * events, once {@link DisplayListener#emitEvent} returns. Use {@link #copy} to keep an event.
      */
     public static class CaptionEvent {
-        public final int type;
-        public final Object obj;
+        public int type;
+        public Object obj;
 
         CaptionEvent(int type, Object obj) {
             this.type = type;
             this.obj = obj;
         }
+
+        /**
+         * Returns a copy of this event which isn't reused by the parser.
+         */
+        public CaptionEvent copy() {
+            return new CaptionEvent(type, obj instanceof CharSequence ? obj.toString() : obj);
+        }
     }
 
     /**
@@ -503,12 +503,12 @@ public class Cea708CaptionRenderer extends SubtitleController.Renderer {
 
             public void processCaptionEvent(Cea708CCParser.CaptionEvent event) {
                 if (mIsDelayed) {
-                    mPendingCaptionEvents.add(event);
+                    mPendingCaptionEvents.add(event.copy());
                     return;
                 }
                 switch (event.type) {
                     case Cea708CCParser.CAPTION_EMIT_TYPE_BUFFER:
-                        sendBufferToCurrentWindow((String) event.obj);
+                        sendBufferToCurrentWindow((CharSequence) event.obj);
                         break;
                     case Cea708CCParser.CAPTION_EMIT_TYPE_CONTROL:
                         sendControlToCurrentWindow((char) event.obj);
@@ -704,7 +704,7 @@ public class Cea708CaptionRenderer extends SubtitleController.Renderer {
                 }
             }
 
-            private void sendBufferToCurrentWindow(String buffer) {
+            private void sendBufferToCurrentWindow(CharSequence buffer) {
                 if (mCurrentWindowLayout != null) {
                     mCurrentWindowLayout.sendBuffer(buffer);
                     mHandler.removeMessages(MSG_CAPTION_CLEAR);
@@ -878,7 +878,7 @@ public class Cea708CaptionRenderer extends SubtitleController.Renderer {
                 // as is.
             }
 
-            public void sendBuffer(String buffer) {
+            public void sendBuffer(CharSequence buffer) {
                 appendText(buffer);
             }
 
@@ -1141,7 +1141,7 @@ public class Cea708CaptionRenderer extends SubtitleController.Renderer {
                 updateText(text, false);
             }
 
-            public void appendText(String text) {
+            public void appendText(CharSequence text) {
                 updateText(text, true);
             }
 
@@ -1150,7 +1150,7 @@ public class Cea708CaptionRenderer extends SubtitleController.Renderer {
                 mCCView.setText("");
             }
 
-            private void updateText(String text, boolean appended) {
+            private void updateText(CharSequence text, boolean appended) {
                 if (!appended) {
                     mBuilder.clear();
                 }
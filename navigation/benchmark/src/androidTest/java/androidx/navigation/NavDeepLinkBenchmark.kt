@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation
+
+import android.net.Uri
+import androidx.benchmark.BenchmarkRule
+import androidx.navigation.testing.TestNavigator
+import androidx.navigation.testing.TestNavigatorProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Assert.assertNotNull
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class NavDeepLinkBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val navigatorProvider = TestNavigatorProvider()
+
+    // 20 nested graphs of 20 destinations, each destination with two deep links
+    private val graph = createGraph(GRAPH_COUNT, DESTINATIONS_PER_GRAPH)
+
+    private val lastUri = Uri.parse(
+        "https://www.example.com/section${GRAPH_COUNT - 1}" +
+                "/item${DESTINATIONS_PER_GRAPH - 1}/42")
+
+    @Test
+    fun matchDeepLink() {
+        assertNotNull(graph.matchDeepLink(lastUri))
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            graph.matchDeepLink(lastUri)
+        }
+    }
+
+    @Test
+    fun matchDeepLinkLinearScan() {
+        val destinations = mutableListOf<NavDestination>()
+        collectDestinations(graph, destinations)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            var bestMatch: NavDestination.DeepLinkMatch? = null
+            for (destination in destinations) {
+                // Call the non-indexed NavDestination implementation on every destination
+                val match = (destination as? TestNavigator.Destination)
+                    ?.matchDeepLink(lastUri) ?: continue
+                if (bestMatch == null || match > bestMatch) {
+                    bestMatch = match
+                }
+            }
+        }
+    }
+
+    @Test
+    fun buildMatcher() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            NavDeepLinkMatcher(graph)
+        }
+    }
+
+    private fun collectDestinations(graph: NavGraph, out: MutableList<NavDestination>) {
+        for (destination in graph) {
+            out.add(destination)
+            if (destination is NavGraph) {
+                collectDestinations(destination, out)
+            }
+        }
+    }
+
+    private fun createGraph(graphCount: Int, destinationsPerGraph: Int): NavGraph {
+        val graphNavigator = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+        val testNavigator = navigatorProvider.getNavigator(TestNavigator::class.java)
+        val root = graphNavigator.createDestination()
+        var id = 1
+        for (section in 0 until graphCount) {
+            val nested = graphNavigator.createDestination()
+            nested.id = id++
+            for (item in 0 until destinationsPerGraph) {
+                val destination = testNavigator.createDestination()
+                destination.id = id++
+                destination.addArgument("id", NavArgument.Builder()
+                    .setType(NavType.IntType)
+                    .build())
+                destination.addDeepLink("www.example.com/section$section/item$item/{id}")
+                destination.addDeepLink("myapp://section$section/item$item")
+                nested.addDestination(destination)
+            }
+            nested.startDestination = id - 1
+            root.addDestination(nested)
+        }
+        root.startDestination = 1
+        return root
+    }
+
+    companion object {
+        private const val GRAPH_COUNT = 20
+        private const val DESTINATIONS_PER_GRAPH = 20
+    }
+}
@@ -181,4 +181,87 @@ class NavGraphAndroidTest {
             .that(match?.matchingArgs?.getInt("postId"))
             .isEqualTo(99)
     }
+
+    @Test
+    fun matchDeepLinkNestedGraph() {
+        val navigatorProvider = NavigatorProvider().apply {
+            addNavigator(NavGraphNavigator(this))
+            addNavigator(NoOpNavigator())
+        }
+        val graph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        val nestedGraph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        nestedGraph.id = 1
+        graph.addDestination(nestedGraph)
+
+        val settingsDestination = navigatorProvider.getNavigator(NoOpNavigator::class.java)
+            .createDestination()
+        settingsDestination.id = 2
+        settingsDestination.addDeepLink("myapp://settings/notifications")
+        nestedGraph.addDestination(settingsDestination)
+
+        val match = graph.matchDeepLink(Uri.parse("myapp://settings/notifications"))
+
+        assertWithMessage("Deep link should match a destination of a nested graph")
+            .that(match?.destination)
+            .isSameAs(settingsDestination)
+        assertWithMessage("Deep link should not match a different path")
+            .that(graph.matchDeepLink(Uri.parse("myapp://settings/privacy")))
+            .isNull()
+    }
+
+    @Test
+    fun matchDeepLinkAfterGraphChange() {
+        val navigatorProvider = NavigatorProvider().apply {
+            addNavigator(NavGraphNavigator(this))
+            addNavigator(NoOpNavigator())
+        }
+        val graph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        val destination = navigatorProvider.getNavigator(NoOpNavigator::class.java)
+            .createDestination()
+        destination.id = 1
+        graph.addDestination(destination)
+
+        val uri = Uri.parse("https://www.example.com/users/index.html")
+        assertWithMessage("Deep link should not match before it is added")
+            .that(graph.matchDeepLink(uri))
+            .isNull()
+
+        destination.addDeepLink("www.example.com/users/index.html")
+        assertWithMessage("Deep link should match once added to a child")
+            .that(graph.matchDeepLink(uri)?.destination)
+            .isSameAs(destination)
+
+        graph.remove(destination)
+        assertWithMessage("Deep link should not match once the child is removed")
+            .that(graph.matchDeepLink(uri))
+            .isNull()
+    }
+
+    @Test
+    fun matchDeepLinkTieGoesToFirstDestination() {
+        val navigatorProvider = NavigatorProvider().apply {
+            addNavigator(NavGraphNavigator(this))
+            addNavigator(NoOpNavigator())
+        }
+        val graph = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+            .createDestination()
+        val first = navigatorProvider.getNavigator(NoOpNavigator::class.java)
+            .createDestination()
+        first.id = 1
+        first.addDeepLink("www.example.com/{name}")
+        graph.addDestination(first)
+        val second = navigatorProvider.getNavigator(NoOpNavigator::class.java)
+            .createDestination()
+        second.id = 2
+        second.addDeepLink("www.example.com/{other}")
+        graph.addDestination(second)
+
+        val match = graph.matchDeepLink(Uri.parse("https://www.example.com/foo"))
+        assertWithMessage("Deep link should pick the first destination on ties")
+            .that(match?.destination)
+            .isSameAs(first)
+    }
 }
@@ -34,6 +34,7 @@ class NavDeepLink {
     private static final Pattern SCHEME_PATTERN = Pattern.compile("^[a-zA-Z]+[+\\w\\-.]*:");
 
     private final ArrayList<String> mArguments = new ArrayList<>();
+    private final String mUriPattern;
     private final Pattern mPattern;
     private final boolean mExactDeepLink;
 
@@ -41,9 +42,10 @@ class NavDeepLink {
      * NavDestinations should be created via {@link Navigator#createDestination}.
      */
     NavDeepLink(@NonNull String uri) {
+        mUriPattern = uri;
         StringBuilder uriRegex = new StringBuilder("^");
 
-        if (!SCHEME_PATTERN.matcher(uri).find()) {
+        if (!hasScheme(uri)) {
             uriRegex.append("http[s]?://");
         }
         Pattern fillInPattern = Pattern.compile("\\{(.+?)\\}");
@@ -72,6 +74,19 @@ class NavDeepLink {
         mExactDeepLink = exactDeepLink;
     }
 
+    @NonNull
+    String getUriPattern() {
+        return mUriPattern;
+    }
+
+    /**
+     * Returns whether the given uri pattern starts with an explicit scheme. Patterns without one
+     * match both http and https.
+     */
+    static boolean hasScheme(@NonNull String uri) {
+        return SCHEME_PATTERN.matcher(uri).find();
+    }
+
     boolean matches(@NonNull Uri deepLink) {
         return mPattern.matcher(deepLink.toString()).matches();
     }
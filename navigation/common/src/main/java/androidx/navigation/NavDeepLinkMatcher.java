@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation;
+
+import android.net.Uri;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * NavDeepLinkMatcher indexes every {@link NavDeepLink} of a {@link NavGraph} hierarchy in a
+ * trie keyed by scheme, authority and path segments so that matching a Uri only evaluates the
+ * deep links whose literal prefix matches the Uri.
+ * <p>
+ * Each deep link is stored at the deepest node reachable by the literal parts of its pattern,
+ * stopping at the first part that contains an argument placeholder or a <code>.*</code>
+ * wildcard. Matching walks the Uri's parts down the trie and only runs the regular expressions
+ * of the deep links found along the way.
+ * <p>
+ * The returned match is the same as the one a recursive
+ * {@link NavGraph#matchDeepLink(Uri)} traversal would return: the best
+ * {@link NavDestination.DeepLinkMatch}, with ties going to the deep link found first in a
+ * pre-order traversal of the graph.
+ */
+class NavDeepLinkMatcher {
+    private static final String HTTP = "http";
+    private static final String HTTPS = "https";
+
+    private final Node mRoot = new Node();
+
+    NavDeepLinkMatcher(@NonNull NavGraph graph) {
+        addDestination(graph, new int[1]);
+    }
+
+    private void addDestination(@NonNull NavDestination destination, int[] order) {
+        List<NavDeepLink> deepLinks = destination.getDeepLinks();
+        if (deepLinks != null) {
+            for (NavDeepLink deepLink : deepLinks) {
+                addDeepLink(new Entry(destination, deepLink, order[0]++));
+            }
+        }
+        if (destination instanceof NavGraph) {
+            for (NavDestination child : (NavGraph) destination) {
+                addDestination(child, order);
+            }
+        }
+    }
+
+    private void addDeepLink(@NonNull Entry entry) {
+        String pattern = entry.mDeepLink.getUriPattern();
+        if (NavDeepLink.hasScheme(pattern)) {
+            int colon = pattern.indexOf(':');
+            String rest = pattern.substring(colon + 1);
+            Node schemeNode = mRoot.getOrCreateChild(pattern.substring(0, colon));
+            if (!rest.startsWith("//")) {
+                schemeNode.addEntry(entry);
+                return;
+            }
+            addHierarchical(schemeNode, rest.substring(2), entry);
+        } else {
+            // Patterns without a scheme match both http and https
+            addHierarchical(mRoot.getOrCreateChild(HTTP), pattern, entry);
+            addHierarchical(mRoot.getOrCreateChild(HTTPS), pattern, entry);
+        }
+    }
+
+    private static void addHierarchical(@NonNull Node node, @NonNull String hierarchical,
+            @NonNull Entry entry) {
+        int end = nextDelimiter(hierarchical, 0);
+        String authority = hierarchical.substring(0, end);
+        if (!isLiteral(authority)) {
+            node.addEntry(entry);
+            return;
+        }
+        node = node.getOrCreateChild(authority);
+        while (end < hierarchical.length() && hierarchical.charAt(end) == '/') {
+            int start = end + 1;
+            end = nextDelimiter(hierarchical, start);
+            String segment = hierarchical.substring(start, end);
+            if (!isLiteral(segment)) {
+                break;
+            }
+            node = node.getOrCreateChild(segment);
+        }
+        node.addEntry(entry);
+    }
+
+    /**
+     * Returns the best match for the given Uri amongst all indexed deep links.
+     */
+    @Nullable
+    NavDestination.DeepLinkMatch match(@NonNull Uri uri) {
+        Candidates candidates = new Candidates(uri);
+        candidates.consider(mRoot);
+        String scheme = uri.getScheme();
+        Node node = scheme != null ? mRoot.getChild(scheme) : null;
+        if (node == null) {
+            return candidates.mBestMatch;
+        }
+        candidates.consider(node);
+        String authority = uri.getEncodedAuthority();
+        node = authority != null ? node.getChild(authority) : null;
+        if (node == null) {
+            return candidates.mBestMatch;
+        }
+        candidates.consider(node);
+        String path = uri.getEncodedPath();
+        if (path != null && path.length() > 0 && path.charAt(0) == '/') {
+            int start = 1;
+            while (node != null && start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = path.length();
+                }
+                node = node.getChild(path.substring(start, end));
+                if (node != null) {
+                    candidates.consider(node);
+                }
+                start = end + 1;
+            }
+        }
+        return candidates.mBestMatch;
+    }
+
+    private static int nextDelimiter(@NonNull String s, int start) {
+        for (int i = start; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return s.length();
+    }
+
+    private static boolean isLiteral(@NonNull String part) {
+        return part.indexOf('{') < 0 && !part.contains(".*");
+    }
+
+    private static class Candidates {
+        private final Uri mUri;
+        NavDestination.DeepLinkMatch mBestMatch;
+        private int mBestOrder;
+
+        Candidates(Uri uri) {
+            mUri = uri;
+        }
+
+        void consider(@NonNull Node node) {
+            if (node.mEntries == null) {
+                return;
+            }
+            for (Entry entry : node.mEntries) {
+                if (mBestMatch != null && !couldBeBetter(entry)) {
+                    continue;
+                }
+                Bundle matchingArguments = entry.mDeepLink.getMatchingArguments(mUri,
+                        entry.mDestination.getArguments());
+                if (matchingArguments == null) {
+                    continue;
+                }
+                NavDestination.DeepLinkMatch newMatch = new NavDestination.DeepLinkMatch(
+                        entry.mDestination, matchingArguments, entry.mDeepLink.isExactDeepLink());
+                int comparison = mBestMatch == null ? 1 : newMatch.compareTo(mBestMatch);
+                if (comparison > 0 || (comparison == 0 && entry.mOrder < mBestOrder)) {
+                    mBestMatch = newMatch;
+                    mBestOrder = entry.mOrder;
+                }
+            }
+        }
+
+        /**
+         * Once an exact match is found, only an exact deep link found earlier in the traversal
+         * can replace it, so the regular expressions of all other entries can be skipped.
+         */
+        private boolean couldBeBetter(@NonNull Entry entry) {
+            return !mBestMatch.isExactDeepLink()
+                    || (entry.mDeepLink.isExactDeepLink() && entry.mOrder < mBestOrder);
+        }
+    }
+
+    private static class Entry {
+        final NavDestination mDestination;
+        final NavDeepLink mDeepLink;
+        final int mOrder;
+
+        Entry(NavDestination destination, NavDeepLink deepLink, int order) {
+            mDestination = destination;
+            mDeepLink = deepLink;
+            mOrder = order;
+        }
+    }
+
+    private static class Node {
+        private HashMap<String, Node> mChildren;
+        ArrayList<Entry> mEntries;
+
+        @Nullable
+        Node getChild(@NonNull String key) {
+            return mChildren == null ? null : mChildren.get(key);
+        }
+
+        @NonNull
+        Node getOrCreateChild(@NonNull String key) {
+            if (mChildren == null) {
+                mChildren = new HashMap<>();
+            }
+            Node child = mChildren.get(key);
+            if (child == null) {
+                child = new Node();
+                mChildren.put(key, child);
+            }
+            return child;
+        }
+
+        void addEntry(@NonNull Entry entry) {
+            if (mEntries == null) {
+                mEntries = new ArrayList<>();
+            }
+            mEntries.add(entry);
+        }
+    }
+}
@@ -40,6 +40,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -95,6 +96,10 @@ public class NavDestination {
             return mMatchingArgs;
         }
 
+        boolean isExactDeepLink() {
+            return mIsExactDeepLink;
+        }
+
         @Override
         public int compareTo(DeepLinkMatch other) {
             // Prefer exact deep links
@@ -226,6 +231,8 @@ public class NavDestination {
 
     final void setParent(NavGraph parent) {
         mParent = parent;
+        // Indexes are built for a given root graph, which changes along with the parent
+        clearIndexes();
     }
 
     /**
@@ -327,6 +334,29 @@ public class NavDestination {
             mDeepLinks = new ArrayList<>();
         }
         mDeepLinks.add(new NavDeepLink(uriPattern));
+        invalidateIndexes();
+    }
+
+    @Nullable
+    List<NavDeepLink> getDeepLinks() {
+        return mDeepLinks;
+    }
+
+    /**
+     * Called when something that indexes built by a {@link NavGraph} depend on changes, so that
+     * this destination and all the graphs containing it drop their indexes.
+     */
+    void invalidateIndexes() {
+        clearIndexes();
+        if (mParent != null) {
+            mParent.invalidateIndexes();
+        }
+    }
+
+    /**
+     * Drops any index held by this destination itself.
+     */
+    void clearIndexes() {
     }
 
     /**
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.SparseArrayCompat;
+
+import java.util.ArrayList;
+
+/**
+ * NavDestinationIndex is a flattened id to destination index of every destination in the
+ * hierarchy of a root {@link NavGraph}.
+ * <p>
+ * Each graph of the hierarchy is stamped with its pre-order position range so that checking
+ * whether a graph is an ancestor of another one does not need to walk the parents. This lets
+ * {@link NavGraph#findNode(int)} resolve a destination with a single lookup while keeping its
+ * semantics: the destination must be a direct child of the graph or of one of its parents, and
+ * the nearest one wins.
+ * <p>
+ * Every graph of the hierarchy refers to the index, which is invalidated when the hierarchy
+ * changes.
+ */
+class NavDestinationIndex {
+    // Values are either a NavDestination or, for ids used more than once, an ArrayList of them
+    private final SparseArrayCompat<Object> mDestinations = new SparseArrayCompat<>();
+    private int mPosition;
+    private boolean mValid = true;
+
+    NavDestinationIndex(@NonNull NavGraph root) {
+        addGraph(root);
+    }
+
+    private void addGraph(@NonNull NavGraph graph) {
+        graph.mIndexedBy = this;
+        graph.mIndexStart = mPosition++;
+        final int size = graph.mNodes.size();
+        for (int i = 0; i < size; i++) {
+            NavDestination destination = graph.mNodes.valueAt(i);
+            add(graph.mNodes.keyAt(i), destination);
+            if (destination instanceof NavGraph) {
+                addGraph((NavGraph) destination);
+            }
+        }
+        graph.mIndexEnd = mPosition;
+    }
+
+    /**
+     * Marks this index as out of date, so that the graphs it indexed stop using it.
+     */
+    void invalidate() {
+        mValid = false;
+    }
+
+    boolean isValid() {
+        return mValid;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(int id, @NonNull NavDestination destination) {
+        Object existing = mDestinations.get(id);
+        if (existing == null) {
+            mDestinations.put(id, destination);
+        } else if (existing instanceof ArrayList) {
+            ((ArrayList<NavDestination>) existing).add(destination);
+        } else {
+            ArrayList<NavDestination> destinations = new ArrayList<>(2);
+            destinations.add((NavDestination) existing);
+            destinations.add(destination);
+            mDestinations.put(id, destinations);
+        }
+    }
+
+    /**
+     * Finds the destination with the given id which is a child of the given graph or of its
+     * closest parent.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    NavDestination findNode(@NonNull NavGraph graph, @IdRes int resid) {
+        Object found = mDestinations.get(resid);
+        if (found == null) {
+            return null;
+        }
+        if (found instanceof NavDestination) {
+            NavDestination destination = (NavDestination) found;
+            return isAncestorOrSelf(destination.getParent(), graph) ? destination : null;
+        }
+        NavDestination bestDestination = null;
+        int bestStart = -1;
+        for (NavDestination destination : (ArrayList<NavDestination>) found) {
+            NavGraph parent = destination.getParent();
+            if (isAncestorOrSelf(parent, graph) && parent.mIndexStart > bestStart) {
+                bestDestination = destination;
+                bestStart = parent.mIndexStart;
+            }
+        }
+        return bestDestination;
+    }
+
+    private boolean isAncestorOrSelf(@Nullable NavGraph ancestor, @NonNull NavGraph graph) {
+        return ancestor != null && ancestor.mIndexedBy == this && graph.mIndexedBy == this
+                && ancestor.mIndexStart <= graph.mIndexStart
+                && graph.mIndexEnd <= ancestor.mIndexEnd;
+    }
+}
@@ -43,6 +43,13 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     final SparseArrayCompat<NavDestination> mNodes = new SparseArrayCompat<>();
     private int mStartDestId;
     private String mStartDestIdName;
+    private NavDeepLinkMatcher mDeepLinkMatcher;
+    // Only set on root graphs
+    private NavDestinationIndex mDestinationIndex;
+    // Index of the root graph this graph was last indexed by, and position of this graph within it
+    NavDestinationIndex mIndexedBy;
+    int mIndexStart;
+    int mIndexEnd;
 
     /**
      * Construct a new NavGraph. This NavGraph is not valid until you
@@ -72,17 +79,22 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     @Override
     @Nullable
     DeepLinkMatch matchDeepLink(@NonNull Uri uri) {
-        // First search through any deep links directly added to this NavGraph
-        DeepLinkMatch bestMatch = super.matchDeepLink(uri);
-        // Then search through all child destinations for a matching deep link
-        for (NavDestination child : this) {
-            DeepLinkMatch childBestMatch = child.matchDeepLink(uri);
-            if (childBestMatch != null && (bestMatch == null
-                    || childBestMatch.compareTo(bestMatch) > 0)) {
-                bestMatch = childBestMatch;
-            }
+        // Search through the deep links of this NavGraph and of all its child destinations
+        // using an index built once and reused until the graph changes
+        if (mDeepLinkMatcher == null) {
+            mDeepLinkMatcher = new NavDeepLinkMatcher(this);
+        }
+        return mDeepLinkMatcher.match(uri);
+    }
+
+    @Override
+    void clearIndexes() {
+        mDeepLinkMatcher = null;
+        if (mDestinationIndex != null) {
+            // The graphs it indexes may have moved, so they must not use it anymore either
+            mDestinationIndex.invalidate();
+            mDestinationIndex = null;
         }
-        return bestMatch;
     }
 
     /**
@@ -113,6 +125,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
         }
         node.setParent(this);
         mNodes.put(node.getId(), node);
+        invalidateIndexes();
     }
 
     /**
@@ -168,12 +181,25 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
 
     @Nullable
     final NavDestination findNode(@IdRes int resid, boolean searchParents) {
-        NavDestination destination = mNodes.get(resid);
-        // Search the parent for the NavDestination if it is not a child of this navigation graph
-        // and searchParents is true
-        return destination != null
-                ? destination
-                : searchParents && getParent() != null ? getParent().findNode(resid) : null;
+        if (!searchParents) {
+            return mNodes.get(resid);
+        }
+        // Searching the parents for the NavDestination if it is not a child of this navigation
+        // graph is done through an index of the whole hierarchy, kept by the root graph. Each
+        // graph refers to it directly, so that the root is only looked for once per change of
+        // the hierarchy.
+        NavDestinationIndex index = mIndexedBy;
+        if (index == null || !index.isValid()) {
+            NavGraph root = this;
+            while (root.getParent() != null) {
+                root = root.getParent();
+            }
+            if (root.mDestinationIndex == null) {
+                root.mDestinationIndex = new NavDestinationIndex(root);
+            }
+            index = root.mDestinationIndex;
+        }
+        return index.findNode(this, resid);
     }
 
     @NonNull
@@ -205,6 +231,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
                 }
                 mNodes.valueAt(mIndex).setParent(null);
                 mNodes.removeAt(mIndex);
+                invalidateIndexes();
                 mIndex--;
                 mWentToNext = false;
             }
@@ -237,6 +264,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
         if (index >= 0) {
             mNodes.valueAt(index).setParent(null);
             mNodes.removeAt(index);
+            invalidateIndexes();
         }
     }
 
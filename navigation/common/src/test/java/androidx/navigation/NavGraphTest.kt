@@ -228,4 +228,68 @@ class NavGraphTest {
         assertThat(secondDestination.parent).isNull()
         assertThat(graph.findNode(SECOND_DESTINATION_ID)).isNull()
     }
+
+    @Test
+    fun findNodeInParent() {
+        val destination = createFirstDestination()
+        val nestedGraph = createGraphWithDestination(createSecondDestination()).apply {
+            id = 3
+        }
+        val graph = createGraphWithDestinations(destination, nestedGraph)
+
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isEqualTo(destination)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID, false)).isNull()
+        // Destinations of nested graphs are not children of the parent graph
+        assertThat(graph.findNode(SECOND_DESTINATION_ID)).isNull()
+    }
+
+    @Test
+    fun findNodeClosestParentWins() {
+        val destination = createFirstDestination()
+        val nestedDestination = createFirstDestination()
+        val nestedGraph = createGraphWithDestination(nestedDestination).apply {
+            id = 3
+        }
+        val graph = createGraphWithDestinations(destination, nestedGraph)
+
+        assertThat(graph.findNode(FIRST_DESTINATION_ID)).isEqualTo(destination)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isEqualTo(nestedDestination)
+    }
+
+    @Test
+    fun findNodeAfterNestedGraphChange() {
+        val nestedGraph = navGraphNavigator.createDestination().apply {
+            id = 3
+        }
+        val graph = createGraphWithDestination(nestedGraph)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isNull()
+
+        val destination = createFirstDestination()
+        nestedGraph.addDestination(destination)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isEqualTo(destination)
+
+        graph.remove(nestedGraph)
+        nestedGraph.remove(destination)
+        graph.addDestination(destination)
+        assertThat(graph.findNode(FIRST_DESTINATION_ID)).isEqualTo(destination)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isNull()
+    }
+
+    @Test
+    fun findNodeAfterNestedGraphMoved() {
+        val destination = createFirstDestination()
+        val nestedGraph = navGraphNavigator.createDestination().apply {
+            id = 3
+        }
+        val graph = createGraphWithDestinations(destination, nestedGraph)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isEqualTo(destination)
+
+        // The nested graph now resolves ids through its new root graph
+        val otherDestination = createFirstDestination()
+        val otherGraph = createGraphWithDestination(otherDestination)
+        graph.remove(nestedGraph)
+        otherGraph.addDestination(nestedGraph)
+        assertThat(nestedGraph.findNode(FIRST_DESTINATION_ID)).isEqualTo(otherDestination)
+        assertThat(graph.findNode(FIRST_DESTINATION_ID)).isEqualTo(destination)
+    }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The bind arguments of a batch of executions of a {@link SupportSQLiteStatement}, given as one
+ * array of values per parameter.
+ * <p>
+ * The statement is compiled once and executed once per row of the batch, within a single
+ * transaction. The values are read from the arrays without boxing them, but each one is still
+ * bound through {@link SupportSQLiteProgram}, so the implementation may box it, and each row
+ * costs one execution of the statement. Parameters without values are bound to NULL.
+ * <pre>
+ *   SupportSQLiteStatement statement = db.compileStatement(
+ *           "INSERT INTO user (id, name) VALUES (?, ?)");
+ *   long[] rowIds = new SupportSQLiteBatch(ids.length)
+ *           .bindLongs(1, ids)
+ *           .bindStrings(2, names)
+ *           .executeInsert(db, statement);
+ * </pre>
+ */
+public final class SupportSQLiteBatch {
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_LONG = 1;
+    private static final int TYPE_DOUBLE = 2;
+    private static final int TYPE_STRING = 3;
+    private static final int TYPE_BLOB = 4;
+
+    private final int mRowCount;
+    private int[] mTypes = new int[0];
+    private Object[] mColumns = new Object[0];
+
+    /**
+     * Creates a batch of the given number of rows, without bind arguments.
+     *
+     * @param rowCount The number of times the statement is executed.
+     */
+    public SupportSQLiteBatch(int rowCount) {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("rowCount cannot be negative: " + rowCount);
+        }
+        mRowCount = rowCount;
+    }
+
+    /**
+     * @return The number of times the statement is executed.
+     */
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * Binds a long value per row to the given parameter.
+     *
+     * @param index  The 1-based index of the parameter.
+     * @param values The value of each row.
+     * @return this
+     */
+    @NonNull
+    public SupportSQLiteBatch bindLongs(int index, @NonNull long[] values) {
+        checkRowCount(values.length);
+        return setColumn(index, TYPE_LONG, values);
+    }
+
+    /**
+     * Binds a double value per row to the given parameter.
+     *
+     * @param index  The 1-based index of the parameter.
+     * @param values The value of each row.
+     * @return this
+     */
+    @NonNull
+    public SupportSQLiteBatch bindDoubles(int index, @NonNull double[] values) {
+        checkRowCount(values.length);
+        return setColumn(index, TYPE_DOUBLE, values);
+    }
+
+    /**
+     * Binds a String value per row to the given parameter. Null values are bound to NULL.
+     *
+     * @param index  The 1-based index of the parameter.
+     * @param values The value of each row.
+     * @return this
+     */
+    @NonNull
+    public SupportSQLiteBatch bindStrings(int index, @NonNull String[] values) {
+        checkRowCount(values.length);
+        return setColumn(index, TYPE_STRING, values);
+    }
+
+    /**
+     * Binds a byte array value per row to the given parameter. Null values are bound to NULL.
+     *
+     * @param index  The 1-based index of the parameter.
+     * @param values The value of each row.
+     * @return this
+     */
+    @NonNull
+    public SupportSQLiteBatch bindBlobs(int index, @NonNull byte[][] values) {
+        checkRowCount(values.length);
+        return setColumn(index, TYPE_BLOB, values);
+    }
+
+    /**
+     * Binds the values of the given row to the given program, and NULL to the parameters without
+     * values, including the parameters after the last one given values.
+     *
+     * @param program The program to bind the values to.
+     * @param row     The 0-based index of the row.
+     */
+    public void bindRow(@NonNull SupportSQLiteProgram program, int row) {
+        if (row < 0 || row >= mRowCount) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + mRowCount);
+        }
+        // A reused statement keeps the bindings of its previous execution.
+        program.clearBindings();
+        for (int i = 0; i < mTypes.length; i++) {
+            final int index = i + 1;
+            switch (mTypes[i]) {
+                case TYPE_LONG:
+                    program.bindLong(index, ((long[]) mColumns[i])[row]);
+                    break;
+                case TYPE_DOUBLE:
+                    program.bindDouble(index, ((double[]) mColumns[i])[row]);
+                    break;
+                case TYPE_STRING:
+                    final String string = ((String[]) mColumns[i])[row];
+                    if (string == null) {
+                        program.bindNull(index);
+                    } else {
+                        program.bindString(index, string);
+                    }
+                    break;
+                case TYPE_BLOB:
+                    final byte[] blob = ((byte[][]) mColumns[i])[row];
+                    if (blob == null) {
+                        program.bindNull(index);
+                    } else {
+                        program.bindBlob(index, blob);
+                    }
+                    break;
+                case TYPE_NULL:
+                default:
+                    program.bindNull(index);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Executes the given INSERT statement once per row, within a single transaction. The
+     * bindings of the statement are cleared afterwards.
+     *
+     * @param db        The database of the statement.
+     * @param statement The statement to execute.
+     * @return The row ID of the row inserted by each execution, or -1 for the executions which
+     * did not insert a row.
+     * @throws android.database.SQLException If an execution fails, in which case none of the rows
+     *         are inserted.
+     * @see SupportSQLiteStatement#executeInsert()
+     */
+    @NonNull
+    public long[] executeInsert(@NonNull SupportSQLiteDatabase db,
+            @NonNull SupportSQLiteStatement statement) {
+        final long[] rowIds = new long[mRowCount];
+        db.beginTransaction();
+        try {
+            for (int row = 0; row < mRowCount; row++) {
+                bindRow(statement, row);
+                rowIds[row] = statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            // Does not keep the values of the last row referenced.
+            statement.clearBindings();
+            db.endTransaction();
+        }
+        return rowIds;
+    }
+
+    /**
+     * Executes the given UPDATE or DELETE statement once per row, within a single transaction.
+     * The bindings of the statement are cleared afterwards.
+     *
+     * @param db        The database of the statement.
+     * @param statement The statement to execute.
+     * @return The total number of rows affected by the executions.
+     * @throws android.database.SQLException If an execution fails, in which case none of the rows
+     *         are affected.
+     * @see SupportSQLiteStatement#executeUpdateDelete()
+     */
+    public int executeUpdateDelete(@NonNull SupportSQLiteDatabase db,
+            @NonNull SupportSQLiteStatement statement) {
+        int count = 0;
+        db.beginTransaction();
+        try {
+            for (int row = 0; row < mRowCount; row++) {
+                bindRow(statement, row);
+                count += statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            // Does not keep the values of the last row referenced.
+            statement.clearBindings();
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    private void checkRowCount(int length) {
+        if (length != mRowCount) {
+            throw new IllegalArgumentException(
+                    "Expected " + mRowCount + " values, got " + length);
+        }
+    }
+
+    private SupportSQLiteBatch setColumn(int index, int type, @NonNull Object values) {
+        if (index < 1) {
+            throw new IllegalArgumentException("Cannot bind index " + index
+                    + ", indices are 1-based");
+        }
+        if (index > mTypes.length) {
+            mTypes = Arrays.copyOf(mTypes, index);
+            mColumns = Arrays.copyOf(mColumns, index);
+        }
+        mTypes[index - 1] = type;
+        mColumns[index - 1] = values;
+        return this;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class SupportSQLiteBatchTest {
+
+    @Test
+    public void bindRow() {
+        byte[] bytes = new byte[3];
+        SupportSQLiteBatch batch = new SupportSQLiteBatch(2)
+                .bindLongs(1, new long[]{1, 2})
+                .bindStrings(2, new String[]{"foo", null})
+                .bindDoubles(4, new double[]{.5, 1.5})
+                .bindBlobs(5, new byte[][]{null, bytes});
+        SupportSQLiteProgram program = mock(SupportSQLiteProgram.class);
+
+        batch.bindRow(program, 1);
+
+        verify(program).clearBindings();
+        verify(program).bindLong(1, 2);
+        verify(program).bindNull(2);
+        verify(program).bindNull(3);
+        verify(program).bindDouble(4, 1.5);
+        verify(program).bindBlob(5, bytes);
+        verifyNoMoreInteractions(program);
+    }
+
+    @Test
+    public void bindRow_rebindsParameter() {
+        SupportSQLiteBatch batch = new SupportSQLiteBatch(1)
+                .bindLongs(1, new long[]{1})
+                .bindStrings(1, new String[]{"foo"});
+        SupportSQLiteProgram program = mock(SupportSQLiteProgram.class);
+
+        batch.bindRow(program, 0);
+
+        verify(program).clearBindings();
+        verify(program).bindString(1, "foo");
+        verifyNoMoreInteractions(program);
+    }
+
+    @Test
+    public void bindRow_clearsParametersWithoutValues() {
+        SupportSQLiteBatch batch = new SupportSQLiteBatch(1)
+                .bindLongs(1, new long[]{1});
+        // A statement with three parameters, reused after a previous execution.
+        BindingsProgram program = new BindingsProgram(3);
+        program.bindString(2, "previous");
+        program.bindString(3, "previous");
+
+        batch.bindRow(program, 0);
+
+        assertThat(program.mBindings, is(new Object[]{1L, null, null}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bind_wrongValueCount() {
+        new SupportSQLiteBatch(2).bindLongs(1, new long[]{1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bind_zeroIndex() {
+        new SupportSQLiteBatch(1).bindLongs(0, new long[]{1});
+    }
+
+    @Test
+    public void executeInsert_inTransaction() {
+        SupportSQLiteDatabase db = mock(SupportSQLiteDatabase.class);
+        SupportSQLiteStatement statement = mock(SupportSQLiteStatement.class);
+        when(statement.executeInsert()).thenReturn(7L, 8L);
+
+        long[] rowIds = new SupportSQLiteBatch(2)
+                .bindLongs(1, new long[]{1, 2})
+                .executeInsert(db, statement);
+
+        assertThat(rowIds, is(new long[]{7, 8}));
+        InOrder inOrder = inOrder(db, statement);
+        inOrder.verify(db).beginTransaction();
+        inOrder.verify(statement).bindLong(1, 1);
+        inOrder.verify(statement).executeInsert();
+        inOrder.verify(statement).bindLong(1, 2);
+        inOrder.verify(statement).executeInsert();
+        inOrder.verify(db).setTransactionSuccessful();
+        inOrder.verify(statement).clearBindings();
+        inOrder.verify(db).endTransaction();
+    }
+
+    @Test
+    public void executeUpdateDelete_countsRows() {
+        SupportSQLiteDatabase db = mock(SupportSQLiteDatabase.class);
+        SupportSQLiteStatement statement = mock(SupportSQLiteStatement.class);
+        when(statement.executeUpdateDelete()).thenReturn(1, 0, 2);
+
+        int count = new SupportSQLiteBatch(3)
+                .bindStrings(1, new String[]{"a", "b", "c"})
+                .executeUpdateDelete(db, statement);
+
+        assertThat(count, is(3));
+        verify(db).setTransactionSuccessful();
+        verify(db).endTransaction();
+    }
+
+    @Test
+    public void executeInsert_failure_endsTransaction() {
+        SupportSQLiteDatabase db = mock(SupportSQLiteDatabase.class);
+        SupportSQLiteStatement statement = mock(SupportSQLiteStatement.class);
+        when(statement.executeInsert()).thenThrow(new IllegalStateException());
+
+        try {
+            new SupportSQLiteBatch(2)
+                    .bindLongs(1, new long[]{1, 2})
+                    .executeInsert(db, statement);
+            fail("Expected an exception");
+        } catch (IllegalStateException expected) {
+        }
+
+        verify(statement).executeInsert();
+        verify(db, never()).setTransactionSuccessful();
+        verify(db).endTransaction();
+    }
+
+    /**
+     * Keeps the values bound to each parameter, as a statement does.
+     */
+    private static class BindingsProgram implements SupportSQLiteProgram {
+        final Object[] mBindings;
+
+        BindingsProgram(int parameterCount) {
+            mBindings = new Object[parameterCount];
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mBindings[index - 1] = null;
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mBindings[index - 1] = value;
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mBindings[index - 1] = value;
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mBindings[index - 1] = value;
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mBindings[index - 1] = value;
+        }
+
+        @Override
+        public void clearBindings() {
+            Arrays.fill(mBindings, null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
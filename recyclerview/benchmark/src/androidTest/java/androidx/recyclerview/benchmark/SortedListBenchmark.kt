@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.recyclerview.widget.SortedList
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.Random
+
+/**
+ * Measures [SortedList] updates of 100k items.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class SortedListBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val random = Random(42)
+
+    /** 100k items in random order. */
+    private val items = Array(ITEM_COUNT) { Item(it, random.nextInt(), 0) }
+
+    /** [items] with 10% of them removed, 10% added and 10% changed. */
+    private val updatedItems = items.mapIndexedNotNull { index, item ->
+        when (index % 10) {
+            0 -> null
+            1 -> Item(item.id, item.key, 1)
+            else -> item
+        }
+    }.plus(List(ITEM_COUNT / 10) { Item(ITEM_COUNT + it, random.nextInt(), 0) })
+            .toTypedArray()
+
+    /** 1000 new items, spread over the sort order of [items]. */
+    private val newItems = Array(ITEM_COUNT / 100) {
+        Item(2 * ITEM_COUNT + it, random.nextInt(), 0)
+    }
+
+    @Test
+    fun addAll() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            SortedList(Item::class.java, ItemCallback()).addAll(*items)
+        }
+    }
+
+    @Test
+    fun addAllToLargeList() {
+        val state = benchmarkRule.state
+        val list = SortedList(Item::class.java, ItemCallback())
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            list.replaceAll(*items)
+            state.resumeTiming()
+
+            list.addAll(*newItems)
+        }
+    }
+
+    @Test
+    fun replaceAll() {
+        val state = benchmarkRule.state
+        val list = SortedList(Item::class.java, ItemCallback())
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            list.replaceAll(*items)
+            state.resumeTiming()
+
+            list.replaceAll(*updatedItems)
+        }
+    }
+
+    companion object {
+        private const val ITEM_COUNT = 100_000
+    }
+}
+
+private class Item(val id: Int, val key: Int, val content: Int)
+
+/**
+ * Sorts items by key, and counts the change events as an adapter would receive them.
+ */
+private class ItemCallback : SortedList.Callback<Item>() {
+    var eventCount = 0
+
+    override fun compare(o1: Item, o2: Item) = o1.key.compareTo(o2.key)
+
+    override fun areContentsTheSame(oldItem: Item, newItem: Item) =
+            oldItem.content == newItem.content
+
+    override fun areItemsTheSame(item1: Item, item2: Item) = item1.id == item2.id
+
+    override fun onInserted(position: Int, count: Int) {
+        eventCount++
+    }
+
+    override fun onRemoved(position: Int, count: Int) {
+        eventCount++
+    }
+
+    override fun onMoved(fromPosition: Int, toPosition: Int) {
+        eventCount++
+    }
+
+    override fun onChanged(position: Int, count: Int) {
+        eventCount++
+    }
+}
@@ -1006,55 +1006,19 @@ public class GridLayoutManagerTest extends BaseGridLayoutManagerTest {
             }
         };
         ssl.setSpanIndexCacheEnabled(true);
-        assertEquals("reference child non existent", -1,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        2));
-        ssl.getCachedSpanIndex(4, 5);
-        assertEquals("reference child non existent", -1,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        3));
-        // this should not happen and if happens, it is better to return -1
-        assertEquals("reference child itself", -1,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        4));
-        assertEquals("reference child before", 4,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        5));
-        assertEquals("reference child before", 4,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        100));
-        ssl.getCachedSpanIndex(6, 5);
-        assertEquals("reference child before", 6,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        7));
-        assertEquals("reference child before", 4,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        6));
-        assertEquals("reference child itself", -1,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        4));
-        ssl.getCachedSpanIndex(12, 5);
-        assertEquals("reference child before", 12,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        13));
-        assertEquals("reference child before", 6,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        12));
-        assertEquals("reference child before", 6,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        7));
+        assertEquals(4, ssl.getCachedSpanIndex(4, 5));
+        assertEquals(1, ssl.getCachedSpanIndex(6, 5));
+        assertEquals(0, ssl.getCachedSpanIndex(12, 5));
+        assertEquals("value should be cached", 0, ssl.mSpanIndexCache.get(12, -1));
         for (int i = 0; i < 6; i++) {
-            ssl.getCachedSpanIndex(i, 5);
+            assertEquals(i % 5, ssl.getCachedSpanIndex(i, 5));
         }
+        assertEquals(2, ssl.getCachedSpanIndex(7, 5));
+        assertEquals(2, ssl.getCachedSpanIndex(11, 5));
 
-        for (int i = 1; i < 7; i++) {
-            assertEquals("reference child right before " + i, i - 1,
-                    GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                            i));
-        }
-        assertEquals("reference child before 0 ", -1,
-                GridLayoutManager.SpanSizeLookup.findFirstKeyLessThan(ssl.mSpanIndexCache,
-                        0));
+        ssl.invalidateFrom(5);
+        assertEquals("cache should be cleared", 0, ssl.mSpanIndexCache.size());
+        assertEquals(0, ssl.getCachedSpanIndex(12, 5));
     }
 
     public void spanLookupTest(boolean enableCache) {
@@ -1225,6 +1189,94 @@ public class GridLayoutManagerTest extends BaseGridLayoutManagerTest {
         assertEquals(2, ssl.getSpanGroupIndex(8, 5));
     }
 
+    @Test
+    public void spanIndicesWithPredictiveAnimations() throws Throwable {
+        spanIndicesWithPredictiveAnimationsTest(false);
+    }
+
+    @Test
+    public void spanIndicesWithPredictiveAnimations_positionDependentSpanSizes()
+            throws Throwable {
+        spanIndicesWithPredictiveAnimationsTest(true);
+    }
+
+    public void spanIndicesWithPredictiveAnimationsTest(final boolean byPosition)
+            throws Throwable {
+        final int spanCount = 4;
+        final RecyclerView recyclerView = setupBasic(new Config(spanCount, 60));
+        final GridLayoutManager.SpanSizeLookup ssl = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                final int key = byPosition ? position : mAdapter.getItemAt(position).mId;
+                return 1 + key % 3;
+            }
+        };
+        ssl.setSpanIndexCacheEnabled(true);
+        ssl.setSpanGroupIndexCacheEnabled(true);
+        final GridLayoutManager.SpanSizeLookup uncached = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return ssl.getSpanSize(position);
+            }
+        };
+        mGlm.setSpanSizeLookup(ssl);
+        waitForFirstLayout(recyclerView);
+        assertTrue("test sanity", mGlm.supportsPredictiveItemAnimations());
+        mGlm.mCallbacks.add(new Callback() {
+            @Override
+            public void onAfterLayout(RecyclerView.Recycler recycler, RecyclerView.State state) {
+                if (state.isPreLayout()) {
+                    return;
+                }
+                for (int i = 0; i < mGlm.getChildCount(); i++) {
+                    final View child = mGlm.getChildAt(i);
+                    final GridLayoutManager.LayoutParams lp =
+                            (GridLayoutManager.LayoutParams) child.getLayoutParams();
+                    if (lp.isItemRemoved()) {
+                        continue;
+                    }
+                    final int position = lp.getViewLayoutPosition();
+                    assertEquals("span index of " + position,
+                            uncached.getSpanIndex(position, spanCount), lp.getSpanIndex());
+                    assertEquals("span group index of " + position,
+                            uncached.getSpanGroupIndex(position, spanCount),
+                            ssl.getSpanGroupIndex(position, spanCount));
+                }
+            }
+        });
+
+        mGlm.expectLayout(2);
+        mAdapter.addAndNotify(3, 2);
+        mGlm.waitForLayout(2);
+        checkForMainThreadException();
+
+        mGlm.expectLayout(2);
+        mAdapter.deleteAndNotify(1, 3);
+        mGlm.waitForLayout(2);
+        checkForMainThreadException();
+
+        mGlm.expectLayout(2);
+        mAdapter.addAndNotify(new int[]{6, 1}, new int[]{2, 3});
+        mGlm.waitForLayout(2);
+        checkForMainThreadException();
+
+        mGlm.expectLayout(2);
+        mAdapter.moveAndNotify(8, 1);
+        mGlm.waitForLayout(2);
+        checkForMainThreadException();
+
+        mGlm.expectLayout(2);
+        mAdapter.deleteAndNotify(new int[]{10, 2}, new int[]{0, 1});
+        mGlm.waitForLayout(2);
+        checkForMainThreadException();
+
+        for (int i = 0; i < mAdapter.getItemCount(); i++) {
+            assertEquals(uncached.getSpanIndex(i, spanCount), ssl.getSpanIndex(i, spanCount));
+            assertEquals(uncached.getSpanGroupIndex(i, spanCount),
+                    ssl.getSpanGroupIndex(i, spanCount));
+        }
+    }
+
     @Test
     public void notifyDataSetChange() throws Throwable {
         final RecyclerView recyclerView = setupBasic(new Config(3, 100));
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests the sorting of the large inputs of SortedList, which uses Arrays.parallelSort on
+ * {@link Build.VERSION_CODES#N} and above when the callback allows it.
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.N)
+public class SortedListParallelSortTest {
+    private static final int ITEM_COUNT = 20000;
+
+    @Test
+    public void replaceAll_threadSafeCompare_resultIsSorted() {
+        final ThreadRecordingCallback callback = new ThreadRecordingCallback(true);
+        final SortedList<Integer> list = new SortedList<>(Integer.class, callback);
+
+        list.replaceAll(createShuffledItems(), true);
+
+        assertSorted(list);
+        assertEquals(1, callback.mInsertedCount);
+    }
+
+    @Test
+    public void replaceAll_defaultCompare_comparesOnCallingThread() {
+        final ThreadRecordingCallback callback = new ThreadRecordingCallback(false);
+        final SortedList<Integer> list = new SortedList<>(Integer.class, callback);
+
+        list.replaceAll(createShuffledItems(), true);
+
+        assertSorted(list);
+        assertEquals(Collections.singleton(Thread.currentThread()), callback.mCompareThreads);
+    }
+
+    @Test
+    public void addAll_batchedThreadSafeCompare_resultIsSorted() {
+        final ThreadRecordingCallback callback = new ThreadRecordingCallback(true);
+        final SortedList.BatchedCallback<Integer> batchedCallback =
+                new SortedList.BatchedCallback<>(callback);
+        assertTrue(batchedCallback.isCompareThreadSafe());
+        final SortedList<Integer> list = new SortedList<>(Integer.class, batchedCallback);
+
+        list.addAll(createShuffledItems(), true);
+
+        assertSorted(list);
+    }
+
+    private static Integer[] createShuffledItems() {
+        final List<Integer> items = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(i);
+        }
+        Collections.shuffle(items);
+        return items.toArray(new Integer[0]);
+    }
+
+    private static void assertSorted(SortedList<Integer> list) {
+        assertEquals(ITEM_COUNT, list.size());
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+    }
+
+    private static class ThreadRecordingCallback extends SortedList.Callback<Integer> {
+        final boolean mCompareThreadSafe;
+        final Set<Thread> mCompareThreads =
+                Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        int mInsertedCount;
+
+        ThreadRecordingCallback(boolean compareThreadSafe) {
+            mCompareThreadSafe = compareThreadSafe;
+        }
+
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            mCompareThreads.add(Thread.currentThread());
+            return o1.compareTo(o2);
+        }
+
+        @Override
+        public boolean isCompareThreadSafe() {
+            return mCompareThreadSafe;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mInsertedCount++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+        }
+
+        @Override
+        public boolean areContentsTheSame(Integer oldItem, Integer newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areItemsTheSame(Integer item1, Integer item2) {
+            return item1.equals(item2);
+        }
+    }
+}
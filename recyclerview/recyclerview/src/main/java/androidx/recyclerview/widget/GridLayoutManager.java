@@ -199,8 +199,7 @@ public class GridLayoutManager extends LinearLayoutManager {
 
     @Override
     public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
-        mSpanSizeLookup.invalidateSpanIndexCache();
-        mSpanSizeLookup.invalidateSpanGroupIndexCache();
+        mSpanSizeLookup.invalidateFrom(positionStart);
     }
 
     @Override
@@ -211,21 +210,18 @@ public class GridLayoutManager extends LinearLayoutManager {
 
     @Override
     public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
-        mSpanSizeLookup.invalidateSpanIndexCache();
-        mSpanSizeLookup.invalidateSpanGroupIndexCache();
+        mSpanSizeLookup.invalidateFrom(positionStart);
     }
 
     @Override
     public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount,
             Object payload) {
-        mSpanSizeLookup.invalidateSpanIndexCache();
-        mSpanSizeLookup.invalidateSpanGroupIndexCache();
+        mSpanSizeLookup.invalidateFrom(positionStart);
     }
 
     @Override
     public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
-        mSpanSizeLookup.invalidateSpanIndexCache();
-        mSpanSizeLookup.invalidateSpanGroupIndexCache();
+        mSpanSizeLookup.invalidateFrom(Math.min(from, to));
     }
 
     @Override
@@ -838,6 +834,8 @@ public class GridLayoutManager extends LinearLayoutManager {
         final SparseIntArray mSpanIndexCache = new SparseIntArray();
         final SparseIntArray mSpanGroupIndexCache = new SparseIntArray();
 
+        final LazySpanIndices mLazySpanIndices = new LazySpanIndices();
+
         private boolean mCacheSpanIndices = false;
         private boolean mCacheSpanGroupIndices = false;
 
@@ -859,7 +857,8 @@ public class GridLayoutManager extends LinearLayoutManager {
          */
         public void setSpanIndexCacheEnabled(boolean cacheSpanIndices) {
             if (!cacheSpanIndices) {
-                mSpanGroupIndexCache.clear();
+                mSpanIndexCache.clear();
+                mLazySpanIndices.clear();
             }
             mCacheSpanIndices = cacheSpanIndices;
         }
@@ -877,24 +876,43 @@ public class GridLayoutManager extends LinearLayoutManager {
         public void setSpanGroupIndexCacheEnabled(boolean cacheSpanGroupIndices)  {
             if (!cacheSpanGroupIndices) {
                 mSpanGroupIndexCache.clear();
+                mLazySpanIndices.clear();
             }
             mCacheSpanGroupIndices = cacheSpanGroupIndices;
         }
 
         /**
          * Clears the span index cache. GridLayoutManager automatically calls this method when
-         * adapter changes occur.
+         * the whole data set changes, and only invalidates the span indices of the changed items
+         * and of the items after them when items are added, removed, changed or moved.
          */
         public void invalidateSpanIndexCache() {
             mSpanIndexCache.clear();
+            mLazySpanIndices.clear();
         }
 
         /**
          * Clears the span group index cache. GridLayoutManager automatically calls this method
-         * when adapter changes occur.
+         * when the whole data set changes, and only invalidates the span group indices of the
+         * changed items and of the items after them when items are added, removed, changed or
+         * moved.
          */
         public void invalidateSpanGroupIndexCache() {
             mSpanGroupIndexCache.clear();
+            mLazySpanIndices.clear();
+        }
+
+        /**
+         * Invalidates the cached indices of the items from the given position on.
+         * <p>
+         * During a predictive layout, the pre-layout has already looked up the indices of items
+         * in the new data set, so the items after a change cannot be assumed to be placed as
+         * before it, and are computed again.
+         */
+        void invalidateFrom(int position) {
+            mSpanIndexCache.clear();
+            mSpanGroupIndexCache.clear();
+            mLazySpanIndices.invalidateFrom(position);
         }
 
         /**
@@ -948,8 +966,9 @@ public class GridLayoutManager extends LinearLayoutManager {
          * this method. Otherwise, you should enable span index cache
          * ({@link #setSpanIndexCacheEnabled(boolean)}) for better performance. When caching is
          * disabled, default implementation traverses all items from 0 to
-         * <code>position</code>. When caching is enabled, it calculates from the closest cached
-         * value before the <code>position</code>.
+         * <code>position</code>. When caching is enabled, it keeps the span indices of the items
+         * it traversed, and only traverses the items after the last one it knows. Adapter changes
+         * only invalidate the span indices of the changed items and of the items after them.
          * <p>
          * If you override this method, you need to make sure it is consistent with
          * {@link #getSpanSize(int)}. GridLayoutManager does not call this method for
@@ -969,17 +988,11 @@ public class GridLayoutManager extends LinearLayoutManager {
             if (positionSpanSize == spanCount) {
                 return 0; // quick return for full-span items
             }
-            int span = 0;
-            int startPos = 0;
-            // If caching is enabled, try to jump
             if (mCacheSpanIndices) {
-                int prevKey = findFirstKeyLessThan(mSpanIndexCache, position);
-                if (prevKey >= 0) {
-                    span = mSpanIndexCache.get(prevKey) + getSpanSize(prevKey);
-                    startPos = prevKey + 1;
-                }
+                return mLazySpanIndices.getSpanIndex(this, position, spanCount);
             }
-            for (int i = startPos; i < position; i++) {
+            int span = 0;
+            for (int i = 0; i < position; i++) {
                 int size = getSpanSize(i);
                 span += size;
                 if (span == spanCount) {
@@ -995,28 +1008,6 @@ public class GridLayoutManager extends LinearLayoutManager {
             return 0;
         }
 
-        static int findFirstKeyLessThan(SparseIntArray cache, int position) {
-            int lo = 0;
-            int hi = cache.size() - 1;
-
-            while (lo <= hi) {
-                // Using unsigned shift here to divide by two because it is guaranteed to not
-                // overflow.
-                final int mid = (lo + hi) >>> 1;
-                final int midVal = cache.keyAt(mid);
-                if (midVal < position) {
-                    lo = mid + 1;
-                } else {
-                    hi = mid - 1;
-                }
-            }
-            int index = lo - 1;
-            if (index >= 0 && index < cache.size()) {
-                return cache.keyAt(index);
-            }
-            return -1;
-        }
-
         /**
          * Returns the index of the group this position belongs.
          * <p>
@@ -1028,24 +1019,13 @@ public class GridLayoutManager extends LinearLayoutManager {
          * @return The index of the span group including the item at the given adapter position
          */
         public int getSpanGroupIndex(int adapterPosition, int spanCount) {
-            int span = 0;
-            int group = 0;
-            int start = 0;
             if (mCacheSpanGroupIndices) {
-                // This finds the first non empty cached group cache key.
-                int prevKey = findFirstKeyLessThan(mSpanGroupIndexCache, adapterPosition);
-                if (prevKey != -1) {
-                    group = mSpanGroupIndexCache.get(prevKey);
-                    start = prevKey + 1;
-                    span = getCachedSpanIndex(prevKey, spanCount) + getSpanSize(prevKey);
-                    if (span == spanCount) {
-                        span = 0;
-                        group++;
-                    }
-                }
+                return mLazySpanIndices.getSpanGroupIndex(this, adapterPosition, spanCount);
             }
+            int span = 0;
+            int group = 0;
             int positionSpanSize = getSpanSize(adapterPosition);
-            for (int i = start; i < adapterPosition; i++) {
+            for (int i = 0; i < adapterPosition; i++) {
                 int size = getSpanSize(i);
                 span += size;
                 if (span == spanCount) {
@@ -1064,6 +1044,100 @@ public class GridLayoutManager extends LinearLayoutManager {
         }
     }
 
+    /**
+     * Span and span group indices of the items, computed from the first item up to the last one
+     * looked up by the default {@link SpanSizeLookup#getSpanIndex(int, int)} and
+     * {@link SpanSizeLookup#getSpanGroupIndex(int, int)}.
+     * <p>
+     * Adapter changes invalidate the items from the first changed one on, and the items before it
+     * are kept.
+     */
+    static class LazySpanIndices {
+
+        private static final int MIN_SIZE = 10;
+
+        int[] mSpanSizes;
+        int[] mSpanIndices;
+        int[] mSpanGroupIndices;
+        int mSpanCount;
+        // Items before this position have their indices computed.
+        int mValidCount;
+
+        int getSpanIndex(SpanSizeLookup lookup, int position, int spanCount) {
+            computeUntil(lookup, position, spanCount);
+            return mSpanIndices[position];
+        }
+
+        int getSpanGroupIndex(SpanSizeLookup lookup, int position, int spanCount) {
+            computeUntil(lookup, position, spanCount);
+            return mSpanGroupIndices[position];
+        }
+
+        void clear() {
+            mValidCount = 0;
+        }
+
+        void invalidateFrom(int position) {
+            mValidCount = Math.max(0, Math.min(mValidCount, position));
+        }
+
+        private void computeUntil(SpanSizeLookup lookup, int position, int spanCount) {
+            if (spanCount != mSpanCount) {
+                clear();
+                mSpanCount = spanCount;
+            }
+            if (position < mValidCount) {
+                return;
+            }
+            ensureSize(position);
+            int span = 0;
+            int group = 0;
+            if (mValidCount > 0) {
+                final int last = mValidCount - 1;
+                span = mSpanIndices[last] + mSpanSizes[last];
+                group = mSpanGroupIndices[last];
+                if (span == spanCount) {
+                    span = 0;
+                    group++;
+                }
+            }
+            for (int i = mValidCount; i <= position; i++) {
+                final int size = lookup.getSpanSize(i);
+                if (span + size > spanCount) {
+                    // did not fit, moving to next row / column
+                    span = 0;
+                    group++;
+                }
+                mSpanSizes[i] = size;
+                mSpanIndices[i] = span;
+                mSpanGroupIndices[i] = group;
+                span += size;
+                if (span == spanCount) {
+                    span = 0;
+                    group++;
+                }
+            }
+            mValidCount = position + 1;
+        }
+
+        private void ensureSize(int position) {
+            if (mSpanSizes == null) {
+                final int size = Math.max(position, MIN_SIZE) + 1;
+                mSpanSizes = new int[size];
+                mSpanIndices = new int[size];
+                mSpanGroupIndices = new int[size];
+            } else if (position >= mSpanSizes.length) {
+                int size = mSpanSizes.length;
+                while (size <= position) {
+                    size *= 2;
+                }
+                mSpanSizes = Arrays.copyOf(mSpanSizes, size);
+                mSpanIndices = Arrays.copyOf(mSpanIndices, size);
+                mSpanGroupIndices = Arrays.copyOf(mSpanGroupIndices, size);
+            }
+        }
+    }
+
     @Override
     public View onFocusSearchFailed(View focused, int focusDirection,
             RecyclerView.Recycler recycler, RecyclerView.State state) {
@@ -16,6 +16,8 @@
 
 package androidx.recyclerview.widget;
 
+import android.os.Build;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -49,6 +51,16 @@ public class SortedList<T> {
     private static final int INSERTION = 1;
     private static final int DELETION = 1 << 1;
     private static final int LOOKUP = 1 << 2;
+    /**
+     * Number of items in a row that addAll and replaceAll take from the same list before they
+     * search for the end of the run instead of comparing the items one by one.
+     */
+    private static final int MIN_GALLOP = 7;
+    /**
+     * Minimum number of items that addAll and replaceAll sort on multiple threads, when the
+     * callback allows it.
+     */
+    private static final int MIN_PARALLEL_SORT_SIZE = 1 << 13;
     T[] mData;
 
     /**
@@ -278,6 +290,9 @@ public class SortedList<T> {
         int newSize = sortAndDedup(newData);
         mData = (T[]) Array.newInstance(mTClass, newSize);
 
+        // The number of items in a row removed or inserted by the loop.
+        int removedInRow = 0;
+        int insertedInRow = 0;
         while (mNewDataStart < newSize || mOldDataStart < mOldDataSize) {
             if (mOldDataStart >= mOldDataSize) {
                 int insertIndex = mNewDataStart;
@@ -301,9 +316,36 @@ public class SortedList<T> {
             int result = mCallback.compare(oldItem, newItem);
             if (result < 0) {
                 replaceAllRemove();
+                insertedInRow = 0;
+                if (++removedInRow >= MIN_GALLOP) {
+                    // Removes the rest of the old items lower than the new item at once.
+                    int itemCount = countLowerItems(mOldData, mOldDataStart, mOldDataSize,
+                            newItem, true);
+                    if (itemCount > 0) {
+                        mSize -= itemCount;
+                        mOldDataStart += itemCount;
+                        mCallback.onRemoved(mNewDataStart, itemCount);
+                    }
+                    removedInRow = 0;
+                }
             } else if (result > 0) {
                 replaceAllInsert(newItem);
+                removedInRow = 0;
+                if (++insertedInRow >= MIN_GALLOP) {
+                    // Inserts the rest of the new items lower than the old item at once.
+                    int itemCount = countLowerItems(newData, mNewDataStart, newSize, oldItem,
+                            false);
+                    if (itemCount > 0) {
+                        System.arraycopy(newData, mNewDataStart, mData, mNewDataStart, itemCount);
+                        mNewDataStart += itemCount;
+                        mSize += itemCount;
+                        mCallback.onInserted(mNewDataStart - itemCount, itemCount);
+                    }
+                    insertedInRow = 0;
+                }
             } else {
+                removedInRow = 0;
+                insertedInRow = 0;
                 if (!mCallback.areItemsTheSame(oldItem, newItem)) {
                     // The items aren't the same even though they were supposed to occupy the same
                     // place, so both notify to remove and add an item in the current location.
@@ -354,8 +396,13 @@ public class SortedList<T> {
             return 0;
         }
 
-        // Arrays.sort is stable.
-        Arrays.sort(items, mCallback);
+        // Arrays.sort and Arrays.parallelSort are stable.
+        if (items.length >= MIN_PARALLEL_SORT_SIZE && Build.VERSION.SDK_INT >= 24
+                && mCallback.isCompareThreadSafe()) {
+            Arrays.parallelSort(items, mCallback);
+        } else {
+            Arrays.sort(items, mCallback);
+        }
 
         // Keep track of the range of equal items at the end of the output.
         // Start with the range containing just the first item.
@@ -419,6 +466,9 @@ public class SortedList<T> {
         mNewDataStart = 0;
 
         int newDataStart = 0;
+        // The number of items in a row taken from the old or new items by the loop.
+        int oldInRow = 0;
+        int newInRow = 0;
         while (mOldDataStart < mOldDataSize || newDataStart < newDataSize) {
             if (mOldDataStart == mOldDataSize) {
                 // No more old items, copy the remaining new items.
@@ -447,6 +497,20 @@ public class SortedList<T> {
                 mSize++;
                 newDataStart++;
                 mCallback.onInserted(mNewDataStart - 1, 1);
+                oldInRow = 0;
+                if (++newInRow >= MIN_GALLOP) {
+                    // Outputs the rest of the new items lower than the old item at once.
+                    int itemCount = countLowerItems(newData, newDataStart, newDataSize, oldItem,
+                            false);
+                    if (itemCount > 0) {
+                        System.arraycopy(newData, newDataStart, mData, mNewDataStart, itemCount);
+                        newDataStart += itemCount;
+                        mNewDataStart += itemCount;
+                        mSize += itemCount;
+                        mCallback.onInserted(mNewDataStart - itemCount, itemCount);
+                    }
+                    newInRow = 0;
+                }
             } else if (compare == 0 && mCallback.areItemsTheSame(oldItem, newItem)) {
                 // Items are the same. Output the new item, but consume both.
                 mData[mNewDataStart++] = newItem;
@@ -456,11 +520,25 @@ public class SortedList<T> {
                     mCallback.onChanged(mNewDataStart - 1, 1,
                             mCallback.getChangePayload(oldItem, newItem));
                 }
+                oldInRow = 0;
+                newInRow = 0;
             } else {
                 // Old item is lower than or equal to (but not the same as the new). Output it.
                 // New item with the same sort order will be inserted later.
                 mData[mNewDataStart++] = oldItem;
                 mOldDataStart++;
+                newInRow = 0;
+                if (compare < 0 && ++oldInRow >= MIN_GALLOP) {
+                    // Outputs the rest of the old items lower than the new item at once.
+                    int itemCount = countLowerItems(mOldData, mOldDataStart, mOldDataSize,
+                            newItem, true);
+                    System.arraycopy(mOldData, mOldDataStart, mData, mNewDataStart, itemCount);
+                    mOldDataStart += itemCount;
+                    mNewDataStart += itemCount;
+                    oldInRow = 0;
+                } else if (compare == 0) {
+                    oldInRow = 0;
+                }
             }
         }
 
@@ -471,6 +549,47 @@ public class SortedList<T> {
         }
     }
 
+    /**
+     * Returns the number of items from start that are lower than the given item, searching
+     * exponentially and then binary for the first item that is not, as the items in a row taken
+     * from the same list during a merge are often many.
+     *
+     * @param items    The sorted items to search.
+     * @param start    The index of the first item to search.
+     * @param end      The index after the last item to search.
+     * @param item     The item to compare the items to.
+     * @param oldItems Whether the items are old items, which are always the first argument of
+     *                 {@link Callback#compare(Object, Object)} during a merge.
+     */
+    private int countLowerItems(T[] items, int start, int end, T item, boolean oldItems) {
+        int lowerCount = 0;
+        int notLowerCount = end - start;
+        int step = 1;
+        while (lowerCount + step <= notLowerCount) {
+            if (isLower(items[start + lowerCount + step - 1], item, oldItems)) {
+                lowerCount += step;
+                step *= 2;
+            } else {
+                notLowerCount = lowerCount + step - 1;
+                break;
+            }
+        }
+        // The first item that is not lower is between lowerCount and notLowerCount.
+        while (lowerCount < notLowerCount) {
+            final int mid = (lowerCount + notLowerCount) >>> 1;
+            if (isLower(items[start + mid], item, oldItems)) {
+                lowerCount = mid + 1;
+            } else {
+                notLowerCount = mid;
+            }
+        }
+        return lowerCount;
+    }
+
+    private boolean isLower(T item, T other, boolean oldItem) {
+        return oldItem ? mCallback.compare(item, other) < 0 : mCallback.compare(other, item) > 0;
+    }
+
     /**
      * Throws an exception if called while we are in the middle of a mutation operation (addAll or
      * replaceAll).
@@ -842,6 +961,9 @@ public class SortedList<T> {
         /**
          * Similar to {@link java.util.Comparator#compare(Object, Object)}, should compare two and
          * return how they should be ordered.
+         * <p>
+         * This method is only called from multiple threads at once if
+         * {@link #isCompareThreadSafe()} returns {@code true}.
          *
          * @param o1 The first object to compare.
          * @param o2 The second object to compare.
@@ -853,6 +975,20 @@ public class SortedList<T> {
         @Override
         abstract public int compare(T2 o1, T2 o2);
 
+        /**
+         * Returns whether {@link #compare(Object, Object)} can be called from multiple threads at
+         * once. If so, the large inputs of {@link SortedList#addAll(Object[], boolean)} and
+         * {@link SortedList#replaceAll(Object[], boolean)} are sorted on multiple threads on
+         * {@link android.os.Build.VERSION_CODES#N} and above.
+         * <p>
+         * Default implementation returns {@code false}.
+         *
+         * @return True if {@link #compare(Object, Object)} is thread safe.
+         */
+        public boolean isCompareThreadSafe() {
+            return false;
+        }
+
         /**
          * Called by the SortedList when the item at the given position is updated.
          *
@@ -958,6 +1094,11 @@ public class SortedList<T> {
             return mWrappedCallback.compare(o1, o2);
         }
 
+        @Override
+        public boolean isCompareThreadSafe() {
+            return mWrappedCallback.isCompareThreadSafe();
+        }
+
         @Override
         public void onInserted(int position, int count) {
             mBatchingListUpdateCallback.onInserted(position, count);
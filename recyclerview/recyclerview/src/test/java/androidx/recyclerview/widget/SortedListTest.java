@@ -57,6 +57,7 @@ public class SortedListTest {
     List<PayloadChange> mPayloadUpdates = new ArrayList<>();
     Queue<AssertListStateRunnable> mCallbackRunnables;
     List<Event> mEvents = new ArrayList<>();
+    int mCompareCount;
     private SortedList.Callback<Item> mCallback;
     InsertedCallback<Item> mInsertedCallback;
     ChangedCallback<Item> mChangedCallback;
@@ -81,6 +82,7 @@ public class SortedListTest {
         mCallback = new SortedList.Callback<Item>() {
             @Override
             public int compare(Item o1, Item o2) {
+                mCompareCount++;
                 return o1.cmpField < o2.cmpField ? -1 : (o1.cmpField == o2.cmpField ? 0 : 1);
             }
 
@@ -1497,6 +1499,67 @@ public class SortedListTest {
         assertTrue(mCallbackRunnables.isEmpty());
     }
 
+    @Test
+    public void addAll_manyNewItemsInRow_dispatchesOneEvent() {
+        mList.addAll(createItemsFromInts(0, 1000));
+        mEvents.clear();
+        final Item[] items = createItemsInRange(1, 1000);
+
+        mList.addAll(items);
+
+        assertEquals(new Event(TYPE.ADD, 1, 999), mEvents.get(0));
+        assertEquals(1, mEvents.size());
+        assertTrue(sortedListEquals(mList, createItemsInRange(0, 1001)));
+    }
+
+    @Test
+    public void addAll_fewNewItems_comparesFewOldItems() {
+        mList.addAll(createItemsInRange(0, 10000));
+        mEvents.clear();
+        mCompareCount = 0;
+
+        mList.addAll(new Item(5, 2500, 5), new Item(7, 7500, 7));
+
+        assertEquals(new Event(TYPE.ADD, 2501, 1), mEvents.get(0));
+        assertEquals(new Event(TYPE.ADD, 7502, 1), mEvents.get(1));
+        assertEquals(2, mEvents.size());
+        assertEquals(10002, mList.size());
+        assertTrue("compared " + mCompareCount + " items", mCompareCount < 200);
+    }
+
+    @Test
+    public void replaceAll_manyItemsInRow_dispatchesRangeEvents() {
+        mList.addAll(createItemsInRange(0, 1000));
+        mEvents.clear();
+        final Item[] items = createItemsInRange(500, 1500);
+
+        mList.replaceAll(items);
+
+        assertEquals(new Event(TYPE.REMOVE, 0, 500), mEvents.get(0));
+        assertEquals(new Event(TYPE.ADD, 500, 500), mEvents.get(1));
+        assertEquals(2, mEvents.size());
+        assertTrue(sortedListEquals(mList, items));
+    }
+
+    @Test
+    public void replaceAll_largeUnsortedInput_resultIsSorted() {
+        final Item[] items = shuffle(createItemsInRange(0, 20000));
+
+        mList.replaceAll(items);
+
+        assertEquals(new Event(TYPE.ADD, 0, 20000), mEvents.get(0));
+        assertEquals(1, mEvents.size());
+        assertTrue(sortedListEquals(mList, createItemsInRange(0, 20000)));
+    }
+
+    private static Item[] createItemsInRange(int start, int end) {
+        Item[] items = new Item[end - start];
+        for (int i = start; i < end; i++) {
+            items[i - start] = new Item(i);
+        }
+        return items;
+    }
+
     private int size() {
         return mList.size();
     }
@@ -136,6 +136,9 @@ interface UserDao {
 
     @Query("DELETE FROM User")
     fun deleteAll(): Int
+
+    @Query("SELECT * FROM User")
+    fun loadAll(): List<User>
 }
 
 enum class Mode {
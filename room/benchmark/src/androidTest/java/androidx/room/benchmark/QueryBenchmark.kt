@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures loading all the rows of a table, with and without cursor window pooling.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class QueryBenchmark(private val sampleSize: Int, private val cursorWindowPooling: Boolean) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        val context = ApplicationProvider.getApplicationContext() as android.content.Context
+        db = Room.inMemoryDatabaseBuilder(context, TestDatabase::class.java).apply {
+            if (cursorWindowPooling) {
+                enableCursorWindowPooling()
+            }
+        }.build()
+        db.runInTransaction {
+            for (id in 0 until sampleSize) {
+                db.getUserDao().insert(User(id, "name$id"))
+            }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun loadAll() {
+        while (benchmarkRule.state.keepRunning()) {
+            assertEquals(sampleSize, db.getUserDao().loadAll().size)
+        }
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "sampleSize={0}, cursorWindowPooling={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(false, true).forEach { cursorWindowPooling ->
+                    arrayOf(10, 1000, 100000).forEach { sampleSize ->
+                        add(arrayOf(sampleSize, cursorWindowPooling))
+                    }
+                }
+            }
+        }
+    }
+}
@@ -134,6 +134,15 @@ public class RoomWarnings {
     public static final String RELATION_QUERY_WITHOUT_TRANSACTION =
             "ROOM_RELATION_QUERY_WITHOUT_TRANSACTION";
 
+    /**
+     * Reported when SQLite would scan a whole table to evaluate the WHERE clause of a @Query,
+     * because no index of the entity starts with the columns the clause filters by.
+     * <p>
+     * This warning is only reported when the {@code room.warnUnindexedQueries} argument of the
+     * annotation processor is {@code true}.
+     */
+    public static final String UNINDEXED_WHERE_COLUMN = "ROOM_UNINDEXED_WHERE_COLUMN";
+
     /** @deprecated This type should not be instantiated as it contains only static methods. */
     @Deprecated
     @SuppressWarnings("PrivateConstructorForUtilityClass")
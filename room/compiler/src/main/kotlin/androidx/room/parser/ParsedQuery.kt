@@ -45,7 +45,9 @@ data class ParsedQuery(
         // pairs of table name and alias,
         val tables: Set<Table>,
         val syntaxErrors: List<String>,
-        val runtimeQueryPlaceholder: Boolean) {
+        val runtimeQueryPlaceholder: Boolean,
+        // names of the columns referenced by the WHERE clauses of the query
+        val whereColumns: Set<String> = emptySet()) {
     companion object {
         val STARTS_WITH_NUMBER = "^\\?[0-9]".toRegex()
         val MISSING = ParsedQuery("missing query", QueryType.UNKNOWN, emptyList(), emptySet(),
@@ -20,6 +20,7 @@ import androidx.room.ColumnInfo
 import org.antlr.v4.runtime.ANTLRInputStream
 import org.antlr.v4.runtime.BaseErrorListener
 import org.antlr.v4.runtime.CommonTokenStream
+import org.antlr.v4.runtime.ParserRuleContext
 import org.antlr.v4.runtime.RecognitionException
 import org.antlr.v4.runtime.Recognizer
 import org.antlr.v4.runtime.tree.ParseTree
@@ -39,6 +40,7 @@ class QueryVisitor(
     // table name alias mappings
     private val tableNames = mutableSetOf<Table>()
     private val withClauseNames = mutableSetOf<String>()
+    private val whereColumns = mutableSetOf<String>()
     private val queryType: QueryType
 
     init {
@@ -89,7 +91,57 @@ class QueryVisitor(
                 inputs = bindingExpressions.sortedBy { it.sourceInterval.a },
                 tables = tableNames,
                 syntaxErrors = syntaxErrors,
-                runtimeQueryPlaceholder = forRuntimeQuery)
+                runtimeQueryPlaceholder = forRuntimeQuery,
+                whereColumns = whereColumns)
+    }
+
+    override fun visitSelect_core(ctx: SQLiteParser.Select_coreContext): Void? {
+        collectWhereColumns(ctx)
+        return super.visitSelect_core(ctx)
+    }
+
+    override fun visitSelect_or_values(ctx: SQLiteParser.Select_or_valuesContext): Void? {
+        collectWhereColumns(ctx)
+        return super.visitSelect_or_values(ctx)
+    }
+
+    override fun visitDelete_stmt(ctx: SQLiteParser.Delete_stmtContext): Void? {
+        collectWhereColumns(ctx)
+        return super.visitDelete_stmt(ctx)
+    }
+
+    override fun visitDelete_stmt_limited(ctx: SQLiteParser.Delete_stmt_limitedContext): Void? {
+        collectWhereColumns(ctx)
+        return super.visitDelete_stmt_limited(ctx)
+    }
+
+    override fun visitUpdate_stmt(ctx: SQLiteParser.Update_stmtContext): Void? {
+        collectWhereColumns(ctx)
+        return super.visitUpdate_stmt(ctx)
+    }
+
+    override fun visitUpdate_stmt_limited(ctx: SQLiteParser.Update_stmt_limitedContext): Void? {
+        collectWhereColumns(ctx)
+        return super.visitUpdate_stmt_limited(ctx)
+    }
+
+    private fun collectWhereColumns(ctx: ParserRuleContext) {
+        val whereIndex = (0 until ctx.childCount).firstOrNull {
+            val child = ctx.getChild(it)
+            child is TerminalNode && child.symbol.type == SQLiteParser.K_WHERE
+        } ?: return
+        if (whereIndex + 1 < ctx.childCount) {
+            collectColumnNames(ctx.getChild(whereIndex + 1))
+        }
+    }
+
+    private fun collectColumnNames(tree: ParseTree) {
+        when (tree) {
+            is SQLiteParser.Column_nameContext -> whereColumns.add(unescapeIdentifier(tree.text))
+            // the WHERE clauses of subqueries are visited on their own
+            is SQLiteParser.Select_stmtContext -> return
+            else -> (0 until tree.childCount).forEach { collectColumnNames(tree.getChild(it)) }
+        }
     }
 
     override fun visitCommon_table_expression(
@@ -82,6 +82,11 @@ class Context private constructor(
         }
     }
 
+    val warnUnindexedQueries by lazy {
+        processingEnv.options[ProcessorOptions.OPTION_WARN_UNINDEXED_QUERIES.argName]
+                ?.toBoolean() ?: false
+    }
+
     fun <T> collectLogs(handler: (Context) -> T): Pair<T, RLog.CollectingMessager> {
         val collector = RLog.CollectingMessager()
         val subContext = Context(processingEnv = processingEnv,
@@ -117,6 +122,7 @@ class Context private constructor(
     }
 
     enum class ProcessorOptions(val argName: String) {
-        OPTION_SCHEMA_FOLDER("room.schemaLocation")
+        OPTION_SCHEMA_FOLDER("room.schemaLocation"),
+        OPTION_WARN_UNINDEXED_QUERIES("room.warnUnindexedQueries")
     }
 }
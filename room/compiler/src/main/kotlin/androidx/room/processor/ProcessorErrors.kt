@@ -626,6 +626,16 @@ object ProcessorErrors {
                     "'$contentClassName' that is not present in the same @Database. Maybe you " +
                     "forgot to add it to the entities section of the @Database?"
 
+    fun unindexedWhereColumns(columnsByTable: Map<String, List<String>>): String {
+        val columns = columnsByTable.entries.joinToString(", ") { (table, columns) ->
+            columns.joinToString(", ") { "$table.$it" }
+        }
+        return "The query scans whole tables to filter them by column(s) $columns, which no " +
+                "index starts with. You may want to add an index on these columns to the " +
+                "entities, or suppress this warning with " +
+                "@SuppressWarnings(RoomWarnings.UNINDEXED_WHERE_COLUMN)."
+    }
+
     fun cannotFindPreparedQueryResultAdapter(
         returnType: String,
         type: QueryType
@@ -64,6 +64,12 @@ class QueryMethodProcessor(
             if (query.resultInfo?.error != null) {
                 context.logger.e(executableElement,
                         DatabaseVerificaitonErrors.cannotVerifyQuery(query.resultInfo!!.error!!))
+            } else if (query.resultInfo != null && context.warnUnindexedQueries) {
+                val unindexedColumns = dbVerifier!!.findUnindexedWhereColumns(query)
+                if (unindexedColumns.isNotEmpty()) {
+                    context.logger.w(Warning.UNINDEXED_WHERE_COLUMN, executableElement,
+                            ProcessorErrors.unindexedWhereColumns(unindexedColumns))
+                }
             }
 
             context.checker.check(returnType.kind != TypeKind.ERROR,
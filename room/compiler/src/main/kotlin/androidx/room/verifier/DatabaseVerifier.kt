@@ -16,18 +16,22 @@
 
 package androidx.room.verifier
 
+import androidx.room.parser.ParsedQuery
 import androidx.room.processor.Context
 import androidx.room.vo.DatabaseView
 import androidx.room.vo.Entity
 import androidx.room.vo.FtsEntity
 import androidx.room.vo.FtsOptions
 import androidx.room.vo.Warning
+import androidx.room.vo.columnNames
+import collect
 import columnInfo
 import org.sqlite.JDBC
 import java.io.File
 import java.sql.Connection
 import java.sql.DriverManager
 import java.sql.SQLException
+import java.sql.Types
 import java.util.UUID
 import java.util.regex.Pattern
 import javax.lang.model.element.Element
@@ -56,6 +60,13 @@ class DatabaseVerifier private constructor(
         private val COLLATE_LOCALIZED_UNICODE_PATTERN = Pattern.compile(
                 "\\s+COLLATE\\s+(LOCALIZED|UNICODE)", Pattern.CASE_INSENSITIVE)
 
+        /**
+         * Matches the steps of a query plan which read all the rows of a table, such as
+         * "SCAN TABLE User" or "SCAN TABLE User AS u", but not the scans of an index.
+         */
+        private val FULL_TABLE_SCAN_PATTERN = Pattern.compile(
+                "SCAN (?:TABLE )?(\\S+)(?: AS \\S+)?")
+
         init {
             // see: https://github.com/xerial/sqlite-jdbc/issues/97
             val tmpDir = System.getProperty("java.io.tmpdir")
@@ -137,6 +148,48 @@ class DatabaseVerifier private constructor(
         }
     }
 
+    /**
+     * Returns the columns referenced by the WHERE clauses of the query which no index or primary
+     * key starts with, by table, for the tables which SQLite would scan entirely to run the query.
+     */
+    fun findUnindexedWhereColumns(query: ParsedQuery): Map<String, List<String>> {
+        if (query.whereColumns.isEmpty()) {
+            return emptyMap()
+        }
+        val scannedTables = findFullTableScans(query.original)
+        return entities.filter { entity ->
+            scannedTables.any { it.equals(entity.tableName, ignoreCase = true) }
+        }.associate { entity ->
+            val indexedColumns = entity.indices.map { it.columnNames.first() } +
+                    entity.primaryKey.columnNames.take(1)
+            entity.tableName to entity.columnNames.filter { column ->
+                query.whereColumns.any { it.equals(column, ignoreCase = true) } &&
+                        indexedColumns.none { it.equals(column, ignoreCase = true) }
+            }
+        }.filterValues { it.isNotEmpty() }
+    }
+
+    private fun findFullTableScans(sql: String): Set<String> {
+        return try {
+            val stmt = connection.prepareStatement(
+                    "EXPLAIN QUERY PLAN ${stripLocalizeCollations(sql)}")
+            try {
+                // the plan does not depend on the values, which are unknown here.
+                for (index in 1..stmt.parameterMetaData.parameterCount) {
+                    stmt.setNull(index, Types.NULL)
+                }
+                stmt.executeQuery().collect { resultSet ->
+                    val matcher = FULL_TABLE_SCAN_PATTERN.matcher(resultSet.getString("detail"))
+                    if (matcher.matches()) matcher.group(1) else null
+                }.filterNotNull().toSet()
+            } finally {
+                stmt.close()
+            }
+        } catch (ex: SQLException) {
+            emptySet()
+        }
+    }
+
     private fun stripLocalizeCollations(sql: String) =
             COLLATE_LOCALIZED_UNICODE_PATTERN.matcher(sql).replaceAll(" COLLATE NOCASE")
 
@@ -34,6 +34,7 @@ enum class Warning(val publicKey: String) {
     MISSING_INDEX_ON_FOREIGN_KEY_CHILD("ROOM_MISSING_FOREIGN_KEY_CHILD_INDEX"),
     RELATION_QUERY_WITHOUT_TRANSACTION("ROOM_RELATION_QUERY_WITHOUT_TRANSACTION"),
     DEFAULT_CONSTRUCTOR("ROOM_DEFAULT_CONSTRUCTOR"),
+    UNINDEXED_WHERE_COLUMN("ROOM_UNINDEXED_WHERE_COLUMN"),
     MISSING_COPY_ANNOTATIONS("MISSING_COPY_ANNOTATIONS");
 
     companion object {
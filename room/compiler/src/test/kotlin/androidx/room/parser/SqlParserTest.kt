@@ -122,6 +122,17 @@ class SqlParserTest {
         assertThat(query.errors, `is`(emptyList()))
     }
 
+    @Test
+    fun extractWhereColumns() {
+        val query = SqlParser.parse("SELECT * FROM User WHERE `name` = :name AND u.age > 3" +
+                " AND uid IN (SELECT owner FROM Book WHERE title = :title)")
+        assertThat(query.errors, `is`(emptyList()))
+        assertThat(query.whereColumns, `is`(setOf("name", "age", "uid", "title")))
+        assertThat(SqlParser.parse("DELETE FROM User WHERE uid = :uid").whereColumns,
+                `is`(setOf("uid")))
+        assertThat(SqlParser.parse("SELECT * FROM User").whereColumns, `is`(emptySet()))
+    }
+
     @Test
     fun tablePrefixInSelect_projection() {
         val query = SqlParser.parse("SELECT a.name, b.last_name from user a, book b")
@@ -213,6 +213,36 @@ class DatabaseVerifierTest(private val useLocalizedCollation: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun unindexedWhereColumns() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            assertThat(verifier.findUnindexedWhereColumns(
+                    SqlParser.parse("SELECT * FROM User WHERE name = :name")),
+                    `is`(mapOf("User" to listOf("name"))))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun unindexedWhereColumns_primaryKey() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            assertThat(verifier.findUnindexedWhereColumns(
+                    SqlParser.parse("SELECT * FROM User WHERE id = :id")),
+                    `is`(emptyMap()))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun unindexedWhereColumns_noWhere() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            assertThat(verifier.findUnindexedWhereColumns(
+                    SqlParser.parse("SELECT * FROM User")),
+                    `is`(emptyMap()))
+        }.compilesWithoutError()
+    }
+
     private fun validQueryTest(sql: String, cb: (QueryResultInfo) -> Unit) {
         simpleRun { invocation ->
             val verifier = createVerifier(invocation)
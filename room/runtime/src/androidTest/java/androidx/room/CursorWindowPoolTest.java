@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class CursorWindowPoolTest {
+    private static final String SELECT = "SELECT * FROM foo";
+
+    private SupportSQLiteDatabase mDb;
+    private CursorWindowPool mPool;
+
+    @Before
+    public void setUp() {
+        mDb = createDatabase("CREATE TABLE foo (id INTEGER PRIMARY KEY, name TEXT, data BLOB)");
+        mPool = new CursorWindowPool();
+    }
+
+    @After
+    public void tearDown() {
+        mPool.clear();
+        mDb.close();
+    }
+
+    @Test
+    public void attach_notWindowedCursor() {
+        final Cursor cursor = new MatrixCursor(new String[]{"id"});
+
+        assertSame(cursor, mPool.attach(cursor, SELECT));
+        assertEquals(0, mPool.getStats().getQueryCount());
+    }
+
+    @Test
+    public void reusesWindowOfClosedCursor() {
+        insertRows(0, 10, 10);
+
+        assertEquals(10, readAll());
+        assertEquals(10, readAll());
+
+        final CursorWindowStats stats = mPool.getStats();
+        assertEquals(2, stats.getQueryCount());
+        assertEquals(1, stats.getWindowCreateCount());
+        assertEquals(1, stats.getWindowReuseCount());
+        assertEquals(0, stats.getWindowMoveCount());
+        assertEquals(0, stats.getOverflowCount());
+    }
+
+    @Test
+    public void concurrentCursorsFillDifferentWindows() {
+        insertRows(0, 10, 10);
+        final Cursor first = query();
+        final Cursor second = query();
+
+        assertEquals(10, first.getCount());
+        assertEquals(10, second.getCount());
+        first.close();
+        second.close();
+
+        final CursorWindowStats stats = mPool.getStats();
+        assertEquals(2, stats.getWindowCreateCount());
+        assertEquals(0, stats.getWindowReuseCount());
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 28)
+    public void sizesWindowForRows() {
+        insertRows(0, 10, 10);
+        assertEquals(CursorWindowPool.DEFAULT_WINDOW_SIZE, mPool.getWindowSize(SELECT));
+
+        readAll();
+
+        assertEquals(CursorWindowPool.MIN_WINDOW_SIZE, mPool.getWindowSize(SELECT));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 28)
+    public void countsWindowMoves() {
+        insertRows(0, 20, 100);
+        readAll();
+        assertEquals(CursorWindowPool.MIN_WINDOW_SIZE, mPool.getWindowSize(SELECT));
+
+        // About 200KB of rows, which do not fit in the window sized for the first 20 rows.
+        insertRows(20, 1000, 100);
+
+        assertEquals(1000, readAll());
+        CursorWindowStats stats = mPool.getStats();
+        assertTrue(stats.getWindowMoveCount() > 0);
+        assertEquals(1, stats.getOverflowCount());
+
+        assertTrue(mPool.getWindowSize(SELECT) > CursorWindowPool.MIN_WINDOW_SIZE);
+        final long windowMoveCount = stats.getWindowMoveCount();
+        assertEquals(1000, readAll());
+        stats = mPool.getStats();
+        assertEquals(windowMoveCount, stats.getWindowMoveCount());
+        assertEquals(1, stats.getOverflowCount());
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 28)
+    public void retriesRowTooLargeForWindow() {
+        insertRows(0, 10, 10);
+        readAll();
+        assertEquals(CursorWindowPool.MIN_WINDOW_SIZE, mPool.getWindowSize(SELECT));
+
+        mDb.execSQL("INSERT INTO foo (id, data) VALUES (?, ?)",
+                new Object[]{10, new byte[2 * CursorWindowPool.MIN_WINDOW_SIZE]});
+
+        final Cursor cursor = query();
+        try {
+            assertTrue(cursor.moveToPosition(10));
+            assertEquals(2 * CursorWindowPool.MIN_WINDOW_SIZE, cursor.getBlob(2).length);
+        } finally {
+            cursor.close();
+        }
+        assertTrue(mPool.getWindowSize(SELECT) > 2 * CursorWindowPool.MIN_WINDOW_SIZE);
+    }
+
+    private Cursor query() {
+        return mPool.attach(mDb.query(SELECT), SELECT);
+    }
+
+    private int readAll() {
+        final Cursor cursor = query();
+        try {
+            int count = 0;
+            while (cursor.moveToNext()) {
+                assertEquals(count, cursor.getInt(0));
+                count++;
+            }
+            return count;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void insertRows(int start, int end, int nameLength) {
+        final String name = new String(new char[nameLength]).replace('\0', 'a');
+        mDb.beginTransaction();
+        try {
+            for (int i = start; i < end; i++) {
+                mDb.execSQL("INSERT INTO foo (id, name) VALUES (?, ?)", new Object[]{i, name});
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+    }
+
+    private static SupportSQLiteDatabase createDatabase(final String... queries) {
+        return new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration
+                        .builder(ApplicationProvider.getApplicationContext())
+                        .name(null)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(SupportSQLiteDatabase db) {
+                                for (String query : queries) {
+                                    db.execSQL(query);
+                                }
+                            }
+
+                            @Override
+                            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                                    int newVersion) {
+                                throw new IllegalStateException("should not be upgrading");
+                            }
+                        }).build()
+        ).getWritableDatabase();
+    }
+}
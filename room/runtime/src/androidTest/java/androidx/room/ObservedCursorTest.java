@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ObservedCursorTest {
+    private static final String SELECT = "SELECT * FROM foo WHERE id >= ?";
+
+    private SupportSQLiteDatabase mDb;
+    private final List<QueryInfo> mQueries = new ArrayList<>();
+    private final QueryObserver mObserver = new QueryObserver() {
+        @Override
+        public void onQuery(@NonNull QueryInfo info) {
+            mQueries.add(info);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mDb = createDatabase("CREATE TABLE foo (id INTEGER PRIMARY KEY, name TEXT)");
+        for (int i = 0; i < 10; i++) {
+            mDb.execSQL("INSERT INTO foo (id, name) VALUES (?, ?)", new Object[]{i, "name" + i});
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mDb.close();
+    }
+
+    @Test
+    public void reportsQueryWhenClosed() {
+        final Cursor cursor = query();
+        while (cursor.moveToNext()) {
+            cursor.getString(1);
+        }
+        assertEquals(0, mQueries.size());
+
+        cursor.close();
+        cursor.close();
+
+        assertEquals(1, mQueries.size());
+        final QueryInfo info = mQueries.get(0);
+        assertEquals(SELECT, info.getSql());
+        assertEquals(1, info.getBindArgCount());
+        assertEquals(8, info.getRowsRead());
+        assertEquals(1, info.getWindowFillCount());
+        assertTrue(info.getWallTimeNanos() > 0);
+    }
+
+    @Test
+    public void countsRowsUpToLastPosition() {
+        final Cursor cursor = query();
+        assertTrue(cursor.moveToPosition(3));
+        assertTrue(cursor.moveToFirst());
+        cursor.close();
+
+        assertEquals(4, mQueries.get(0).getRowsRead());
+    }
+
+    @Test
+    public void unreadCursor() {
+        query().close();
+
+        assertEquals(0, mQueries.get(0).getRowsRead());
+        assertEquals(0, mQueries.get(0).getWindowFillCount());
+    }
+
+    private Cursor query() {
+        final long start = System.nanoTime();
+        final Cursor cursor = mDb.query(new SimpleSQLiteQuery(SELECT, new Object[]{2}));
+        return new ObservedCursor(cursor, SELECT, 1, System.nanoTime() - start, mObserver);
+    }
+
+    private static SupportSQLiteDatabase createDatabase(final String... queries) {
+        return new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration
+                        .builder(ApplicationProvider.getApplicationContext())
+                        .name(null)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(SupportSQLiteDatabase db) {
+                                for (String query : queries) {
+                                    db.execSQL(query);
+                                }
+                            }
+
+                            @Override
+                            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                                    int newVersion) {
+                                throw new IllegalStateException("should not be upgrading");
+                            }
+                        }).build()
+        ).getWritableDatabase();
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.CursorWrapper;
+import android.database.sqlite.SQLiteException;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.collection.LruCache;
+import androidx.core.database.CursorWindowCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the {@link CursorWindow}s of the closed cursors returned by {@link RoomDatabase#query}
+ * to fill the rows of the next ones, instead of letting each cursor allocate a new window.
+ * <p>
+ * On API 28 and above, where windows can have any size, the window of a query is sized for the
+ * rows it returned the last time: large enough to hold them all, so that the cursor does not have
+ * to run the query again to fill its window with the next rows, but not much larger.
+ */
+class CursorWindowPool {
+    /**
+     * The size of the windows of the framework, which is also the size of the windows of unknown
+     * queries.
+     */
+    static final int DEFAULT_WINDOW_SIZE = 2 * 1024 * 1024;
+    static final int MIN_WINDOW_SIZE = 32 * 1024;
+    static final int MAX_WINDOW_SIZE = 8 * 1024 * 1024;
+
+    private static final int MAX_POOLED_WINDOWS = 4;
+    private static final int MAX_POOLED_SIZE = 8 * 1024 * 1024;
+    private static final int MAX_QUERY_SHAPES = 100;
+
+    // Size in a window of a field besides the data of strings and blobs, as of API 28.
+    private static final int FIELD_SIZE = 16;
+
+    private final List<PooledWindow> mWindows = new ArrayList<>();
+    private int mPooledSize;
+
+    private final LruCache<String, QueryShape> mQueryShapes = new LruCache<>(MAX_QUERY_SHAPES);
+
+    private long mQueryCount;
+    private long mWindowCreateCount;
+    private long mWindowReuseCount;
+    private long mWindowMoveCount;
+    private long mOverflowCount;
+
+    /**
+     * Gives a pooled window to the given cursor, if it is a windowed cursor which has not been
+     * filled yet.
+     *
+     * @param cursor The cursor returned by the database.
+     * @param sql    The SQL of the query.
+     * @return A cursor wrapping the given cursor which puts its window back in the pool when it is
+     * closed, or the given cursor if it does not use a window.
+     */
+    @NonNull
+    Cursor attach(@NonNull Cursor cursor, @NonNull String sql) {
+        if (!(cursor instanceof AbstractWindowedCursor)) {
+            return cursor;
+        }
+        final AbstractWindowedCursor windowedCursor = (AbstractWindowedCursor) cursor;
+        if (windowedCursor.hasWindow()) {
+            return cursor;
+        }
+        final PooledWindow window = acquire(getWindowSize(sql));
+        windowedCursor.setWindow(window.mWindow);
+        return new PooledWindowCursor(windowedCursor, sql, window);
+    }
+
+    /**
+     * Closes the pooled windows.
+     */
+    synchronized void clear() {
+        for (PooledWindow window : mWindows) {
+            window.mWindow.releaseReference();
+        }
+        mWindows.clear();
+        mPooledSize = 0;
+    }
+
+    @NonNull
+    synchronized CursorWindowStats getStats() {
+        return new CursorWindowStats(mQueryCount, mWindowCreateCount, mWindowReuseCount,
+                mWindowMoveCount, mOverflowCount);
+    }
+
+    @VisibleForTesting
+    synchronized int getWindowSize(@NonNull String sql) {
+        if (Build.VERSION.SDK_INT < 28) {
+            return DEFAULT_WINDOW_SIZE;
+        }
+        final QueryShape shape = mQueryShapes.get(sql);
+        if (shape == null) {
+            return DEFAULT_WINDOW_SIZE;
+        }
+        // Leaves room for more rows, and for rows wider than the one sampled.
+        final long size = Math.max((long) shape.mRowCount * shape.mRowSize * 3 / 2,
+                4L * shape.mRowSize);
+        if (size >= MAX_WINDOW_SIZE) {
+            return MAX_WINDOW_SIZE;
+        }
+        if (size <= MIN_WINDOW_SIZE) {
+            return MIN_WINDOW_SIZE;
+        }
+        // Rounds up to a power of two, so that windows can be reused by similar queries.
+        final int roundedSize = Integer.highestOneBit((int) size);
+        return roundedSize == size ? roundedSize : roundedSize * 2;
+    }
+
+    private synchronized PooledWindow acquire(int size) {
+        mQueryCount++;
+        // Takes the smallest window large enough, any window being large enough below API 28.
+        PooledWindow bestWindow = null;
+        for (PooledWindow window : mWindows) {
+            if (window.mSize >= size && (bestWindow == null || window.mSize < bestWindow.mSize)) {
+                bestWindow = window;
+            }
+        }
+        if (bestWindow != null) {
+            mWindows.remove(bestWindow);
+            mPooledSize -= bestWindow.mSize;
+            mWindowReuseCount++;
+        } else {
+            bestWindow = new PooledWindow(CursorWindowCompat.create(null, size),
+                    Build.VERSION.SDK_INT >= 28 ? size : DEFAULT_WINDOW_SIZE);
+            mWindowCreateCount++;
+        }
+        // Keeps the window open when the cursor closes it.
+        bestWindow.mWindow.acquireReference();
+        return bestWindow;
+    }
+
+    synchronized void onCursorClosed(@NonNull String sql, @NonNull PooledWindow window,
+            @Nullable QueryShape shape, int windowMoveCount, boolean overflowed) {
+        mWindowMoveCount += windowMoveCount;
+        if (overflowed) {
+            mOverflowCount++;
+        }
+        if (shape != null) {
+            mQueryShapes.put(sql, shape);
+        }
+        if (mWindows.size() < MAX_POOLED_WINDOWS
+                && mPooledSize + window.mSize <= MAX_POOLED_SIZE) {
+            mWindows.add(window);
+            mPooledSize += window.mSize;
+        } else {
+            window.mWindow.releaseReference();
+        }
+    }
+
+    /**
+     * Estimates the size in a window of the given row, counting strings as if each char was
+     * encoded in two bytes.
+     */
+    static int estimateRowSize(@NonNull CursorWindow window, int row, int columnCount) {
+        int size = 0;
+        for (int column = 0; column < columnCount; column++) {
+            size += FIELD_SIZE;
+            switch (window.getType(row, column)) {
+                case Cursor.FIELD_TYPE_STRING:
+                    size += 2 * window.getString(row, column).length() + 1;
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    size += window.getBlob(row, column).length;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return size;
+    }
+
+    static class PooledWindow {
+        final CursorWindow mWindow;
+        final int mSize;
+
+        PooledWindow(CursorWindow window, int size) {
+            mWindow = window;
+            mSize = size;
+        }
+    }
+
+    /**
+     * The number of rows a query returned, and the estimated size of each of them in a window.
+     */
+    static class QueryShape {
+        final int mRowCount;
+        final int mRowSize;
+
+        QueryShape(int rowCount, int rowSize) {
+            mRowCount = rowCount;
+            mRowSize = rowSize;
+        }
+    }
+
+    /**
+     * Counts the moves of the window of a cursor to other rows, and puts the pooled window back in
+     * the pool when the cursor is closed.
+     * <p>
+     * If a row does not fit in a pooled window smaller than the default one, the move is retried,
+     * which makes the cursor fill a default window of its own.
+     */
+    private class PooledWindowCursor extends CursorWrapper {
+        private final AbstractWindowedCursor mWindowedCursor;
+        private final String mSql;
+        private final PooledWindow mPooledWindow;
+
+        private boolean mFilled;
+        private int mWindowStart;
+        private int mMaxRowsInWindow;
+        private int mWindowMoveCount;
+        private boolean mRetried;
+
+        PooledWindowCursor(AbstractWindowedCursor cursor, String sql, PooledWindow window) {
+            super(cursor);
+            mWindowedCursor = cursor;
+            mSql = sql;
+            mPooledWindow = window;
+        }
+
+        @Override
+        public int getCount() {
+            int count;
+            try {
+                count = super.getCount();
+            } catch (SQLiteException e) {
+                if (!canRetry()) {
+                    throw e;
+                }
+                count = super.getCount();
+            }
+            checkWindow();
+            return count;
+        }
+
+        // The wrapped cursor moves by position too.
+        @Override
+        public boolean move(int offset) {
+            return moveToPosition(getPosition() + offset);
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return moveToPosition(0);
+        }
+
+        @Override
+        public boolean moveToLast() {
+            return moveToPosition(getCount() - 1);
+        }
+
+        @Override
+        public boolean moveToNext() {
+            return moveToPosition(getPosition() + 1);
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            return moveToPosition(getPosition() - 1);
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            boolean moved;
+            try {
+                moved = super.moveToPosition(position);
+            } catch (SQLiteException e) {
+                if (!canRetry()) {
+                    throw e;
+                }
+                moved = super.moveToPosition(position);
+            }
+            checkWindow();
+            return moved;
+        }
+
+        // A cursor closes its window when it fails to fill it, and fills a new window of the
+        // default size on the next attempt.
+        private boolean canRetry() {
+            if (mRetried || mPooledWindow.mSize >= DEFAULT_WINDOW_SIZE
+                    || mWindowedCursor.hasWindow()) {
+                return false;
+            }
+            mRetried = true;
+            return true;
+        }
+
+        private void checkWindow() {
+            final CursorWindow window = mWindowedCursor.getWindow();
+            if (window == null || window.getNumRows() == 0) {
+                return;
+            }
+            final int windowStart = window.getStartPosition();
+            if (mFilled && windowStart != mWindowStart) {
+                mWindowMoveCount++;
+            }
+            mFilled = true;
+            mWindowStart = windowStart;
+            mMaxRowsInWindow = Math.max(mMaxRowsInWindow, window.getNumRows());
+        }
+
+        @Override
+        public void close() {
+            if (isClosed()) {
+                return;
+            }
+            QueryShape shape = null;
+            boolean overflowed = mWindowMoveCount > 0;
+            final CursorWindow window = mWindowedCursor.getWindow();
+            if (window != null && window.getNumRows() > 0) {
+                final int rowCount = mWindowedCursor.getCount();
+                int rowSize = estimateRowSize(window, window.getStartPosition(),
+                        mWindowedCursor.getColumnCount());
+                overflowed |= window.getNumRows() < rowCount;
+                mMaxRowsInWindow = Math.max(mMaxRowsInWindow, window.getNumRows());
+                if (mRetried) {
+                    rowSize = Math.max(rowSize, mPooledWindow.mSize);
+                } else if (overflowed) {
+                    // The window was full, with rows at least this large.
+                    rowSize = Math.max(rowSize, mPooledWindow.mSize / mMaxRowsInWindow);
+                }
+                shape = new QueryShape(rowCount, rowSize);
+            }
+            super.close();
+            onCursorClosed(mSql, mPooledWindow, shape, mWindowMoveCount, overflowed);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Statistics of the cursor windows filled by the cursors of a {@link RoomDatabase}, since it was
+ * built.
+ *
+ * @see RoomDatabase#getCursorWindowStats()
+ * @see RoomDatabase.Builder#enableCursorWindowPooling()
+ */
+public final class CursorWindowStats {
+    private final long mQueryCount;
+    private final long mWindowCreateCount;
+    private final long mWindowReuseCount;
+    private final long mWindowMoveCount;
+    private final long mOverflowCount;
+
+    CursorWindowStats(long queryCount, long windowCreateCount, long windowReuseCount,
+            long windowMoveCount, long overflowCount) {
+        mQueryCount = queryCount;
+        mWindowCreateCount = windowCreateCount;
+        mWindowReuseCount = windowReuseCount;
+        mWindowMoveCount = windowMoveCount;
+        mOverflowCount = overflowCount;
+    }
+
+    /**
+     * Returns the number of queries whose cursor was given a pooled window.
+     *
+     * @return The number of queries.
+     */
+    public long getQueryCount() {
+        return mQueryCount;
+    }
+
+    /**
+     * Returns the number of windows allocated because no pooled window was large enough.
+     *
+     * @return The number of windows allocated.
+     */
+    public long getWindowCreateCount() {
+        return mWindowCreateCount;
+    }
+
+    /**
+     * Returns the number of queries whose cursor filled a window kept from a closed cursor.
+     *
+     * @return The number of windows reused.
+     */
+    public long getWindowReuseCount() {
+        return mWindowReuseCount;
+    }
+
+    /**
+     * Returns the number of times a closed cursor had refilled its window with other rows, running
+     * its query again.
+     *
+     * @return The number of window moves.
+     */
+    public long getWindowMoveCount() {
+        return mWindowMoveCount;
+    }
+
+    /**
+     * Returns the number of closed cursors whose rows did not all fit in their window.
+     *
+     * @return The number of queries which overflowed their window.
+     */
+    public long getOverflowCount() {
+        return mOverflowCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CursorWindowStats{queries=" + mQueryCount
+                + ", windowsCreated=" + mWindowCreateCount
+                + ", windowsReused=" + mWindowReuseCount
+                + ", windowMoves=" + mWindowMoveCount
+                + ", overflows=" + mOverflowCount + "}";
+    }
+}
@@ -96,6 +96,24 @@ public class DatabaseConfiguration {
      */
     private final Set<Integer> mMigrationNotRequiredFrom;
 
+    /**
+     * If true, the cursors returned by {@link RoomDatabase#query} fill pooled cursor windows,
+     * sized for the rows of their query.
+     */
+    public final boolean cursorWindowPooling;
+
+    /**
+     * The observer of the queries run with {@link RoomDatabase#query}, if any.
+     */
+    @Nullable
+    public final QueryObserver queryObserver;
+
+    /**
+     * If true, the plan of each query is reported to the {@link #queryObserver} the first time
+     * it is run.
+     */
+    public final boolean queryPlanCapture;
+
     /**
      * Creates a database configuration with the given values.
      *
@@ -128,6 +146,93 @@ public class DatabaseConfiguration {
             boolean requireMigration,
             boolean allowDestructiveMigrationOnDowngrade,
             @Nullable Set<Integer> migrationNotRequiredFrom) {
+        this(context, name, sqliteOpenHelperFactory, migrationContainer, callbacks,
+                allowMainThreadQueries, journalMode, queryExecutor, multiInstanceInvalidation,
+                requireMigration, allowDestructiveMigrationOnDowngrade, migrationNotRequiredFrom,
+                false);
+    }
+
+    /**
+     * Creates a database configuration with the given values.
+     *
+     * @param context The application context.
+     * @param name Name of the database, can be null if it is in memory.
+     * @param sqliteOpenHelperFactory The open helper factory to use.
+     * @param migrationContainer The migration container for migrations.
+     * @param callbacks The list of callbacks for database events.
+     * @param allowMainThreadQueries Whether to allow main thread reads/writes or not.
+     * @param journalMode The journal mode. This has to be either TRUNCATE or WRITE_AHEAD_LOGGING.
+     * @param queryExecutor The Executor used to execute asynchronous queries.
+     * @param requireMigration True if Room should require a valid migration if version changes,
+     *                        instead of recreating the tables.
+     * @param allowDestructiveMigrationOnDowngrade True if Room should recreate tables if no
+     *                                             migration is supplied during a downgrade.
+     * @param migrationNotRequiredFrom The collection of schema versions from which migrations
+     *                                 aren't required.
+     * @param cursorWindowPooling True if the cursors returned by {@link RoomDatabase#query}
+     *                            should fill pooled cursor windows.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
+            @NonNull SupportSQLiteOpenHelper.Factory sqliteOpenHelperFactory,
+            @NonNull RoomDatabase.MigrationContainer migrationContainer,
+            @Nullable List<RoomDatabase.Callback> callbacks,
+            boolean allowMainThreadQueries,
+            RoomDatabase.JournalMode journalMode,
+            @NonNull Executor queryExecutor,
+            boolean multiInstanceInvalidation,
+            boolean requireMigration,
+            boolean allowDestructiveMigrationOnDowngrade,
+            @Nullable Set<Integer> migrationNotRequiredFrom,
+            boolean cursorWindowPooling) {
+        this(context, name, sqliteOpenHelperFactory, migrationContainer, callbacks,
+                allowMainThreadQueries, journalMode, queryExecutor, multiInstanceInvalidation,
+                requireMigration, allowDestructiveMigrationOnDowngrade, migrationNotRequiredFrom,
+                cursorWindowPooling, null, false);
+    }
+
+    /**
+     * Creates a database configuration with the given values.
+     *
+     * @param context The application context.
+     * @param name Name of the database, can be null if it is in memory.
+     * @param sqliteOpenHelperFactory The open helper factory to use.
+     * @param migrationContainer The migration container for migrations.
+     * @param callbacks The list of callbacks for database events.
+     * @param allowMainThreadQueries Whether to allow main thread reads/writes or not.
+     * @param journalMode The journal mode. This has to be either TRUNCATE or WRITE_AHEAD_LOGGING.
+     * @param queryExecutor The Executor used to execute asynchronous queries.
+     * @param requireMigration True if Room should require a valid migration if version changes,
+     *                        instead of recreating the tables.
+     * @param allowDestructiveMigrationOnDowngrade True if Room should recreate tables if no
+     *                                             migration is supplied during a downgrade.
+     * @param migrationNotRequiredFrom The collection of schema versions from which migrations
+     *                                 aren't required.
+     * @param cursorWindowPooling True if the cursors returned by {@link RoomDatabase#query}
+     *                            should fill pooled cursor windows.
+     * @param queryObserver The observer of the queries run with {@link RoomDatabase#query}.
+     * @param queryPlanCapture True if the plan of each query should be reported to the
+     *                         query observer.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
+            @NonNull SupportSQLiteOpenHelper.Factory sqliteOpenHelperFactory,
+            @NonNull RoomDatabase.MigrationContainer migrationContainer,
+            @Nullable List<RoomDatabase.Callback> callbacks,
+            boolean allowMainThreadQueries,
+            RoomDatabase.JournalMode journalMode,
+            @NonNull Executor queryExecutor,
+            boolean multiInstanceInvalidation,
+            boolean requireMigration,
+            boolean allowDestructiveMigrationOnDowngrade,
+            @Nullable Set<Integer> migrationNotRequiredFrom,
+            boolean cursorWindowPooling,
+            @Nullable QueryObserver queryObserver,
+            boolean queryPlanCapture) {
         this.sqliteOpenHelperFactory = sqliteOpenHelperFactory;
         this.context = context;
         this.name = name;
@@ -140,6 +245,9 @@ public class DatabaseConfiguration {
         this.requireMigration = requireMigration;
         this.allowDestructiveMigrationOnDowngrade = allowDestructiveMigrationOnDowngrade;
         this.mMigrationNotRequiredFrom = migrationNotRequiredFrom;
+        this.cursorWindowPooling = cursorWindowPooling;
+        this.queryObserver = queryObserver;
+        this.queryPlanCapture = queryPlanCapture;
     }
 
     /**
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room;
+
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.CursorWrapper;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Measures the time spent running a query and the rows read by its cursor, and reports them to a
+ * {@link QueryObserver} when the cursor is closed.
+ * <p>
+ * Queries run when their cursor fills its window, which only happens when the cursor is moved or
+ * its rows are counted, so only these calls are timed.
+ */
+class ObservedCursor extends CursorWrapper {
+    private final String mSql;
+    private final int mBindArgCount;
+    private final QueryObserver mObserver;
+    private final AbstractWindowedCursor mWindowedCursor;
+
+    private long mWallTimeNanos;
+    private int mMaxPosition = -1;
+    private CursorWindow mWindow;
+    private int mWindowStart;
+    private int mWindowFillCount;
+
+    /**
+     * @param cursor             The cursor of the query, which may wrap the cursor returned by the
+     *                           database.
+     * @param sql                The SQL of the query.
+     * @param bindArgCount       The number of arguments bound to the query.
+     * @param prepareTimeNanos   The time spent preparing the query.
+     * @param observer           The observer to report the query to.
+     */
+    ObservedCursor(@NonNull Cursor cursor, @NonNull String sql, int bindArgCount,
+            long prepareTimeNanos, @NonNull QueryObserver observer) {
+        super(cursor);
+        mSql = sql;
+        mBindArgCount = bindArgCount;
+        mWallTimeNanos = prepareTimeNanos;
+        mObserver = observer;
+        Cursor wrappedCursor = cursor;
+        while (wrappedCursor instanceof CursorWrapper) {
+            wrappedCursor = ((CursorWrapper) wrappedCursor).getWrappedCursor();
+        }
+        mWindowedCursor = wrappedCursor instanceof AbstractWindowedCursor
+                ? (AbstractWindowedCursor) wrappedCursor : null;
+    }
+
+    @Override
+    public int getCount() {
+        final long start = System.nanoTime();
+        try {
+            return super.getCount();
+        } finally {
+            mWallTimeNanos += System.nanoTime() - start;
+            checkWindow();
+        }
+    }
+
+    // The wrapped cursor moves by position too.
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(getPosition() + offset);
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(getCount() - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(getPosition() + 1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return moveToPosition(getPosition() - 1);
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        final long start = System.nanoTime();
+        final boolean moved;
+        try {
+            moved = super.moveToPosition(position);
+        } finally {
+            mWallTimeNanos += System.nanoTime() - start;
+            checkWindow();
+        }
+        if (moved) {
+            mMaxPosition = Math.max(mMaxPosition, position);
+        }
+        return moved;
+    }
+
+    private void checkWindow() {
+        if (mWindowedCursor == null) {
+            return;
+        }
+        final CursorWindow window = mWindowedCursor.getWindow();
+        if (window == null || window.getNumRows() == 0) {
+            return;
+        }
+        final int windowStart = window.getStartPosition();
+        if (window != mWindow || windowStart != mWindowStart) {
+            mWindowFillCount++;
+            mWindow = window;
+            mWindowStart = windowStart;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (isClosed()) {
+            return;
+        }
+        super.close();
+        mObserver.onQuery(new QueryInfo(mSql, mBindArgCount, mWallTimeNanos, mMaxPosition + 1,
+                mWindowFillCount));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+/**
+ * The SQL of a query run by a {@link RoomDatabase}, and what it cost.
+ *
+ * @see QueryObserver#onQuery(QueryInfo)
+ */
+public final class QueryInfo {
+    private final String mSql;
+    private final int mBindArgCount;
+    private final long mWallTimeNanos;
+    private final int mRowsRead;
+    private final int mWindowFillCount;
+
+    QueryInfo(String sql, int bindArgCount, long wallTimeNanos, int rowsRead,
+            int windowFillCount) {
+        mSql = sql;
+        mBindArgCount = bindArgCount;
+        mWallTimeNanos = wallTimeNanos;
+        mRowsRead = rowsRead;
+        mWindowFillCount = windowFillCount;
+    }
+
+    /**
+     * @return The SQL of the query.
+     */
+    @NonNull
+    public String getSql() {
+        return mSql;
+    }
+
+    /**
+     * @return The number of arguments bound to the query.
+     */
+    public int getBindArgCount() {
+        return mBindArgCount;
+    }
+
+    /**
+     * Returns the time spent running the query, which is the time spent preparing it and moving
+     * its cursor or counting its rows, when the cursor fills its window. The time spent reading
+     * the values of the rows is not included.
+     *
+     * @return The wall time of the query, in nanoseconds.
+     */
+    public long getWallTimeNanos() {
+        return mWallTimeNanos;
+    }
+
+    /**
+     * Returns the number of rows the cursor was moved through, up to the last row it was moved
+     * to.
+     *
+     * @return The number of rows read.
+     */
+    public int getRowsRead() {
+        return mRowsRead;
+    }
+
+    /**
+     * Returns the number of times the cursor filled its window with rows, each of which ran the
+     * query, or 0 if the cursor does not use a window.
+     *
+     * @return The number of window fills.
+     */
+    public int getWindowFillCount() {
+        return mWindowFillCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "QueryInfo{sql=" + mSql
+                + ", bindArgs=" + mBindArgCount
+                + ", wallTimeNanos=" + mWallTimeNanos
+                + ", rowsRead=" + mRowsRead
+                + ", windowFills=" + mWindowFillCount + "}";
+    }
+}
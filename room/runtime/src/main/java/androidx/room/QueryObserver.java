@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Observes the queries run with {@link RoomDatabase#query}, including the queries
+ * of the {@link Dao}s.
+ * <p>
+ * A query is reported when its cursor is closed, on the thread closing it. Queries whose cursor
+ * is never closed are not reported.
+ *
+ * @see RoomDatabase.Builder#setQueryObserver(QueryObserver)
+ */
+public abstract class QueryObserver {
+    /**
+     * Called when the cursor of a query is closed.
+     *
+     * @param info The SQL of the query and what it cost.
+     */
+    public abstract void onQuery(@NonNull QueryInfo info);
+
+    /**
+     * Called with the query plan of each SQL statement, the first time it is queried, if query
+     * plan capture is enabled.
+     *
+     * @param plan The query plan chosen by SQLite.
+     * @see RoomDatabase.Builder#enableQueryPlanCapture()
+     */
+    public void onQueryPlan(@NonNull QueryPlan plan) {
+    }
+}
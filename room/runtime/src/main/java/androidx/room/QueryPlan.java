@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The plan SQLite chose to run a query, as described by {@code EXPLAIN QUERY PLAN}.
+ *
+ * @see QueryObserver#onQueryPlan(QueryPlan)
+ */
+public final class QueryPlan {
+    /**
+     * Matches the steps which read all the rows of a table, such as "SCAN TABLE User AS u", but
+     * not the scans of an index. Older versions of SQLite append an estimate of the rows read.
+     */
+    private static final Pattern FULL_TABLE_SCAN_PATTERN = Pattern.compile(
+            "SCAN (?:TABLE )?(\\S+)(?: AS \\S+)?(?: \\(~\\d+ rows\\))?");
+
+    private final String mSql;
+    private final List<String> mDetails;
+    private final List<String> mScannedTables;
+
+    QueryPlan(@NonNull String sql, @NonNull List<String> details) {
+        mSql = sql;
+        mDetails = Collections.unmodifiableList(details);
+        final List<String> scannedTables = new ArrayList<>();
+        for (String detail : details) {
+            final Matcher matcher = FULL_TABLE_SCAN_PATTERN.matcher(detail);
+            if (matcher.matches() && !scannedTables.contains(matcher.group(1))) {
+                scannedTables.add(matcher.group(1));
+            }
+        }
+        mScannedTables = Collections.unmodifiableList(scannedTables);
+    }
+
+    /**
+     * @return The SQL of the query.
+     */
+    @NonNull
+    public String getSql() {
+        return mSql;
+    }
+
+    /**
+     * @return The description of each step of the plan, in order.
+     */
+    @NonNull
+    public List<String> getDetails() {
+        return mDetails;
+    }
+
+    /**
+     * Returns the tables all the rows of which are read to run the query, without the help of
+     * an index.
+     *
+     * @return The tables scanned entirely.
+     */
+    @NonNull
+    public List<String> getFullyScannedTables() {
+        return mScannedTables;
+    }
+
+    /**
+     * @return True if the query reads all the rows of a table, without the help of an index.
+     */
+    public boolean hasFullTableScan() {
+        return !mScannedTables.isEmpty();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "QueryPlan{sql=" + mSql + ", details=" + mDetails + "}";
+    }
+}
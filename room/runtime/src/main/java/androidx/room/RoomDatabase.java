@@ -20,6 +20,7 @@ import android.annotation.SuppressLint;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.os.Build;
 import android.os.Looper;
 import android.util.Log;
@@ -31,12 +32,14 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.WorkerThread;
 import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.collection.LruCache;
 import androidx.collection.SparseArrayCompat;
 import androidx.core.app.ActivityManagerCompat;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteProgram;
 import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteStatement;
 import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
@@ -62,6 +65,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public abstract class RoomDatabase {
     private static final String DB_IMPL_SUFFIX = "_Impl";
+    // Number of distinct SQL statements whose query plan is remembered as captured.
+    private static final int MAX_CAPTURED_QUERY_PLANS = 100;
     /**
      * Unfortunately, we cannot read this value so we are only setting it to the SQLite default.
      *
@@ -81,6 +86,13 @@ public abstract class RoomDatabase {
     private final InvalidationTracker mInvalidationTracker;
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
+    @Nullable
+    private CursorWindowPool mCursorWindowPool;
+    @Nullable
+    private QueryObserver mQueryObserver;
+    // The SQL of the queries whose plan was captured.
+    @Nullable
+    private LruCache<String, Boolean> mCapturedQueryPlans;
 
     /**
      * @deprecated Will be hidden in the next release.
@@ -149,6 +161,13 @@ public abstract class RoomDatabase {
         mQueryExecutor = configuration.queryExecutor;
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
         mWriteAheadLoggingEnabled = wal;
+        if (configuration.cursorWindowPooling) {
+            mCursorWindowPool = new CursorWindowPool();
+        }
+        mQueryObserver = configuration.queryObserver;
+        if (configuration.queryPlanCapture) {
+            mCapturedQueryPlans = new LruCache<>(MAX_CAPTURED_QUERY_PLANS);
+        }
         if (configuration.multiInstanceInvalidation) {
             mInvalidationTracker.startMultiInstanceInvalidation(configuration.context,
                     configuration.name);
@@ -221,6 +240,9 @@ public abstract class RoomDatabase {
                 closeLock.lock();
                 mInvalidationTracker.stopMultiInstanceInvalidation();
                 mOpenHelper.close();
+                if (mCursorWindowPool != null) {
+                    mCursorWindowPool.clear();
+                }
             } finally {
                 closeLock.unlock();
             }
@@ -272,7 +294,7 @@ public abstract class RoomDatabase {
      * @return A Cursor obtained by running the given query in the Room database.
      */
     public Cursor query(String query, @Nullable Object[] args) {
-        return mOpenHelper.getWritableDatabase().query(new SimpleSQLiteQuery(query, args));
+        return queryInternal(new SimpleSQLiteQuery(query, args));
     }
 
     /**
@@ -284,7 +306,75 @@ public abstract class RoomDatabase {
     public Cursor query(SupportSQLiteQuery query) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
-        return mOpenHelper.getWritableDatabase().query(query);
+        return queryInternal(query);
+    }
+
+    private Cursor queryInternal(SupportSQLiteQuery query) {
+        final SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        final QueryObserver observer = mQueryObserver;
+        if (observer == null) {
+            final Cursor cursor = db.query(query);
+            return mCursorWindowPool == null ? cursor
+                    : mCursorWindowPool.attach(cursor, query.getSql());
+        }
+        if (mCapturedQueryPlans != null
+                && mCapturedQueryPlans.put(query.getSql(), Boolean.TRUE) == null) {
+            captureQueryPlan(db, query, observer);
+        }
+        final long start = System.nanoTime();
+        Cursor cursor = db.query(query);
+        if (mCursorWindowPool != null) {
+            cursor = mCursorWindowPool.attach(cursor, query.getSql());
+        }
+        return new ObservedCursor(cursor, query.getSql(), query.getArgCount(),
+                System.nanoTime() - start, observer);
+    }
+
+    private static void captureQueryPlan(SupportSQLiteDatabase db,
+            final SupportSQLiteQuery query, QueryObserver observer) {
+        final List<String> details = new ArrayList<>();
+        try {
+            final Cursor cursor = db.query(new SupportSQLiteQuery() {
+                @Override
+                public String getSql() {
+                    return "EXPLAIN QUERY PLAN " + query.getSql();
+                }
+
+                @Override
+                public void bindTo(SupportSQLiteProgram statement) {
+                    query.bindTo(statement);
+                }
+
+                @Override
+                public int getArgCount() {
+                    return query.getArgCount();
+                }
+            });
+            try {
+                final int detailIndex = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    details.add(cursor.getString(detailIndex));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (SQLException e) {
+            // The query itself reports why it cannot run.
+            return;
+        }
+        observer.onQueryPlan(new QueryPlan(query.getSql(), details));
+    }
+
+    /**
+     * Returns the statistics of the cursor windows filled by the cursors returned by
+     * {@link #query(SupportSQLiteQuery)}, or null if cursor window pooling is not enabled.
+     *
+     * @return The statistics of the cursor windows, or null.
+     * @see Builder#enableCursorWindowPooling()
+     */
+    @Nullable
+    public CursorWindowStats getCursorWindowStats() {
+        return mCursorWindowPool == null ? null : mCursorWindowPool.getStats();
     }
 
     /**
@@ -485,6 +575,9 @@ public abstract class RoomDatabase {
         private boolean mAllowMainThreadQueries;
         private JournalMode mJournalMode;
         private boolean mMultiInstanceInvalidation;
+        private boolean mCursorWindowPooling;
+        private QueryObserver mQueryObserver;
+        private boolean mQueryPlanCapture;
         private boolean mRequireMigration;
         private boolean mAllowDestructiveMigrationOnDowngrade;
         /**
@@ -630,6 +723,61 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Makes the cursors returned by {@link RoomDatabase#query(SupportSQLiteQuery)} fill cursor
+         * windows kept from the closed cursors, instead of allocating new ones.
+         * <p>
+         * On API 28 and above, the window of a query is also sized for the rows it returned the
+         * last time, so that large results do not need to be read in several passes and small
+         * results do not hold a 2MB window.
+         * <p>
+         * The windows filled can be monitored with {@link RoomDatabase#getCursorWindowStats()}.
+         * <p>
+         * This is not enabled by default.
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder<T> enableCursorWindowPooling() {
+            mCursorWindowPooling = true;
+            return this;
+        }
+
+        /**
+         * Sets the observer of the queries run with {@link RoomDatabase#query}, which includes
+         * the queries of the {@link Dao}s, to find the slow or wasteful ones.
+         * <p>
+         * Each query is reported with its SQL, the number of arguments bound to it, the time spent
+         * running it, the number of rows read and the number of times its cursor filled a window,
+         * when its cursor is closed.
+         *
+         * @param observer The query observer, or null to remove it.
+         * @return this
+         * @see #enableQueryPlanCapture()
+         */
+        @NonNull
+        public Builder<T> setQueryObserver(@Nullable QueryObserver observer) {
+            mQueryObserver = observer;
+            return this;
+        }
+
+        /**
+         * Makes Room run {@code EXPLAIN QUERY PLAN} the first time each query is run, and report
+         * the plan to the observer set with {@link #setQueryObserver(QueryObserver)}, to find the
+         * queries which read all the rows of a table.
+         * <p>
+         * This runs the SQL of each query one more time, so it should only be enabled while
+         * debugging.
+         *
+         * @return this
+         * @see QueryPlan#hasFullTableScan()
+         */
+        @NonNull
+        public Builder<T> enableQueryPlanCapture() {
+            mQueryPlanCapture = true;
+            return this;
+        }
+
         /**
          * Allows Room to destructively recreate database tables if {@link Migration}s that would
          * migrate old database schemas to the latest schema version are not found.
@@ -759,6 +907,12 @@ public abstract class RoomDatabase {
                 }
             }
 
+            if (mQueryPlanCapture && mQueryObserver == null) {
+                throw new IllegalArgumentException(
+                        "Query plan capture requires a query observer, set with "
+                                + "setQueryObserver(QueryObserver).");
+            }
+
             if (mFactory == null) {
                 mFactory = new FrameworkSQLiteOpenHelperFactory();
             }
@@ -768,7 +922,8 @@ public abstract class RoomDatabase {
                             mQueryExecutor,
                             mMultiInstanceInvalidation,
                             mRequireMigration,
-                            mAllowDestructiveMigrationOnDowngrade, mMigrationsNotRequiredFrom);
+                            mAllowDestructiveMigrationOnDowngrade, mMigrationsNotRequiredFrom,
+                            mCursorWindowPooling, mQueryObserver, mQueryPlanCapture);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
             return db;
@@ -18,6 +18,7 @@ package androidx.room.util;
 
 import android.database.AbstractWindowedCursor;
 import android.database.Cursor;
+import android.database.CursorWrapper;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
@@ -52,9 +53,14 @@ public class DBUtil {
     @NonNull
     public static Cursor query(RoomDatabase db, SupportSQLiteQuery sqLiteQuery, boolean maybeCopy) {
         final Cursor cursor = db.query(sqLiteQuery);
-        if (maybeCopy && cursor instanceof AbstractWindowedCursor) {
-            AbstractWindowedCursor windowedCursor = (AbstractWindowedCursor) cursor;
-            int rowsInCursor = windowedCursor.getCount(); // Should fill the window.
+        // Cursors filling pooled windows or observed are wrapped by the database.
+        Cursor wrappedCursor = cursor;
+        while (wrappedCursor instanceof CursorWrapper) {
+            wrappedCursor = ((CursorWrapper) wrappedCursor).getWrappedCursor();
+        }
+        if (maybeCopy && wrappedCursor instanceof AbstractWindowedCursor) {
+            AbstractWindowedCursor windowedCursor = (AbstractWindowedCursor) wrappedCursor;
+            int rowsInCursor = cursor.getCount(); // Should fill the window.
             int rowsInWindow;
             if (windowedCursor.hasWindow()) {
                 rowsInWindow = windowedCursor.getWindow().getNumRows();
@@ -62,7 +68,7 @@ public class DBUtil {
                 rowsInWindow = rowsInCursor;
             }
             if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M || rowsInWindow < rowsInCursor) {
-                return CursorUtil.copyAndClose(windowedCursor);
+                return CursorUtil.copyAndClose(cursor);
             }
         }
 
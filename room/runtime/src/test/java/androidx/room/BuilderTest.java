@@ -136,6 +136,52 @@ public class BuilderTest {
         assertThat(config.requireMigration, is(false));
     }
 
+    @Test
+    public void enableCursorWindowPooling() {
+        Context context = mock(Context.class);
+
+        TestDatabase db = Room.inMemoryDatabaseBuilder(context, TestDatabase.class)
+                .enableCursorWindowPooling()
+                .build();
+
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.cursorWindowPooling, is(true));
+        assertThat(db.getCursorWindowStats(), notNullValue());
+    }
+
+    @Test
+    public void cursorWindowPooling_disabledByDefault() {
+        Context context = mock(Context.class);
+
+        TestDatabase db = Room.inMemoryDatabaseBuilder(context, TestDatabase.class).build();
+
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.cursorWindowPooling, is(false));
+        assertThat(db.getCursorWindowStats(), nullValue());
+    }
+
+    @Test
+    public void setQueryObserver() {
+        Context context = mock(Context.class);
+        QueryObserver observer = mock(QueryObserver.class);
+
+        TestDatabase db = Room.inMemoryDatabaseBuilder(context, TestDatabase.class)
+                .setQueryObserver(observer)
+                .enableQueryPlanCapture()
+                .build();
+
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.queryObserver, is(observer));
+        assertThat(config.queryPlanCapture, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void enableQueryPlanCapture_withoutObserver() {
+        Room.inMemoryDatabaseBuilder(mock(Context.class), TestDatabase.class)
+                .enableQueryPlanCapture()
+                .build();
+    }
+
     @Test
     public void fallbackToDestructiveMigrationFrom_calledOnce_migrationsNotRequiredForValues() {
         Context context = mock(Context.class);
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import static java.util.Arrays.asList;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+
+@RunWith(JUnit4.class)
+public class QueryPlanTest {
+    @Test
+    public void fullTableScan() {
+        QueryPlan plan = new QueryPlan("SELECT * FROM User u WHERE name = ?",
+                asList("SCAN TABLE User AS u"));
+
+        assertThat(plan.hasFullTableScan(), is(true));
+        assertThat(plan.getFullyScannedTables(), is(asList("User")));
+    }
+
+    @Test
+    public void fullTableScan_newerFormat() {
+        QueryPlan plan = new QueryPlan("SELECT * FROM User", asList("SCAN User"));
+
+        assertThat(plan.getFullyScannedTables(), is(asList("User")));
+    }
+
+    @Test
+    public void fullTableScan_olderFormat() {
+        QueryPlan plan = new QueryPlan("SELECT * FROM User",
+                asList("SCAN TABLE User (~100000 rows)"));
+
+        assertThat(plan.getFullyScannedTables(), is(asList("User")));
+    }
+
+    @Test
+    public void indexScanAndSearch() {
+        QueryPlan plan = new QueryPlan("SELECT * FROM User, Book WHERE Book.owner = User.id",
+                asList("SCAN TABLE Book USING COVERING INDEX index_Book_owner",
+                        "SEARCH TABLE User USING INTEGER PRIMARY KEY (rowid=?)"));
+
+        assertThat(plan.hasFullTableScan(), is(false));
+        assertThat(plan.getFullyScannedTables(), is(Collections.<String>emptyList()));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.textclassifier;
+
+import static org.junit.Assert.assertEquals;
+
+import android.text.Spannable;
+import android.text.SpannableString;
+import android.text.style.URLSpan;
+import android.text.util.Linkify;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.core.text.util.LinkifyCompat;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares finding the URLs and email addresses of a long chat history with {@link LinkifyCompat},
+ * one entity type at a time as {@link LegacyTextClassifier} did, and with {@link LinkScanner}.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class LinkScannerBenchmark {
+    private static final int MESSAGE_COUNT = 5000;
+    private static final String[] WORDS = {
+            "hey", "did", "you", "see", "this", "lunch", "tomorrow", "at", "noon", "ok", "sure",
+            "thanks", "the", "meeting", "moved", "to", "room", "B", "see", "you", "there", "lol"};
+    private static final List<String> ENTITY_TYPES = Collections.unmodifiableList(
+            Arrays.asList(TextClassifier.TYPE_URL, TextClassifier.TYPE_EMAIL));
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final String mText = createChatHistory();
+
+    @Test
+    public void linkify() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            final TextLinks.Builder builder = new TextLinks.Builder(mText);
+            linkify(builder, TextClassifier.TYPE_URL, Linkify.WEB_URLS);
+            linkify(builder, TextClassifier.TYPE_EMAIL, Linkify.EMAIL_ADDRESSES);
+            builder.build();
+        }
+    }
+
+    @Test
+    public void scan() {
+        assertEquals(countLinksWithLinkify(), countLinks(new LinkScanner(mText.length())));
+        final LinkScanner scanner = new LinkScanner(mText.length());
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            final TextLinks.Builder builder = new TextLinks.Builder(mText);
+            scanner.addLinks(builder, mText, ENTITY_TYPES);
+            builder.build();
+        }
+    }
+
+    @Test
+    public void scanInParallel() {
+        assertEquals(countLinksWithLinkify(), countLinks(new LinkScanner()));
+        final LinkScanner scanner = new LinkScanner();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            final TextLinks.Builder builder = new TextLinks.Builder(mText);
+            scanner.addLinks(builder, mText, ENTITY_TYPES);
+            builder.build();
+        }
+    }
+
+    private void linkify(TextLinks.Builder builder, String entityType, int linkifyMask) {
+        final Spannable spannable = new SpannableString(mText);
+        if (LinkifyCompat.addLinks(spannable, linkifyMask)) {
+            final URLSpan[] spans = spannable.getSpans(0, spannable.length(), URLSpan.class);
+            for (URLSpan urlSpan : spans) {
+                builder.addLink(spannable.getSpanStart(urlSpan), spannable.getSpanEnd(urlSpan),
+                        Collections.singletonMap(entityType, 1.0f));
+            }
+        }
+    }
+
+    private int countLinksWithLinkify() {
+        final TextLinks.Builder builder = new TextLinks.Builder(mText);
+        linkify(builder, TextClassifier.TYPE_URL, Linkify.WEB_URLS);
+        linkify(builder, TextClassifier.TYPE_EMAIL, Linkify.EMAIL_ADDRESSES);
+        return builder.build().getLinks().size();
+    }
+
+    private int countLinks(LinkScanner scanner) {
+        final TextLinks.Builder builder = new TextLinks.Builder(mText);
+        scanner.addLinks(builder, mText, ENTITY_TYPES);
+        return builder.build().getLinks().size();
+    }
+
+    // Messages of a few words, some of them with a URL or an email address.
+    private static String createChatHistory() {
+        final Random random = new Random(42);
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            final int wordCount = 3 + random.nextInt(12);
+            for (int j = 0; j < wordCount; j++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            switch (random.nextInt(10)) {
+                case 0:
+                    text.append("https://www.example.com/chat/").append(i).append(' ');
+                    break;
+                case 1:
+                    text.append("user").append(i).append("@example.com ");
+                    break;
+                case 2:
+                    text.append("android.com. ");
+                    break;
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -28,10 +28,6 @@ import android.os.Bundle;
 import android.os.UserManager;
 import android.provider.Browser;
 import android.provider.ContactsContract;
-import android.text.Spannable;
-import android.text.SpannableString;
-import android.text.style.URLSpan;
-import android.text.util.Linkify;
 import android.util.Log;
 import android.util.Patterns;
 
@@ -53,7 +49,8 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Provides limited text classifier feature by using the legacy {@link LinkifyCompat} API.
+ * Provides limited text classifier feature by using the patterns of the legacy
+ * {@link LinkifyCompat} API.
  * @hide
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY)
@@ -66,15 +63,15 @@ final class LegacyTextClassifier extends TextClassifier {
                     TextClassifier.TYPE_EMAIL,
                     TextClassifier.TYPE_PHONE));
 
-    private static final int NOT_LINKIFY = 0;
-
     private static LegacyTextClassifier sInstance;
 
     private final MatchMaker mMatchMaker;
+    private final LinkScanner mLinkScanner;
 
     @VisibleForTesting()
     LegacyTextClassifier(MatchMaker matchMaker) {
         mMatchMaker = Preconditions.checkNotNull(matchMaker);
+        mLinkScanner = new LinkScanner();
     }
 
     public static LegacyTextClassifier of(Context context) {
@@ -123,46 +120,11 @@ final class LegacyTextClassifier extends TextClassifier {
                 .resolveEntityTypes(DEFAULT_ENTITY_TYPES);
         final String requestText = request.getText().toString();
         final TextLinks.Builder builder = new TextLinks.Builder(requestText);
-        for (String entityType : entityTypes) {
-            addLinks(builder, requestText, entityType);
-        }
+        // NOTE: Do not support MAP_ADDRESSES. Legacy version does not work well.
+        mLinkScanner.addLinks(builder, requestText, entityTypes);
         return builder.build();
     }
 
-    private static void addLinks(
-            TextLinks.Builder builder, String string, @EntityType String entityType) {
-        final int linkifyMask = entityTypeToLinkifyMask(entityType);
-        if (linkifyMask == NOT_LINKIFY) {
-            return;
-        }
-
-        final Spannable spannable = new SpannableString(string);
-        if (LinkifyCompat.addLinks(spannable, linkifyMask)) {
-            final URLSpan[] spans = spannable.getSpans(0, spannable.length(), URLSpan.class);
-            for (URLSpan urlSpan : spans) {
-                builder.addLink(
-                        spannable.getSpanStart(urlSpan),
-                        spannable.getSpanEnd(urlSpan),
-                        Collections.singletonMap(entityType, 1.0f));
-            }
-        }
-    }
-
-    @LinkifyCompat.LinkifyMask
-    private static int entityTypeToLinkifyMask(@EntityType String entityType) {
-        switch (entityType) {
-            case TextClassifier.TYPE_URL:
-                return Linkify.WEB_URLS;
-            case TextClassifier.TYPE_PHONE:
-                return Linkify.PHONE_NUMBERS;
-            case TextClassifier.TYPE_EMAIL:
-                return Linkify.EMAIL_ADDRESSES;
-            default:
-                // NOTE: Do not support MAP_ADDRESSES. Legacy version does not work well.
-                return NOT_LINKIFY;
-        }
-    }
-
     /**
      * Default MatchMaker implementation for the LegacyTextClassifier.
      */
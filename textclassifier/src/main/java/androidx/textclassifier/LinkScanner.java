@@ -0,0 +1,341 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.textclassifier;
+
+import android.text.Spannable;
+import android.text.SpannableString;
+import android.text.style.URLSpan;
+import android.text.util.Linkify;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.util.PatternsCompat;
+import androidx.core.util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Finds the URLs, email addresses and phone numbers in a text, as {@link Linkify} would, and adds
+ * them to a {@link TextLinks.Builder}.
+ * <p>
+ * URLs and email addresses are found with the {@link PatternsCompat} patterns in a single pass
+ * over the text, which skips a pattern where the characters its matches need are missing, and
+ * without copying the text into spannables. Long texts are split at ASCII whitespace, which
+ * these matches never contain, and their parts are scanned on a thread pool. Phone numbers are
+ * still found by {@link Linkify}, which uses the platform's phone number parser.
+ */
+final class LinkScanner {
+
+    /** Default number of chars scanned by a task, for texts scanned in parallel. */
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private static final int TYPE_URL = 0;
+    private static final int TYPE_EMAIL = 1;
+    private static final int TYPE_PHONE = 2;
+
+    private static final String[] ENTITY_TYPES = {
+            TextClassifier.TYPE_URL, TextClassifier.TYPE_EMAIL, TextClassifier.TYPE_PHONE};
+
+    // Shared by all links of a type, as they are immutable.
+    private static final List<Map<String, Float>> ENTITY_SCORES = Collections.unmodifiableList(
+            Arrays.asList(
+                    Collections.singletonMap(TextClassifier.TYPE_URL, 1.0f),
+                    Collections.singletonMap(TextClassifier.TYPE_EMAIL, 1.0f),
+                    Collections.singletonMap(TextClassifier.TYPE_PHONE, 1.0f)));
+
+    private static final int MAX_THREAD_COUNT = 4;
+
+    private static ExecutorService sExecutor;
+
+    private final int mChunkSize;
+
+    LinkScanner() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    @VisibleForTesting
+    LinkScanner(int chunkSize) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize should be positive");
+        mChunkSize = chunkSize;
+    }
+
+    /**
+     * Adds the links of the given entity types found in the text to the builder, in the order
+     * of the text. Entity types other than URLs, email addresses and phone numbers are ignored.
+     */
+    @WorkerThread
+    void addLinks(@NonNull TextLinks.Builder builder, @NonNull String text,
+            @NonNull Collection<String> entityTypes) {
+        final boolean urls = entityTypes.contains(TextClassifier.TYPE_URL);
+        final boolean emails = entityTypes.contains(TextClassifier.TYPE_EMAIL);
+        final boolean phones = entityTypes.contains(TextClassifier.TYPE_PHONE);
+
+        final Links links;
+        if (!urls && !emails) {
+            links = new Links();
+        } else if (text.length() < 2 * mChunkSize) {
+            links = scan(text, 0, text.length(), urls, emails);
+        } else {
+            links = scanInParallel(text, urls, emails);
+        }
+        if (phones) {
+            links.addAll(findPhoneNumbers(text));
+        }
+
+        final int count = links.size();
+        for (int i = 0; i < count; i++) {
+            builder.addLink(links.getStart(i), links.getEnd(i),
+                    ENTITY_SCORES.get(links.getType(i)));
+        }
+    }
+
+    private Links scanInParallel(final String text, final boolean urls, final boolean emails) {
+        final List<Future<Links>> futures = new ArrayList<>();
+        final int firstChunkEnd = findChunkEnd(text, 0);
+        int start = firstChunkEnd;
+        while (start < text.length()) {
+            final int chunkStart = start;
+            final int chunkEnd = findChunkEnd(text, chunkStart);
+            futures.add(getExecutor().submit(new Callable<Links>() {
+                @Override
+                public Links call() {
+                    return scan(text, chunkStart, chunkEnd, urls, emails);
+                }
+            }));
+            start = chunkEnd;
+        }
+
+        // Scans the first chunk while the others are scanned.
+        final Links links = scan(text, 0, firstChunkEnd, urls, emails);
+        boolean interrupted = false;
+        for (Future<Links> future : futures) {
+            Links chunkLinks = null;
+            while (chunkLinks == null) {
+                try {
+                    chunkLinks = future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            links.appendAll(chunkLinks);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return links;
+    }
+
+    // Returns the end of the chunk starting at the given index, which is the end of the text or
+    // ASCII whitespace.
+    private int findChunkEnd(String text, int start) {
+        for (int i = start + mChunkSize; i < text.length(); i++) {
+            if (isAsciiWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    private static boolean isAsciiWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Finds the URLs and email addresses within the given region of the text, as if the whole
+     * text was scanned. The region must start and end at the bounds of the text or at ASCII
+     * whitespace.
+     */
+    @VisibleForTesting
+    static Links scan(String text, int start, int end, boolean urls, boolean emails) {
+        // Every URL matched has a protocol or a dot in its host, and every email address has an
+        // at sign.
+        boolean hasUrlChar = false;
+        boolean hasAt = false;
+        for (int i = start; i < end && !(hasUrlChar && hasAt); i++) {
+            final char c = text.charAt(i);
+            hasUrlChar |= c == '.' || c == ':';
+            hasAt |= c == '@';
+        }
+        final Matcher urlMatcher = urls && hasUrlChar
+                ? createMatcher(PatternsCompat.AUTOLINK_WEB_URL.matcher(text), start, end) : null;
+        final Matcher emailMatcher = emails && hasAt
+                ? createMatcher(PatternsCompat.AUTOLINK_EMAIL_ADDRESS.matcher(text), start, end)
+                : null;
+
+        final Links links = new Links();
+        boolean hasUrl = urlMatcher != null && findUrl(urlMatcher, text);
+        boolean hasEmail = emailMatcher != null && emailMatcher.find();
+        while (hasUrl || hasEmail) {
+            if (hasUrl && (!hasEmail || urlMatcher.start() <= emailMatcher.start())) {
+                links.add(urlMatcher.start(), urlMatcher.end(), TYPE_URL);
+                hasUrl = findUrl(urlMatcher, text);
+            } else {
+                links.add(emailMatcher.start(), emailMatcher.end(), TYPE_EMAIL);
+                hasEmail = emailMatcher.find();
+            }
+        }
+        return links;
+    }
+
+    private static Matcher createMatcher(Matcher matcher, int start, int end) {
+        // Lets the patterns look around the region as they would in the whole text.
+        return matcher.region(start, end).useTransparentBounds(true).useAnchoringBounds(false);
+    }
+
+    private static boolean findUrl(Matcher matcher, String text) {
+        while (matcher.find()) {
+            if (Linkify.sUrlMatchFilter.acceptMatch(text, matcher.start(), matcher.end())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Links findPhoneNumbers(String text) {
+        final Links links = new Links();
+        final Spannable spannable = new SpannableString(text);
+        if (Linkify.addLinks(spannable, Linkify.PHONE_NUMBERS)) {
+            final URLSpan[] spans = spannable.getSpans(0, spannable.length(), URLSpan.class);
+            for (URLSpan span : spans) {
+                links.add(spannable.getSpanStart(span), spannable.getSpanEnd(span), TYPE_PHONE);
+            }
+        }
+        return links;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            final int threadCount = Math.max(1,
+                    Math.min(MAX_THREAD_COUNT, Runtime.getRuntime().availableProcessors() - 1));
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+                    1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+            // Lets the threads go while no long text is scanned.
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
+    }
+
+    /**
+     * Links as packed start, end and type triples, ordered by start.
+     */
+    @VisibleForTesting
+    static final class Links {
+        private int[] mData = new int[3 * 8];
+        private int mSize;
+
+        int size() {
+            return mSize;
+        }
+
+        int getStart(int index) {
+            return mData[3 * index];
+        }
+
+        int getEnd(int index) {
+            return mData[3 * index + 1];
+        }
+
+        int getType(int index) {
+            return mData[3 * index + 2];
+        }
+
+        @NonNull
+        String getEntityType(int index) {
+            return ENTITY_TYPES[getType(index)];
+        }
+
+        void add(int start, int end, int type) {
+            ensureCapacity(mSize + 1);
+            mData[3 * mSize] = start;
+            mData[3 * mSize + 1] = end;
+            mData[3 * mSize + 2] = type;
+            mSize++;
+        }
+
+        // Appends links which all start after the ones of this list.
+        void appendAll(Links links) {
+            ensureCapacity(mSize + links.mSize);
+            System.arraycopy(links.mData, 0, mData, 3 * mSize, 3 * links.mSize);
+            mSize += links.mSize;
+        }
+
+        // Merges links in any order, keeping the links of this list first for equal starts.
+        void addAll(Links links) {
+            if (links.mSize == 0) {
+                return;
+            }
+            final int[] data = new int[3 * (mSize + links.mSize)];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            final int[] other = links.sortedData();
+            while (i < mSize || j < links.mSize) {
+                final boolean takeThis = j == links.mSize
+                        || (i < mSize && mData[3 * i] <= other[3 * j]);
+                if (takeThis) {
+                    System.arraycopy(mData, 3 * i++, data, 3 * k++, 3);
+                } else {
+                    System.arraycopy(other, 3 * j++, data, 3 * k++, 3);
+                }
+            }
+            mData = data;
+            mSize = k;
+        }
+
+        private int[] sortedData() {
+            final Integer[] order = new Integer[mSize];
+            for (int i = 0; i < mSize; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return mData[3 * a] - mData[3 * b];
+                }
+            });
+            final int[] data = new int[3 * mSize];
+            for (int i = 0; i < mSize; i++) {
+                System.arraycopy(mData, 3 * order[i], data, 3 * i, 3);
+            }
+            return data;
+        }
+
+        private void ensureCapacity(int size) {
+            if (3 * size > mData.length) {
+                mData = Arrays.copyOf(mData, Math.max(3 * size, 2 * mData.length));
+            }
+        }
+    }
+}
@@ -17,9 +17,11 @@ package androidx.versionedparcelable.compiler;
 
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
@@ -41,6 +43,7 @@ import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
@@ -60,17 +63,27 @@ import javax.tools.Diagnostic;
 @SupportedAnnotationTypes({VersionedParcelProcessor.VERSIONED_PARCELIZE,
         VersionedParcelProcessor.PARCEL_FIELD,
         VersionedParcelProcessor.NON_PARCEL_FIELD})
+@SupportedOptions(VersionedParcelProcessor.OPTION_REGISTER_PARCELIZERS)
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class VersionedParcelProcessor extends AbstractProcessor {
 
     static final String VERSIONED_PARCELIZE = "androidx.versionedparcelable.VersionedParcelize";
     static final String PARCEL_FIELD = "androidx.versionedparcelable.ParcelField";
     static final String NON_PARCEL_FIELD = "androidx.versionedparcelable.NonParcelField";
+    /**
+     * When set to true, generated parcelizers register themselves in the ParcelizerRegistry so
+     * that they are invoked without reflection.
+     */
+    static final String OPTION_REGISTER_PARCELIZERS =
+            "androidx.versionedparcelable.registerParcelizers";
 
     private static final ClassName RESTRICT_TO = ClassName.get("androidx.annotation", "RestrictTo");
     private static final ClassName RESTRICT_TO_SCOPE = RESTRICT_TO.nestedClass("Scope");
     private static final ClassName VERSIONED_PARCEL =
             ClassName.get("androidx.versionedparcelable", "VersionedParcel");
+    private static final ClassName PARCELIZER_REGISTRY =
+            ClassName.get("androidx.versionedparcelable", "ParcelizerRegistry");
+    private static final ClassName PARCELIZER = PARCELIZER_REGISTRY.nestedClass("Parcelizer");
 
     private static final String GEN_SUFFIX = "Parcelizer";
     private static final String READ = "read";
@@ -79,12 +92,15 @@ public class VersionedParcelProcessor extends AbstractProcessor {
     private Messager mMessager;
     private ProcessingEnvironment mEnv;
     private Map<Pattern, String> mMethodLookup = new HashMap<>();
+    private boolean mRegisterParcelizers;
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnvironment) {
         super.init(processingEnvironment);
         mEnv = processingEnvironment;
         mMessager = processingEnvironment.getMessager();
+        mRegisterParcelizers = Boolean.parseBoolean(
+                processingEnvironment.getOptions().get(OPTION_REGISTER_PARCELIZERS));
         mMethodLookup.put(Pattern.compile("^boolean$"), "Boolean");
         mMethodLookup.put(Pattern.compile("^int$"), "Int");
         mMethodLookup.put(Pattern.compile("^long$"), "Long");
@@ -301,9 +317,13 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         readBuilder.addStatement("return obj");
         genClass.addMethod(readBuilder.build());
         genClass.addMethod(writeBuilder.build());
+        String pkg = getPkg(versionedParcelable);
+        if (mRegisterParcelizers) {
+            addRegistration(genClass, type,
+                    pkg + "." + versionedParcelable.getSimpleName() + GEN_SUFFIX);
+        }
         try {
             TypeSpec typeSpec = genClass.build();
-            String pkg = getPkg(versionedParcelable);
             JavaFile.builder(pkg,
                     typeSpec).build().writeTo(mEnv.getFiler());
             if (jetifyAs != null && jetifyAs.length() > 0) {
@@ -341,6 +361,41 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Adds a static initializer registering a reflection-free parcelizer, which delegates to the
+     * generated static read and write methods.
+     */
+    private void addRegistration(TypeSpec.Builder genClass, TypeName type,
+            String parcelizerName) {
+        TypeSpec parcelizer = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(ParameterizedTypeName.get(PARCELIZER, type))
+                .addMethod(MethodSpec.methodBuilder(READ)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(type)
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("return $L.read(parcel)",
+                                parcelizerSimpleName(parcelizerName))
+                        .build())
+                .addMethod(MethodSpec.methodBuilder(WRITE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(type, "obj")
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("$L.write(obj, parcel)",
+                                parcelizerSimpleName(parcelizerName))
+                        .build())
+                .build();
+        genClass.addStaticBlock(CodeBlock.builder()
+                .addStatement("$T.register($T.class, $S, $L)", PARCELIZER_REGISTRY, type,
+                        parcelizerName, parcelizer)
+                .build());
+    }
+
+    private static String parcelizerSimpleName(String parcelizerName) {
+        return parcelizerName.substring(parcelizerName.lastIndexOf('.') + 1);
+    }
+
     private String strip(String s) {
         if (!s.startsWith("\"")) return s;
         return s.substring(1, s.length() - 1);
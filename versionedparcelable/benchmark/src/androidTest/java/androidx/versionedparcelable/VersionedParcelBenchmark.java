@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class VersionedParcelBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final BenchmarkParcelable mParcelable = createParcelable(3, 4);
+
+    @Test
+    public void writeStream() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16 * 1024);
+            ParcelUtils.toOutputStream(mParcelable, outputStream);
+        }
+    }
+
+    @Test
+    public void writeByteBuffer() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ParcelUtils.toByteBuffer(mParcelable);
+        }
+    }
+
+    @Test
+    public void writeByteBufferIndexed() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ParcelUtils.toByteBuffer(mParcelable, true);
+        }
+    }
+
+    @Test
+    public void readStream() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ParcelUtils.toOutputStream(mParcelable, outputStream);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            inputStream.reset();
+            ParcelUtils.fromInputStream(inputStream);
+        }
+    }
+
+    @Test
+    public void readByteBuffer() {
+        ByteBuffer buffer = ParcelUtils.toByteBuffer(mParcelable);
+        BenchmarkParcelable copy = ParcelUtils.fromByteBuffer(buffer);
+        assertEquals(mParcelable.mChildren.size(), copy.mChildren.size());
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ParcelUtils.fromByteBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void readByteBufferIndexed() {
+        ByteBuffer buffer = ParcelUtils.toByteBuffer(mParcelable, true);
+        BenchmarkParcelable copy = ParcelUtils.fromByteBuffer(buffer);
+        assertEquals(mParcelable.mChildren.size(), copy.mChildren.size());
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            ParcelUtils.fromByteBuffer(buffer);
+        }
+    }
+
+    private static BenchmarkParcelable createParcelable(int width, int depth) {
+        BenchmarkParcelable parcelable = new BenchmarkParcelable();
+        parcelable.mInt = width * depth;
+        parcelable.mLong = System.currentTimeMillis();
+        parcelable.mString = "Item " + width + "/" + depth;
+        parcelable.mBytes = new byte[256];
+        parcelable.mInts = new int[] {width, depth, width * depth};
+        if (depth > 0) {
+            for (int i = 0; i < width; i++) {
+                parcelable.mChildren.add(createParcelable(width, depth - 1));
+            }
+        }
+        return parcelable;
+    }
+
+    @VersionedParcelize
+    public static class BenchmarkParcelable implements VersionedParcelable {
+        @ParcelField(1)
+        public int mInt;
+        @ParcelField(2)
+        public long mLong;
+        @ParcelField(3)
+        public String mString;
+        @ParcelField(4)
+        public byte[] mBytes;
+        @ParcelField(5)
+        public int[] mInts;
+        @ParcelField(6)
+        public List<BenchmarkParcelable> mChildren = new ArrayList<>();
+    }
+}
@@ -67,6 +67,23 @@ public class ParcelUtilsTest {
         after.getString("pre_existing_arg");
     }
 
+    @Test
+    public void testGeneratedParcelizerRegistered() {
+        ParcelUtilsParcelable obj = new ParcelUtilsParcelable();
+        obj.mField = 42;
+        Parcel p = Parcel.obtain();
+        p.writeParcelable(toParcelable(obj), 0);
+        p.setDataPosition(0);
+        ParcelUtilsParcelable copy = ParcelUtils.fromParcelable(
+                p.readParcelable(getClass().getClassLoader()));
+
+        assertEquals(42, copy.mField);
+        // The androidTest sources are processed with registerParcelizers enabled
+        assertNotNull(ParcelizerRegistry.getByClass(ParcelUtilsParcelable.class));
+        assertNotNull(ParcelizerRegistry.getByParcelizerName(
+                ParcelUtilsParcelableParcelizer.class.getName()));
+    }
+
     @VersionedParcelize
     public static class ParcelUtilsParcelable implements VersionedParcelable {
         @ParcelField(1)
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+@SmallTest
+public class VersionedParcelByteBufferTest {
+
+    private VersionedParcelByteBuffer mOutputParcel;
+
+    @Before
+    public void setup() {
+        mOutputParcel = new VersionedParcelByteBuffer();
+    }
+
+    @Test
+    public void testInt() {
+        mOutputParcel.writeInt(42, 0);
+        assertEquals(42, createInputParcel().readInt(0, 0));
+    }
+
+    @Test
+    public void testBoolean() {
+        mOutputParcel.writeBoolean(true, 0);
+        assertEquals(true, createInputParcel().readBoolean(false, 0));
+    }
+
+    @Test
+    public void testString() {
+        mOutputParcel.writeString("My string", 0);
+        assertEquals("My string", createInputParcel().readString(null, 0));
+    }
+
+    @Test
+    public void testMultipleFields() {
+        mOutputParcel.writeInt(1, 1);
+        mOutputParcel.writeString("two", 2);
+        mOutputParcel.writeLong(3L, 3);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertEquals(1, input.readInt(0, 1));
+        assertEquals(3L, input.readLong(0, 3));
+    }
+
+    @Test
+    public void testMissingField() {
+        mOutputParcel.writeInt(1, 1);
+        assertEquals(7, createInputParcel().readInt(7, 2));
+    }
+
+    @Test
+    public void testLargeField() {
+        byte[] bytes = new byte[0x20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        mOutputParcel.writeByteArray(bytes, 0);
+        mOutputParcel.writeInt(42, 1);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertArrayEquals(bytes, input.readByteArray(null, 0));
+        assertEquals(42, input.readInt(0, 1));
+    }
+
+    @Test
+    public void testSameFormatAsStream() {
+        byte[] bytes = new byte[0x10000];
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VersionedParcelStream stream = new VersionedParcelStream(null, output);
+        stream.writeInt(42, 1);
+        stream.writeByteArray(bytes, 2);
+        stream.writeString("My string", 3);
+        stream.closeField();
+
+        mOutputParcel.writeInt(42, 1);
+        mOutputParcel.writeByteArray(bytes, 2);
+        mOutputParcel.writeString("My string", 3);
+        mOutputParcel.closeField();
+
+        assertEquals(ByteBuffer.wrap(output.toByteArray()), mOutputParcel.getBuffer());
+    }
+
+    @Test
+    public void testVersionedParcelable() {
+        ParcelUtilsTest.ParcelUtilsParcelable obj = new ParcelUtilsTest.ParcelUtilsParcelable();
+        obj.mField = 42;
+        ByteBuffer buffer = ParcelUtils.toByteBuffer(obj);
+
+        ParcelUtilsTest.ParcelUtilsParcelable copy = ParcelUtils.fromByteBuffer(buffer);
+        assertNotNull(copy);
+        assertEquals(42, copy.mField);
+
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        ParcelUtilsTest.ParcelUtilsParcelable streamCopy =
+                ParcelUtils.fromInputStream(new ByteArrayInputStream(bytes));
+        assertEquals(42, streamCopy.mField);
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(ParcelUtils.fromByteBuffer(ParcelUtils.toByteBuffer(null)));
+    }
+
+    @Test
+    public void testIndexedOutOfOrder() {
+        mOutputParcel = new VersionedParcelByteBuffer(true);
+        mOutputParcel.writeInt(1, 1);
+        mOutputParcel.writeString("two", 2);
+        mOutputParcel.writeLong(3L, 3);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertEquals(3L, input.readLong(0, 3));
+        assertEquals(1, input.readInt(0, 1));
+        assertEquals("two", input.readString(null, 2));
+    }
+
+    @Test
+    public void testIndexedMissingField() {
+        mOutputParcel = new VersionedParcelByteBuffer(true);
+        mOutputParcel.writeInt(1, 1);
+        mOutputParcel.writeByteArray(new byte[0], 2);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertEquals(7, input.readInt(7, 3));
+        assertNull(input.readByteArray(null, 2));
+        assertEquals(1, input.readInt(0, 1));
+    }
+
+    @Test
+    public void testIndexedLargeField() {
+        byte[] bytes = new byte[0x20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        mOutputParcel = new VersionedParcelByteBuffer(true);
+        mOutputParcel.writeByteArray(bytes, 0);
+        mOutputParcel.writeInt(42, 1);
+        VersionedParcelByteBuffer input = createInputParcel();
+        assertEquals(42, input.readInt(0, 1));
+        assertArrayEquals(bytes, input.readByteArray(null, 0));
+    }
+
+    @Test
+    public void testIndexedVersionedParcelable() {
+        IndexedParcelable obj = new IndexedParcelable();
+        obj.mValue = 1;
+        for (int i = 0; i < 3; i++) {
+            IndexedParcelable child = new IndexedParcelable();
+            child.mValue = 10 + i;
+            child.mName = "Child " + i;
+            child.mChildren.add(new IndexedParcelable());
+            obj.mChildren.add(child);
+        }
+        obj.mName = "Parent";
+
+        IndexedParcelable copy = ParcelUtils.fromByteBuffer(ParcelUtils.toByteBuffer(obj, true));
+        assertNotNull(copy);
+        assertEquals(1, copy.mValue);
+        assertEquals("Parent", copy.mName);
+        assertEquals(3, copy.mChildren.size());
+        for (int i = 0; i < 3; i++) {
+            IndexedParcelable child = copy.mChildren.get(i);
+            assertEquals(10 + i, child.mValue);
+            assertEquals("Child " + i, child.mName);
+            assertEquals(1, child.mChildren.size());
+        }
+    }
+
+    private VersionedParcelByteBuffer createInputParcel() {
+        mOutputParcel.closeField();
+        return new VersionedParcelByteBuffer(mOutputParcel.getBuffer());
+    }
+
+    @VersionedParcelize
+    public static class IndexedParcelable implements VersionedParcelable {
+        @ParcelField(1)
+        public int mValue;
+        @ParcelField(2)
+        public List<IndexedParcelable> mChildren = new ArrayList<>();
+        @ParcelField(3)
+        public String mName;
+    }
+}
@@ -27,6 +27,7 @@ import androidx.annotation.RestrictTo;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Utilities for managing {@link VersionedParcelable}s.
@@ -81,6 +82,46 @@ public class ParcelUtils {
         return stream.readVersionedParcelable();
     }
 
+    /**
+     * Write a VersionedParcelable into a ByteBuffer, using the same format as
+     * {@link #toOutputStream(VersionedParcelable, OutputStream)}. The returned buffer wraps the
+     * written data without copying it.
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    @NonNull
+    public static ByteBuffer toByteBuffer(VersionedParcelable obj) {
+        return toByteBuffer(obj, false);
+    }
+
+    /**
+     * Write a VersionedParcelable into a ByteBuffer. When indexed, each VersionedParcelable is
+     * written with a table of field offsets, which lets {@link #fromByteBuffer(ByteBuffer)} seek
+     * directly to the fields it reads. Indexed data can only be read with
+     * {@link #fromByteBuffer(ByteBuffer)}.
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    @NonNull
+    public static ByteBuffer toByteBuffer(VersionedParcelable obj, boolean indexed) {
+        VersionedParcelByteBuffer parcel = new VersionedParcelByteBuffer(indexed);
+        parcel.writeVersionedParcelable(obj);
+        parcel.closeField();
+        return parcel.getBuffer();
+    }
+
+    /**
+     * Read a VersionedParcelable from a ByteBuffer, starting at its position. The position of
+     * the given buffer is not modified. Both indexed and sequential data can be read.
+     * @hide
+     */
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    public static <T extends VersionedParcelable> T fromByteBuffer(@NonNull ByteBuffer buffer) {
+        VersionedParcelByteBuffer parcel = new VersionedParcelByteBuffer(buffer);
+        return parcel.readVersionedParcelable();
+    }
+
     /**
      * Add a VersionedParcelable to an existing Bundle.
      */
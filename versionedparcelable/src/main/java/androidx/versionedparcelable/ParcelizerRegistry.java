@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Static index of generated parcelizers, used by {@link VersionedParcel} to read and write
+ * {@link VersionedParcelable}s without reflection.
+ * <p>
+ * Parcelizers generated with the <code>androidx.versionedparcelable.registerParcelizers</code>
+ * annotation processor option register themselves here when their class is initialized. Classes
+ * which are not registered keep being handled through reflection.
+ *
+ * @hide
+ */
+@RestrictTo(LIBRARY_GROUP_PREFIX)
+public final class ParcelizerRegistry {
+
+    /**
+     * Reads and writes a given type of {@link VersionedParcelable}.
+     *
+     * @param <T> the type handled by this parcelizer
+     */
+    public interface Parcelizer<T extends VersionedParcelable> {
+        /**
+         * Creates a new object and reads its fields from the given parcel.
+         */
+        @NonNull
+        T read(@NonNull VersionedParcel parcel);
+
+        /**
+         * Writes the fields of the given object into the given parcel.
+         */
+        void write(@NonNull T obj, @NonNull VersionedParcel parcel);
+    }
+
+    private static final ConcurrentHashMap<String, Parcelizer<?>> sByParcelizerName =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, Entry> sByClass =
+            new ConcurrentHashMap<>();
+
+    private ParcelizerRegistry() {
+    }
+
+    /**
+     * Registers the parcelizer for the given class.
+     *
+     * @param cls            the VersionedParcelable class
+     * @param parcelizerName the name of the generated parcelizer class, which is the name written
+     *                       in the parcel to identify the type
+     * @param parcelizer     the parcelizer
+     */
+    public static <T extends VersionedParcelable> void register(@NonNull Class<T> cls,
+            @NonNull String parcelizerName, @NonNull Parcelizer<T> parcelizer) {
+        sByParcelizerName.put(parcelizerName, parcelizer);
+        sByClass.put(cls, new Entry(parcelizerName, parcelizer));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    static <T extends VersionedParcelable> Parcelizer<T> getByParcelizerName(
+            @NonNull String parcelizerName) {
+        return (Parcelizer<T>) sByParcelizerName.get(parcelizerName);
+    }
+
+    @Nullable
+    static Entry getByClass(@NonNull Class<?> cls) {
+        return sByClass.get(cls);
+    }
+
+    static final class Entry {
+        final String mParcelizerName;
+        final Parcelizer<?> mParcelizer;
+
+        Entry(String parcelizerName, Parcelizer<?> parcelizer) {
+            mParcelizerName = parcelizerName;
+            mParcelizer = parcelizer;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends VersionedParcelable> void write(T obj, VersionedParcel parcel) {
+            ((Parcelizer<T>) mParcelizer).write(obj, parcel);
+        }
+    }
+}
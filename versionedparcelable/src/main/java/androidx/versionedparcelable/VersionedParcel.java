@@ -1037,6 +1037,11 @@ public abstract class VersionedParcel {
     }
 
     private void writeVersionedParcelableCreator(VersionedParcelable p) {
+        ParcelizerRegistry.Entry entry = ParcelizerRegistry.getByClass(p.getClass());
+        if (entry != null) {
+            writeString(entry.mParcelizerName);
+            return;
+        }
         Class name = null;
         try {
             name = findParcelClass(p.getClass());
@@ -1561,8 +1566,19 @@ public abstract class VersionedParcel {
     @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
     protected <T extends VersionedParcelable> T readFromParcel(
             String parcelCls, VersionedParcel versionedParcel) {
+        ParcelizerRegistry.Parcelizer<T> parcelizer =
+                ParcelizerRegistry.getByParcelizerName(parcelCls);
+        if (parcelizer != null) {
+            return parcelizer.read(versionedParcel);
+        }
         try {
+            // Resolving the method initializes the parcelizer class, which registers it if it
+            // was generated with registration enabled.
             Method m = getReadMethod(parcelCls);
+            parcelizer = ParcelizerRegistry.getByParcelizerName(parcelCls);
+            if (parcelizer != null) {
+                return parcelizer.read(versionedParcel);
+            }
             return (T) m.invoke(null, versionedParcel);
         } catch (IllegalAccessException e) {
             throw new RuntimeException("VersionedParcel encountered IllegalAccessException", e);
@@ -1582,6 +1598,11 @@ public abstract class VersionedParcel {
      */
     protected <T extends VersionedParcelable> void writeToParcel(T val,
             VersionedParcel versionedParcel) {
+        ParcelizerRegistry.Entry entry = ParcelizerRegistry.getByClass(val.getClass());
+        if (entry != null) {
+            entry.write(val, versionedParcel);
+            return;
+        }
         try {
             Method m = getWriteMethod(val.getClass());
             m.invoke(null, val, versionedParcel);
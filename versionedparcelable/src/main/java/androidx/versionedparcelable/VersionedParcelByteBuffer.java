@@ -0,0 +1,450 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import androidx.annotation.RestrictTo;
+import androidx.collection.ArrayMap;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link VersionedParcelStream} which reads and writes a {@link ByteBuffer} directly.
+ * <p>
+ * The format is the same as the one of VersionedParcelStream, so data written by either one can
+ * be read by the other. Instead of buffering each field in its own stream and copying it into
+ * its parent when done, fields are written in place: room is left for the field header, which is
+ * filled in when the field is closed. Strings and byte arrays are read straight out of the
+ * backing array.
+ * <p>
+ * When created in indexed mode, each parcel holding fields starts with a header pointing to a
+ * table of field offsets, written after its last field. Readers use that table to seek directly to
+ * the requested fields instead of going through every field before them, and skip over the
+ * nested {@link VersionedParcelable}s they do not read. Indexed data can only be read by this
+ * class, which still reads the sequential format.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+class VersionedParcelByteBuffer extends VersionedParcelStream {
+
+    private static final Charset UTF_16 = Charset.forName("UTF-16");
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int HEADER_SIZE = 4;
+
+    // Marks the start of indexed data. Its low 16 bits are the size of the field in a sequential
+    // header, which is never 0 since empty fields are not written, so it can't be mistaken for one.
+    private static final int INDEX_MAGIC = 0x56500000;
+    private static final int INDEX_HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 8;
+
+    private static final int INPUT_UNKNOWN = -1;
+    private static final int INPUT_SEQUENTIAL = -2;
+
+    // The parcel owning mBuffer, which is shared with all sub-parcels and grown when writing.
+    private final VersionedParcelByteBuffer mRoot;
+    private ByteBuffer mBuffer;
+
+    // Output field being written, -1 when none.
+    private int mOutputFieldStart = -1;
+    private int mOutputFieldId;
+
+    // Whether the fields written are indexed, the start of the indexed data, -1 until the first
+    // field is written, and the id and offset pairs of its fields.
+    private final boolean mOutputIndexed;
+    private int mOutputIndexStart = -1;
+    private int[] mOutputIndex;
+    private int mOutputIndexSize;
+
+    // Input field being read, and the end of the data this parcel is allowed to read.
+    private final int mInputLimit;
+    private int mInputFieldId = -1;
+    private int mInputFieldEnd = -1;
+
+    // Start of the indexed data being read, INPUT_UNKNOWN until the first field is looked for or
+    // INPUT_SEQUENTIAL when the data is not indexed, and the location of its offset table.
+    private int mInputIndexStart = INPUT_UNKNOWN;
+    private int mInputIndexTable;
+    private int mInputIndexCount;
+
+    /**
+     * Creates a parcel writing into a new buffer, retrieved through {@link #getBuffer()}.
+     */
+    VersionedParcelByteBuffer() {
+        this(false);
+    }
+
+    /**
+     * Creates a parcel writing into a new buffer, retrieved through {@link #getBuffer()}.
+     *
+     * @param indexed whether to write a field offset table for each parcel holding fields
+     */
+    VersionedParcelByteBuffer(boolean indexed) {
+        this(null, ByteBuffer.allocate(DEFAULT_CAPACITY), Integer.MAX_VALUE, indexed,
+                new ArrayMap<String, Method>(), new ArrayMap<String, Method>(),
+                new ArrayMap<String, Class>());
+    }
+
+    /**
+     * Creates a parcel reading from or writing into the given buffer, starting at its position.
+     * The position of the given buffer is not modified.
+     */
+    VersionedParcelByteBuffer(ByteBuffer buffer) {
+        this(null, buffer.duplicate(), buffer.limit(), false, new ArrayMap<String, Method>(),
+                new ArrayMap<String, Method>(), new ArrayMap<String, Class>());
+    }
+
+    private VersionedParcelByteBuffer(VersionedParcelByteBuffer root, ByteBuffer buffer,
+            int inputLimit, boolean outputIndexed, ArrayMap<String, Method> readCache,
+            ArrayMap<String, Method> writeCache,
+            ArrayMap<String, Class> parcelizerCache) {
+        super(null, null, readCache, writeCache, parcelizerCache);
+        mRoot = root != null ? root : this;
+        mBuffer = buffer;
+        mInputLimit = inputLimit;
+        mOutputIndexed = outputIndexed;
+    }
+
+    /**
+     * Returns the data written so far, without copying it.
+     */
+    ByteBuffer getBuffer() {
+        ByteBuffer buffer = mRoot.mBuffer.duplicate();
+        buffer.flip();
+        return buffer;
+    }
+
+    private ByteBuffer buffer() {
+        return mRoot.mBuffer;
+    }
+
+    private ByteBuffer ensureCapacity(int bytes) {
+        ByteBuffer buffer = mRoot.mBuffer;
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity)
+                : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        mRoot.mBuffer = grown;
+        return grown;
+    }
+
+    @Override
+    public void closeField() {
+        closeOutputField();
+        if (mOutputIndexStart >= 0) {
+            writeIndex();
+        }
+    }
+
+    private void closeOutputField() {
+        if (mOutputFieldStart < 0) {
+            return;
+        }
+        ByteBuffer buffer = buffer();
+        int start = mOutputFieldStart;
+        int dataStart = start + HEADER_SIZE;
+        int size = buffer.position() - dataStart;
+        mOutputFieldStart = -1;
+        if (size == 0) {
+            // Empty fields are not written at all
+            buffer.position(start);
+            if (mOutputIndexed) {
+                mOutputIndexSize -= 2;
+            }
+            return;
+        }
+        if (size < 0xffff) {
+            buffer.putInt(start, (mOutputFieldId << 16) | size);
+            return;
+        }
+        // Large fields have their size in a second header int, shift the data to make room.
+        buffer = ensureCapacity(HEADER_SIZE);
+        int end = buffer.position();
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            System.arraycopy(array, offset + dataStart, array, offset + dataStart + HEADER_SIZE,
+                    size);
+        } else {
+            for (int i = end - 1; i >= dataStart; i--) {
+                buffer.put(i + HEADER_SIZE, buffer.get(i));
+            }
+        }
+        buffer.putInt(start, (mOutputFieldId << 16) | 0xffff);
+        buffer.putInt(dataStart, size);
+        buffer.position(end + HEADER_SIZE);
+    }
+
+    private void writeIndex() {
+        ByteBuffer buffer = ensureCapacity(4 + mOutputIndexSize * 4);
+        int table = buffer.position();
+        buffer.putInt(mOutputIndexStart - 4, table - mOutputIndexStart);
+        buffer.putInt(mOutputIndexSize / 2);
+        for (int i = 0; i < mOutputIndexSize; i++) {
+            buffer.putInt(mOutputIndex[i]);
+        }
+        mOutputIndexStart = -1;
+        mOutputIndexSize = 0;
+    }
+
+    private void addIndexEntry(int fieldId, int offset) {
+        if (mOutputIndex == null) {
+            mOutputIndex = new int[16];
+        } else if (mOutputIndexSize == mOutputIndex.length) {
+            int[] grown = new int[mOutputIndexSize * 2];
+            System.arraycopy(mOutputIndex, 0, grown, 0, mOutputIndexSize);
+            mOutputIndex = grown;
+        }
+        mOutputIndex[mOutputIndexSize++] = fieldId;
+        mOutputIndex[mOutputIndexSize++] = offset;
+    }
+
+    @Override
+    protected VersionedParcel createSubParcel() {
+        int limit = mInputFieldEnd >= 0 ? mInputFieldEnd : mInputLimit;
+        return new VersionedParcelByteBuffer(mRoot, null, limit, mOutputIndexed, mReadCache,
+                mWriteCache, mParcelizerCache);
+    }
+
+    @Override
+    @SuppressWarnings("TypeParameterUnusedInFormals")
+    protected <T extends VersionedParcelable> T readVersionedParcelable() {
+        String name = readString();
+        if (name == null) {
+            return null;
+        }
+        VersionedParcelByteBuffer subParcel = (VersionedParcelByteBuffer) createSubParcel();
+        T obj = readFromParcel(name, subParcel);
+        if (subParcel.mInputIndexStart == INPUT_UNKNOWN) {
+            subParcel.readIndex();
+        }
+        if (subParcel.mInputIndexStart >= 0) {
+            // Fields may have been read out of order or skipped, move to the end of the object.
+            buffer().position(subParcel.mInputIndexTable
+                    + subParcel.mInputIndexCount * INDEX_ENTRY_SIZE);
+        }
+        return obj;
+    }
+
+    @Override
+    public boolean readField(int fieldId) {
+        if (mInputIndexStart == INPUT_UNKNOWN) {
+            readIndex();
+        }
+        if (mInputIndexStart >= 0) {
+            return seekField(fieldId);
+        }
+        ByteBuffer buffer = buffer();
+        while (true) {
+            if (mInputFieldId == fieldId) {
+                return true;
+            }
+            if (String.valueOf(mInputFieldId).compareTo(String.valueOf(fieldId)) > 0) {
+                return false;
+            }
+            if (mInputFieldEnd > buffer.position()) {
+                buffer.position(mInputFieldEnd);
+            }
+            mInputFieldEnd = -1;
+            if (buffer.position() + HEADER_SIZE > mInputLimit) {
+                return false;
+            }
+            int fieldInfo = buffer.getInt();
+            int size = fieldInfo & 0xffff;
+            if (size == 0xffff) {
+                if (buffer.position() + HEADER_SIZE > mInputLimit) {
+                    return false;
+                }
+                size = buffer.getInt();
+            }
+            mInputFieldId = (fieldInfo >> 16) & 0xffff;
+            mInputFieldEnd = buffer.position() + size;
+        }
+    }
+
+    private void readIndex() {
+        mInputIndexStart = INPUT_SEQUENTIAL;
+        ByteBuffer buffer = buffer();
+        int start = buffer.position();
+        if (start + INDEX_HEADER_SIZE + 4 > mInputLimit || buffer.getInt(start) != INDEX_MAGIC) {
+            return;
+        }
+        int dataStart = start + INDEX_HEADER_SIZE;
+        int table = dataStart + buffer.getInt(start + 4);
+        if (table < dataStart || table + 4 > mInputLimit) {
+            return;
+        }
+        int count = buffer.getInt(table);
+        if (count < 0 || count > (mInputLimit - table - 4) / INDEX_ENTRY_SIZE) {
+            return;
+        }
+        mInputIndexStart = dataStart;
+        mInputIndexTable = table + 4;
+        mInputIndexCount = count;
+    }
+
+    private boolean seekField(int fieldId) {
+        ByteBuffer buffer = buffer();
+        int entry = mInputIndexTable;
+        for (int i = 0; i < mInputIndexCount; i++, entry += INDEX_ENTRY_SIZE) {
+            if (buffer.getInt(entry) != fieldId) {
+                continue;
+            }
+            buffer.position(mInputIndexStart + buffer.getInt(entry + 4));
+            int fieldInfo = buffer.getInt();
+            int size = fieldInfo & 0xffff;
+            if (size == 0xffff) {
+                size = buffer.getInt();
+            }
+            mInputFieldId = fieldId;
+            mInputFieldEnd = buffer.position() + size;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void setOutputField(int fieldId) {
+        closeOutputField();
+        if (mOutputIndexed && mOutputIndexStart < 0) {
+            ensureCapacity(INDEX_HEADER_SIZE).putInt(INDEX_MAGIC).putInt(0);
+            mOutputIndexStart = buffer().position();
+        }
+        ByteBuffer buffer = ensureCapacity(HEADER_SIZE);
+        mOutputFieldId = fieldId;
+        mOutputFieldStart = buffer.position();
+        buffer.position(mOutputFieldStart + HEADER_SIZE);
+        if (mOutputIndexed) {
+            addIndexEntry(fieldId, mOutputFieldStart - mOutputIndexStart);
+        }
+    }
+
+    @Override
+    public void writeByteArray(byte[] b) {
+        if (b != null) {
+            writeByteArray(b, 0, b.length);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    public void writeByteArray(byte[] b, int offset, int len) {
+        if (b != null) {
+            ensureCapacity(4 + len).putInt(len).put(b, offset, len);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    public void writeInt(int val) {
+        ensureCapacity(4).putInt(val);
+    }
+
+    @Override
+    public void writeLong(long val) {
+        ensureCapacity(8).putLong(val);
+    }
+
+    @Override
+    public void writeFloat(float val) {
+        ensureCapacity(4).putFloat(val);
+    }
+
+    @Override
+    public void writeDouble(double val) {
+        ensureCapacity(8).putDouble(val);
+    }
+
+    @Override
+    public void writeString(String val) {
+        if (val != null) {
+            byte[] bytes = val.getBytes(UTF_16);
+            ensureCapacity(4 + bytes.length).putInt(bytes.length).put(bytes);
+        } else {
+            writeInt(-1);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean val) {
+        ensureCapacity(1).put((byte) (val ? 1 : 0));
+    }
+
+    @Override
+    public int readInt() {
+        return buffer().getInt();
+    }
+
+    @Override
+    public long readLong() {
+        return buffer().getLong();
+    }
+
+    @Override
+    public float readFloat() {
+        return buffer().getFloat();
+    }
+
+    @Override
+    public double readDouble() {
+        return buffer().getDouble();
+    }
+
+    @Override
+    public String readString() {
+        ByteBuffer buffer = buffer();
+        int len = buffer.getInt();
+        if (len <= 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), len,
+                    UTF_16);
+            buffer.position(buffer.position() + len);
+        } else {
+            byte[] bytes = new byte[len];
+            buffer.get(bytes);
+            value = new String(bytes, UTF_16);
+        }
+        return value;
+    }
+
+    @Override
+    public byte[] readByteArray() {
+        ByteBuffer buffer = buffer();
+        int len = buffer.getInt();
+        if (len <= 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public boolean readBoolean() {
+        return buffer().get() != 0;
+    }
+}
@@ -77,7 +77,7 @@ class VersionedParcelStream extends VersionedParcel {
                 new ArrayMap<String, Class>());
     }
 
-    private VersionedParcelStream(InputStream input, OutputStream output,
+    VersionedParcelStream(InputStream input, OutputStream output,
             ArrayMap<String, Method> readCache,
             ArrayMap<String, Method> writeCache,
             ArrayMap<String, Class> parcelizerCache) {
@@ -407,20 +407,16 @@ class VersionedParcelStream extends VersionedParcel {
 
     @Override
     public void writeBundle(Bundle val) {
-        try {
-            if (val != null) {
-                Set<String> keys = val.keySet();
-                mCurrentOutput.writeInt(keys.size());
-                for (String key : keys) {
-                    writeString(key);
-                    Object o = val.get(key);
-                    writeObject(o);
-                }
-            } else {
-                mCurrentOutput.writeInt(-1);
+        if (val != null) {
+            Set<String> keys = val.keySet();
+            writeInt(keys.size());
+            for (String key : keys) {
+                writeString(key);
+                Object o = val.get(key);
+                writeObject(o);
             }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+        } else {
+            writeInt(-1);
         }
     }
 
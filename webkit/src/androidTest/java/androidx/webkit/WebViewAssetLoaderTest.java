@@ -19,11 +19,14 @@ package androidx.webkit;
 import android.content.ContextWrapper;
 import android.net.Uri;
 import android.util.Log;
+import android.webkit.WebResourceRequest;
 import android.webkit.WebResourceResponse;
 
 import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.SdkSuppress;
 import androidx.test.filters.SmallTest;
 import androidx.test.runner.AndroidJUnit4;
+import androidx.webkit.internal.AssetData;
 import androidx.webkit.internal.AssetHelper;
 
 import org.junit.Assert;
@@ -35,6 +38,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 @RunWith(AndroidJUnit4.class)
 public class WebViewAssetLoaderTest {
@@ -64,6 +72,69 @@ public class WebViewAssetLoaderTest {
         public InputStream openResource(Uri uri) {
             return null;
         }
+
+        @Override
+        public AssetData mapAsset(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public AssetData mapResource(Uri uri) {
+            return null;
+        }
+    }
+
+    private static WebResourceRequest createRequest(final String url,
+            final Map<String, String> headers) {
+        return new WebResourceRequest() {
+            @Override
+            public Uri getUrl() {
+                return Uri.parse(url);
+            }
+
+            @Override
+            public boolean isForMainFrame() {
+                return false;
+            }
+
+            @Override
+            public boolean isRedirect() {
+                return false;
+            }
+
+            @Override
+            public boolean hasGesture() {
+                return false;
+            }
+
+            @Override
+            public String getMethod() {
+                return "GET";
+            }
+
+            @Override
+            public Map<String, String> getRequestHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    private static WebViewAssetLoader buildMappedAssetLoader(
+            WebViewAssetLoader.Builder builder, final String path, final String contents) {
+        return builder.buildForTest(new MockAssetHelper() {
+            @Override
+            public AssetData mapAsset(Uri uri) {
+                try {
+                    if (uri.getPath().equals(path)) {
+                        return AssetData.fromBuffer(ByteBuffer.wrap(contents.getBytes("utf-8")),
+                                "\"test-etag\"", null);
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "exception when creating response", e);
+                }
+                return null;
+            }
+        });
     }
 
     private static class MockContext extends ContextWrapper {
@@ -240,4 +311,189 @@ public class WebViewAssetLoaderTest {
         Assert.assertNotNull(response);
         Assert.assertEquals(testHtmlContents, readAsString(response.getData(), "utf-8"));
     }
+
+    @Test
+    @SmallTest
+    @SdkSuppress(minSdkVersion = 21)
+    public void testMappedAsset() throws Throwable {
+        final String contents = "0123456789";
+        WebViewAssetLoader assetLoader = buildMappedAssetLoader(
+                new WebViewAssetLoader.Builder(new MockContext()), "www/video.mp4", contents);
+
+        WebResourceResponse response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/video.mp4",
+                Collections.<String, String>emptyMap()));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals("10", response.getResponseHeaders().get("Content-Length"));
+        Assert.assertEquals("\"test-etag\"", response.getResponseHeaders().get("ETag"));
+        Assert.assertEquals("bytes", response.getResponseHeaders().get("Accept-Ranges"));
+        Assert.assertEquals("no-cache", response.getResponseHeaders().get("Cache-Control"));
+        Assert.assertEquals(contents, readAsString(response.getData(), "utf-8"));
+
+        // Mapped data can be read again.
+        response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/video.mp4",
+                Collections.<String, String>emptyMap()));
+        Assert.assertEquals(contents, readAsString(response.getData(), "utf-8"));
+    }
+
+    @Test
+    @SmallTest
+    @SdkSuppress(minSdkVersion = 21)
+    public void testRangeRequest() throws Throwable {
+        WebViewAssetLoader assetLoader = buildMappedAssetLoader(
+                new WebViewAssetLoader.Builder(new MockContext()), "www/video.mp4", "0123456789");
+        Map<String, String> headers = new HashMap<>();
+        headers.put("range", "bytes=2-5");
+
+        WebResourceResponse response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/video.mp4", headers));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(206, response.getStatusCode());
+        Assert.assertEquals("bytes 2-5/10", response.getResponseHeaders().get("Content-Range"));
+        Assert.assertEquals("4", response.getResponseHeaders().get("Content-Length"));
+        Assert.assertEquals("2345", readAsString(response.getData(), "utf-8"));
+
+        headers.put("range", "bytes=7-");
+        response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/video.mp4", headers));
+        Assert.assertEquals(206, response.getStatusCode());
+        Assert.assertEquals("789", readAsString(response.getData(), "utf-8"));
+
+        headers.put("range", "bytes=10-");
+        response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/video.mp4", headers));
+        Assert.assertEquals(416, response.getStatusCode());
+        Assert.assertEquals("bytes */10", response.getResponseHeaders().get("Content-Range"));
+    }
+
+    @Test
+    @SmallTest
+    @SdkSuppress(minSdkVersion = 21)
+    public void testRangeRequestForOtherData() throws Throwable {
+        WebViewAssetLoader assetLoader = buildMappedAssetLoader(
+                new WebViewAssetLoader.Builder(new MockContext()), "www/video.mp4", "0123456789");
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=2-5");
+        headers.put("If-Range", "\"other-etag\"");
+
+        WebResourceResponse response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/video.mp4", headers));
+        Assert.assertNotNull(response);
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals("0123456789", readAsString(response.getData(), "utf-8"));
+    }
+
+    @Test
+    @SmallTest
+    @SdkSuppress(minSdkVersion = 21)
+    public void testStreamedAsset() throws Throwable {
+        final String testHtmlContents = "<body><div>hah</div></body>";
+        WebViewAssetLoader.Builder builder = new WebViewAssetLoader.Builder(new MockContext());
+        builder.setCacheMaxAge(3600);
+        WebViewAssetLoader assetLoader = builder.buildForTest(new MockAssetHelper() {
+            @Override
+            public InputStream openAsset(Uri uri) {
+                try {
+                    if (uri.getPath().equals("www/test.html")) {
+                        return new ByteArrayInputStream(testHtmlContents.getBytes("utf-8"));
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "exception when creating response", e);
+                }
+                return null;
+            }
+        });
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=2-5");
+
+        WebResourceResponse response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/test.html", headers));
+        Assert.assertNotNull(response);
+        // Streamed data can't be read in ranges.
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals("none", response.getResponseHeaders().get("Accept-Ranges"));
+        Assert.assertNull(response.getResponseHeaders().get("ETag"));
+        Assert.assertEquals("max-age=3600", response.getResponseHeaders().get("Cache-Control"));
+        Assert.assertEquals(testHtmlContents, readAsString(response.getData(), "utf-8"));
+    }
+
+    @Test
+    @SmallTest
+    @SdkSuppress(minSdkVersion = 21)
+    public void testPrecompressedVariant() throws Throwable {
+        final String script = "alert(1);";
+        final String compressedScript = "compressed";
+        final int[] variantOpenCount = new int[1];
+        WebViewAssetLoader.Builder builder = new WebViewAssetLoader.Builder(new MockContext());
+        builder.servePrecompressedVariants();
+        WebViewAssetLoader assetLoader = builder.buildForTest(new MockAssetHelper() {
+            @Override
+            public InputStream openAsset(Uri uri) {
+                try {
+                    if (uri.getPath().equals("www/app.js")) {
+                        return new ByteArrayInputStream(script.getBytes("utf-8"));
+                    }
+                    if (uri.getPath().equals("www/app.js.gz")) {
+                        return new ByteArrayInputStream(compressedScript.getBytes("utf-8"));
+                    }
+                    if (uri.getPath().equals("www/app.js.br")) {
+                        variantOpenCount[0]++;
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "exception when creating response", e);
+                }
+                return null;
+            }
+        });
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip, deflate, br;q=0");
+
+        WebResourceResponse response = assetLoader.shouldInterceptRequest(createRequest(
+                "https://appassets.androidplatform.net/assets/www/app.js", headers));
+        Assert.assertNotNull(response);
+        Assert.assertEquals("gzip", response.getResponseHeaders().get("Content-Encoding"));
+        Assert.assertEquals(compressedScript, readAsString(response.getData(), "utf-8"));
+
+        headers.put("Accept-Encoding", "br");
+        for (int i = 0; i < 2; i++) {
+            response = assetLoader.shouldInterceptRequest(createRequest(
+                    "https://appassets.androidplatform.net/assets/www/app.js", headers));
+            Assert.assertNull(response.getResponseHeaders().get("Content-Encoding"));
+            Assert.assertEquals(script, readAsString(response.getData(), "utf-8"));
+        }
+        // Missing variants are only looked for once.
+        Assert.assertEquals(1, variantOpenCount[0]);
+    }
+
+    @Test
+    @SmallTest
+    public void testParseRange() {
+        Assert.assertArrayEquals(new long[] {0, 9}, WebViewAssetLoader.parseRange("bytes=0-", 10));
+        Assert.assertArrayEquals(new long[] {2, 5},
+                WebViewAssetLoader.parseRange("bytes=2-5", 10));
+        Assert.assertArrayEquals(new long[] {2, 9},
+                WebViewAssetLoader.parseRange("bytes=2-100", 10));
+        Assert.assertArrayEquals(new long[] {7, 9}, WebViewAssetLoader.parseRange("bytes=-3", 10));
+        Assert.assertArrayEquals(new long[] {0, 9},
+                WebViewAssetLoader.parseRange("bytes=-30", 10));
+        Assert.assertSame(WebViewAssetLoader.RANGE_NOT_SATISFIABLE,
+                WebViewAssetLoader.parseRange("bytes=10-", 10));
+        Assert.assertSame(WebViewAssetLoader.RANGE_NOT_SATISFIABLE,
+                WebViewAssetLoader.parseRange("bytes=-0", 10));
+        Assert.assertNull(WebViewAssetLoader.parseRange("bytes=5-2", 10));
+        Assert.assertNull(WebViewAssetLoader.parseRange("bytes=0-1,5-6", 10));
+        Assert.assertNull(WebViewAssetLoader.parseRange("bytes=a-b", 10));
+        Assert.assertNull(WebViewAssetLoader.parseRange("items=0-1", 10));
+    }
+
+    @Test
+    @SmallTest
+    public void testParseAcceptedEncodings() {
+        Assert.assertEquals(Collections.emptyList(),
+                WebViewAssetLoader.parseAcceptedEncodings(null));
+        Assert.assertEquals(Arrays.asList("gzip", "br"),
+                WebViewAssetLoader.parseAcceptedEncodings("GZIP, identity;q=0, br;q=0.5"));
+    }
 }
@@ -27,10 +27,20 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
+import androidx.webkit.internal.AssetData;
 import androidx.webkit.internal.AssetHelper;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper class meant to be used with the android.webkit.WebView class to enable hosting assets,
@@ -62,6 +72,12 @@ import java.net.URLConnection;
  *
  * </pre>
  *
+ * On Android Lollipop and above, assets and resources stored uncompressed in the APK, such as
+ * media files, are memory mapped. Their responses have a length and a strong ETag, and range
+ * requests for them are answered with the requested bytes only, which lets media elements seek.
+ * Assets can also be served from precompressed variants, see
+ * {@link Builder#servePrecompressedVariants()}.
+ *
  * @hide
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
@@ -84,8 +100,18 @@ public class WebViewAssetLoader {
     private static final String HTTP_SCHEME = "http";
     private static final String HTTPS_SCHEME = "https";
 
+    // Content codings of the precompressed variants of assets, in order of preference, and the
+    // extensions of their files.
+    private static final String[] PRECOMPRESSED_ENCODINGS = {"br", "gzip"};
+    private static final String[] PRECOMPRESSED_EXTENSIONS = {".br", ".gz"};
+
+    // Returned when parsing a range that can't be satisfied.
+    @VisibleForTesting
+    static final long[] RANGE_NOT_SATISFIABLE = new long[0];
+
     @NonNull private final PathHandler mAssetsHandler;
     @NonNull private final PathHandler mResourcesHandler;
+    @NonNull private final String mCacheControl;
 
     /**
      * A handler that produces responses for the registered paths.
@@ -131,6 +157,22 @@ public class WebViewAssetLoader {
         @Nullable
         public abstract InputStream handle(@NonNull Uri url);
 
+        /**
+         * Opens the data for the given URL, along with what's known about it before reading it.
+         * Handlers which only provide a stream don't need to override this.
+         *
+         * @param url the URL to open the data for.
+         * @param acceptedEncodings the content codings the data may be encoded with, in lower
+         *                          case.
+         * @return the data, or null if there's none.
+         */
+        @RequiresApi(21)
+        @Nullable
+        AssetData handleData(@NonNull Uri url, @NonNull List<String> acceptedEncodings) {
+            InputStream is = handle(url);
+            return is == null ? null : AssetData.fromStream(is, null);
+        }
+
         /**
          * Match happens when:
          *      - Scheme is "https" or the scheme is "http" and http is enabled.
@@ -159,27 +201,85 @@ public class WebViewAssetLoader {
 
     static class AssetsPathHandler extends PathHandler {
         private AssetHelper mAssetHelper;
+        private final boolean mPrecompressedVariantsEnabled;
+
+        // Assets don't change while the app runs, so their mappings are kept by path, and so are
+        // the paths of missing precompressed variants.
+        private final Map<String, AssetData> mMappedAssets = new ConcurrentHashMap<>();
+        private final Set<String> mMissingVariants =
+                Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
         AssetsPathHandler(@NonNull final String authority, @NonNull final String path,
-                                boolean httpEnabled, @NonNull AssetHelper assetHelper) {
+                                boolean httpEnabled, @NonNull AssetHelper assetHelper,
+                                boolean precompressedVariantsEnabled) {
             super(authority, path, httpEnabled);
             mAssetHelper = assetHelper;
+            mPrecompressedVariantsEnabled = precompressedVariantsEnabled;
         }
 
         @Override
         public InputStream handle(Uri url) {
+            return mAssetHelper.openAsset(getAssetUri(url));
+        }
+
+        @RequiresApi(21)
+        @Override
+        AssetData handleData(@NonNull Uri url, @NonNull List<String> acceptedEncodings) {
+            Uri assetUri = getAssetUri(url);
+            if (mPrecompressedVariantsEnabled) {
+                for (int i = 0; i < PRECOMPRESSED_ENCODINGS.length; i++) {
+                    if (!acceptedEncodings.contains(PRECOMPRESSED_ENCODINGS[i])) {
+                        continue;
+                    }
+                    Uri variantUri = assetUri.buildUpon()
+                            .path(assetUri.getPath() + PRECOMPRESSED_EXTENSIONS[i]).build();
+                    if (mMissingVariants.contains(variantUri.getPath())) {
+                        continue;
+                    }
+                    AssetData data = openAsset(variantUri, PRECOMPRESSED_ENCODINGS[i]);
+                    if (data != null) {
+                        return data;
+                    }
+                    mMissingVariants.add(variantUri.getPath());
+                }
+            }
+            return openAsset(assetUri, null);
+        }
+
+        @RequiresApi(21)
+        @Nullable
+        private AssetData openAsset(@NonNull Uri assetUri, @Nullable String contentEncoding) {
+            AssetData data = mMappedAssets.get(assetUri.getPath());
+            if (data == null) {
+                data = mAssetHelper.mapAsset(assetUri);
+                if (data != null) {
+                    data = data.withContentEncoding(contentEncoding);
+                    mMappedAssets.put(assetUri.getPath(), data);
+                }
+            }
+            if (data != null) {
+                return data;
+            }
+            // The asset is compressed in the APK, or missing.
+            InputStream is = mAssetHelper.openAsset(assetUri);
+            return is == null ? null : AssetData.fromStream(is, contentEncoding);
+        }
+
+        @NonNull
+        private Uri getAssetUri(@NonNull Uri url) {
             String path = url.getPath().replaceFirst(this.mPath, "");
             Uri.Builder assetUriBuilder = new Uri.Builder();
             assetUriBuilder.path(path);
-            Uri assetUri = assetUriBuilder.build();
-
-            return mAssetHelper.openAsset(assetUri);
+            return assetUriBuilder.build();
         }
     }
 
     static class ResourcesPathHandler extends PathHandler {
         private AssetHelper mAssetHelper;
 
+        // Resources don't change while the app runs, so their mappings are kept by path.
+        private final Map<String, AssetData> mMappedResources = new ConcurrentHashMap<>();
+
         ResourcesPathHandler(@NonNull final String authority, @NonNull final String path,
                                 boolean httpEnabled, @NonNull AssetHelper assetHelper) {
             super(authority, path, httpEnabled);
@@ -188,12 +288,34 @@ public class WebViewAssetLoader {
 
         @Override
         public InputStream handle(Uri url) {
+            return mAssetHelper.openResource(getResourceUri(url));
+        }
+
+        @RequiresApi(21)
+        @Override
+        AssetData handleData(@NonNull Uri url, @NonNull List<String> acceptedEncodings) {
+            Uri resourceUri = getResourceUri(url);
+            AssetData data = mMappedResources.get(resourceUri.getPath());
+            if (data == null) {
+                data = mAssetHelper.mapResource(resourceUri);
+                if (data != null) {
+                    mMappedResources.put(resourceUri.getPath(), data);
+                }
+            }
+            if (data != null) {
+                return data;
+            }
+            // The resource is compressed in the APK, or missing.
+            InputStream is = mAssetHelper.openResource(resourceUri);
+            return is == null ? null : AssetData.fromStream(is, null);
+        }
+
+        @NonNull
+        private Uri getResourceUri(@NonNull Uri url) {
             String path = url.getPath().replaceFirst(this.mPath, "");
             Uri.Builder resourceUriBuilder = new Uri.Builder();
             resourceUriBuilder.path(path);
-            Uri resourceUri = resourceUriBuilder.build();
-
-            return mAssetHelper.openResource(resourceUri);
+            return resourceUriBuilder.build();
         }
     }
 
@@ -205,6 +327,8 @@ public class WebViewAssetLoader {
         private final Context mContext;
 
         boolean mAllowHttp;
+        boolean mServePrecompressedVariants;
+        int mCacheMaxAge;
         @NonNull Uri mAssetsUri;
         @NonNull Uri mResourcesUri;
 
@@ -263,6 +387,42 @@ public class WebViewAssetLoader {
             return this;
         }
 
+        /**
+         * Serve assets from their precompressed variants when the request accepts their content
+         * coding: the Brotli variant of "www/app.js" is "www/app.js.br", and its gzip variant is
+         * "www/app.js.gz". Assets without such variants are served as they are.
+         * The default is to not look for precompressed variants.
+         *
+         * This only applies to requests made through
+         * {@link WebViewAssetLoader#shouldInterceptRequest(WebResourceRequest)}.
+         *
+         * @return builder object.
+         */
+        public Builder servePrecompressedVariants() {
+            this.mServePrecompressedVariants = true;
+            return this;
+        }
+
+        /**
+         * Set how long, in seconds, the WebView may reuse responses without requesting them
+         * again. The default is 0, for which it's asked to revalidate them on each use.
+         *
+         * Assets and resources only change with the app, and WebView doesn't keep them across
+         * restarts of the app, so a long duration is usually safe.
+         * This only applies to requests made through
+         * {@link WebViewAssetLoader#shouldInterceptRequest(WebResourceRequest)}.
+         *
+         * @param seconds the maximum age of responses, in seconds.
+         * @return builder object.
+         */
+        public Builder setCacheMaxAge(int seconds) {
+            if (seconds < 0) {
+                throw new IllegalArgumentException("seconds should not be negative.");
+            }
+            this.mCacheMaxAge = seconds;
+            return this;
+        }
+
         /**
          * Build and return WebViewAssetLoader object.
          *
@@ -270,35 +430,29 @@ public class WebViewAssetLoader {
          */
         @NonNull
         public WebViewAssetLoader build() {
-            AssetHelper assetHelper = new AssetHelper(mContext);
-            PathHandler assetHandler = new AssetsPathHandler(mAssetsUri.getAuthority(),
-                                                mAssetsUri.getPath(), mAllowHttp, assetHelper);
-
-            PathHandler resourceHandler = new ResourcesPathHandler(mResourcesUri.getAuthority(),
-                                                    mResourcesUri.getPath(), mAllowHttp,
-                                                    assetHelper);
-
-            return new WebViewAssetLoader(assetHandler, resourceHandler);
+            return buildForTest(new AssetHelper(mContext));
         }
 
         @VisibleForTesting
         @NonNull
         /*package*/ WebViewAssetLoader buildForTest(@NonNull AssetHelper assetHelper) {
             PathHandler assetHandler = new AssetsPathHandler(mAssetsUri.getAuthority(),
-                                                mAssetsUri.getPath(), mAllowHttp, assetHelper);
+                                                mAssetsUri.getPath(), mAllowHttp, assetHelper,
+                                                mServePrecompressedVariants);
 
             PathHandler resourceHandler = new ResourcesPathHandler(mResourcesUri.getAuthority(),
                                                     mResourcesUri.getPath(), mAllowHttp,
                                                     assetHelper);
 
-            return new WebViewAssetLoader(assetHandler, resourceHandler);
+            return buildForTest(assetHandler, resourceHandler);
         }
 
         @VisibleForTesting
         @NonNull
         /*package*/ WebViewAssetLoader buildForTest(@NonNull PathHandler assetHandler,
                                                         @NonNull PathHandler resourceHandler) {
-            return new WebViewAssetLoader(assetHandler, resourceHandler);
+            String cacheControl = mCacheMaxAge > 0 ? "max-age=" + mCacheMaxAge : "no-cache";
+            return new WebViewAssetLoader(assetHandler, resourceHandler, cacheControl);
         }
 
         @NonNull
@@ -331,9 +485,11 @@ public class WebViewAssetLoader {
      * @param context context used to resolve resources/assets.
      */
     /*package*/ WebViewAssetLoader(@NonNull PathHandler assetHandler,
-                                        @NonNull PathHandler resourceHandler) {
+                                        @NonNull PathHandler resourceHandler,
+                                        @NonNull String cacheControl) {
         this.mAssetsHandler = assetHandler;
         this.mResourcesHandler = resourceHandler;
+        this.mCacheControl = cacheControl;
     }
 
     @Nullable
@@ -360,13 +516,29 @@ public class WebViewAssetLoader {
      * {@link android.webkit.WebViewClient#shouldInterceptRequest(android.webkit.WebView,
      * android.webkit.WebResourceRequest)}.
      *
+     * The range and the content codings accepted by the request are taken into account, see
+     * {@link WebViewAssetLoader}. Conditional requests are answered in full, as WebView doesn't
+     * take 3xx responses from this method.
+     *
      * @param request the request to process.
      * @return a response if the request URL had a matching registered url, null otherwise.
      */
     @RequiresApi(21)
     @Nullable
     public WebResourceResponse shouldInterceptRequest(WebResourceRequest request) {
-        return shouldInterceptRequestImpl(request.getUrl());
+        Uri url = request.getUrl();
+        PathHandler handler = getHandler(url);
+        if (handler == null) {
+            return null;
+        }
+        Map<String, String> requestHeaders = request.getRequestHeaders();
+        AssetData data = handler.handleData(url,
+                parseAcceptedEncodings(getHeader(requestHeaders, "Accept-Encoding")));
+        String mimeType = URLConnection.guessContentTypeFromName(url.getPath());
+        if (data == null) {
+            return new WebResourceResponse(mimeType, null, null);
+        }
+        return createResponse(mimeType, data, requestHeaders);
     }
 
     /**
@@ -388,13 +560,19 @@ public class WebViewAssetLoader {
     }
 
     @Nullable
-    private WebResourceResponse shouldInterceptRequestImpl(@NonNull Uri url) {
-        PathHandler handler;
+    private PathHandler getHandler(@NonNull Uri url) {
         if (mAssetsHandler.match(url)) {
-            handler = mAssetsHandler;
+            return mAssetsHandler;
         } else if (mResourcesHandler.match(url)) {
-            handler = mResourcesHandler;
-        } else {
+            return mResourcesHandler;
+        }
+        return null;
+    }
+
+    @Nullable
+    private WebResourceResponse shouldInterceptRequestImpl(@NonNull Uri url) {
+        PathHandler handler = getHandler(url);
+        if (handler == null) {
             return null;
         }
 
@@ -404,6 +582,156 @@ public class WebViewAssetLoader {
         return new WebResourceResponse(mimeType, null, is);
     }
 
+    @RequiresApi(21)
+    @NonNull
+    private WebResourceResponse createResponse(@Nullable String mimeType, @NonNull AssetData data,
+            @Nullable Map<String, String> requestHeaders) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", mCacheControl);
+        if (data.getETag() != null) {
+            headers.put("ETag", data.getETag());
+        }
+        if (data.getContentEncoding() != null) {
+            headers.put("Content-Encoding", data.getContentEncoding());
+            headers.put("Vary", "Accept-Encoding");
+        }
+        if (!data.isSeekable() || data.getContentEncoding() != null) {
+            // Ranges of encoded data would be ranges of the encoded bytes, which media elements
+            // don't expect.
+            headers.put("Accept-Ranges", "none");
+            if (data.getLength() >= 0) {
+                headers.put("Content-Length", Long.toString(data.getLength()));
+            }
+            return new WebResourceResponse(mimeType, null, 200, "OK", headers, data.getStream());
+        }
+
+        long length = data.getLength();
+        headers.put("Accept-Ranges", "bytes");
+        String range = getHeader(requestHeaders, "Range");
+        String ifRange = getHeader(requestHeaders, "If-Range");
+        // A range is only valid for the data it was requested for.
+        if (range != null && (ifRange == null || ifRange.equals(data.getETag()))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == RANGE_NOT_SATISFIABLE) {
+                headers.put("Content-Range", "bytes */" + length);
+                headers.put("Content-Length", "0");
+                return new WebResourceResponse(mimeType, null, 416, "Range Not Satisfiable",
+                        headers, new ByteArrayInputStream(new byte[0]));
+            }
+            if (bounds != null) {
+                headers.put("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + length);
+                headers.put("Content-Length", Long.toString(bounds[1] - bounds[0] + 1));
+                return new WebResourceResponse(mimeType, null, 206, "Partial Content", headers,
+                        data.getStream(bounds[0], bounds[1]));
+            }
+        }
+        headers.put("Content-Length", Long.toString(length));
+        return new WebResourceResponse(mimeType, null, 200, "OK", headers, data.getStream());
+    }
+
+    /**
+     * Parses the value of a Range header, for data of the given length.
+     *
+     * Only single byte ranges are supported, as requested by media elements. Other ranges are
+     * ignored and the whole data is returned, as HTTP allows.
+     *
+     * @return the offsets of the first and last bytes of the range, {@link #RANGE_NOT_SATISFIABLE}
+     *         if the range starts after the data, or null if the header should be ignored.
+     */
+    @VisibleForTesting
+    @Nullable
+    static long[] parseRange(@NonNull String range, long length) {
+        if (!range.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        long start;
+        long end;
+        try {
+            if (first.isEmpty()) {
+                // The last bytes of the data.
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength < 0) {
+                    return null;
+                }
+                if (suffixLength == 0) {
+                    return RANGE_NOT_SATISFIABLE;
+                }
+                start = Math.max(0, length - suffixLength);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (start < 0 || end < start) {
+                    return null;
+                }
+                end = Math.min(end, length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start >= length) {
+            return RANGE_NOT_SATISFIABLE;
+        }
+        return new long[] {start, end};
+    }
+
+    /**
+     * Parses the value of an Accept-Encoding header into the accepted content codings, in lower
+     * case. Content codings with a quality of 0 aren't accepted.
+     */
+    @VisibleForTesting
+    @NonNull
+    static List<String> parseAcceptedEncodings(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return Collections.emptyList();
+        }
+        List<String> encodings = new ArrayList<>();
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String encoding = parts[0].trim().toLowerCase(Locale.US);
+            if (encoding.isEmpty() || isZeroQuality(parts)) {
+                continue;
+            }
+            encodings.add(encoding);
+        }
+        return encodings;
+    }
+
+    private static boolean isZeroQuality(@NonNull String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Header names are case insensitive.
+    @Nullable
+    private static String getHeader(@Nullable Map<String, String> headers, @NonNull String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
     /**
      * Gets the http: scheme prefix at which assets are hosted.
      * @return  the http: scheme prefix at which assets are hosted. Can return null.
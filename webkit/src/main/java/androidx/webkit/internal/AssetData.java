@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.webkit.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The data of an asset or resource to respond with, along with what's known about it before
+ * reading it.
+ *
+ * Data read from a buffer, e.g. a memory mapped file, has a known length and a strong ETag, and
+ * can be read in ranges. Data read from a stream has neither.
+ */
+public final class AssetData {
+    @Nullable private final ByteBuffer mBuffer;
+    @Nullable private final InputStream mStream;
+    @Nullable private final String mETag;
+    @Nullable private final String mContentEncoding;
+
+    private AssetData(@Nullable ByteBuffer buffer, @Nullable InputStream stream,
+            @Nullable String eTag, @Nullable String contentEncoding) {
+        mBuffer = buffer;
+        mStream = stream;
+        mETag = eTag;
+        mContentEncoding = contentEncoding;
+    }
+
+    /**
+     * Creates data read from a stream, which can only be read once.
+     *
+     * @param stream the stream to read the data from.
+     * @param contentEncoding the content coding of the data, or null if it isn't encoded.
+     */
+    @NonNull
+    public static AssetData fromStream(@NonNull InputStream stream,
+            @Nullable String contentEncoding) {
+        return new AssetData(null, stream, null, contentEncoding);
+    }
+
+    /**
+     * Creates data read from the remaining bytes of a buffer. The buffer must not be modified
+     * afterwards, and the data can be read any number of times.
+     *
+     * @param buffer the buffer to read the data from.
+     * @param eTag the quoted strong entity tag of the data.
+     * @param contentEncoding the content coding of the data, or null if it isn't encoded.
+     */
+    @NonNull
+    public static AssetData fromBuffer(@NonNull ByteBuffer buffer, @NonNull String eTag,
+            @Nullable String contentEncoding) {
+        return new AssetData(buffer.slice(), null, eTag, contentEncoding);
+    }
+
+    /**
+     * Returns this data with the given content coding.
+     */
+    @NonNull
+    public AssetData withContentEncoding(@Nullable String contentEncoding) {
+        return new AssetData(mBuffer, mStream, mETag, contentEncoding);
+    }
+
+    /**
+     * Whether the data can be read in ranges, and has a known length.
+     */
+    public boolean isSeekable() {
+        return mBuffer != null;
+    }
+
+    /**
+     * Returns the length of the data, or -1 if it isn't known.
+     */
+    public long getLength() {
+        return mBuffer != null ? mBuffer.remaining() : -1;
+    }
+
+    /**
+     * Returns the quoted strong entity tag of the data, or null if there's none.
+     */
+    @Nullable
+    public String getETag() {
+        return mETag;
+    }
+
+    /**
+     * Returns the content coding of the data, or null if it isn't encoded.
+     */
+    @Nullable
+    public String getContentEncoding() {
+        return mContentEncoding;
+    }
+
+    /**
+     * Returns a stream reading the whole data.
+     */
+    @NonNull
+    public InputStream getStream() {
+        if (mStream != null) {
+            return mStream;
+        }
+        return new ByteBufferInputStream(mBuffer.duplicate());
+    }
+
+    /**
+     * Returns a stream reading a range of the data. The data must be seekable.
+     *
+     * @param start the offset of the first byte to read.
+     * @param end the offset of the last byte to read, inclusive.
+     */
+    @NonNull
+    public InputStream getStream(long start, long end) {
+        if (mBuffer == null) {
+            throw new IllegalStateException("The data can't be read in ranges");
+        }
+        if (start < 0 || end < start || end >= mBuffer.remaining()) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + "-" + end);
+        }
+        ByteBuffer range = mBuffer.duplicate();
+        range.position((int) start);
+        range.limit((int) end + 1);
+        return new ByteBufferInputStream(range);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(@NonNull ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(@NonNull byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, mBuffer.remaining());
+            mBuffer.get(buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long count) {
+            if (count <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(count, mBuffer.remaining());
+            mBuffer.position(mBuffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+    }
+}
@@ -17,17 +17,26 @@
 package androidx.webkit.internal;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.content.res.Resources;
 import android.net.Uri;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.StructStat;
 import android.util.Log;
 import android.util.TypedValue;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
+import java.io.Closeable;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
 
@@ -70,18 +79,17 @@ public class AssetHelper {
     }
 
     /**
-     * Open an InputStream for an Android resource.
+     * Returns the id of the raw resource at the given uri, or 0 if there's none.
      *
-     * @param uri The uri to load. The path must be of the form "asset_type/asset_name.ext".
-     * @return An InputStream to the Android resource.
+     * @param uri The uri of the resource. The path must be of the form
+     *            "asset_type/asset_name.ext".
      */
-    @Nullable
-    public InputStream openResource(@NonNull Uri uri) {
+    private int getRawResourceId(@NonNull Uri uri) {
         // The path must be of the form "asset_type/asset_name.ext".
         List<String> pathSegments = uri.getPathSegments();
         if (pathSegments.size() != 2) {
             Log.e(TAG, "Incorrect resource path: " + uri);
-            return null;
+            return 0;
         }
         String assetType = pathSegments.get(0);
         String assetName = pathSegments.get(1);
@@ -92,13 +100,58 @@ public class AssetHelper {
             int fieldId = getFieldId(assetType, assetName);
             int valueType = getValueType(fieldId);
             if (valueType == TypedValue.TYPE_STRING) {
-                return handleSvgzStream(uri, mContext.getResources().openRawResource(fieldId));
+                return fieldId;
             } else {
                 Log.e(TAG, "Asset not of type string: " + uri);
-                return null;
+                return 0;
             }
         } catch (Resources.NotFoundException e) {
             Log.e(TAG, "Resource not found from URL: " + uri, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Open an InputStream for an Android resource.
+     *
+     * @param uri The uri to load. The path must be of the form "asset_type/asset_name.ext".
+     * @return An InputStream to the Android resource.
+     */
+    @Nullable
+    public InputStream openResource(@NonNull Uri uri) {
+        int fieldId = getRawResourceId(uri);
+        if (fieldId == 0) {
+            return null;
+        }
+        try {
+            return handleSvgzStream(uri, mContext.getResources().openRawResource(fieldId));
+        } catch (Resources.NotFoundException e) {
+            Log.e(TAG, "Resource not found from URL: " + uri, e);
+            return null;
+        }
+    }
+
+    /**
+     * Map an Android resource into memory. Only resources stored uncompressed in the APK can be
+     * mapped.
+     *
+     * @param uri The uri to load. The path must be of the form "asset_type/asset_name.ext".
+     * @return The mapped resource, or null if it can't be mapped.
+     */
+    @RequiresApi(21)
+    @Nullable
+    public AssetData mapResource(@NonNull Uri uri) {
+        if (isSvgz(uri)) {
+            return null;
+        }
+        int fieldId = getRawResourceId(uri);
+        if (fieldId == 0) {
+            return null;
+        }
+        try {
+            return map(mContext.getResources().openRawResourceFd(fieldId));
+        } catch (Resources.NotFoundException e) {
+            // The resource is compressed.
             return null;
         }
     }
@@ -111,17 +164,86 @@ public class AssetHelper {
      */
     @Nullable
     public InputStream openAsset(@NonNull Uri uri) {
+        try {
+            AssetManager assets = mContext.getAssets();
+            return handleSvgzStream(uri,
+                    assets.open(getAssetPath(uri), AssetManager.ACCESS_STREAMING));
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open asset URL: " + uri);
+            return null;
+        }
+    }
+
+    /**
+     * Map an Android asset into memory. Only assets stored uncompressed in the APK can be mapped,
+     * which is the case of media and precompressed files among others.
+     *
+     * @param uri The uri to load.
+     * @return The mapped asset, or null if it's missing or can't be mapped.
+     */
+    @RequiresApi(21)
+    @Nullable
+    public AssetData mapAsset(@NonNull Uri uri) {
+        if (isSvgz(uri)) {
+            return null;
+        }
+        try {
+            return map(mContext.getAssets().openFd(getAssetPath(uri)));
+        } catch (IOException e) {
+            // The asset is missing or compressed.
+            return null;
+        }
+    }
+
+    @NonNull
+    private static String getAssetPath(@NonNull Uri uri) {
         String path = uri.getPath();
         // Strip leading slash if present.
         if (path.length() > 1 && path.charAt(0) == '/') {
             path = path.substring(1);
         }
+        return path;
+    }
+
+    private static boolean isSvgz(@NonNull Uri uri) {
+        String lastPathSegment = uri.getLastPathSegment();
+        return lastPathSegment != null && lastPathSegment.endsWith(".svgz");
+    }
+
+    /**
+     * Maps the file region of the given descriptor, and closes it.
+     *
+     * Its strong ETag identifies the region within the file, which is the APK and doesn't change
+     * while it's installed.
+     */
+    @RequiresApi(21)
+    @Nullable
+    private static AssetData map(@NonNull AssetFileDescriptor afd) {
+        FileInputStream stream = null;
+        try {
+            stream = afd.createInputStream();
+            StructStat stat = Os.fstat(afd.getFileDescriptor());
+            MappedByteBuffer buffer = stream.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    afd.getStartOffset(), afd.getLength());
+            String eTag = "\"" + Long.toHexString(stat.st_ino)
+                    + "-" + Long.toHexString(stat.st_mtime)
+                    + "-" + Long.toHexString(afd.getStartOffset())
+                    + "-" + Long.toHexString(afd.getLength()) + "\"";
+            return AssetData.fromBuffer(buffer, eTag, null);
+        } catch (IOException | ErrnoException e) {
+            Log.w(TAG, "Unable to map asset - " + e.getMessage());
+            return null;
+        } finally {
+            // The mapping stays valid once the file is closed.
+            closeQuietly(stream != null ? stream : afd);
+        }
+    }
+
+    private static void closeQuietly(@NonNull Closeable closeable) {
         try {
-            AssetManager assets = mContext.getAssets();
-            return handleSvgzStream(uri, assets.open(path, AssetManager.ACCESS_STREAMING));
+            closeable.close();
         } catch (IOException e) {
-            Log.e(TAG, "Unable to open asset URL: " + uri);
-            return null;
+            // Nothing to do.
         }
     }
 }